@@ -0,0 +1,75 @@
+package animals.bench;
+
+import animals.Animal;
+import animals.Bird;
+import animals.Fish;
+import animals.Species;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the getters and setters on {@link Animal}, {@link Bird}
+ * and {@link Fish}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AccessorBenchmark {
+
+    private Animal dog;
+    private Bird   bird;
+    private Fish   fish;
+
+    private int   age;
+    private float weight;
+
+    @Setup
+    public void setUp() {
+        dog  = Fixtures.sample(Species.DOG);
+        bird = (Bird) Fixtures.sample(Species.BIRD);
+        fish = (Fish) Fixtures.sample(Species.FISH);
+    }
+
+    @Benchmark
+    public void getters(Blackhole bh) {
+        bh.consume(dog.getName());
+        bh.consume(dog.getAge());
+        bh.consume(dog.getWeight());
+        bh.consume(dog.getColour());
+        bh.consume(dog.isFriendly());
+        bh.consume(dog.getHome());
+    }
+
+    @Benchmark
+    public void setters() {
+        dog.setAge(age++);
+        dog.setWeight(weight += 0.5F);
+        dog.setFriendly((age & 1) == 0);
+        dog.setColour("brown");
+        dog.setHome("kennel");
+        dog.setName("Buddy");
+    }
+
+    @Benchmark
+    public void subclassAccessors(Blackhole bh) {
+        bird.setNumberOfWings(bird.getNumberOfWings() ^ 1);
+        bird.setCanFly(!bird.canFly());
+        fish.setNumberOfFins(fish.getNumberOfFins() + 1);
+        bh.consume(bird.canFly());
+        bh.consume(fish.getNumberOfFins());
+    }
+}
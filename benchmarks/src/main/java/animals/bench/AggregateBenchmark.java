@@ -0,0 +1,109 @@
+package animals.bench;
+
+import animals.Animal;
+import animals.Species;
+import animals.aggregate.ChangeFeed;
+import animals.aggregate.SpeciesTotals;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeping per-species totals current after one {@code setWeight} call:
+ * rescanning the whole population against draining a {@link ChangeFeed} into
+ * {@link SpeciesTotals}.
+ *
+ * <p>{@code setWeightUntracked} is the bare setter; {@code setWeightTracked}
+ * adds publishing the change; {@code setWeightAndDrain} also applies it, so
+ * the totals are current after every call. {@code rescan} is what a dashboard
+ * pays today to recompute the same totals.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AggregateBenchmark {
+
+    @Param({"100000"})
+    private int size;
+
+    private List<Animal> tracked;
+    private List<Animal> untracked;
+
+    private ChangeFeed feed;
+    private SpeciesTotals totals;
+
+    private int next;
+    private float weight;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        tracked   = Fixtures.population(size, 4);
+        untracked = Fixtures.population(size, 4);
+        totals    = new SpeciesTotals();
+        feed      = ChangeFeed.builder().aggregate(totals).build();
+        feed.trackAll(tracked);
+        feed.drain();
+    }
+
+    /** Returns the next animal index and a weight that differs from the last one set. */
+    private int advance() {
+        weight += 0.25F;
+        if (++next == size) {
+            next = 0;
+        }
+        return next;
+    }
+
+    @Benchmark
+    public void setWeightUntracked() {
+        untracked.get(advance()).setWeight(weight);
+    }
+
+    @Benchmark
+    public void setWeightTracked() {
+        tracked.get(advance()).setWeight(weight);
+        if (feed.pending() > 4096) {
+            feed.drain();
+        }
+    }
+
+    @Benchmark
+    public double setWeightAndDrain() {
+        tracked.get(advance()).setWeight(weight);
+        feed.drain();
+        return totals.totalWeight(Species.DOG);
+    }
+
+    @Benchmark
+    public void rescan(Blackhole bh) {
+        untracked.get(advance()).setWeight(weight);
+        double[] weights = new double[Species.values().length];
+        long[] ages      = new long[weights.length];
+        long[] friendly  = new long[weights.length];
+        for (Animal animal : untracked) {
+            int s = Species.of(animal).ordinal();
+            weights[s]  += animal.getWeight();
+            ages[s]     += animal.getAge();
+            friendly[s] += animal.isFriendly() ? 1 : 0;
+        }
+        bh.consume(weights);
+        bh.consume(ages);
+        bh.consume(friendly);
+    }
+}
@@ -0,0 +1,43 @@
+package animals.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of {@code benchmarks.jar}.
+ *
+ * <p>Accepts the usual JMH command line (e.g. a benchmark name regex, {@code -f},
+ * {@code -wi}) and always attaches the GC profiler, so every result also
+ * reports the allocation rate ({@code gc.alloc.rate.norm}, bytes per operation).</p>
+ *
+ * <pre>
+ *   mvn -pl benchmarks -am package
+ *   java -jar benchmarks/target/benchmarks.jar                  # everything
+ *   java -jar benchmarks/target/benchmarks.jar Dispatch         # one class
+ * </pre>
+ */
+public final class Benchmarks {
+
+    private Benchmarks() {
+        // Entry point only
+    }
+
+    /**
+     * Runs the selected benchmarks with the GC profiler attached.
+     *
+     * @param args JMH command-line options
+     * @throws RunnerException            if a benchmark fails
+     * @throws CommandLineOptionException if the options cannot be parsed
+     */
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build())
+                .run();
+    }
+}
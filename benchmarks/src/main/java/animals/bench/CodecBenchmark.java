@@ -0,0 +1,132 @@
+package animals.bench;
+
+import animals.Animal;
+import animals.Bird;
+import animals.Fish;
+import animals.Species;
+import animals.io.AnimalCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link AnimalCodec} against JDK serialization, per animal, over a batch of
+ * the four sample animals.
+ *
+ * <p>The animal classes are not {@code Serializable}, so the JDK side
+ * serializes {@link Mirror}, a record with the same fields; building the
+ * mirrors is part of the measured work, as converting would be in practice.
+ * The encoded sizes are printed once at set-up, both for the batch (where a
+ * JDK stream replaces repeated strings with back-references) and for one
+ * animal on its own, as when animals are sent one message at a time.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CodecBenchmark {
+
+    private static final int SIZE = 1024;
+
+    /** Serializable stand-in for an animal. */
+    record Mirror(byte species, String name, int age, float weight, String colour,
+                  boolean friendly, String home, int limbs, boolean canFly) implements Serializable {
+
+        static Mirror of(Animal animal) {
+            Species species = Species.of(animal);
+            int limbs = animal instanceof Bird bird ? bird.getNumberOfWings()
+                      : animal instanceof Fish fish ? fish.getNumberOfFins() : 0;
+            boolean canFly = animal instanceof Bird bird && bird.canFly();
+            return new Mirror(species.tag(), animal.getName(), animal.getAge(), animal.getWeight(),
+                    animal.getColour(), animal.isFriendly(), animal.getHome(), limbs, canFly);
+        }
+    }
+
+    private List<Animal> animals;
+    private ByteBuffer buffer;
+    private byte[] codecBytes;
+    private byte[] jdkBytes;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        animals = Fixtures.population(SIZE, 4);
+        buffer = ByteBuffer.allocate(AnimalCodec.encodedSize(animals));
+        AnimalCodec.encodeAll(animals, buffer);
+        codecBytes = buffer.array().clone();
+        jdkBytes = serialize();
+        System.out.printf("%nbatch bytes per animal: codec %.1f, JDK serialization %.1f%n",
+                (double) codecBytes.length / SIZE, (double) jdkBytes.length / SIZE);
+        ByteArrayOutputStream single = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(single)) {
+            out.writeObject(Mirror.of(animals.get(0)));
+        }
+        System.out.printf("single animal bytes: codec %d, JDK serialization %d%n",
+                AnimalCodec.encode(animals.get(0)).length, single.size());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public ByteBuffer encodeCodec() {
+        buffer.clear();
+        AnimalCodec.encodeAll(animals, buffer);
+        return buffer;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public List<Animal> decodeCodec() {
+        return AnimalCodec.decodeAll(ByteBuffer.wrap(codecBytes));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public byte[] encodeJdk() throws IOException {
+        return serialize();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public List<Mirror> decodeJdk() throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(jdkBytes))) {
+            int count = in.readInt();
+            List<Mirror> mirrors = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                mirrors.add((Mirror) in.readObject());
+            }
+            return mirrors;
+        }
+    }
+
+    private byte[] serialize() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(SIZE * 64);
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeInt(animals.size());
+            for (Animal animal : animals) {
+                out.writeObject(Mirror.of(animal));
+            }
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,62 @@
+package animals.bench;
+
+import animals.Bird;
+import animals.Cat;
+import animals.Dog;
+import animals.Fish;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of constructing each subclass, including the {@code Dog(String, int)}
+ * convenience constructor. Arguments come from fields so they are not
+ * constant-folded.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ConstructionBenchmark {
+
+    private String name   = "Buddy";
+    private int    age    = 3;
+    private float  weight = 3.3F;
+    private String colour = "black and white";
+    private String home   = "kennel";
+
+    @Benchmark
+    public Dog dogConvenience() {
+        return new Dog(name, age);
+    }
+
+    @Benchmark
+    public Dog dog() {
+        return new Dog(name, age, weight, colour, true, home);
+    }
+
+    @Benchmark
+    public Cat cat() {
+        return new Cat(name, age, weight, colour, true, home);
+    }
+
+    @Benchmark
+    public Bird bird() {
+        return new Bird(name, age, weight, colour, false, home, 2, true);
+    }
+
+    @Benchmark
+    public Fish fish() {
+        return new Fish(name, age, weight, colour, false, home, 4);
+    }
+}
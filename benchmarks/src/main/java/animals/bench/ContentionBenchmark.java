@@ -0,0 +1,140 @@
+package animals.bench;
+
+import animals.Animal;
+import animals.Bird;
+import animals.Species;
+import animals.concurrent.AnimalUpdates;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Four threads updating one shared animal: the atomic methods on
+ * {@link Animal} and {@link AnimalUpdates} against the same work done under
+ * {@code synchronized}.
+ *
+ * <p>The {@code *ReadWrite} groups run three readers and one writer of a
+ * two-field invariant (wing count and flight), comparing
+ * {@link AnimalUpdates#read}'s optimistic reads with a monitor.</p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class ContentionBenchmark {
+
+    private final AnimalUpdates updates = new AnimalUpdates(64);
+
+    private Animal dog;
+    private Bird   bird;
+
+    @Setup
+    public void setUp() {
+        dog  = Fixtures.sample(Species.DOG);
+        bird = (Bird) Fixtures.sample(Species.BIRD);
+    }
+
+    // -------------------------------------------------------------------------
+    // Single field
+    // -------------------------------------------------------------------------
+
+    @Benchmark
+    public int incrementAgeSynchronized() {
+        synchronized (dog) {
+            int age = dog.getAge();
+            dog.setAge(age + 1);
+            return age;
+        }
+    }
+
+    @Benchmark
+    public int incrementAgeAtomic() {
+        return dog.getAndAddAge(1);
+    }
+
+    @Benchmark
+    public float addWeightSynchronized() {
+        synchronized (dog) {
+            float weight = dog.getWeight() + 0.5F;
+            dog.setWeight(weight);
+            return weight;
+        }
+    }
+
+    @Benchmark
+    public float addWeightAtomic() {
+        return dog.addAndGetWeight(0.5F);
+    }
+
+    // -------------------------------------------------------------------------
+    // Two fields
+    // -------------------------------------------------------------------------
+
+    @Benchmark
+    public void clipWingsSynchronized() {
+        synchronized (bird) {
+            clipWings(bird);
+        }
+    }
+
+    @Benchmark
+    public void clipWingsStriped() {
+        updates.update(bird, ContentionBenchmark::clipWings);
+    }
+
+    @Benchmark
+    @Group("synchronizedReadWrite")
+    @GroupThreads(3)
+    public boolean readSynchronized() {
+        synchronized (bird) {
+            return consistent(bird);
+        }
+    }
+
+    @Benchmark
+    @Group("synchronizedReadWrite")
+    @GroupThreads(1)
+    public void writeSynchronized() {
+        clipWingsSynchronized();
+    }
+
+    @Benchmark
+    @Group("stripedReadWrite")
+    @GroupThreads(3)
+    public boolean readOptimistic() {
+        return updates.read(bird, ContentionBenchmark::consistent);
+    }
+
+    @Benchmark
+    @Group("stripedReadWrite")
+    @GroupThreads(1)
+    public void writeStriped() {
+        clipWingsStriped();
+    }
+
+    /** Toggles between two wings and flying, and one wing and grounded. */
+    private static void clipWings(Bird bird) {
+        boolean flying = bird.getNumberOfWings() != 2;
+        bird.setNumberOfWings(flying ? 2 : 1);
+        bird.setCanFly(flying);
+    }
+
+    private static boolean consistent(Bird bird) {
+        return bird.canFly() == (bird.getNumberOfWings() == 2);
+    }
+}
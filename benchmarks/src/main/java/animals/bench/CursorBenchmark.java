@@ -0,0 +1,114 @@
+package animals.bench;
+
+import animals.Animal;
+import animals.Bird;
+import animals.Species;
+import animals.store.AnimalStore;
+import animals.store.OffHeapPopulation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A full scan of a million stored animals — total weight of the birds that
+ * can fly, plus the length of every name — by materialising each row as an
+ * {@link Animal} and by moving a cursor over the rows.
+ *
+ * <p>The runner's GC profiler is the point of this benchmark:
+ * {@code gc.alloc.rate.norm} for the {@code cursor*} methods should be close
+ * to zero bytes per scan, against roughly 40 bytes per row (and a decoded
+ * name per row off-heap) for {@code materialise*}.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class CursorBenchmark {
+
+    private static final int SIZE = 1_000_000;
+
+    private AnimalStore       store;
+    private OffHeapPopulation offHeap;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<Animal> animals = Fixtures.population(SIZE, 4);
+        store   = new AnimalStore(SIZE);
+        offHeap = OffHeapPopulation.allocate(SIZE, 64L * SIZE);
+        for (Animal animal : animals) {
+            store.add(animal);
+            offHeap.add(animal);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        offHeap.close();
+    }
+
+    @Benchmark
+    public double materialiseStore() {
+        double weight = 0;
+        for (int row = 0; row < store.size(); row++) {
+            weight += scan(store.get(row));
+        }
+        return weight;
+    }
+
+    @Benchmark
+    public double cursorStore() {
+        double weight = 0;
+        AnimalStore.Cursor cursor = store.cursor();
+        while (cursor.next()) {
+            weight += cursor.name().length();
+            if (cursor.getSpecies() == Species.BIRD && cursor.canFly()) {
+                weight += cursor.getWeight();
+            }
+        }
+        return weight;
+    }
+
+    @Benchmark
+    public double materialiseOffHeap() {
+        double weight = 0;
+        for (long row = 0; row < offHeap.size(); row++) {
+            weight += scan(offHeap.get(row));
+        }
+        return weight;
+    }
+
+    @Benchmark
+    public double cursorOffHeap() {
+        double weight = 0;
+        OffHeapPopulation.Cursor cursor = offHeap.cursor();
+        while (cursor.next()) {
+            weight += cursor.name().length();
+            if (cursor.getSpecies() == Species.BIRD && cursor.canFly()) {
+                weight += cursor.getWeight();
+            }
+        }
+        return weight;
+    }
+
+    private static double scan(Animal animal) {
+        double weight = animal.getName().length();
+        if (animal instanceof Bird bird && bird.canFly()) {
+            weight += bird.getWeight();
+        }
+        return weight;
+    }
+}
@@ -0,0 +1,80 @@
+package animals.bench;
+
+import animals.Animal;
+import animals.DescriptionCache;
+import animals.Species;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of rendering each subclass's description, both as a new
+ * {@code String} and into reused buffers with {@code describeTo}, and of
+ * fetching it again from {@link Animal#cachedDescription()} or a
+ * {@link DescriptionCache} while the animal is unchanged.
+ * The {@code gc.alloc.rate.norm} column shows the per-call garbage.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DescriptionBenchmark {
+
+    @Param({"DOG", "CAT", "BIRD", "FISH"})
+    private Species species;
+
+    private Animal animal;
+
+    private final StringBuilder sb = new StringBuilder(256);
+
+    private final ByteBuffer buffer = ByteBuffer.allocate(256);
+
+    private final DescriptionCache cache = new DescriptionCache(1024);
+
+    @Setup
+    public void setUp() {
+        animal = Fixtures.sample(species);
+    }
+
+    @Benchmark
+    public String toStringCall() {
+        return animal.toString();
+    }
+
+    @Benchmark
+    public int describeToStringBuilder() {
+        sb.setLength(0);
+        animal.describeTo(sb);
+        return sb.length();
+    }
+
+    @Benchmark
+    public int describeToByteBuffer() {
+        buffer.clear();
+        animal.describeTo(buffer);
+        return buffer.position();
+    }
+
+    @Benchmark
+    public String cachedDescription() {
+        return animal.cachedDescription();
+    }
+
+    @Benchmark
+    public String descriptionCache() {
+        return cache.describe(animal);
+    }
+}
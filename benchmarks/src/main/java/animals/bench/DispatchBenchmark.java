@@ -0,0 +1,91 @@
+package animals.bench;
+
+import animals.Animal;
+import animals.SpeciesDispatch;
+import animals.SpeciesGroups;
+import animals.sound.SoundSink;
+import animals.sound.SoundSinks;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@code animal.makeSound()} call site from {@code Main}'s
+ * {@code List<Animal>} loop, with 1, 2 or 4 species present.
+ *
+ * <p>With one species the site is monomorphic and inlined, with two it is
+ * bimorphic, and with four it is megamorphic and falls back to a virtual call.
+ * {@code makeSoundSwitch} sends the same loop through
+ * {@link SpeciesDispatch#makeSound(Animal)}, which tests for each final class
+ * of the sealed hierarchy and calls it directly; {@code makeSoundGrouped}
+ * runs the population pre-sorted into {@link SpeciesGroups}, one monomorphic
+ * loop per species. Output goes to the no-op sink so that the dispatch, not
+ * I/O, is measured. Each fork runs a single species count so that profiles
+ * do not leak between parameter values.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DispatchBenchmark {
+
+    private static final int SIZE = 1024;
+
+    @Param({"1", "2", "4"})
+    private int species;
+
+    private List<Animal>  animals;
+    private SpeciesGroups groups;
+
+    private SoundSink previous;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        animals  = Fixtures.population(SIZE, species);
+        groups   = SpeciesDispatch.group(animals);
+        previous = SoundSinks.install(SoundSinks.discard());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        SoundSinks.install(previous);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public void makeSound() {
+        for (Animal animal : animals) {
+            animal.makeSound();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public void makeSoundSwitch() {
+        for (Animal animal : animals) {
+            SpeciesDispatch.makeSound(animal);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public void makeSoundGrouped() {
+        groups.makeSound();
+    }
+}
@@ -0,0 +1,141 @@
+package animals.bench;
+
+import animals.Animal;
+import animals.Behaviour;
+import animals.sound.AnimalEvent;
+import animals.sound.AnimalEventPublisher;
+import animals.sound.AnimalEventPublisher.Overflow;
+import animals.sound.SoundSink;
+import animals.sound.SoundSinks;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost to the producer of {@code makeSound()} when its output goes to a
+ * slow consumer: through {@link AnimalEventPublisher} with each
+ * {@link Overflow} policy, and through a plain {@link SoundSink} that does the
+ * consumer's work inline as a synchronous {@code println} would.
+ *
+ * <p>The consumer stands in for a slow downstream system: it sleeps for
+ * 1 ms per {@value #BATCH} events, so it can take at most about 256,000
+ * events a second. Inline, every producer pays that share of the sleep. With
+ * {@code BLOCK} the producer is held to the consumer's rate too; with
+ * {@code DROP_OLDEST} and {@code SAMPLE} it runs at its own speed and the
+ * consumer sees a subset.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventPublisherBenchmark {
+
+    private static final int SIZE  = 1024;
+    private static final int BATCH = 256;
+
+    /** Publisher overflow policy, or {@code INLINE} for the synchronous sink. */
+    @Param({"INLINE", "BLOCK", "DROP_OLDEST", "SAMPLE"})
+    private String overflow;
+
+    private List<Animal> animals;
+
+    private AnimalEventPublisher publisher;
+    private SoundSink previous;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        animals = Fixtures.population(SIZE, 4);
+        SoundSink sink;
+        if (overflow.equals("INLINE")) {
+            sink = new SlowSink();
+        } else {
+            publisher = AnimalEventPublisher.builder()
+                    .bufferSize(4 * BATCH)
+                    .batchSize(BATCH)
+                    .overflow(Overflow.valueOf(overflow))
+                    .build();
+            publisher.subscribe(new SlowSubscriber());
+            sink = publisher;
+        }
+        previous = SoundSinks.install(sink);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        SoundSinks.install(previous);
+        if (publisher != null) {
+            publisher.close();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    public void makeSound() {
+        for (Animal animal : animals) {
+            animal.makeSound();
+        }
+    }
+
+    private static void consume() {
+        try {
+            Thread.sleep(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Does the consumer's work on the emitting thread. */
+    private static final class SlowSink implements SoundSink {
+
+        private int pending;
+
+        @Override
+        public synchronized void emit(Animal animal, Behaviour behaviour, String text) {
+            if (++pending == BATCH) {
+                pending = 0;
+                consume();
+            }
+        }
+    }
+
+    /** Does the consumer's work on the publisher's delivery thread. */
+    private static final class SlowSubscriber implements Flow.Subscriber<List<AnimalEvent>> {
+
+        private Flow.Subscription subscription;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(List<AnimalEvent> batch) {
+            consume();
+            subscription.request(1);
+        }
+
+        @Override
+        public void onError(Throwable throwable) { }
+
+        @Override
+        public void onComplete() { }
+    }
+}
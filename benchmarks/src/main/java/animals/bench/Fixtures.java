@@ -0,0 +1,46 @@
+package animals.bench;
+
+import animals.Animal;
+import animals.Bird;
+import animals.Cat;
+import animals.Dog;
+import animals.Fish;
+import animals.Species;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sample animals shared by the benchmarks — the same four as {@code Main}.
+ */
+final class Fixtures {
+
+    private Fixtures() {
+        // Static factories only
+    }
+
+    /**
+     * Creates one sample animal of the given species.
+     */
+    static Animal sample(Species species) {
+        return switch (species) {
+            case DOG  -> new Dog ("Buddy",    3, 3.3F, "black and white",  true,  "kennel");
+            case CAT  -> new Cat ("Whiskers", 2, 2.0F, "ginger",           true,  "cat basket");
+            case FISH -> new Fish("Bubbles",  3, 0.1F, "gold",             false, "goldfish bowl", 4);
+            case BIRD -> new Bird("Feathers", 2, 0.3F, "blue and yellow",  false, "cage in the lounge", 2, true);
+        };
+    }
+
+    /**
+     * Creates {@code size} animals cycling through the first {@code speciesCount}
+     * species, so that a call site over the list sees exactly that many receiver types.
+     */
+    static List<Animal> population(int size, int speciesCount) {
+        Species[] all = Species.values();
+        List<Animal> animals = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            animals.add(sample(all[i % speciesCount]));
+        }
+        return animals;
+    }
+}
@@ -0,0 +1,99 @@
+package animals.bench;
+
+import animals.Animal;
+import animals.metrics.AnimalMetrics;
+import animals.sound.SoundSink;
+import animals.sound.SoundSinks;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost of {@link AnimalMetrics} on {@code makeSound()} and
+ * {@code toString()}, with instrumentation off and on.
+ *
+ * <p>{@link AnimalMetrics#ENABLED} is fixed when the class is loaded, so each
+ * setting runs in its own fork with {@code -Danimals.metrics} set. The
+ * {@code Off} methods measure what every caller pays by default and should
+ * match {@link DispatchBenchmark} and {@link DescriptionBenchmark}; the
+ * {@code On} methods add the counters, histograms and (unrecorded) JFR
+ * events. Output goes to the no-op sink.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Thread)
+public class MetricsBenchmark {
+
+    private static final int SIZE = 1024;
+
+    private List<Animal> animals;
+
+    private SoundSink previous;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        animals  = Fixtures.population(SIZE, 4);
+        previous = SoundSinks.install(SoundSinks.discard());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        SoundSinks.install(previous);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    @Fork(value = 1, jvmArgsAppend = "-Danimals.metrics=false")
+    public void makeSoundOff() {
+        makeSound();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    @Fork(value = 1, jvmArgsAppend = "-Danimals.metrics=true")
+    public void makeSoundOn() {
+        makeSound();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    @Fork(value = 1, jvmArgsAppend = "-Danimals.metrics=false")
+    public void toStringOff(Blackhole bh) {
+        describe(bh);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SIZE)
+    @Fork(value = 1, jvmArgsAppend = "-Danimals.metrics=true")
+    public void toStringOn(Blackhole bh) {
+        describe(bh);
+    }
+
+    private void makeSound() {
+        for (Animal animal : animals) {
+            animal.makeSound();
+        }
+    }
+
+    private void describe(Blackhole bh) {
+        for (Animal animal : animals) {
+            bh.consume(animal.toString());
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package animals.bench;
+
+import animals.Animal;
+import animals.Species;
+import animals.io.MutationLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * {@code setWeight} on an animal tracked by a {@link MutationLog}, from four
+ * threads, against writing and forcing a record per call.
+ *
+ * <p>{@code SYNC} setters wait for their record to be forced, so the
+ * difference from {@code forcePerWrite} is what group commit saves: one
+ * {@code fsync} covers the records of every thread that appended while the
+ * previous one ran ({@code forcePerWrite} ignores {@code commit}).
+ * {@code ASYNC} setters only append to memory. Results depend heavily on
+ * the disk; the log is written under {@code java.io.tmpdir}.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class MutationLogBenchmark {
+
+    @Param({"SYNC", "ASYNC"})
+    private MutationLog.Commit commit;
+
+    private Path directory;
+    private MutationLog log;
+    private FileChannel plain;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("mutation-log-bench");
+        log   = MutationLog.builder(directory.resolve("log")).commit(commit).open();
+        plain = FileChannel.open(directory.resolve("plain"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        log.close();
+        plain.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    /** One animal per thread, so the setters themselves do not race. */
+    @State(Scope.Thread)
+    public static class Subject {
+        Animal animal;
+        float weight;
+        final ByteBuffer record = ByteBuffer.allocate(16);
+
+        @Setup(Level.Trial)
+        public void setUp(MutationLogBenchmark benchmark) {
+            animal = Fixtures.sample(Species.DOG);
+            benchmark.log.track(animal);
+        }
+    }
+
+    @Benchmark
+    public void setWeight(Subject subject) {
+        subject.animal.setWeight(subject.weight += 0.25F);
+    }
+
+    @Benchmark
+    public void forcePerWrite(Subject subject) throws IOException {
+        ByteBuffer record = subject.record.clear();
+        record.putFloat(subject.weight += 0.25F).flip();
+        synchronized (plain) {
+            plain.write(record);
+            plain.force(false);
+        }
+    }
+}
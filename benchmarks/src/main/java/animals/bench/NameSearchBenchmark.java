@@ -0,0 +1,168 @@
+package animals.bench;
+
+import animals.Animal;
+import animals.Dog;
+import animals.index.NameSearchIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of {@link NameSearchIndex} lookups over 10,000,000 animals, as
+ * sampled percentiles: an exact name, a three-letter prefix, and names one
+ * and two typos away, against scanning every animal's {@code getName()} for
+ * the prefix and for one typo. {@code rename} is the cost {@code setName}
+ * pays to keep the index in step, including the occasional merge.
+ *
+ * <p>Names are two to four random syllables, a third of them with a number,
+ * so prefixes are shared as heavily as in real pet names. Queries are
+ * names from the population with one character replaced.</p>
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class NameSearchBenchmark {
+
+    private static final int SIZE    = 10_000_000;
+    private static final int QUERIES = 4096;
+
+    private static final String[] SYLLABLES = {
+        "ba", "be", "bi", "bo", "bu", "da", "de", "di", "do", "dy", "fa", "fe", "fi", "lo", "lu",
+        "ma", "me", "mi", "mo", "na", "ne", "ni", "no", "pa", "pe", "pi", "po", "ra", "re", "ri",
+        "ro", "sa", "se", "si", "so", "ta", "te", "ti", "to", "wa", "we", "wi", "zo", "ch", "sh",
+        "th", "ll", "dd", "ss", "tt", "ck", "rs", "ny", "ky", "ie", "oo", "ee", "ar", "er", "or",
+    };
+
+    private List<Animal>    animals;
+    private NameSearchIndex index;
+    private String[]        typos;
+    private String[]        prefixes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        animals = new ArrayList<>(SIZE);
+        for (int i = 0; i < SIZE; i++) {
+            animals.add(new Dog(name(random), 3, 10F, "brown", true, "kennel"));
+        }
+        index    = NameSearchIndex.of(animals);
+        typos    = new String[QUERIES];
+        prefixes = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            String name = animals.get(random.nextInt(SIZE)).getName();
+            int    at   = random.nextInt(name.length());
+            typos[i]    = name.substring(0, at) + (char) ('a' + random.nextInt(26)) + name.substring(at + 1);
+            prefixes[i] = name.substring(0, 3);
+        }
+    }
+
+    static String name(Random random) {
+        StringBuilder name = new StringBuilder();
+        for (int i = 2 + random.nextInt(3); i > 0; i--) {
+            name.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        name.setCharAt(0, Character.toUpperCase(name.charAt(0)));
+        if (random.nextInt(3) == 0) {
+            name.append(' ').append(random.nextInt(1000));
+        }
+        return name.toString();
+    }
+
+    private String typo() {
+        return typos[ThreadLocalRandom.current().nextInt(QUERIES)];
+    }
+
+    // -------------------------------------------------------------------------
+    // Index
+    // -------------------------------------------------------------------------
+
+    @Benchmark
+    public List<Animal> named() {
+        return index.named(animals.get(ThreadLocalRandom.current().nextInt(SIZE)).getName());
+    }
+
+    @Benchmark
+    public List<Animal> prefix() {
+        return index.withPrefix(prefixes[ThreadLocalRandom.current().nextInt(QUERIES)], 20);
+    }
+
+    @Benchmark
+    public List<NameSearchIndex.Match> oneEdit() {
+        return index.similarTo(typo(), 1, 20);
+    }
+
+    @Benchmark
+    public List<NameSearchIndex.Match> twoEdits() {
+        return index.similarTo(typo(), 2, 20);
+    }
+
+    @Benchmark
+    public void rename() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        animals.get(random.nextInt(SIZE)).setName(typos[random.nextInt(QUERIES)] + random.nextInt(100));
+    }
+
+    // -------------------------------------------------------------------------
+    // Full scans, for reference
+    // -------------------------------------------------------------------------
+
+    @Benchmark
+    public List<Animal> scanPrefix() {
+        String prefix = prefixes[ThreadLocalRandom.current().nextInt(QUERIES)];
+        List<Animal> result = new ArrayList<>();
+        for (Animal animal : animals) {
+            if (animal.getName().startsWith(prefix) && result.size() < 20) {
+                result.add(animal);
+            }
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<Animal> scanOneEdit() {
+        String query = typo();
+        List<Animal> result = new ArrayList<>();
+        for (Animal animal : animals) {
+            if (withinOneEdit(animal.getName(), query) && result.size() < 20) {
+                result.add(animal);
+            }
+        }
+        return result;
+    }
+
+    /** The cheapest exact one-edit test: trim the common ends, then compare what is left. */
+    private static boolean withinOneEdit(String a, String b) {
+        int difference = a.length() - b.length();
+        if (difference < -1 || difference > 1) {
+            return false;
+        }
+        int start = 0;
+        while (start < a.length() && start < b.length() && a.charAt(start) == b.charAt(start)) {
+            start++;
+        }
+        int endA = a.length();
+        int endB = b.length();
+        while (endA > start && endB > start && a.charAt(endA - 1) == b.charAt(endB - 1)) {
+            endA--;
+            endB--;
+        }
+        return endA - start <= 1 && endB - start <= 1;
+    }
+}
@@ -0,0 +1,108 @@
+package animals.bench;
+
+import animals.Animal;
+import animals.Bird;
+import animals.Species;
+import animals.query.ParallelQuery;
+import animals.query.SpeciesStats;
+import animals.store.AnimalStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scaling of {@link ParallelQuery} with the number of worker threads, over a
+ * {@code List<Animal>} and over an {@link AnimalStore} holding the same
+ * animals. {@code sequential*} are plain single-threaded loops for reference.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class QueryBenchmark {
+
+    private static final int SIZE = 4_000_000;
+
+    @Param({"1", "2", "4", "8"})
+    private int threads;
+
+    private List<Animal> animals;
+    private AnimalStore  store;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        animals = Fixtures.population(SIZE, 4);
+        store   = new AnimalStore(SIZE);
+        for (Animal animal : animals) {
+            store.add(animal);
+        }
+        pool = new ForkJoinPool(threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public SpeciesStats weightBySpeciesList() {
+        return ParallelQuery.over(animals).pool(pool).groupBySpecies(Animal::getWeight);
+    }
+
+    @Benchmark
+    public SpeciesStats weightBySpeciesStore() {
+        return ParallelQuery.over(store).pool(pool).groupBySpecies(store::getWeight);
+    }
+
+    @Benchmark
+    public long fliersList() {
+        return ParallelQuery.over(animals).pool(pool)
+                .where(a -> a instanceof Bird bird && bird.canFly())
+                .count();
+    }
+
+    @Benchmark
+    public long fliersStore() {
+        return ParallelQuery.over(store).pool(pool).species(Species.BIRD).where(store::canFly).count();
+    }
+
+    @Benchmark
+    public int[] oldestStore() {
+        return ParallelQuery.over(store).pool(pool).topK(100, store::getAge);
+    }
+
+    @Benchmark
+    public double sequentialWeightList() {
+        double sum = 0;
+        for (Animal animal : animals) {
+            sum += animal.getWeight();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double sequentialWeightStore() {
+        double sum = 0;
+        for (int row = 0; row < store.size(); row++) {
+            sum += store.getWeight(row);
+        }
+        return sum;
+    }
+}
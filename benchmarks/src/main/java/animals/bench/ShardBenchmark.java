@@ -0,0 +1,140 @@
+package animals.bench;
+
+import animals.Animal;
+import animals.Bird;
+import animals.Cat;
+import animals.Dog;
+import animals.Fish;
+import animals.Species;
+import animals.query.SpeciesStats;
+import animals.shard.ShardedRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of a {@link ShardedRegistry} as worker processes are added:
+ * scatter-gather counts and per-species statistics over 400,000 animals, a
+ * lookup by name that touches one shard, and loading 400,000 animals into
+ * freshly started workers.
+ *
+ * <p>Every shard is a separate JVM on this machine, so the gains from more
+ * shards are bounded by the number of cores: with fewer cores than shards
+ * the workers share them, and the extra round trips show as a cost
+ * instead.</p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ShardBenchmark {
+
+    private static final int SIZE  = 400_000;
+    private static final int NAMES = 300_000;
+
+    private static final String[] COLOURS = {"brown", "black", "white", "ginger", "grey"};
+    private static final String[] HOMES   = {"kennel", "house", "pond", "tree", "cage"};
+
+    @Param({"1", "2", "4"})
+    private int shards;
+
+    private List<Animal>    animals;
+    private ShardedRegistry registry;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        animals  = population();
+        registry = ShardedRegistry.builder().shards(shards).jvmOptions("-Xmx1g").build();
+        registry.addAll(animals);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        registry.close();
+    }
+
+    static List<Animal> population() {
+        Random random = new Random(42);
+        List<Animal> animals = new ArrayList<>(SIZE);
+        for (int i = 0; i < SIZE; i++) {
+            String  name     = "Pet " + random.nextInt(NAMES);
+            int     age      = random.nextInt(20);
+            float   weight   = random.nextInt(1000) / 10F;
+            String  colour   = COLOURS[random.nextInt(COLOURS.length)];
+            String  home     = HOMES[random.nextInt(HOMES.length)];
+            boolean friendly = random.nextBoolean();
+            animals.add(switch (i % 4) {
+                case 0  -> new Dog(name, age, weight, colour, friendly, home);
+                case 1  -> new Cat(name, age, weight, colour, friendly, home);
+                case 2  -> new Bird(name, age, weight, colour, friendly, home, 2, true);
+                default -> new Fish(name, age, weight, colour, friendly, home, 4);
+            });
+        }
+        return animals;
+    }
+
+    @Benchmark
+    public long count() {
+        return registry.query().species(Species.DOG).colour("brown").friendly(true).count();
+    }
+
+    @Benchmark
+    public SpeciesStats stats() {
+        return registry.query().home("pond").stats(ShardedRegistry.Measure.WEIGHT);
+    }
+
+    @Benchmark
+    public List<Animal> named() {
+        return registry.named("Pet " + ThreadLocalRandom.current().nextInt(NAMES));
+    }
+
+    // -------------------------------------------------------------------------
+    // Loading, into new workers each time
+    // -------------------------------------------------------------------------
+
+    /** Workers started before each load and stopped after it, outside the timing. */
+    @State(Scope.Thread)
+    public static class Empty {
+
+        ShardedRegistry registry;
+
+        @Setup(Level.Invocation)
+        public void setUp(ShardBenchmark benchmark) throws IOException {
+            registry = ShardedRegistry.builder().shards(benchmark.shards).jvmOptions("-Xmx1g").build();
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown() {
+            registry.close();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 5)
+    public long addAll(Empty empty) {
+        empty.registry.addAll(animals);
+        return empty.registry.size();
+    }
+}
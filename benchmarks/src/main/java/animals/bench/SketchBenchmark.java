@@ -0,0 +1,114 @@
+package animals.bench;
+
+import animals.Animal;
+import animals.Dog;
+import animals.sketch.AnimalSketches;
+import animals.store.AnimalStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Distinct colours and homes, weight and age medians and the twenty most
+ * common names over a million animals: exactly, with hash sets, sorted
+ * arrays and a name-count map, against {@link AnimalSketches} fed from the
+ * list and from an {@link AnimalStore} cursor.
+ *
+ * <p>The population is varied rather than the four shared fixtures: 50,000
+ * colours, 100,000 homes, and names drawn from 200,000 with a steep skew
+ * towards the first few, as real names are, so the exact structures grow
+ * as they would on real data. Compare {@code gc.alloc.rate.norm} as well
+ * as time: the sketches' memory is fixed, the exact structures' is not.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class SketchBenchmark {
+
+    private static final int SIZE = 1_000_000;
+    private static final int TOP  = 20;
+
+    private List<Animal> animals;
+    private AnimalStore  store;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        animals = new ArrayList<>(SIZE);
+        store   = new AnimalStore(SIZE);
+        for (int i = 0; i < SIZE; i++) {
+            // A uniform value to the fourth power skews the names steeply towards the low numbers
+            double skew = random.nextDouble();
+            Animal animal = new Dog("Rex " + (int) (skew * skew * skew * skew * 200_000), random.nextInt(1, 20),
+                    (float) (2 + 40 * random.nextDouble()), "colour " + random.nextInt(50_000),
+                    true, "home " + random.nextInt(100_000));
+            animals.add(animal);
+            store.add(animal);
+        }
+    }
+
+    @Benchmark
+    public long exact() {
+        Set<String> colours = new HashSet<>();
+        Set<String> homes   = new HashSet<>();
+        float[] weights = new float[animals.size()];
+        int[]   ages    = new int[animals.size()];
+        Map<String, Integer> names = new HashMap<>();
+        int row = 0;
+        for (Animal animal : animals) {
+            colours.add(animal.getColour());
+            homes.add(animal.getHome());
+            weights[row] = animal.getWeight();
+            ages[row]    = animal.getAge();
+            names.merge(animal.getName(), 1, Integer::sum);
+            row++;
+        }
+        Arrays.sort(weights);
+        Arrays.sort(ages);
+        List<Map.Entry<String, Integer>> top = new ArrayList<>(names.entrySet());
+        top.sort(Map.Entry.<String, Integer>comparingByValue().reversed());
+        return colours.size() + homes.size() + (long) weights[row / 2] + ages[row / 2]
+                + top.subList(0, TOP).get(TOP - 1).getValue();
+    }
+
+    @Benchmark
+    public long sketchList() {
+        AnimalSketches sketches = AnimalSketches.builder().topNames(TOP).build();
+        sketches.addAll(animals);
+        return summarise(sketches);
+    }
+
+    @Benchmark
+    public long sketchCursor() {
+        AnimalSketches sketches = AnimalSketches.builder().topNames(TOP).build();
+        sketches.addAll(store.cursor());
+        return summarise(sketches);
+    }
+
+    private static long summarise(AnimalSketches sketches) {
+        return sketches.colours().estimate() + sketches.homes().estimate()
+                + (long) sketches.weights().quantile(0.5) + (long) sketches.ages().quantile(0.5)
+                + sketches.names().top().get(TOP - 1).estimate();
+    }
+}
@@ -0,0 +1,156 @@
+package animals.bench;
+
+import animals.Animal;
+import animals.Dog;
+import animals.concurrent.AnimalState;
+import animals.concurrent.VersionedPopulation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Three readers scanning 100,000 animals while one writer changes two fields
+ * of random animals together, keeping {@code weight == 2 * age}: the
+ * reader-to-writer tradeoff of {@link VersionedPopulation} snapshots against
+ * a {@link ReentrantReadWriteLock} around live animals, and against no
+ * guarding at all.
+ *
+ * <p>Each scan returns how many animals it saw with the invariant broken:
+ * always zero for the versioned and locked groups, and occasionally not for
+ * {@code unguarded}, which shows what the other two pay for. Compare the
+ * writer's throughput across groups as well as the readers': a long scan
+ * under the read lock stalls the writer, while snapshots do not.</p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class SnapshotBenchmark {
+
+    private static final int SIZE = 100_000;
+
+    private VersionedPopulation    versioned;
+    private List<Animal>           animals;
+    private ReentrantReadWriteLock lock;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        versioned = VersionedPopulation.builder().initialCapacity(SIZE).build();
+        animals   = new ArrayList<>(SIZE);
+        lock      = new ReentrantReadWriteLock();
+        for (int i = 0; i < SIZE; i++) {
+            Animal animal = new Dog("Rex " + i, 5, 10F, "brown", true, "kennel");
+            versioned.add(animal);
+            animals.add(animal);
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Versioned
+    // -------------------------------------------------------------------------
+
+    @Benchmark
+    @Group("versioned")
+    @GroupThreads(3)
+    public int scanVersioned() {
+        int broken = 0;
+        try (VersionedPopulation.Snapshot snapshot = versioned.snapshot()) {
+            for (int row = 0; row < snapshot.size(); row++) {
+                AnimalState state = snapshot.get(row);
+                if (state.weight() != 2 * state.age()) {
+                    broken++;
+                }
+            }
+        }
+        return broken;
+    }
+
+    @Benchmark
+    @Group("versioned")
+    @GroupThreads(1)
+    public void writeVersioned() {
+        versioned.update(ThreadLocalRandom.current().nextInt(SIZE),
+                s -> s.withAge(s.age() % 50 + 1).withWeight(2 * (s.age() % 50 + 1)));
+    }
+
+    // -------------------------------------------------------------------------
+    // Read-write lock
+    // -------------------------------------------------------------------------
+
+    @Benchmark
+    @Group("readWriteLock")
+    @GroupThreads(3)
+    public int scanLocked() {
+        lock.readLock().lock();
+        try {
+            return scanLive();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Benchmark
+    @Group("readWriteLock")
+    @GroupThreads(1)
+    public void writeLocked() {
+        Animal animal = animals.get(ThreadLocalRandom.current().nextInt(SIZE));
+        lock.writeLock().lock();
+        try {
+            writeLive(animal);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Unguarded
+    // -------------------------------------------------------------------------
+
+    @Benchmark
+    @Group("unguarded")
+    @GroupThreads(3)
+    public int scanUnguarded() {
+        return scanLive();
+    }
+
+    @Benchmark
+    @Group("unguarded")
+    @GroupThreads(1)
+    public void writeUnguarded() {
+        writeLive(animals.get(ThreadLocalRandom.current().nextInt(SIZE)));
+    }
+
+    private int scanLive() {
+        int broken = 0;
+        for (Animal animal : animals) {
+            if (animal.getWeight() != 2 * animal.getAge()) {
+                broken++;
+            }
+        }
+        return broken;
+    }
+
+    private static void writeLive(Animal animal) {
+        int age = animal.getAge() % 50 + 1;
+        animal.setAge(age);
+        animal.setWeight(2 * age);
+    }
+}
@@ -0,0 +1,146 @@
+package animals.bench;
+
+import animals.Animal;
+import animals.store.AnimalStore;
+import animals.store.ColumnKernels;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole-column aggregates over a million animals: a {@code getWeight()} loop
+ * over a {@code List<Animal>}, and {@link AnimalStore}'s column analytics with
+ * the {@link ColumnKernels} in their Vector API and scalar forms.
+ *
+ * <p>The kernels are chosen when {@code ColumnKernels} is loaded, so each
+ * form runs in its own fork: {@code *Vector} with
+ * {@code --add-modules jdk.incubator.vector}, {@code *Scalar} with the module
+ * too but {@code -Danimals.vector=false}, so that only the kernels differ.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class VectorBenchmark {
+
+    private static final int SIZE = 1 << 20;
+
+    private List<Animal> animals;
+    private AnimalStore  store;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        animals = Fixtures.population(SIZE, 4);
+        store   = new AnimalStore(SIZE);
+        for (Animal animal : animals) {
+            store.add(animal);
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Baselines over List<Animal>
+    // -------------------------------------------------------------------------
+
+    @Benchmark
+    @Fork(1)
+    public double sumWeightList() {
+        double sum = 0;
+        for (Animal animal : animals) {
+            sum += animal.getWeight();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @Fork(1)
+    public int countWeightBetweenList() {
+        int count = 0;
+        for (Animal animal : animals) {
+            float weight = animal.getWeight();
+            if (weight >= 1 && weight <= 4) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // -------------------------------------------------------------------------
+    // AnimalStore, Vector API kernels
+    // -------------------------------------------------------------------------
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+    public double sumWeightVector() {
+        return store.totalWeight();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+    public float minWeightVector() {
+        return store.minWeight();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+    public float maxWeightVector() {
+        return store.maxWeight();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+    public double meanAgeVector() {
+        return store.meanAge();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+    public int countWeightBetweenVector() {
+        return store.countWeightBetween(1, 4);
+    }
+
+    // -------------------------------------------------------------------------
+    // AnimalStore, scalar kernels
+    // -------------------------------------------------------------------------
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector", "-Danimals.vector=false"})
+    public double sumWeightScalar() {
+        return store.totalWeight();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector", "-Danimals.vector=false"})
+    public float minWeightScalar() {
+        return store.minWeight();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector", "-Danimals.vector=false"})
+    public float maxWeightScalar() {
+        return store.maxWeight();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector", "-Danimals.vector=false"})
+    public double meanAgeScalar() {
+        return store.meanAge();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector", "-Danimals.vector=false"})
+    public int countWeightBetweenScalar() {
+        return store.countWeightBetween(1, 4);
+    }
+}
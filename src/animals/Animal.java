@@ -1,5 +1,18 @@
 package animals;
 
+import animals.metrics.AnimalMetrics;
+import animals.metrics.BehaviourEvent;
+import animals.metrics.DescriptionEvent;
+import animals.sound.SoundSinks;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+
 /**
  * Abstract base class representing a generic animal.
  *
@@ -15,8 +28,14 @@ package animals;
  *
  * <p>Because {@code Animal} is abstract it cannot be instantiated directly —
  * you must create an instance of a concrete subclass instead.</p>
+ *
+ * <p>The hierarchy is {@code sealed}: Dog, Cat, Bird and Fish are the only
+ * subclasses, and each is {@code final}. A {@code switch} over an
+ * {@code Animal} can therefore list the four cases without a default, and
+ * code that has tested an animal's class calls methods that cannot be
+ * overridden — see {@link SpeciesDispatch}.</p>
  */
-public abstract class Animal {
+public abstract sealed class Animal permits Dog, Cat, Bird, Fish {
 
     // -------------------------------------------------------------------------
     // Private fields — Encapsulation: data is hidden from outside classes and
@@ -41,6 +60,48 @@ public abstract class Animal {
     /** A description of where the animal lives. */
     private String home;
 
+    /** Shared empty array so animals without observers allocate nothing. */
+    private static final AnimalObserver[] NO_OBSERVERS = new AnimalObserver[0];
+
+    /** Observers notified by every setter; replaced, never modified in place. */
+    private volatile AnimalObserver[] observers = NO_OBSERVERS;
+
+    /**
+     * Incremented by every setter after it stores, so a description rendered
+     * at one stamp is known to be current while the stamp is unchanged.
+     */
+    private volatile int stamp;
+
+    /** Description memoized by {@link #cachedDescription()}; {@code null} until first used. */
+    private Described described;
+
+    /** A rendered description and the stamp it was rendered at. */
+    private record Described(int stamp, String text) { }
+
+    // VarHandles for the atomic update methods; see "Atomic updates" below
+    private static final VarHandle NAME;
+    private static final VarHandle AGE;
+    private static final VarHandle WEIGHT;
+    private static final VarHandle COLOUR;
+    private static final VarHandle FRIENDLY;
+    private static final VarHandle HOME;
+    private static final VarHandle STAMP;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            NAME     = lookup.findVarHandle(Animal.class, "name",     String.class);
+            AGE      = lookup.findVarHandle(Animal.class, "age",      int.class);
+            WEIGHT   = lookup.findVarHandle(Animal.class, "weight",   float.class);
+            COLOUR   = lookup.findVarHandle(Animal.class, "colour",   String.class);
+            FRIENDLY = lookup.findVarHandle(Animal.class, "friendly", boolean.class);
+            HOME     = lookup.findVarHandle(Animal.class, "home",     String.class);
+            STAMP    = lookup.findVarHandle(Animal.class, "stamp",    int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     // -------------------------------------------------------------------------
     // Constructor
     // -------------------------------------------------------------------------
@@ -51,6 +112,10 @@ public abstract class Animal {
      * <p>This constructor is called by every subclass via {@code super(...)} to
      * ensure the shared fields are always properly initialised.</p>
      *
+     * <p>The name, colour and home are passed through {@link StringPool#names()}
+     * and {@link StringPool#attributes()}, so animals with equal values share
+     * one {@code String} instance. The setters do the same.</p>
+     *
      * @param name     the animal's name
      * @param age      the animal's age in years
      * @param weight   the animal's weight in kilograms
@@ -59,12 +124,12 @@ public abstract class Animal {
      * @param home     a description of where the animal lives
      */
     public Animal(String name, int age, float weight, String colour, boolean friendly, String home) {
-        this.name     = name;
+        this.name     = StringPool.names().intern(name);
         this.age      = age;
         this.weight   = weight;
-        this.colour   = colour;
+        this.colour   = StringPool.attributes().intern(colour);
         this.friendly = friendly;
-        this.home     = home;
+        this.home     = StringPool.attributes().intern(home);
     }
 
     // -------------------------------------------------------------------------
@@ -81,27 +146,176 @@ public abstract class Animal {
      */
     public abstract void makeSound();
 
+    /**
+     * Outputs one line of behaviour on behalf of this animal: its name followed
+     * by {@code text}.
+     *
+     * <p>Subclasses call this from {@code makeSound()} and their own behaviours
+     * instead of printing directly, so the destination can be changed with
+     * {@link SoundSinks#install(animals.sound.SoundSink)}. By default the line
+     * is printed to standard output.</p>
+     *
+     * <p>When {@link AnimalMetrics#ENABLED} is set, the call is counted and
+     * timed; otherwise the check is folded away by the JIT compiler.</p>
+     *
+     * @param behaviour which behaviour is producing the line
+     * @param text      the text that follows the animal's name
+     */
+    protected final void emit(Behaviour behaviour, String text) {
+        if (!AnimalMetrics.ENABLED) {
+            SoundSinks.installed().emit(this, behaviour, text);
+            return;
+        }
+        emitMeasured(behaviour, text);
+    }
+
+    /** {@link #emit} with instrumentation; kept out of line so {@code emit} stays small. */
+    private void emitMeasured(Behaviour behaviour, String text) {
+        BehaviourEvent event = new BehaviourEvent();
+        event.begin();
+        long start = System.nanoTime();
+        try {
+            SoundSinks.installed().emit(this, behaviour, text);
+        } finally {
+            AnimalMetrics.behaviour(this, behaviour, start, event);
+        }
+    }
+
     // -------------------------------------------------------------------------
-    // toString — Human-readable description of the animal
+    // toString / describeTo — Human-readable description of the animal
     // -------------------------------------------------------------------------
 
     /**
      * Returns a formatted, human-readable description of this animal.
      *
-     * <p>Subclasses that have extra fields (e.g. {@code Bird} and {@code Fish})
-     * override this method and call {@code super.toString()} to build on it,
-     * appending their additional details.</p>
+     * <p>The text is rendered by {@link #describeTo(Appendable)}, so subclasses
+     * that add details override that method rather than this one.</p>
      *
      * @return a descriptive string summarising the animal's key attributes
      */
     @Override
     public String toString() {
-        return String.format(
-                "%s is %d years old, weighs %.1fkg, is %s in colour, %s friendly, and lives in a %s.",
-                name, age, weight, colour,
-                (friendly ? "is" : "is NOT"),
-                home
-        );
+        StringBuilder sb = new StringBuilder(160);
+        describeTo(sb);
+        return sb.toString();
+    }
+
+    /**
+     * Appends this animal's description — the same text as {@link #toString()} —
+     * to the given output without creating any intermediate strings.
+     *
+     * <p>Subclasses that have extra fields (e.g. {@code Bird} and {@code Fish})
+     * override this method and call {@code super.describeTo(out)} to build on it,
+     * appending their additional details.</p>
+     *
+     * @param out where to append the description
+     * @throws IOException if {@code out} throws
+     */
+    public void describeTo(Appendable out) throws IOException {
+        out.append(name).append(" is ");
+        Descriptions.appendInt(out, age);
+        out.append(" years old, weighs ");
+        Descriptions.appendWeight(out, weight);
+        out.append("kg, is ").append(colour)
+           .append(" in colour, ").append(friendly ? "is" : "is NOT")
+           .append(" friendly, and lives in a ").append(home)
+           .append('.');
+    }
+
+    /**
+     * Appends this animal's description to a {@code StringBuilder}.
+     *
+     * @param sb the builder to append to
+     */
+    public final void describeTo(StringBuilder sb) {
+        if (!AnimalMetrics.ENABLED) {
+            appendTo(sb);
+            return;
+        }
+        DescriptionEvent event = new DescriptionEvent();
+        event.begin();
+        long start = System.nanoTime();
+        try {
+            appendTo(sb);
+        } finally {
+            AnimalMetrics.description(this, start, event);
+        }
+    }
+
+    private void appendTo(StringBuilder sb) {
+        try {
+            describeTo((Appendable) sb);
+        } catch (IOException e) {
+            // StringBuilder never throws IOException
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes this animal's description into a buffer as UTF-8, starting at the
+     * buffer's position. The bytes are identical to
+     * {@code toString().getBytes(StandardCharsets.UTF_8)}.
+     *
+     * @param buffer the buffer to write to; its position is advanced
+     * @throws java.nio.BufferOverflowException if the buffer fills up, in which
+     *         case a prefix of the description may already have been written
+     */
+    public final void describeTo(ByteBuffer buffer) {
+        if (!AnimalMetrics.ENABLED) {
+            Descriptions.describeTo(this, buffer);
+            return;
+        }
+        DescriptionEvent event = new DescriptionEvent();
+        event.begin();
+        long start = System.nanoTime();
+        try {
+            Descriptions.describeTo(this, buffer);
+        } finally {
+            AnimalMetrics.description(this, start, event);
+        }
+    }
+
+    /**
+     * Returns this animal's description — the same text as {@link #toString()}
+     * — rendering it only if a setter has run since it was last rendered.
+     *
+     * <p>Caching is opt-in: an animal holds no cached text until this method
+     * is first called, and {@code toString()} always renders afresh. Every
+     * setter in {@code Animal}, {@code Bird} and {@code Fish}, including the
+     * {@code compareAndSet} methods, invalidates the cached text. Safe to call
+     * from many threads; a description rendered while a setter was running
+     * is returned but not cached. For a bounded cache over a whole population,
+     * see {@link DescriptionCache}.</p>
+     *
+     * @return the description
+     */
+    public String cachedDescription() {
+        int current = descriptionStamp();
+        Described cached = described;
+        if (cached != null && cached.stamp() == current) {
+            return cached.text();
+        }
+        String text = toString();
+        if (unchangedSince(current)) {
+            described = new Described(current, text);
+        }
+        return text;
+    }
+
+    /**
+     * Returns the stamp to pass to {@link #unchangedSince(int)} after rendering.
+     */
+    final int descriptionStamp() {
+        return (int) STAMP.getAcquire(this);
+    }
+
+    /**
+     * Returns whether no setter has run since {@code stamp} was read, so a
+     * description rendered in between may be cached against it.
+     */
+    final boolean unchangedSince(int stamp) {
+        VarHandle.acquireFence();
+        return (int) STAMP.getOpaque(this) == stamp;
     }
 
     // -------------------------------------------------------------------------
@@ -118,7 +332,15 @@ public abstract class Animal {
      * Sets the animal's name.
      * @param name the new name
      */
-    public void setName(String name) { this.name = name; }
+    public void setName(String name) {
+        name = StringPool.names().intern(name);
+        String old = this.name;
+        this.name = name;
+        changed();
+        for (AnimalObserver observer : observers) {
+            observer.nameChanged(this, old, name);
+        }
+    }
 
     /**
      * Returns the animal's age in years.
@@ -130,7 +352,14 @@ public abstract class Animal {
      * Sets the animal's age.
      * @param age the new age in years
      */
-    public void setAge(int age) { this.age = age; }
+    public void setAge(int age) {
+        int old = this.age;
+        this.age = age;
+        changed();
+        for (AnimalObserver observer : observers) {
+            observer.ageChanged(this, old, age);
+        }
+    }
 
     /**
      * Returns the animal's weight in kilograms.
@@ -142,7 +371,14 @@ public abstract class Animal {
      * Sets the animal's weight.
      * @param weight the new weight in kilograms
      */
-    public void setWeight(float weight) { this.weight = weight; }
+    public void setWeight(float weight) {
+        float old = this.weight;
+        this.weight = weight;
+        changed();
+        for (AnimalObserver observer : observers) {
+            observer.weightChanged(this, old, weight);
+        }
+    }
 
     /**
      * Returns the animal's colour.
@@ -154,7 +390,15 @@ public abstract class Animal {
      * Sets the animal's colour.
      * @param colour the new colour
      */
-    public void setColour(String colour) { this.colour = colour; }
+    public void setColour(String colour) {
+        colour = StringPool.attributes().intern(colour);
+        String old = this.colour;
+        this.colour = colour;
+        changed();
+        for (AnimalObserver observer : observers) {
+            observer.colourChanged(this, old, colour);
+        }
+    }
 
     /**
      * Returns whether the animal is friendly.
@@ -166,7 +410,14 @@ public abstract class Animal {
      * Sets the animal's friendliness.
      * @param friendly {@code true} if friendly, {@code false} otherwise
      */
-    public void setFriendly(boolean friendly) { this.friendly = friendly; }
+    public void setFriendly(boolean friendly) {
+        boolean old = this.friendly;
+        this.friendly = friendly;
+        changed();
+        for (AnimalObserver observer : observers) {
+            observer.friendlyChanged(this, old, friendly);
+        }
+    }
 
     /**
      * Returns a description of where the animal lives.
@@ -178,5 +429,261 @@ public abstract class Animal {
      * Sets the animal's home.
      * @param home a description of where the animal lives
      */
-    public void setHome(String home) { this.home = home; }
+    public void setHome(String home) {
+        home = StringPool.attributes().intern(home);
+        String old = this.home;
+        this.home = home;
+        changed();
+        for (AnimalObserver observer : observers) {
+            observer.homeChanged(this, old, home);
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Atomic updates — for animals shared between threads
+    // -------------------------------------------------------------------------
+    //
+    // The getters and setters above are plain field accesses: fast, but two
+    // threads updating the same animal can lose each other's writes, and a
+    // reader on another thread may see an old value. The methods below use
+    // VarHandles to read and write with volatile semantics and to update a
+    // field only if it still holds an expected value. Like the setters, they
+    // notify observers — but only when the update actually happens, after it,
+    // and without a lock: callbacks for two updates to one field can arrive
+    // in either order. Observers that keep per-animal state re-read the field
+    // (see AnimalObserver); AnimalRegistry, MutationLog and NameSearchIndex do.
+    //
+    // Every atomic method is linearizable for its own field. In concurrent
+    // code, update a field either only through these methods or only under a
+    // lock; a plain setter racing with them may still be lost. Invariants that
+    // span several fields need animals.concurrent.AnimalUpdates.
+
+    /**
+     * Sets the name if it is still {@code expectedName}. Names are compared by
+     * reference ({@code ==}), so pass the value returned by {@link #getName()}.
+     *
+     * @param expectedName the name this animal must have for the update to happen
+     * @param newName      the new name
+     * @return {@code true} if the name was updated
+     */
+    public boolean compareAndSetName(String expectedName, String newName) {
+        newName = StringPool.names().intern(newName);
+        if (!NAME.compareAndSet(this, expectedName, newName)) {
+            return false;
+        }
+        changedAtomically();
+        for (AnimalObserver observer : observers) {
+            observer.nameChanged(this, expectedName, newName);
+        }
+        return true;
+    }
+
+    /**
+     * Sets the age if it is still {@code expectedAge} — for example
+     * "increment the age if it is still 3". Observers are told after the
+     * update, in no fixed order with other updates to the age; see
+     * {@link AnimalObserver}.
+     *
+     * @param expectedAge the age this animal must have for the update to happen
+     * @param newAge      the new age in years
+     * @return {@code true} if the age was updated
+     */
+    public boolean compareAndSetAge(int expectedAge, int newAge) {
+        if (!AGE.compareAndSet(this, expectedAge, newAge)) {
+            return false;
+        }
+        changedAtomically();
+        for (AnimalObserver observer : observers) {
+            observer.ageChanged(this, expectedAge, newAge);
+        }
+        return true;
+    }
+
+    /**
+     * Atomically adds {@code delta} to the age. Observers are told after the
+     * update, in no fixed order with other updates to the age; see
+     * {@link AnimalObserver}.
+     *
+     * @param delta the number of years to add; may be negative. Adding zero
+     *              changes nothing and tells no observer
+     * @return the age before the update
+     */
+    public int getAndAddAge(int delta) {
+        if (delta == 0) {
+            return (int) AGE.getVolatile(this);
+        }
+        int old = (int) AGE.getAndAdd(this, delta);
+        changedAtomically();
+        for (AnimalObserver observer : observers) {
+            observer.ageChanged(this, old, old + delta);
+        }
+        return old;
+    }
+
+    /**
+     * Sets the weight if it is still {@code expectedWeight}. Weights are
+     * compared by their bit patterns, so {@code NaN} matches {@code NaN} and
+     * {@code 0.0F} does not match {@code -0.0F}. Observers are told after the
+     * update, in no fixed order with other updates to the weight; see
+     * {@link AnimalObserver}.
+     *
+     * @param expectedWeight the weight this animal must have for the update to happen
+     * @param newWeight      the new weight in kilograms
+     * @return {@code true} if the weight was updated
+     */
+    public boolean compareAndSetWeight(float expectedWeight, float newWeight) {
+        if (!WEIGHT.compareAndSet(this, expectedWeight, newWeight)) {
+            return false;
+        }
+        changedAtomically();
+        for (AnimalObserver observer : observers) {
+            observer.weightChanged(this, expectedWeight, newWeight);
+        }
+        return true;
+    }
+
+    /**
+     * Atomically adds {@code delta} to the weight, retrying if another thread
+     * changes it in the meantime. Observers are told after the update, in no
+     * fixed order with other updates to the weight; see {@link AnimalObserver}.
+     *
+     * @param delta the kilograms to add; may be negative. A delta that leaves
+     *              the weight as it was, such as zero, tells no observer
+     * @return the weight after the update
+     */
+    public float addAndGetWeight(float delta) {
+        while (true) {
+            float old = (float) WEIGHT.getVolatile(this);
+            float updated = old + delta;
+            if (Float.floatToRawIntBits(updated) == Float.floatToRawIntBits(old)) {
+                // Nothing to update, such as a zero delta or one lost to rounding
+                return updated;
+            }
+            if (WEIGHT.weakCompareAndSet(this, old, updated)) {
+                changedAtomically();
+                for (AnimalObserver observer : observers) {
+                    observer.weightChanged(this, old, updated);
+                }
+                return updated;
+            }
+        }
+    }
+
+    /**
+     * Sets the colour if it is still {@code expectedColour}, compared by reference.
+     *
+     * @param expectedColour the colour this animal must have for the update to happen
+     * @param newColour      the new colour
+     * @return {@code true} if the colour was updated
+     */
+    public boolean compareAndSetColour(String expectedColour, String newColour) {
+        newColour = StringPool.attributes().intern(newColour);
+        if (!COLOUR.compareAndSet(this, expectedColour, newColour)) {
+            return false;
+        }
+        changedAtomically();
+        for (AnimalObserver observer : observers) {
+            observer.colourChanged(this, expectedColour, newColour);
+        }
+        return true;
+    }
+
+    /**
+     * Sets the friendliness if it is still {@code expectedFriendly}.
+     *
+     * @param expectedFriendly the friendliness this animal must have for the update to happen
+     * @param newFriendly      the new friendliness
+     * @return {@code true} if the friendliness was updated
+     */
+    public boolean compareAndSetFriendly(boolean expectedFriendly, boolean newFriendly) {
+        if (!FRIENDLY.compareAndSet(this, expectedFriendly, newFriendly)) {
+            return false;
+        }
+        changedAtomically();
+        for (AnimalObserver observer : observers) {
+            observer.friendlyChanged(this, expectedFriendly, newFriendly);
+        }
+        return true;
+    }
+
+    /**
+     * Sets the home if it is still {@code expectedHome}, compared by reference.
+     *
+     * @param expectedHome the home this animal must have for the update to happen
+     * @param newHome      the new home
+     * @return {@code true} if the home was updated
+     */
+    public boolean compareAndSetHome(String expectedHome, String newHome) {
+        newHome = StringPool.attributes().intern(newHome);
+        if (!HOME.compareAndSet(this, expectedHome, newHome)) {
+            return false;
+        }
+        changedAtomically();
+        for (AnimalObserver observer : observers) {
+            observer.homeChanged(this, expectedHome, newHome);
+        }
+        return true;
+    }
+
+    // -------------------------------------------------------------------------
+    // Observers — change notification for indexes and other derived state
+    // -------------------------------------------------------------------------
+
+    /**
+     * Attaches an observer that will be told about every subsequent setter call.
+     *
+     * @param observer the observer to attach
+     */
+    public void addObserver(AnimalObserver observer) {
+        synchronized (this) {
+            AnimalObserver[] current = observers;
+            AnimalObserver[] grown = Arrays.copyOf(current, current.length + 1);
+            grown[current.length] = Objects.requireNonNull(observer, "observer");
+            observers = grown;
+        }
+    }
+
+    /**
+     * Detaches an observer previously passed to {@link #addObserver(AnimalObserver)}.
+     * Does nothing if the observer is not attached.
+     *
+     * @param observer the observer to detach
+     */
+    public void removeObserver(AnimalObserver observer) {
+        synchronized (this) {
+            AnimalObserver[] current = observers;
+            for (int i = 0; i < current.length; i++) {
+                if (current[i] == observer) {
+                    AnimalObserver[] shrunk = new AnimalObserver[current.length - 1];
+                    System.arraycopy(current, 0, shrunk, 0, i);
+                    System.arraycopy(current, i + 1, shrunk, i, current.length - i - 1);
+                    observers = shrunk.length == 0 ? NO_OBSERVERS : shrunk;
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the currently attached observers, for subclass setters to notify.
+     * The array must not be modified.
+     */
+    final AnimalObserver[] observers() { return observers; }
+
+    /**
+     * Marks cached descriptions stale; called by every plain setter after it
+     * stores. A release store, so cheaper than an atomic increment — two plain
+     * setters racing on one animal are already a data race.
+     */
+    final void changed() {
+        STAMP.setRelease(this, (int) STAMP.get(this) + 1);
+    }
+
+    /**
+     * Marks cached descriptions stale after an atomic update. Never loses an
+     * increment, even when updates to different fields race.
+     */
+    final void changedAtomically() {
+        STAMP.getAndAdd(this, 1);
+    }
 }
@@ -0,0 +1,102 @@
+package animals;
+
+/**
+ * Receives a callback whenever a setter changes an animal's state.
+ *
+ * <p>Observers are attached to individual animals with
+ * {@link Animal#addObserver(AnimalObserver)}. Each setter first stores the new
+ * value and then calls the matching method below on every attached observer,
+ * on the thread that called the setter. Callbacks are made even when the new
+ * value equals the old one.</p>
+ *
+ * <p><b>Ordering.</b> Callbacks are not serialised. The atomic update
+ * methods — {@code compareAndSet*}, {@link Animal#getAndAddAge} and
+ * {@link Animal#addAndGetWeight} — notify after their update succeeds and
+ * without holding a lock, so when two threads update one field the later
+ * update's callback may run first, or both may run at once. Each
+ * {@code (old, new)} pair is still a real transition, so an observer that
+ * only adds up {@code new - old} stays exact in any order. An observer that
+ * records the latest value, or that files the animal under a value, must
+ * not trust {@code new} to be current: under its own lock it should read
+ * the field back from the animal and compare it with the value it last
+ * recorded. Plain setters racing on one animal give no guarantees at
+ * all.</p>
+ *
+ * <p>Every method has an empty default body, so an observer only overrides
+ * the changes it cares about. Values are passed as primitives to avoid boxing
+ * on the setter path.</p>
+ */
+public interface AnimalObserver {
+
+    /**
+     * Called after {@link Animal#setName(String)}.
+     * @param animal   the animal that changed
+     * @param oldName  the previous name
+     * @param newName  the new name
+     */
+    default void nameChanged(Animal animal, String oldName, String newName) { }
+
+    /**
+     * Called after {@link Animal#setAge(int)}.
+     * @param animal the animal that changed
+     * @param oldAge the previous age
+     * @param newAge the new age
+     */
+    default void ageChanged(Animal animal, int oldAge, int newAge) { }
+
+    /**
+     * Called after {@link Animal#setWeight(float)}.
+     * @param animal    the animal that changed
+     * @param oldWeight the previous weight
+     * @param newWeight the new weight
+     */
+    default void weightChanged(Animal animal, float oldWeight, float newWeight) { }
+
+    /**
+     * Called after {@link Animal#setColour(String)}.
+     * @param animal    the animal that changed
+     * @param oldColour the previous colour
+     * @param newColour the new colour
+     */
+    default void colourChanged(Animal animal, String oldColour, String newColour) { }
+
+    /**
+     * Called after {@link Animal#setFriendly(boolean)}.
+     * @param animal      the animal that changed
+     * @param oldFriendly the previous friendliness
+     * @param newFriendly the new friendliness
+     */
+    default void friendlyChanged(Animal animal, boolean oldFriendly, boolean newFriendly) { }
+
+    /**
+     * Called after {@link Animal#setHome(String)}.
+     * @param animal  the animal that changed
+     * @param oldHome the previous home
+     * @param newHome the new home
+     */
+    default void homeChanged(Animal animal, String oldHome, String newHome) { }
+
+    /**
+     * Called after {@link Bird#setNumberOfWings(int)}.
+     * @param bird     the bird that changed
+     * @param oldWings the previous wing count
+     * @param newWings the new wing count
+     */
+    default void numberOfWingsChanged(Bird bird, int oldWings, int newWings) { }
+
+    /**
+     * Called after {@link Bird#setCanFly(boolean)}.
+     * @param bird      the bird that changed
+     * @param oldCanFly the previous flight capability
+     * @param newCanFly the new flight capability
+     */
+    default void canFlyChanged(Bird bird, boolean oldCanFly, boolean newCanFly) { }
+
+    /**
+     * Called after {@link Fish#setNumberOfFins(int)}.
+     * @param fish    the fish that changed
+     * @param oldFins the previous fin count
+     * @param newFins the new fin count
+     */
+    default void numberOfFinsChanged(Fish fish, int oldFins, int newFins) { }
+}
@@ -0,0 +1,27 @@
+package animals;
+
+/**
+ * Enumerates the behaviours that produce output: the polymorphic
+ * {@link Animal#makeSound()} and the subclass-specific actions.
+ *
+ * <p>Every line an animal prints is tagged with one of these constants so that
+ * a {@link animals.sound.SoundSink} can tell the behaviours apart without
+ * parsing the text.</p>
+ */
+public enum Behaviour {
+
+    /** {@link Animal#makeSound()}, implemented by every subclass. */
+    MAKE_SOUND,
+
+    /** {@link Dog#fetch()}. */
+    FETCH,
+
+    /** {@link Cat#climb()}. */
+    CLIMB,
+
+    /** {@link Fish#swim()}. */
+    SWIM,
+
+    /** {@link Bird#fly()}. */
+    FLY
+}
@@ -1,5 +1,9 @@
 package animals;
 
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
 /**
  * Represents a Bird — a concrete subclass of {@link Animal}.
  *
@@ -17,7 +21,7 @@ package animals;
  *   <li><b>Encapsulation</b> — new fields are {@code private} with getters/setters.</li>
  * </ul>
  */
-public class Bird extends Animal {
+public final class Bird extends Animal {
 
     // -------------------------------------------------------------------------
     // Bird-specific private fields
@@ -32,6 +36,20 @@ public class Bird extends Animal {
      */
     private boolean canFly;
 
+    // VarHandles for the atomic update methods
+    private static final VarHandle NUMBER_OF_WINGS;
+    private static final VarHandle CAN_FLY;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            NUMBER_OF_WINGS = lookup.findVarHandle(Bird.class, "numberOfWings", int.class);
+            CAN_FLY         = lookup.findVarHandle(Bird.class, "canFly",        boolean.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     // -------------------------------------------------------------------------
     // Constructor
     // -------------------------------------------------------------------------
@@ -72,25 +90,26 @@ public class Bird extends Animal {
      */
     @Override
     public void makeSound() {
-        System.out.println(getName() + " says: Chirp! Chirp!");
+        emit(Behaviour.MAKE_SOUND, " says: Chirp! Chirp!");
     }
 
     /**
-     * Returns a formatted description of the bird, extending the base description
+     * Appends a description of the bird, extending the base description
      * with information about wings and flight capability.
      *
-     * <p>Calls {@code super.toString()} to reuse the {@link Animal} description,
+     * <p>Calls {@code super.describeTo(out)} to reuse the {@link Animal} description,
      * then appends bird-specific details. This is a clean example of code reuse
      * through inheritance.</p>
      *
-     * @return a full descriptive string for this bird
+     * @param out where to append the description
+     * @throws IOException if {@code out} throws
      */
     @Override
-    public String toString() {
-        return super.toString() + String.format(
-                " It has %d wing(s) and %s fly.",
-                numberOfWings, (canFly ? "can" : "cannot")
-        );
+    public void describeTo(Appendable out) throws IOException {
+        super.describeTo(out);
+        out.append(" It has ");
+        Descriptions.appendInt(out, numberOfWings);
+        out.append(" wing(s) and ").append(canFly ? "can" : "cannot").append(" fly.");
     }
 
     // -------------------------------------------------------------------------
@@ -106,9 +125,9 @@ public class Bird extends Animal {
      */
     public void fly() {
         if (canFly) {
-            System.out.println(getName() + " is soaring through the sky!");
+            emit(Behaviour.FLY, " is soaring through the sky!");
         } else {
-            System.out.println(getName() + " cannot fly!");
+            emit(Behaviour.FLY, " cannot fly!");
         }
     }
 
@@ -126,7 +145,14 @@ public class Bird extends Animal {
      * Sets the number of wings.
      * @param numberOfWings the new wing count
      */
-    public void setNumberOfWings(int numberOfWings) { this.numberOfWings = numberOfWings; }
+    public void setNumberOfWings(int numberOfWings) {
+        int old = this.numberOfWings;
+        this.numberOfWings = numberOfWings;
+        changed();
+        for (AnimalObserver observer : observers()) {
+            observer.numberOfWingsChanged(this, old, numberOfWings);
+        }
+    }
 
     /**
      * Returns whether this bird is capable of flight.
@@ -138,5 +164,49 @@ public class Bird extends Animal {
      * Sets whether this bird can fly.
      * @param canFly {@code true} if the bird can fly
      */
-    public void setCanFly(boolean canFly) { this.canFly = canFly; }
+    public void setCanFly(boolean canFly) {
+        boolean old = this.canFly;
+        this.canFly = canFly;
+        changed();
+        for (AnimalObserver observer : observers()) {
+            observer.canFlyChanged(this, old, canFly);
+        }
+    }
+
+    /**
+     * Sets the number of wings if it is still {@code expectedWings}; see the
+     * atomic update methods on {@link Animal}.
+     *
+     * @param expectedWings the wing count this bird must have for the update to happen
+     * @param newWings      the new wing count
+     * @return {@code true} if the wing count was updated
+     */
+    public boolean compareAndSetNumberOfWings(int expectedWings, int newWings) {
+        if (!NUMBER_OF_WINGS.compareAndSet(this, expectedWings, newWings)) {
+            return false;
+        }
+        changedAtomically();
+        for (AnimalObserver observer : observers()) {
+            observer.numberOfWingsChanged(this, expectedWings, newWings);
+        }
+        return true;
+    }
+
+    /**
+     * Sets whether this bird can fly if it is still {@code expectedCanFly}.
+     *
+     * @param expectedCanFly the flight capability this bird must have for the update to happen
+     * @param newCanFly      the new flight capability
+     * @return {@code true} if the flight capability was updated
+     */
+    public boolean compareAndSetCanFly(boolean expectedCanFly, boolean newCanFly) {
+        if (!CAN_FLY.compareAndSet(this, expectedCanFly, newCanFly)) {
+            return false;
+        }
+        changedAtomically();
+        for (AnimalObserver observer : observers()) {
+            observer.canFlyChanged(this, expectedCanFly, newCanFly);
+        }
+        return true;
+    }
 }
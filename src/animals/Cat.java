@@ -11,7 +11,7 @@ package animals;
  *       cat-specific sound at runtime.</li>
  * </ul>
  */
-public class Cat extends Animal {
+public final class Cat extends Animal {
 
     // -------------------------------------------------------------------------
     // Constructor
@@ -45,7 +45,7 @@ public class Cat extends Animal {
      */
     @Override
     public void makeSound() {
-        System.out.println(getName() + " says: Meow! Meow!");
+        emit(Behaviour.MAKE_SOUND, " says: Meow! Meow!");
     }
 
     // -------------------------------------------------------------------------
@@ -59,6 +59,6 @@ public class Cat extends Animal {
      * can extend the base class with their own specific behaviours.</p>
      */
     public void climb() {
-        System.out.println(getName() + " is climbing the tree!");
+        emit(Behaviour.CLIMB, " is climbing the tree!");
     }
 }
@@ -0,0 +1,172 @@
+package animals;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded, least-recently-used cache of animal descriptions, for
+ * populations too large to keep every description in memory.
+ *
+ * <p>{@link #describe(Animal)} returns the same text as {@code toString()}.
+ * Each entry remembers the animal's change stamp when it was rendered, so an
+ * entry is re-rendered on its next use after any setter has run on the
+ * animal — invalidation needs no callback and costs setters nothing extra.
+ * When the cache is full, the least recently described animal is evicted.</p>
+ *
+ * <p>Entries are spread over segments by identity hash, each an access-ordered
+ * {@link LinkedHashMap} with its own lock, so concurrent readers of different
+ * animals rarely contend. Eviction is per segment, which approximates a
+ * global LRU order. The cache holds strong references to the animals it
+ * describes until they are evicted or {@linkplain #invalidate removed}.</p>
+ *
+ * <p>{@link #shared()} is sized by the system property
+ * {@code animals.descriptions.cache.max} (default 65,536 entries). For one
+ * animal described repeatedly, {@link Animal#cachedDescription()} needs no
+ * lookup at all.</p>
+ */
+public final class DescriptionCache {
+
+    private static final DescriptionCache SHARED =
+            new DescriptionCache(Integer.getInteger("animals.descriptions.cache.max", 1 << 16));
+
+    private final Segment[] segments;
+    private final int mask;
+    private final int maxSize;
+
+    private final LongAdder hits   = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Constructs an empty cache.
+     *
+     * @param maxSize the most descriptions held at once
+     * @throws IllegalArgumentException if {@code maxSize} is not positive
+     */
+    public DescriptionCache(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+        }
+        // Enough segments to keep lock contention low, but at least 16 entries each
+        int wanted = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 4));
+        int count  = Math.max(1, Math.min(wanted, Integer.highestOneBit(Math.max(1, maxSize / 16))));
+        this.segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(maxSize / count + (i < maxSize % count ? 1 : 0));
+        }
+        this.mask    = count - 1;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the process-wide cache.
+     */
+    public static DescriptionCache shared() {
+        return SHARED;
+    }
+
+    // -------------------------------------------------------------------------
+    // Lookup
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns the animal's description, from the cache if no setter has run
+     * on the animal since it was cached.
+     *
+     * @param animal the animal to describe
+     * @return the same text as {@code animal.toString()}
+     */
+    public String describe(Animal animal) {
+        Segment segment = segmentFor(animal);
+        int stamp = animal.descriptionStamp();
+        Entry entry;
+        synchronized (segment) {
+            entry = segment.get(animal);
+        }
+        if (entry != null && entry.stamp() == stamp) {
+            hits.increment();
+            return entry.text();
+        }
+        misses.increment();
+        // Render outside the lock; a description rendered during a setter is not cached
+        String text = animal.toString();
+        if (animal.unchangedSince(stamp)) {
+            synchronized (segment) {
+                segment.put(animal, new Entry(stamp, text));
+            }
+        }
+        return text;
+    }
+
+    /**
+     * Removes the animal's description, if cached.
+     *
+     * @param animal the animal to forget
+     */
+    public void invalidate(Animal animal) {
+        Segment segment = segmentFor(animal);
+        synchronized (segment) {
+            segment.remove(animal);
+        }
+    }
+
+    /**
+     * Removes every description.
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Statistics
+    // -------------------------------------------------------------------------
+
+    /** Returns how many descriptions are cached. */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /** Returns the most descriptions this cache holds. */
+    public int maxSize() { return maxSize; }
+
+    /** Returns how many lookups found a current description. */
+    public long hits() { return hits.sum(); }
+
+    /** Returns how many lookups had to render the description. */
+    public long misses() { return misses.sum(); }
+
+    private Segment segmentFor(Animal animal) {
+        int h = System.identityHashCode(animal);
+        return segments[(h ^ (h >>> 16)) & mask];
+    }
+
+    /** A cached description and the animal's stamp when it was rendered. */
+    private record Entry(int stamp, String text) { }
+
+    /** One lock's worth of entries, in access order. Guarded by itself. */
+    @SuppressWarnings("serial")
+    private static final class Segment extends LinkedHashMap<Animal, Entry> {
+
+        private final int capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Animal, Entry> eldest) {
+            return size() > capacity;
+        }
+    }
+}
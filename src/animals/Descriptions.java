@@ -0,0 +1,227 @@
+package animals;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+
+/**
+ * Allocation-free helpers used by {@link Animal#describeTo(Appendable)} and
+ * its overrides.
+ *
+ * <p>The descriptions were originally built with {@code String.format}, which
+ * parses the format string and creates several temporary strings on every
+ * call. The helpers here append the same characters directly, so rendering a
+ * description creates no garbage of its own.</p>
+ *
+ * <p>Output must stay identical to {@code String.format} in the default
+ * locale. When that locale uses non-ASCII digits or a decimal separator other
+ * than {@code '.'}, and for weights outside the range handled exactly below,
+ * the helpers fall back to {@code String.format} itself.</p>
+ */
+final class Descriptions {
+
+    /** Weights at or above this magnitude are rendered by {@code String.format}. */
+    private static final double FAST_WEIGHT_LIMIT = 1.0e7;
+
+    /** Result of checking a locale; replaced whenever the default locale changes. */
+    private record LocaleCheck(Locale locale, boolean plain) { }
+
+    /** The most recently checked default format locale. */
+    private static volatile LocaleCheck localeCheck = check(Locale.getDefault(Locale.Category.FORMAT));
+
+    /** Reusable UTF-8 encoders, one per thread. */
+    private static final ThreadLocal<Utf8Sink> UTF8_SINKS = ThreadLocal.withInitial(Utf8Sink::new);
+
+    private Descriptions() {
+        // Static helpers only
+    }
+
+    // -------------------------------------------------------------------------
+    // Numbers — equivalent to the "%d" and "%.1f" conversions
+    // -------------------------------------------------------------------------
+
+    /**
+     * Appends an {@code int} exactly as {@code String.format("%d", value)} would.
+     */
+    static void appendInt(Appendable out, int value) throws IOException {
+        if (!plainLocale()) {
+            out.append(String.format("%d", value));
+            return;
+        }
+        long v = value;
+        if (v < 0) {
+            out.append('-');
+            v = -v;
+        }
+        appendDigits(out, v);
+    }
+
+    /**
+     * Appends a weight exactly as {@code String.format("%.1f", weight)} would.
+     *
+     * <p>A {@code float} has a 24-bit significand, so below
+     * {@link #FAST_WEIGHT_LIMIT} both {@code weight * 10} and the {@code + 0.5}
+     * inside {@link Math#round(double)} are exact in {@code double} arithmetic.
+     * Rounding the magnitude therefore matches the formatter's HALF_UP rounding
+     * to one decimal place, ties included.</p>
+     */
+    static void appendWeight(Appendable out, float weight) throws IOException {
+        double magnitude = Math.abs((double) weight);
+        if (!(magnitude < FAST_WEIGHT_LIMIT) || !plainLocale()) {
+            // NaN, infinities, very large values and localised digits
+            out.append(String.format("%.1f", weight));
+            return;
+        }
+        // The formatter prints a sign for every negative value, including -0.0
+        if (Float.floatToRawIntBits(weight) < 0) {
+            out.append('-');
+        }
+        long tenths = Math.round(magnitude * 10);
+        appendDigits(out, tenths / 10);
+        out.append('.');
+        out.append((char) ('0' + tenths % 10));
+    }
+
+    /** Appends the decimal digits of a non-negative value. */
+    private static void appendDigits(Appendable out, long value) throws IOException {
+        long divisor = 1;
+        while (value / divisor >= 10) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            out.append((char) ('0' + (value / divisor) % 10));
+        }
+    }
+
+    /** Returns whether the default format locale renders numbers as plain ASCII. */
+    private static boolean plainLocale() {
+        Locale current = Locale.getDefault(Locale.Category.FORMAT);
+        LocaleCheck check = localeCheck;
+        if (check.locale() != current) {
+            check = check(current);
+            localeCheck = check;
+        }
+        return check.plain();
+    }
+
+    private static LocaleCheck check(Locale locale) {
+        DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
+        return new LocaleCheck(locale, symbols.getZeroDigit() == '0' && symbols.getDecimalSeparator() == '.');
+    }
+
+    // -------------------------------------------------------------------------
+    // UTF-8 output
+    // -------------------------------------------------------------------------
+
+    /**
+     * Renders an animal's description into a buffer as UTF-8, using this
+     * thread's reusable encoder.
+     */
+    static void describeTo(Animal animal, ByteBuffer buffer) {
+        Utf8Sink sink = UTF8_SINKS.get();
+        sink.target = buffer;
+        try {
+            animal.describeTo(sink);
+            sink.finish();
+        } catch (IOException e) {
+            // Utf8Sink never throws IOException
+            throw new AssertionError(e);
+        } finally {
+            sink.target = null;
+            sink.pendingHigh = 0;
+        }
+    }
+
+    /**
+     * An {@link Appendable} that encodes characters straight into a
+     * {@link ByteBuffer} as UTF-8. Unpaired surrogates are written as
+     * {@code '?'}, matching {@code String.getBytes(UTF_8)}.
+     */
+    private static final class Utf8Sink implements Appendable {
+
+        /** The buffer being written; set for the duration of one call. */
+        private ByteBuffer target;
+
+        /** A high surrogate waiting for its low half, or {@code 0}. */
+        private char pendingHigh;
+
+        @Override
+        public Appendable append(CharSequence csq) {
+            return append(csq == null ? "null" : csq, 0, csq == null ? 4 : csq.length());
+        }
+
+        @Override
+        public Appendable append(CharSequence csq, int start, int end) {
+            if (csq == null) {
+                return append("null", start, end);
+            }
+            for (int i = start; i < end; i++) {
+                append(csq.charAt(i));
+            }
+            return this;
+        }
+
+        @Override
+        public Appendable append(char c) {
+            if (pendingHigh != 0) {
+                char high = pendingHigh;
+                pendingHigh = 0;
+                if (Character.isLowSurrogate(c)) {
+                    putCodePoint(Character.toCodePoint(high, c));
+                    return this;
+                }
+                put('?');
+            }
+            if (Character.isHighSurrogate(c)) {
+                pendingHigh = c;
+            } else if (Character.isLowSurrogate(c)) {
+                put('?');
+            } else {
+                putCodePoint(c);
+            }
+            return this;
+        }
+
+        /** Flushes a trailing unpaired high surrogate. */
+        void finish() {
+            if (pendingHigh != 0) {
+                pendingHigh = 0;
+                put('?');
+            }
+        }
+
+        private void putCodePoint(int cp) {
+            if (cp < 0x80) {
+                put(cp);
+            } else if (cp < 0x800) {
+                ensure(2);
+                put(0xC0 | (cp >> 6));
+                put(0x80 | (cp & 0x3F));
+            } else if (cp < 0x10000) {
+                ensure(3);
+                put(0xE0 | (cp >> 12));
+                put(0x80 | ((cp >> 6) & 0x3F));
+                put(0x80 | (cp & 0x3F));
+            } else {
+                ensure(4);
+                put(0xF0 | (cp >> 18));
+                put(0x80 | ((cp >> 12) & 0x3F));
+                put(0x80 | ((cp >> 6) & 0x3F));
+                put(0x80 | (cp & 0x3F));
+            }
+        }
+
+        /** Fails before writing part of a multi-byte sequence. */
+        private void ensure(int bytes) {
+            if (target.remaining() < bytes) {
+                throw new BufferOverflowException();
+            }
+        }
+
+        private void put(int b) {
+            target.put((byte) b);
+        }
+    }
+}
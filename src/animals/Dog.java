@@ -13,7 +13,7 @@ package animals;
  *       constructor (name + age only) and a full constructor.</li>
  * </ul>
  */
-public class Dog extends Animal {
+public final class Dog extends Animal {
 
     // -------------------------------------------------------------------------
     // Constructors
@@ -64,7 +64,7 @@ public class Dog extends Animal {
      */
     @Override
     public void makeSound() {
-        System.out.println(getName() + " says: Woof! Woof!");
+        emit(Behaviour.MAKE_SOUND, " says: Woof! Woof!");
     }
 
     // -------------------------------------------------------------------------
@@ -79,6 +79,6 @@ public class Dog extends Animal {
      * which illustrates how subclasses extend the behaviour of a base class.</p>
      */
     public void fetch() {
-        System.out.println(getName() + " is fetching the ball!");
+        emit(Behaviour.FETCH, " is fetching the ball!");
     }
 }
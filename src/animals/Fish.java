@@ -1,5 +1,9 @@
 package animals;
 
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
 /**
  * Represents a Fish — a concrete subclass of {@link Animal}.
  *
@@ -17,7 +21,7 @@ package animals;
  *   <li><b>Encapsulation</b> — the new field is {@code private} with a getter/setter.</li>
  * </ul>
  */
-public class Fish extends Animal {
+public final class Fish extends Animal {
 
     // -------------------------------------------------------------------------
     // Fish-specific private field
@@ -26,6 +30,17 @@ public class Fish extends Animal {
     /** The number of fins this fish has. */
     private int numberOfFins;
 
+    /** VarHandle for {@link #compareAndSetNumberOfFins(int, int)}. */
+    private static final VarHandle NUMBER_OF_FINS;
+
+    static {
+        try {
+            NUMBER_OF_FINS = MethodHandles.lookup().findVarHandle(Fish.class, "numberOfFins", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     // -------------------------------------------------------------------------
     // Constructor
     // -------------------------------------------------------------------------
@@ -66,21 +81,25 @@ public class Fish extends Animal {
      */
     @Override
     public void makeSound() {
-        System.out.println(getName() + " doesn't make a sound — it's a fish!");
+        emit(Behaviour.MAKE_SOUND, " doesn't make a sound — it's a fish!");
     }
 
     /**
-     * Returns a formatted description of the fish, extending the base description
+     * Appends a description of the fish, extending the base description
      * with information about the number of fins.
      *
-     * <p>Calls {@code super.toString()} to reuse the {@link Animal} description,
+     * <p>Calls {@code super.describeTo(out)} to reuse the {@link Animal} description,
      * then appends the fish-specific fin detail.</p>
      *
-     * @return a full descriptive string for this fish
+     * @param out where to append the description
+     * @throws IOException if {@code out} throws
      */
     @Override
-    public String toString() {
-        return super.toString() + String.format(" It has %d fin(s).", numberOfFins);
+    public void describeTo(Appendable out) throws IOException {
+        super.describeTo(out);
+        out.append(" It has ");
+        Descriptions.appendInt(out, numberOfFins);
+        out.append(" fin(s).");
     }
 
     // -------------------------------------------------------------------------
@@ -94,7 +113,7 @@ public class Fish extends Animal {
      * extend the base class with their own specific behaviours.</p>
      */
     public void swim() {
-        System.out.println(getName() + " is swimming in the ocean!");
+        emit(Behaviour.SWIM, " is swimming in the ocean!");
     }
 
     // -------------------------------------------------------------------------
@@ -111,5 +130,31 @@ public class Fish extends Animal {
      * Sets the number of fins.
      * @param numberOfFins the new fin count
      */
-    public void setNumberOfFins(int numberOfFins) { this.numberOfFins = numberOfFins; }
+    public void setNumberOfFins(int numberOfFins) {
+        int old = this.numberOfFins;
+        this.numberOfFins = numberOfFins;
+        changed();
+        for (AnimalObserver observer : observers()) {
+            observer.numberOfFinsChanged(this, old, numberOfFins);
+        }
+    }
+
+    /**
+     * Sets the number of fins if it is still {@code expectedFins}; see the
+     * atomic update methods on {@link Animal}.
+     *
+     * @param expectedFins the fin count this fish must have for the update to happen
+     * @param newFins      the new fin count
+     * @return {@code true} if the fin count was updated
+     */
+    public boolean compareAndSetNumberOfFins(int expectedFins, int newFins) {
+        if (!NUMBER_OF_FINS.compareAndSet(this, expectedFins, newFins)) {
+            return false;
+        }
+        changedAtomically();
+        for (AnimalObserver observer : observers()) {
+            observer.numberOfFinsChanged(this, expectedFins, newFins);
+        }
+        return true;
+    }
 }
@@ -0,0 +1,63 @@
+package animals;
+
+/**
+ * Enumerates the concrete kinds of {@link Animal} in this package.
+ *
+ * <p>Compact storage formats cannot afford to keep a {@code Class} reference
+ * per animal, so they record a one-byte <em>species tag</em> instead. The tag
+ * of each constant is its ordinal and is therefore stable only as long as the
+ * constants below are never reordered — new species must be appended.</p>
+ */
+public enum Species {
+
+    /** A {@link Dog}. Tag {@code 0}. */
+    DOG,
+
+    /** A {@link Cat}. Tag {@code 1}. */
+    CAT,
+
+    /** A {@link Bird}. Tag {@code 2}. */
+    BIRD,
+
+    /** A {@link Fish}. Tag {@code 3}. */
+    FISH;
+
+    /** Cached copy of {@link #values()} so tag lookups do not allocate. */
+    private static final Species[] BY_TAG = values();
+
+    /**
+     * Returns the one-byte tag used to record this species in compact storage.
+     * @return the species tag
+     */
+    public byte tag() { return (byte) ordinal(); }
+
+    /**
+     * Returns the species recorded under the given tag.
+     *
+     * @param tag a tag previously returned by {@link #tag()}
+     * @return the matching species
+     * @throws IllegalArgumentException if the tag is not a known species
+     */
+    public static Species fromTag(int tag) {
+        if (tag < 0 || tag >= BY_TAG.length) {
+            throw new IllegalArgumentException("Unknown species tag: " + tag);
+        }
+        return BY_TAG[tag];
+    }
+
+    /**
+     * Returns the species of the given animal.
+     *
+     * @param animal the animal to classify
+     * @return the species of {@code animal}
+     * @throws IllegalArgumentException if {@code animal} is not one of the
+     *                                  four concrete subclasses
+     */
+    public static Species of(Animal animal) {
+        if (animal instanceof Dog)  return DOG;
+        if (animal instanceof Cat)  return CAT;
+        if (animal instanceof Bird) return BIRD;
+        if (animal instanceof Fish) return FISH;
+        throw new IllegalArgumentException("Unknown animal type: " + animal.getClass().getName());
+    }
+}
@@ -0,0 +1,138 @@
+package animals;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Runs behaviours across a mixed population without a megamorphic call site.
+ *
+ * <p>{@code for (Animal a : animals) a.makeSound()} calls through one site that
+ * sees all four classes. The JIT inlines a call site that has seen one or two
+ * receiver classes; past that it falls back to a virtual call through the
+ * vtable, and nothing behind the call can be inlined. Because {@link Animal}
+ * is sealed and every subclass is final, the methods here can instead test
+ * the animal's class: each branch calls a final class's method directly, so
+ * all four calls are inlined.</p>
+ *
+ * <p>The tests are an {@code instanceof} chain rather than a pattern
+ * {@code switch}. Against a final class each test is a single compare of the
+ * object's class pointer, whereas a type {@code switch} goes through the
+ * {@code SwitchBootstraps.typeSwitch} call site, which the JIT in JDK 21 does
+ * not reduce as far — measured, it was no faster than the virtual call.
+ * {@link SpeciesGroups} keeps an exhaustive {@code switch}, so adding a
+ * subclass still fails to compile until every dispatch path handles it.</p>
+ *
+ * <p>For repeated bulk work, {@link #group(Collection)} goes one step further
+ * and sorts a population into one list per species once, so that each
+ * {@link SpeciesGroups} loop has a single receiver class and no type test
+ * per element.</p>
+ *
+ * <pre>{@code
+ *   SpeciesDispatch.makeSoundAll(animals);          // one class test per animal
+ *
+ *   SpeciesGroups groups = SpeciesDispatch.group(animals);
+ *   groups.makeSound();                             // four monomorphic loops
+ * }</pre>
+ *
+ * <p>Output order differs between the two: {@code makeSoundAll} keeps the population's
+ * order, the groups run all dogs, then all cats, then birds, then fish.</p>
+ */
+public final class SpeciesDispatch {
+
+    private SpeciesDispatch() {
+        // Static methods only
+    }
+
+    // -------------------------------------------------------------------------
+    // Single animals
+    // -------------------------------------------------------------------------
+
+    /**
+     * Calls {@code makeSound()} on the animal through its final class.
+     *
+     * @param animal the animal to sound
+     */
+    public static void makeSound(Animal animal) {
+        if (animal instanceof Dog dog) {
+            dog.makeSound();
+        } else if (animal instanceof Cat cat) {
+            cat.makeSound();
+        } else if (animal instanceof Bird bird) {
+            bird.makeSound();
+        } else {
+            ((Fish) animal).makeSound();
+        }
+    }
+
+    /**
+     * Calls the animal's own activity: {@link Dog#fetch()}, {@link Cat#climb()},
+     * {@link Bird#fly()} or {@link Fish#swim()}.
+     *
+     * @param animal the animal to exercise
+     */
+    public static void perform(Animal animal) {
+        if (animal instanceof Dog dog) {
+            dog.fetch();
+        } else if (animal instanceof Cat cat) {
+            cat.climb();
+        } else if (animal instanceof Bird bird) {
+            bird.fly();
+        } else {
+            ((Fish) animal).swim();
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Populations
+    // -------------------------------------------------------------------------
+
+    /**
+     * Calls {@link #makeSound(Animal)} on every animal, in order.
+     *
+     * @param animals the animals to sound
+     */
+    public static void makeSoundAll(Iterable<? extends Animal> animals) {
+        for (Animal animal : animals) {
+            makeSound(animal);
+        }
+    }
+
+    /**
+     * Calls {@link #perform(Animal)} on every animal, in order.
+     *
+     * @param animals the animals to exercise
+     */
+    public static void performAll(Iterable<? extends Animal> animals) {
+        for (Animal animal : animals) {
+            perform(animal);
+        }
+    }
+
+    /**
+     * Sorts a population into one list per species, keeping the order of
+     * the animals within each species.
+     *
+     * <p>The groups hold the animals themselves, so setters are seen through
+     * them, but adding to or removing from {@code animals} afterwards is not.</p>
+     *
+     * @param animals the population to group
+     * @return the population grouped by species
+     */
+    public static SpeciesGroups group(Collection<? extends Animal> animals) {
+        SpeciesGroups.Builder builder = new SpeciesGroups.Builder(animals.size());
+        for (Animal animal : animals) {
+            builder.add(animal);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Convenience for {@link #group(Collection)} over the given animals.
+     *
+     * @param animals the population to group
+     * @return the population grouped by species
+     */
+    public static SpeciesGroups group(Animal... animals) {
+        return group(List.of(animals));
+    }
+}
@@ -0,0 +1,150 @@
+package animals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A population sorted into one array per species, built by
+ * {@link SpeciesDispatch#group(java.util.Collection)}.
+ *
+ * <p>Each bulk method runs four loops, one per species, and each loop calls
+ * a final class's method, so every call site is monomorphic and inlined no
+ * matter how the population is mixed. Animals run species by species — all
+ * dogs, then cats, birds and fish — in their original order within each
+ * species.</p>
+ *
+ * <p>Instances are immutable and safe to share between threads; the animals
+ * they hold are not copied.</p>
+ */
+public final class SpeciesGroups {
+
+    private final Dog[]  dogs;
+    private final Cat[]  cats;
+    private final Bird[] birds;
+    private final Fish[] fish;
+
+    private SpeciesGroups(Dog[] dogs, Cat[] cats, Bird[] birds, Fish[] fish) {
+        this.dogs  = dogs;
+        this.cats  = cats;
+        this.birds = birds;
+        this.fish  = fish;
+    }
+
+    // -------------------------------------------------------------------------
+    // Bulk behaviours
+    // -------------------------------------------------------------------------
+
+    /**
+     * Calls {@code makeSound()} on every animal, species by species.
+     */
+    public void makeSound() {
+        for (Dog dog : dogs) {
+            dog.makeSound();
+        }
+        for (Cat cat : cats) {
+            cat.makeSound();
+        }
+        for (Bird bird : birds) {
+            bird.makeSound();
+        }
+        for (Fish f : fish) {
+            f.makeSound();
+        }
+    }
+
+    /**
+     * Calls every animal's own activity — {@code fetch()}, {@code climb()},
+     * {@code fly()} or {@code swim()} — species by species.
+     */
+    public void perform() {
+        for (Dog dog : dogs) {
+            dog.fetch();
+        }
+        for (Cat cat : cats) {
+            cat.climb();
+        }
+        for (Bird bird : birds) {
+            bird.fly();
+        }
+        for (Fish f : fish) {
+            f.swim();
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Accessors
+    // -------------------------------------------------------------------------
+
+    /** Returns the dogs, as an unmodifiable list. */
+    public List<Dog> dogs() { return view(dogs); }
+
+    /** Returns the cats, as an unmodifiable list. */
+    public List<Cat> cats() { return view(cats); }
+
+    /** Returns the birds, as an unmodifiable list. */
+    public List<Bird> birds() { return view(birds); }
+
+    /** Returns the fish, as an unmodifiable list. */
+    public List<Fish> fish() { return view(fish); }
+
+    /**
+     * Returns how many animals of the given species there are.
+     *
+     * @param species the species to count
+     * @return the number of animals of that species
+     */
+    public int count(Species species) {
+        return switch (species) {
+            case DOG  -> dogs.length;
+            case CAT  -> cats.length;
+            case BIRD -> birds.length;
+            case FISH -> fish.length;
+        };
+    }
+
+    /** Returns the total number of animals. */
+    public int size() {
+        return dogs.length + cats.length + birds.length + fish.length;
+    }
+
+    private static <A extends Animal> List<A> view(A[] animals) {
+        return Collections.unmodifiableList(Arrays.asList(animals));
+    }
+
+    // -------------------------------------------------------------------------
+    // Builder
+    // -------------------------------------------------------------------------
+
+    /** Collects animals into per-species lists. Used by {@link SpeciesDispatch}. */
+    static final class Builder {
+
+        private final List<Dog>  dogs;
+        private final List<Cat>  cats;
+        private final List<Bird> birds;
+        private final List<Fish> fish;
+
+        Builder(int expectedSize) {
+            int each = Math.max(16, expectedSize / 4);
+            this.dogs  = new ArrayList<>(each);
+            this.cats  = new ArrayList<>(each);
+            this.birds = new ArrayList<>(each);
+            this.fish  = new ArrayList<>(each);
+        }
+
+        void add(Animal animal) {
+            switch (animal) {
+                case Dog  dog  -> dogs.add(dog);
+                case Cat  cat  -> cats.add(cat);
+                case Bird bird -> birds.add(bird);
+                case Fish f    -> fish.add(f);
+            }
+        }
+
+        SpeciesGroups build() {
+            return new SpeciesGroups(dogs.toArray(new Dog[0]), cats.toArray(new Cat[0]),
+                    birds.toArray(new Bird[0]), fish.toArray(new Fish[0]));
+        }
+    }
+}
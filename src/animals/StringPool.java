@@ -0,0 +1,196 @@
+package animals;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Predicate;
+
+/**
+ * A bounded, thread-safe dictionary of strings that hands out one shared
+ * instance for each distinct value.
+ *
+ * <p>Colours and homes come from a small vocabulary, but an animal loaded from
+ * a file or built from user input holds its own copy of each. Passing values
+ * through a pool makes equal values share one {@code String}, so the copies
+ * can be garbage collected, and lets an equality filter compare references
+ * instead of characters. {@link Animal}'s constructor and its
+ * {@code setName}, {@code setColour} and {@code setHome} setters use the pools
+ * returned by {@link #names()} and {@link #attributes()}.</p>
+ *
+ * <p>Each pooled value is also given a <em>dictionary code</em>: a small
+ * {@code int}, assigned in order from zero, that can stand in for the value
+ * in compact encodings ({@link #code(String)}, {@link #value(int)}).</p>
+ *
+ * <p><b>Bounded growth.</b> A pool holds at most {@code maxSize} values and
+ * never forgets one. Once it is full, new values are returned unchanged
+ * instead of being added, so a stream of unique strings cannot exhaust the
+ * heap — it just stops being deduplicated. For the same reason two equal
+ * strings are only guaranteed to be the same instance if the value is pooled;
+ * {@link #matcher(String)} builds a filter that is correct either way.</p>
+ *
+ * <p>Lookups of values already in the pool take no locks. Adding a value
+ * takes a short lock on the pool.</p>
+ */
+public final class StringPool {
+
+    /** Default size of {@link #attributes()}: colours and homes. */
+    private static final int DEFAULT_ATTRIBUTES_MAX = 1 << 16;
+
+    /** Default size of {@link #names()}; names are more varied, so more are kept. */
+    private static final int DEFAULT_NAMES_MAX = 1 << 18;
+
+    private static final StringPool ATTRIBUTES =
+            new StringPool(Integer.getInteger("animals.pool.attributes.max", DEFAULT_ATTRIBUTES_MAX));
+
+    private static final StringPool NAMES =
+            new StringPool(Integer.getInteger("animals.pool.names.max", DEFAULT_NAMES_MAX));
+
+    /** A pooled value and its dictionary code. */
+    private record Entry(String value, int code) { }
+
+    private final int maxSize;
+
+    /** Every pooled value, keyed by itself. */
+    private final ConcurrentHashMap<String, Entry> entries;
+
+    /** Pooled values by code; allocated in chunks as the pool grows. */
+    private volatile AtomicReferenceArray<String> byCode;
+
+    /** Number of values pooled; only changed while holding the pool's lock. */
+    private volatile int size;
+
+    /**
+     * Creates a pool.
+     *
+     * @param maxSize the most values the pool will hold; {@code 0} creates a
+     *                pool that returns every value unchanged
+     */
+    public StringPool(int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("maxSize must not be negative: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        this.entries = new ConcurrentHashMap<>(Math.min(maxSize, 1024));
+        this.byCode  = new AtomicReferenceArray<>(Math.min(maxSize, 1024));
+    }
+
+    /**
+     * Returns the pool used for colours and homes. Its size is set by the
+     * {@code animals.pool.attributes.max} system property (default 65,536).
+     */
+    public static StringPool attributes() {
+        return ATTRIBUTES;
+    }
+
+    /**
+     * Returns the pool used for names. Its size is set by the
+     * {@code animals.pool.names.max} system property (default 262,144).
+     */
+    public static StringPool names() {
+        return NAMES;
+    }
+
+    // -------------------------------------------------------------------------
+    // Interning
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns the pool's instance of {@code value}, adding it if it is new and
+     * there is room. Returns {@code value} itself if the pool is full and does
+     * not hold it, and {@code null} for {@code null}.
+     */
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        Entry entry = entries.get(value);
+        if (entry != null) {
+            return entry.value();
+        }
+        if (size >= maxSize) {
+            return value;
+        }
+        return add(value);
+    }
+
+    private synchronized String add(String value) {
+        Entry entry = entries.get(value);
+        if (entry != null) {
+            return entry.value();
+        }
+        int code = size;
+        if (code >= maxSize) {
+            return value;
+        }
+        AtomicReferenceArray<String> values = byCode;
+        if (code == values.length()) {
+            AtomicReferenceArray<String> grown =
+                    new AtomicReferenceArray<>((int) Math.min((long) code * 2, maxSize));
+            for (int i = 0; i < code; i++) {
+                grown.set(i, values.get(i));
+            }
+            byCode = values = grown;
+        }
+        values.set(code, value);
+        entries.put(value, new Entry(value, code));
+        size = code + 1;
+        return value;
+    }
+
+    // -------------------------------------------------------------------------
+    // Dictionary codes
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns the dictionary code of a pooled value, or {@code -1} if the value
+     * is not in the pool. Does not add the value.
+     */
+    public int code(String value) {
+        Entry entry = value == null ? null : entries.get(value);
+        return entry == null ? -1 : entry.code();
+    }
+
+    /**
+     * Returns the pooled value with the given dictionary code.
+     *
+     * @throws IndexOutOfBoundsException if no value has that code
+     */
+    public String value(int code) {
+        Objects.checkIndex(code, size);
+        return byCode.get(code);
+    }
+
+    /** Returns the number of values in the pool. */
+    public int size() {
+        return size;
+    }
+
+    /** Returns the most values the pool will hold. */
+    public int maxSize() {
+        return maxSize;
+    }
+
+    // -------------------------------------------------------------------------
+    // Filtering
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns a test for strings equal to {@code value}, for filtering values
+     * that went through this pool.
+     *
+     * <p>If {@code value} is pooled, the test compares references, which is
+     * as fast as a comparison can be. Otherwise — the pool is full and never
+     * saw the value — it falls back to {@link String#equals(Object)}.</p>
+     */
+    public Predicate<String> matcher(String value) {
+        if (value == null) {
+            return Objects::isNull;
+        }
+        Entry entry = entries.get(value);
+        if (entry == null) {
+            return value::equals;
+        }
+        String pooled = entry.value();
+        return s -> s == pooled;
+    }
+}
@@ -0,0 +1,385 @@
+package animals.aggregate;
+
+import animals.Animal;
+import animals.AnimalObserver;
+import animals.Bird;
+import animals.Fish;
+import animals.Species;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Carries setter changes from a population of animals to a set of
+ * {@link IncrementalAggregate}s through a lock-free ring buffer.
+ *
+ * <pre>{@code
+ * SpeciesTotals totals = new SpeciesTotals();
+ * ChangeFeed feed = ChangeFeed.builder().aggregate(totals).build();
+ * feed.trackAll(animals);
+ *
+ * dog.setWeight(31.5f);          // publishes a delta; no aggregate work yet
+ * feed.drain();                  // applies it: O(1), no rescan
+ * double total = totals.totalWeight(Species.DOG);
+ * }</pre>
+ *
+ * <p><b>Publishing.</b> The feed attaches itself to every tracked animal as an
+ * {@link AnimalObserver}. When {@code setAge}, {@code setWeight},
+ * {@code setFriendly}, the {@code Bird} and {@code Fish} setters or their
+ * {@code compareAndSet} forms change a value, the setter's thread claims a
+ * slot with a single CAS and writes the species, the field and the old and
+ * new values as primitives — no locks and no allocation. Setters that store
+ * an unchanged value publish nothing. Name, colour and home changes are not
+ * published.</p>
+ *
+ * <p><b>Applying.</b> {@link #drain()} hands every published change to each
+ * aggregate, in order, on the calling thread; only one thread drains at a
+ * time. Call it from a dashboard before reading, or periodically from a
+ * background thread. If the ring fills up because nobody is draining, the
+ * publishing setter drains it itself, so a full ring slows setters down but
+ * never loses a change.</p>
+ *
+ * <p>Aggregates stay exact because each change carries the value it replaced.
+ * Changes from the atomic update methods may be published out of order (see
+ * {@link AnimalObserver}), but every aggregate sums {@code new - old}, which
+ * gives the same total in any order. Two threads calling a plain setter on the <em>same</em> animal at once may
+ * both report the same old value; use the {@code compareAndSet} methods or
+ * {@link animals.concurrent.AnimalUpdates} for such animals.</p>
+ *
+ * <p><b>Tracking.</b> {@link #track(Animal)} publishes the animal's current
+ * values as changes from zero, and {@link #untrack(Animal)} publishes changes
+ * back to zero (see {@link IncrementalAggregate}). An animal should not be
+ * changed by another thread while it is being tracked or untracked, or that
+ * change may be counted twice or not at all. Aggregates are fixed when the
+ * feed is built so that every aggregate sees every change.</p>
+ */
+public final class ChangeFeed implements AnimalObserver {
+
+    // Field codes stored in each slot's header
+    private static final int MEMBERSHIP = 0;
+    private static final int AGE        = 1;
+    private static final int WEIGHT     = 2;
+    private static final int FRIENDLY   = 3;
+    private static final int WINGS      = 4;
+    private static final int CAN_FLY    = 5;
+    private static final int FINS       = 6;
+
+    /** Longs per slot: header (field and species), old value, new value. */
+    private static final int SLOT = 3;
+
+    private static final VarHandle SEQUENCE = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private static final Species[] SPECIES = Species.values();
+
+    private final IncrementalAggregate[] aggregates;
+
+    private final int mask;
+
+    /**
+     * Per slot: the position a producer may claim it at, or that position plus
+     * one once the change there is published.
+     */
+    private final long[] sequences;
+
+    /** Slot contents, {@value #SLOT} longs per slot. */
+    private final long[] slots;
+
+    /** Next position a producer will claim. */
+    private final AtomicLong tail = new AtomicLong();
+
+    /** Next position to apply; written only by the thread holding {@link #draining}. */
+    private volatile long head;
+
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    private final Set<Animal> tracked = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private ChangeFeed(Builder builder) {
+        this.aggregates = builder.aggregates.toArray(new IncrementalAggregate[0]);
+        this.mask       = builder.capacity - 1;
+        this.sequences  = new long[builder.capacity];
+        this.slots      = new long[builder.capacity * SLOT];
+        for (int i = 0; i < sequences.length; i++) {
+            sequences[i] = i;
+        }
+    }
+
+    /**
+     * Returns a builder with a capacity of 65,536 changes and no aggregates.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    // -------------------------------------------------------------------------
+    // Tracking
+    // -------------------------------------------------------------------------
+
+    /**
+     * Starts publishing the animal's changes, and publishes its current values.
+     * Tracking an animal that is already tracked has no effect.
+     *
+     * @param animal the animal to track
+     */
+    public void track(Animal animal) {
+        synchronized (tracked) {
+            if (!tracked.add(animal)) {
+                return;
+            }
+            animal.addObserver(this);
+            publishValues(animal, true);
+        }
+    }
+
+    /**
+     * Tracks every animal in a collection.
+     *
+     * @param population the animals to track
+     */
+    public void trackAll(Collection<? extends Animal> population) {
+        for (Animal animal : population) {
+            track(animal);
+        }
+    }
+
+    /**
+     * Stops publishing the animal's changes, and publishes the removal of its
+     * current values. Does nothing if the animal is not tracked.
+     *
+     * @param animal the animal to stop tracking
+     */
+    public void untrack(Animal animal) {
+        synchronized (tracked) {
+            if (!tracked.remove(animal)) {
+                return;
+            }
+            animal.removeObserver(this);
+            publishValues(animal, false);
+        }
+    }
+
+    /**
+     * Returns how many animals are tracked.
+     */
+    public int size() {
+        synchronized (tracked) {
+            return tracked.size();
+        }
+    }
+
+    private void publishValues(Animal animal, boolean joining) {
+        Species species = Species.of(animal);
+        publish(species, MEMBERSHIP, joining, 1);
+        publish(species, AGE, joining, animal.getAge());
+        publish(species, WEIGHT, joining, Float.floatToRawIntBits(animal.getWeight()));
+        publish(species, FRIENDLY, joining, animal.isFriendly() ? 1 : 0);
+        if (animal instanceof Bird bird) {
+            publish(species, WINGS, joining, bird.getNumberOfWings());
+            publish(species, CAN_FLY, joining, bird.canFly() ? 1 : 0);
+        } else if (animal instanceof Fish fish) {
+            publish(species, FINS, joining, fish.getNumberOfFins());
+        }
+    }
+
+    private void publish(Species species, int field, boolean joining, long value) {
+        publish(species, field, joining ? 0 : value, joining ? value : 0);
+    }
+
+    // -------------------------------------------------------------------------
+    // AnimalObserver — called on the setter's thread
+    // -------------------------------------------------------------------------
+
+    @Override
+    public void ageChanged(Animal animal, int oldAge, int newAge) {
+        if (oldAge != newAge) {
+            publish(Species.of(animal), AGE, oldAge, newAge);
+        }
+    }
+
+    @Override
+    public void weightChanged(Animal animal, float oldWeight, float newWeight) {
+        int oldBits = Float.floatToRawIntBits(oldWeight);
+        int newBits = Float.floatToRawIntBits(newWeight);
+        if (oldBits != newBits) {
+            publish(Species.of(animal), WEIGHT, oldBits, newBits);
+        }
+    }
+
+    @Override
+    public void friendlyChanged(Animal animal, boolean oldFriendly, boolean newFriendly) {
+        if (oldFriendly != newFriendly) {
+            publish(Species.of(animal), FRIENDLY, oldFriendly ? 1 : 0, newFriendly ? 1 : 0);
+        }
+    }
+
+    @Override
+    public void numberOfWingsChanged(Bird bird, int oldWings, int newWings) {
+        if (oldWings != newWings) {
+            publish(Species.BIRD, WINGS, oldWings, newWings);
+        }
+    }
+
+    @Override
+    public void canFlyChanged(Bird bird, boolean oldCanFly, boolean newCanFly) {
+        if (oldCanFly != newCanFly) {
+            publish(Species.BIRD, CAN_FLY, oldCanFly ? 1 : 0, newCanFly ? 1 : 0);
+        }
+    }
+
+    @Override
+    public void numberOfFinsChanged(Fish fish, int oldFins, int newFins) {
+        if (oldFins != newFins) {
+            publish(Species.FISH, FINS, oldFins, newFins);
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Ring buffer
+    // -------------------------------------------------------------------------
+
+    /**
+     * Claims the next slot, writes the change into it and publishes it. If the
+     * ring is full, drains it (or waits for the thread that is draining).
+     */
+    private void publish(Species species, int field, long oldValue, long newValue) {
+        long position;
+        int index;
+        while (true) {
+            position = tail.get();
+            index    = (int) position & mask;
+            long sequence = (long) SEQUENCE.getAcquire(sequences, index);
+            if (sequence == position) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+            } else if (sequence < position) {
+                // Full: the slot still holds the change from one lap ago
+                if (drain() == 0) {
+                    Thread.onSpinWait();
+                }
+            }
+            // Otherwise another producer claimed this position first; retry
+        }
+        int base = index * SLOT;
+        slots[base]     = (long) field << 8 | species.ordinal();
+        slots[base + 1] = oldValue;
+        slots[base + 2] = newValue;
+        SEQUENCE.setRelease(sequences, index, position + 1);
+    }
+
+    /**
+     * Applies every published change to the aggregates, on the calling thread.
+     * Returns immediately with {@code 0} if another thread is draining.
+     *
+     * @return the number of changes applied
+     */
+    public int drain() {
+        if (!draining.compareAndSet(false, true)) {
+            return 0;
+        }
+        long position = head;
+        int applied = 0;
+        try {
+            while (true) {
+                int index = (int) position & mask;
+                if ((long) SEQUENCE.getAcquire(sequences, index) != position + 1) {
+                    break;
+                }
+                int base = index * SLOT;
+                long header   = slots[base];
+                long oldValue = slots[base + 1];
+                long newValue = slots[base + 2];
+                // Free the slot before applying, so producers are not held up by aggregates
+                SEQUENCE.setRelease(sequences, index, position + mask + 1);
+                position++;
+                applied++;
+                apply(SPECIES[(int) header & 0xFF], (int) (header >>> 8), oldValue, newValue);
+            }
+        } finally {
+            head = position;
+            draining.set(false);
+        }
+        return applied;
+    }
+
+    /**
+     * Returns roughly how many published changes are waiting to be applied.
+     */
+    public long pending() {
+        return Math.max(0, tail.get() - head);
+    }
+
+    /**
+     * Returns the most changes the ring holds before setters start draining it.
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+
+    private void apply(Species species, int field, long oldValue, long newValue) {
+        for (IncrementalAggregate aggregate : aggregates) {
+            switch (field) {
+                case MEMBERSHIP -> aggregate.membershipChanged(species, (int) (newValue - oldValue));
+                case AGE        -> aggregate.ageChanged(species, (int) oldValue, (int) newValue);
+                case WEIGHT     -> aggregate.weightChanged(species,
+                                       Float.intBitsToFloat((int) oldValue), Float.intBitsToFloat((int) newValue));
+                case FRIENDLY   -> aggregate.friendlyChanged(species, oldValue != 0, newValue != 0);
+                case WINGS      -> aggregate.numberOfWingsChanged((int) oldValue, (int) newValue);
+                case CAN_FLY    -> aggregate.canFlyChanged(oldValue != 0, newValue != 0);
+                case FINS       -> aggregate.numberOfFinsChanged((int) oldValue, (int) newValue);
+                default         -> throw new IllegalStateException("unknown field code " + field);
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Builder
+    // -------------------------------------------------------------------------
+
+    /**
+     * Configures a {@link ChangeFeed}.
+     */
+    public static final class Builder {
+
+        private int capacity = 1 << 16;
+        private final List<IncrementalAggregate> aggregates = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Sets how many changes the ring holds, rounded up to a power of two.
+         */
+        public Builder capacity(int capacity) {
+            if (capacity < 1 || capacity > 1 << 26) {
+                throw new IllegalArgumentException("capacity must be between 1 and 2^26: " + capacity);
+            }
+            this.capacity = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+            return this;
+        }
+
+        /**
+         * Adds an aggregate to receive every change.
+         */
+        public Builder aggregate(IncrementalAggregate aggregate) {
+            aggregates.add(Objects.requireNonNull(aggregate, "aggregate"));
+            return this;
+        }
+
+        /**
+         * Creates the feed.
+         */
+        public ChangeFeed build() {
+            return new ChangeFeed(this);
+        }
+    }
+}
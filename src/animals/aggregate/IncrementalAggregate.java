@@ -0,0 +1,74 @@
+package animals.aggregate;
+
+import animals.Species;
+
+/**
+ * A running result over a population, kept up to date from the changes
+ * published by a {@link ChangeFeed} instead of by rescanning the animals.
+ *
+ * <p>Every change arrives as an old and a new value, so an aggregate that is a
+ * sum over the population — a total, a count, the numerator of a mean —
+ * updates in O(1) by subtracting the old value and adding the new one. An
+ * animal joining the feed arrives as {@link #membershipChanged} with
+ * {@code +1} followed by a change from zero (or {@code false}) to each of its
+ * current values; leaving arrives as the reverse, so aggregates need no
+ * special handling for either.</p>
+ *
+ * <p>Callbacks are made by whichever thread drains the feed, one at a time and
+ * in publication order. They must be quick and must not call setters on
+ * animals tracked by the same feed. Every method has an empty default body.</p>
+ */
+public interface IncrementalAggregate {
+
+    /**
+     * Called when an animal starts ({@code +1}) or stops ({@code -1}) being tracked.
+     * @param species the animal's species
+     * @param delta   {@code +1} or {@code -1}
+     */
+    default void membershipChanged(Species species, int delta) { }
+
+    /**
+     * Called for a change of age.
+     * @param species the animal's species
+     * @param oldAge  the previous age
+     * @param newAge  the new age
+     */
+    default void ageChanged(Species species, int oldAge, int newAge) { }
+
+    /**
+     * Called for a change of weight.
+     * @param species   the animal's species
+     * @param oldWeight the previous weight
+     * @param newWeight the new weight
+     */
+    default void weightChanged(Species species, float oldWeight, float newWeight) { }
+
+    /**
+     * Called for a change of friendliness.
+     * @param species     the animal's species
+     * @param oldFriendly the previous friendliness
+     * @param newFriendly the new friendliness
+     */
+    default void friendlyChanged(Species species, boolean oldFriendly, boolean newFriendly) { }
+
+    /**
+     * Called for a change of a bird's wing count.
+     * @param oldWings the previous wing count
+     * @param newWings the new wing count
+     */
+    default void numberOfWingsChanged(int oldWings, int newWings) { }
+
+    /**
+     * Called for a change of a bird's flight capability.
+     * @param oldCanFly the previous flight capability
+     * @param newCanFly the new flight capability
+     */
+    default void canFlyChanged(boolean oldCanFly, boolean newCanFly) { }
+
+    /**
+     * Called for a change of a fish's fin count.
+     * @param oldFins the previous fin count
+     * @param newFins the new fin count
+     */
+    default void numberOfFinsChanged(int oldFins, int newFins) { }
+}
@@ -0,0 +1,133 @@
+package animals.aggregate;
+
+import animals.Species;
+
+/**
+ * Per-species head count, total weight, mean age and friendly count,
+ * maintained incrementally from a {@link ChangeFeed}.
+ *
+ * <p>Counts and the age sum are kept as {@code long}s and are exact. The
+ * weight total is a compensated (Neumaier) sum of every change's old and new
+ * value: a plain {@code double} running total drifts as millions of updates
+ * add and subtract nearly equal amounts, while the compensated total stays
+ * within an ulp or two of what a rescan would compute.</p>
+ *
+ * <p>Values reflect the changes drained so far. Reads may happen on any thread
+ * and see each change either wholly applied or not at all.</p>
+ */
+public final class SpeciesTotals implements IncrementalAggregate {
+
+    private static final Species[] SPECIES = Species.values();
+
+    private final long[] count    = new long[SPECIES.length];
+    private final long[] ageSum   = new long[SPECIES.length];
+    private final long[] friendly = new long[SPECIES.length];
+
+    /** Running weight total and its accumulated rounding error, per species. */
+    private final double[] weightSum          = new double[SPECIES.length];
+    private final double[] weightCompensation = new double[SPECIES.length];
+
+    /**
+     * Constructs totals for an empty population.
+     */
+    public SpeciesTotals() {
+    }
+
+    // -------------------------------------------------------------------------
+    // IncrementalAggregate
+    // -------------------------------------------------------------------------
+
+    @Override
+    public synchronized void membershipChanged(Species species, int delta) {
+        count[species.ordinal()] += delta;
+    }
+
+    @Override
+    public synchronized void ageChanged(Species species, int oldAge, int newAge) {
+        ageSum[species.ordinal()] += (long) newAge - oldAge;
+    }
+
+    @Override
+    public synchronized void weightChanged(Species species, float oldWeight, float newWeight) {
+        int s = species.ordinal();
+        addWeight(s, -oldWeight);
+        addWeight(s, newWeight);
+    }
+
+    @Override
+    public synchronized void friendlyChanged(Species species, boolean oldFriendly, boolean newFriendly) {
+        friendly[species.ordinal()] += (newFriendly ? 1 : 0) - (oldFriendly ? 1 : 0);
+    }
+
+    /** Adds {@code value} to the species' weight total, carrying the rounding error. */
+    private void addWeight(int s, double value) {
+        double sum = weightSum[s];
+        double t   = sum + value;
+        if (Math.abs(sum) >= Math.abs(value)) {
+            weightCompensation[s] += (sum - t) + value;
+        } else {
+            weightCompensation[s] += (value - t) + sum;
+        }
+        weightSum[s] = t;
+    }
+
+    // -------------------------------------------------------------------------
+    // Reading
+    // -------------------------------------------------------------------------
+
+    /** Returns how many animals of the species are tracked. */
+    public synchronized long count(Species species) {
+        return count[species.ordinal()];
+    }
+
+    /** Returns the total weight of the species, in kilograms. */
+    public synchronized double totalWeight(Species species) {
+        int s = species.ordinal();
+        return weightSum[s] + weightCompensation[s];
+    }
+
+    /** Returns the mean age of the species, or {@code NaN} if none are tracked. */
+    public synchronized double meanAge(Species species) {
+        int s = species.ordinal();
+        return count[s] == 0 ? Double.NaN : (double) ageSum[s] / count[s];
+    }
+
+    /** Returns how many animals of the species are friendly. */
+    public synchronized long friendlyCount(Species species) {
+        return friendly[species.ordinal()];
+    }
+
+    /** Returns how many animals are tracked, across all species. */
+    public synchronized long count() {
+        long total = 0;
+        for (long n : count) {
+            total += n;
+        }
+        return total;
+    }
+
+    /** Returns the total weight of every tracked animal, in kilograms. */
+    public synchronized double totalWeight() {
+        double total = 0;
+        for (int s = 0; s < SPECIES.length; s++) {
+            total += weightSum[s] + weightCompensation[s];
+        }
+        return total;
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Species species : SPECIES) {
+            int s = species.ordinal();
+            if (count[s] != 0) {
+                if (sb.length() != 0) {
+                    sb.append(String.format("%n"));
+                }
+                sb.append(String.format("%-5s count=%,d weight=%,.2fkg meanAge=%.2f friendly=%,d",
+                        species, count[s], totalWeight(species), meanAge(species), friendly[s]));
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,146 @@
+package animals.concurrent;
+
+import animals.Animal;
+import animals.Bird;
+import animals.Cat;
+import animals.Dog;
+import animals.Fish;
+import animals.Species;
+
+import java.util.Objects;
+
+/**
+ * An immutable copy of everything an {@link Animal} holds: the unit of
+ * copy-on-write in {@link VersionedPopulation}.
+ *
+ * <p>A change never edits a state in place; the {@code with...} methods each
+ * return a new state with one field replaced, so a reader holding a state
+ * always sees all of its fields from the same moment. Fields that do not
+ * apply to the species — wings and flight for anything but a bird, fins for
+ * anything but a fish — are zero and {@code false}.</p>
+ *
+ * @param species       the kind of animal
+ * @param name          the animal's name
+ * @param age           the age in years
+ * @param weight        the weight in kilograms
+ * @param colour        the colour description
+ * @param friendly      whether the animal is friendly
+ * @param home          where the animal lives
+ * @param numberOfWings a bird's wings; {@code 0} otherwise
+ * @param canFly        whether a bird can fly; {@code false} otherwise
+ * @param numberOfFins  a fish's fins; {@code 0} otherwise
+ */
+public record AnimalState(Species species, String name, int age, float weight, String colour,
+                          boolean friendly, String home, int numberOfWings, boolean canFly,
+                          int numberOfFins) {
+
+    /**
+     * @throws NullPointerException if {@code species} is {@code null}
+     */
+    public AnimalState {
+        Objects.requireNonNull(species, "species");
+    }
+
+    /**
+     * Copies the current fields of an animal.
+     *
+     * @param animal the animal to copy
+     * @return its state
+     */
+    public static AnimalState of(Animal animal) {
+        return switch (animal) {
+            case Bird bird -> new AnimalState(Species.BIRD, bird.getName(), bird.getAge(), bird.getWeight(),
+                    bird.getColour(), bird.isFriendly(), bird.getHome(), bird.getNumberOfWings(), bird.canFly(), 0);
+            case Fish fish -> new AnimalState(Species.FISH, fish.getName(), fish.getAge(), fish.getWeight(),
+                    fish.getColour(), fish.isFriendly(), fish.getHome(), 0, false, fish.getNumberOfFins());
+            case Dog dog   -> new AnimalState(Species.DOG, dog.getName(), dog.getAge(), dog.getWeight(),
+                    dog.getColour(), dog.isFriendly(), dog.getHome(), 0, false, 0);
+            case Cat cat   -> new AnimalState(Species.CAT, cat.getName(), cat.getAge(), cat.getWeight(),
+                    cat.getColour(), cat.isFriendly(), cat.getHome(), 0, false, 0);
+        };
+    }
+
+    /**
+     * Creates a new, independent animal with these fields.
+     *
+     * @return a {@link Dog}, {@link Cat}, {@link Bird} or {@link Fish}
+     */
+    public Animal toAnimal() {
+        return switch (species) {
+            case DOG  -> new Dog(name, age, weight, colour, friendly, home);
+            case CAT  -> new Cat(name, age, weight, colour, friendly, home);
+            case BIRD -> new Bird(name, age, weight, colour, friendly, home, numberOfWings, canFly);
+            case FISH -> new Fish(name, age, weight, colour, friendly, home, numberOfFins);
+        };
+    }
+
+    // -------------------------------------------------------------------------
+    // Copy-on-write edits
+    // -------------------------------------------------------------------------
+
+    /** Returns a copy with a different name. */
+    public AnimalState withName(String name) {
+        return new AnimalState(species, name, age, weight, colour, friendly, home, numberOfWings, canFly, numberOfFins);
+    }
+
+    /** Returns a copy with a different age. */
+    public AnimalState withAge(int age) {
+        return new AnimalState(species, name, age, weight, colour, friendly, home, numberOfWings, canFly, numberOfFins);
+    }
+
+    /** Returns a copy with a different weight. */
+    public AnimalState withWeight(float weight) {
+        return new AnimalState(species, name, age, weight, colour, friendly, home, numberOfWings, canFly, numberOfFins);
+    }
+
+    /** Returns a copy with a different colour. */
+    public AnimalState withColour(String colour) {
+        return new AnimalState(species, name, age, weight, colour, friendly, home, numberOfWings, canFly, numberOfFins);
+    }
+
+    /** Returns a copy with a different friendliness. */
+    public AnimalState withFriendly(boolean friendly) {
+        return new AnimalState(species, name, age, weight, colour, friendly, home, numberOfWings, canFly, numberOfFins);
+    }
+
+    /** Returns a copy with a different home. */
+    public AnimalState withHome(String home) {
+        return new AnimalState(species, name, age, weight, colour, friendly, home, numberOfWings, canFly, numberOfFins);
+    }
+
+    /**
+     * Returns a copy with a different number of wings.
+     *
+     * @throws IllegalStateException if this is not a bird
+     */
+    public AnimalState withNumberOfWings(int numberOfWings) {
+        requireSpecies(Species.BIRD);
+        return new AnimalState(species, name, age, weight, colour, friendly, home, numberOfWings, canFly, numberOfFins);
+    }
+
+    /**
+     * Returns a copy with a different ability to fly.
+     *
+     * @throws IllegalStateException if this is not a bird
+     */
+    public AnimalState withCanFly(boolean canFly) {
+        requireSpecies(Species.BIRD);
+        return new AnimalState(species, name, age, weight, colour, friendly, home, numberOfWings, canFly, numberOfFins);
+    }
+
+    /**
+     * Returns a copy with a different number of fins.
+     *
+     * @throws IllegalStateException if this is not a fish
+     */
+    public AnimalState withNumberOfFins(int numberOfFins) {
+        requireSpecies(Species.FISH);
+        return new AnimalState(species, name, age, weight, colour, friendly, home, numberOfWings, canFly, numberOfFins);
+    }
+
+    private void requireSpecies(Species required) {
+        if (species != required) {
+            throw new IllegalStateException("Not a " + required.name().toLowerCase() + ": " + species);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package animals.concurrent;
+
+import animals.Animal;
+
+import java.util.Objects;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Consistent multi-field updates and reads of animals shared between threads,
+ * without a global lock.
+ *
+ * <p>The atomic methods on {@link Animal} ({@code compareAndSetAge},
+ * {@code addAndGetWeight}, ...) keep each field consistent on its own. When
+ * several fields must change together — a bird that loses a wing and can no
+ * longer fly, a fish moved to a new home with a new weight — a reader must
+ * never see half of the change. This class provides that with a fixed array
+ * of {@link StampedLock} <em>stripes</em>: each animal maps to one stripe by
+ * its identity hash, so updates to different animals rarely contend, and no
+ * lock object is added to every animal.</p>
+ *
+ * <ul>
+ *   <li>{@link #update(Animal, Consumer)} runs the caller's setters while
+ *       holding the animal's stripe exclusively.</li>
+ *   <li>{@link #read(Animal, Function)} works like a <em>seqlock</em>: it
+ *       first reads without locking and then checks that no update ran in the
+ *       meantime, retrying under a shared lock only if one did. Uncontended
+ *       reads therefore write no shared memory at all.</li>
+ * </ul>
+ *
+ * <pre>{@code
+ * AnimalUpdates updates = AnimalUpdates.shared();
+ * updates.update(bird, b -> { b.setNumberOfWings(1); b.setCanFly(false); });
+ * boolean consistent = updates.read(bird, b -> b.canFly() == (b.getNumberOfWings() == 2));
+ * }</pre>
+ *
+ * <p>The guarantee only holds among code that uses the same instance for
+ * every write to the fields involved. The optimistic first attempt of
+ * {@code read} may see a partial update before it is discarded, so the reader
+ * function must only call getters and must not act on what it sees.
+ * Observers are notified from inside {@code update}, while the stripe is
+ * held.</p>
+ */
+public final class AnimalUpdates {
+
+    /** Sized so that animals updated by different threads rarely share a stripe. */
+    private static final AnimalUpdates SHARED =
+            new AnimalUpdates(Math.max(64, Runtime.getRuntime().availableProcessors() * 16));
+
+    private final StampedLock[] stripes;
+
+    /** {@code stripes.length - 1}; the length is a power of two. */
+    private final int mask;
+
+    /**
+     * Creates an instance with its own stripes.
+     *
+     * @param stripes the number of stripes; rounded up to a power of two
+     */
+    public AnimalUpdates(int stripes) {
+        if (stripes < 1 || stripes > 1 << 30) {
+            throw new IllegalArgumentException("stripes must be between 1 and 2^30: " + stripes);
+        }
+        int length = stripes == 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.stripes = new StampedLock[length];
+        for (int i = 0; i < length; i++) {
+            this.stripes[i] = new StampedLock();
+        }
+        this.mask = length - 1;
+    }
+
+    /**
+     * Returns the process-wide instance. Code that updates the same animals
+     * should use it unless it has a reason to keep separate stripes.
+     */
+    public static AnimalUpdates shared() {
+        return SHARED;
+    }
+
+    /**
+     * Runs {@code writer} with exclusive access to {@code animal}, with
+     * respect to other updates and reads through this instance.
+     *
+     * @param animal the animal to update
+     * @param writer calls the animal's setters; should be short and must not
+     *               update or read other animals through this instance
+     */
+    public <A extends Animal> void update(A animal, Consumer<? super A> writer) {
+        StampedLock lock = stripeOf(animal);
+        long stamp = lock.writeLock();
+        try {
+            writer.accept(animal);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Returns what {@code reader} computes from {@code animal}, as of a moment
+     * when no update through this instance was in progress.
+     *
+     * @param animal the animal to read
+     * @param reader calls the animal's getters; may run more than once
+     */
+    public <A extends Animal, R> R read(A animal, Function<? super A, ? extends R> reader) {
+        StampedLock lock = stripeOf(animal);
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            R result = reader.apply(animal);
+            if (lock.validate(stamp)) {
+                return result;
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return reader.apply(animal);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /** Returns the stripe guarding an animal. */
+    private StampedLock stripeOf(Animal animal) {
+        int h = System.identityHashCode(Objects.requireNonNull(animal, "animal"));
+        // Identity hashes are not well mixed in their low bits
+        h ^= h >>> 16;
+        h *= 0x45D9F3B;
+        h ^= h >>> 16;
+        return stripes[h & mask];
+    }
+}
@@ -0,0 +1,657 @@
+package animals.concurrent;
+
+import animals.Animal;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * A population that keeps several versions of each animal, so that readers
+ * see a consistent snapshot while writers keep changing it (multi-version
+ * concurrency control).
+ *
+ * <p>A report that iterates over live {@link Animal}s while other threads
+ * call setters can see one animal's new age with its old weight, or the
+ * first half of the population before a batch of changes and the second
+ * half after. Here, each row holds a chain of immutable
+ * {@link AnimalState}s, newest first, each stamped with the <em>epoch</em>
+ * that committed it:</p>
+ *
+ * <ul>
+ *   <li><b>Writers</b> never edit a state. {@link #update(int, UnaryOperator)}
+ *       builds a new one (copy-on-write per record) and
+ *       {@link #write(Consumer)} commits changes to several rows at once.
+ *       Commits are serialised by a lock held only by writers; each
+ *       installs its versions and then advances the global epoch, which is
+ *       what makes them visible.</li>
+ *   <li><b>Readers</b> call {@link #snapshot()}, which pins the current
+ *       epoch. {@link Snapshot#get(int)} walks a row's chain to the newest
+ *       version at or before that epoch, so everything a snapshot returns
+ *       is from the same commit, however long the report runs. Readers take
+ *       no lock and write nothing but their own pin, so they never block
+ *       writers, and writers never block them.</li>
+ *   <li><b>Reclamation</b> is epoch-based. Each open snapshot publishes its
+ *       epoch in one of a fixed number of reader slots. When a writer
+ *       commits, it computes the oldest pinned epoch and cuts every version
+ *       of the rows it touched that is older than the one that epoch would
+ *       see; the garbage collector does the rest. Rows that are not written
+ *       again are cleaned by {@link #reclaim()}.</li>
+ * </ul>
+ *
+ * <pre>{@code
+ * VersionedPopulation population = VersionedPopulation.builder().build();
+ * int row = population.add(dog);
+ * population.update(row, s -> s.withAge(s.age() + 1).withWeight(s.weight() + 0.5F));
+ * try (VersionedPopulation.Snapshot snapshot = population.snapshot()) {
+ *     for (AnimalState state : snapshot) {
+ *         report(state);   // age and weight always from the same commit
+ *     }
+ * }
+ * }</pre>
+ *
+ * <p><b>Costs.</b> Every change allocates a new state and a version node,
+ * and a row keeps every version committed to it since the oldest open
+ * snapshot was taken, so a snapshot left open holds on to all of them. Snapshot reads pay a pointer chase per row, which is short unless
+ * a snapshot is much older than the latest commit. Snapshots must be
+ * closed; at most {@linkplain Builder#maxReaders(int) maxReaders} may be
+ * open at once, and {@link #snapshot()} waits, yielding, until a slot is
+ * free.</p>
+ */
+public final class VersionedPopulation {
+
+    /** Marks a reader slot with no snapshot in it. */
+    private static final long IDLE = Long.MAX_VALUE;
+
+    private static final VarHandle HEADS = MethodHandles.arrayElementVarHandle(Version[].class);
+
+    /** One committed state of a row; {@code state} is {@code null} once the row is removed. */
+    private static final class Version {
+        final AnimalState state;
+        final long epoch;
+
+        /** The previous version; cut by writers once no reader can need it. */
+        Version older;
+
+        Version(AnimalState state, long epoch, Version older) {
+            this.state = state;
+            this.epoch = epoch;
+            this.older = older;
+        }
+    }
+
+    /** The epoch of the latest commit; advanced only after its versions are installed. */
+    private final AtomicLong clock = new AtomicLong();
+
+    /** The pinned epoch of each open snapshot, or {@link #IDLE}. */
+    private final AtomicLongArray readers;
+
+    /** Serialises commits; readers never take it. */
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    /** Newest version of each row; elements are read with acquire and written with release. */
+    private volatile Version[] heads;
+    private volatile int size;
+
+    // Guarded by writeLock
+    private long versions;
+
+    private VersionedPopulation(Builder builder) {
+        this.heads   = new Version[builder.initialCapacity];
+        this.readers = new AtomicLongArray(builder.maxReaders);
+        for (int i = 0; i < builder.maxReaders; i++) {
+            readers.set(i, IDLE);
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Writing
+    // -------------------------------------------------------------------------
+
+    /**
+     * Adds a copy of an animal's current state as a new row. Later changes to
+     * {@code animal} itself are not seen.
+     *
+     * @param animal the animal to add
+     * @return the new row's number
+     */
+    public int add(Animal animal) {
+        return add(AnimalState.of(animal));
+    }
+
+    /**
+     * Adds a new row.
+     *
+     * @param state the row's first state
+     * @return the new row's number
+     */
+    public int add(AnimalState state) {
+        Objects.requireNonNull(state, "state");
+        int[] row = new int[1];
+        write(batch -> row[0] = batch.add(state));
+        return row[0];
+    }
+
+    /**
+     * Replaces a row's state with {@code change} applied to it, as one commit.
+     *
+     * @param row    the row to change
+     * @param change returns the new state, typically via the {@code with...}
+     *               methods; runs under the write lock, so it should be short
+     * @throws IndexOutOfBoundsException if there is no such row
+     * @throws IllegalStateException     if the row has been removed
+     */
+    public void update(int row, UnaryOperator<AnimalState> change) {
+        // The same as a write() of one update, without allocating the batch
+        writeLock.lock();
+        try {
+            Version head = head(checkRow(row));
+            if (head.state == null) {
+                throw new IllegalStateException("Row " + row + " has been removed");
+            }
+            long epoch = clock.get() + 1;
+            Version version = new Version(Objects.requireNonNull(change.apply(head.state), "new state"), epoch, head);
+            HEADS.setRelease(heads, row, version);
+            clock.set(epoch);
+            versions += 1 - cut(version, horizon());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Removes a row. Its number is not reused; snapshots taken before the
+     * removal still see the row.
+     *
+     * @param row the row to remove
+     * @throws IndexOutOfBoundsException if there is no such row
+     */
+    public void remove(int row) {
+        write(batch -> batch.remove(row));
+    }
+
+    /**
+     * Applies several changes as one commit: a snapshot sees all of them or
+     * none. If {@code changes} throws, none of them is applied.
+     *
+     * @param changes calls {@link Batch#add}, {@link Batch#update} and
+     *                {@link Batch#remove}; runs under the write lock
+     */
+    public void write(Consumer<Batch> changes) {
+        writeLock.lock();
+        try {
+            Batch batch = new Batch(clock.get() + 1);
+            try {
+                changes.accept(batch);
+            } catch (RuntimeException | Error e) {
+                batch.rollBack();
+                throw e;
+            }
+            if (batch.touched > 0) {
+                clock.set(batch.epoch);
+                // After publishing, so that with no older snapshot open the previous versions go now
+                batch.trim(horizon());
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * The changes of one commit, passed to {@link #write(Consumer)}. Valid
+     * only inside that call. A row changed twice in one batch keeps only its
+     * last state.
+     */
+    public final class Batch {
+
+        private final long epoch;
+        private final int  firstNewRow = size;
+
+        /** Rows changed so far, and the head each had before the batch. */
+        private int[]     rows  = new int[4];
+        private Version[] prior = new Version[4];
+        private int       touched;
+
+        private Batch(long epoch) {
+            this.epoch = epoch;
+        }
+
+        /**
+         * Adds a new row.
+         *
+         * @param state the row's first state
+         * @return the new row's number
+         */
+        public int add(AnimalState state) {
+            Objects.requireNonNull(state, "state");
+            int row = size;
+            if (row == heads.length) {
+                heads = Arrays.copyOf(heads, Math.max(16, row + (row >> 1)));
+            }
+            install(row, state);
+            size = row + 1;
+            return row;
+        }
+
+        /**
+         * Replaces a row's state with {@code change} applied to it.
+         *
+         * @param row    the row to change
+         * @param change returns the new state
+         * @throws IndexOutOfBoundsException if there is no such row
+         * @throws IllegalStateException     if the row has been removed
+         */
+        public void update(int row, UnaryOperator<AnimalState> change) {
+            AnimalState current = head(checkRow(row)).state;
+            if (current == null) {
+                throw new IllegalStateException("Row " + row + " has been removed");
+            }
+            install(row, Objects.requireNonNull(change.apply(current), "new state"));
+        }
+
+        /**
+         * Removes a row.
+         *
+         * @param row the row to remove
+         * @throws IndexOutOfBoundsException if there is no such row
+         */
+        public void remove(int row) {
+            if (head(checkRow(row)).state != null) {
+                install(row, null);
+            }
+        }
+
+        /** Returns the state of a row as this batch has left it so far, or {@code null} if removed. */
+        public AnimalState get(int row) {
+            return head(checkRow(row)).state;
+        }
+
+        private void install(int row, AnimalState state) {
+            Version head = head(row);
+            Version version;
+            if (head != null && head.epoch == epoch) {
+                // Already changed in this batch: replace, rather than chain, the uncommitted version
+                version = new Version(state, epoch, head.older);
+            } else {
+                version = new Version(state, epoch, head);
+                remember(row, head);
+                versions++;
+            }
+            HEADS.setRelease(heads, row, version);
+        }
+
+        private void remember(int row, Version head) {
+            if (touched == rows.length) {
+                rows  = Arrays.copyOf(rows, touched * 2);
+                prior = Arrays.copyOf(prior, touched * 2);
+            }
+            rows[touched]  = row;
+            prior[touched] = head;
+            touched++;
+        }
+
+        /** Cuts the versions of the touched rows that no snapshot at or after {@code horizon} can reach. */
+        private void trim(long horizon) {
+            for (int i = 0; i < touched; i++) {
+                versions -= cut(head(rows[i]), horizon);
+            }
+        }
+
+        /** Restores every touched row; nothing of this batch was visible, as the epoch never advanced. */
+        private void rollBack() {
+            for (int i = touched - 1; i >= 0; i--) {
+                HEADS.setRelease(heads, rows[i], prior[i]);
+                versions--;
+            }
+            size = firstNewRow;
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Reading
+    // -------------------------------------------------------------------------
+
+    /**
+     * Pins the current epoch and returns a consistent view of the population
+     * as of the latest commit. Never blocks on writers; waits only if
+     * {@linkplain Builder#maxReaders(int) maxReaders} snapshots are already
+     * open.
+     *
+     * @return a snapshot, which must be closed
+     */
+    public Snapshot snapshot() {
+        int slot = claimSlot();
+        long epoch = clock.get();
+        // Publish the pin, then check that the epoch did not move: a writer that
+        // computed its horizon before seeing the pin also read the clock first,
+        // so if the epoch is unchanged no version this snapshot needs was cut
+        while (true) {
+            readers.set(slot, epoch);
+            long now = clock.get();
+            if (now == epoch) {
+                break;
+            }
+            epoch = now;
+        }
+        // Size before heads, as in latest(int)
+        int rows = size;
+        return new Snapshot(this, slot, epoch, heads, rows);
+    }
+
+    /**
+     * Returns the latest committed state of a row, without pinning a snapshot.
+     *
+     * @param row the row to read
+     * @return the state, or {@code null} if the row has been removed
+     * @throws IndexOutOfBoundsException if there is no such row
+     */
+    public AnimalState latest(int row) {
+        while (true) {
+            // Size before heads, so the array read is at least as long as the size
+            checkIndex(row, size);
+            Version head = head(row);
+            // Head before clock: a head at or below the clock is committed, and
+            // is the newest commit to the row, however far the clock has moved
+            long epoch = clock.get();
+            if (head == null || head.epoch <= epoch) {
+                return head == null ? null : head.state;
+            }
+            // The head belongs to a commit in progress. The version below it is
+            // cut only after the clock passes epoch, so if the clock has not
+            // moved once the walk is done, the walk saw an intact chain
+            AnimalState state = visible(head, epoch);
+            VarHandle.acquireFence();
+            if (clock.get() == epoch) {
+                return state;
+            }
+        }
+    }
+
+    /** Returns the epoch of the latest commit. */
+    public long epoch() { return clock.get(); }
+
+    /** Returns the number of rows ever added, including removed ones. */
+    public int size() { return size; }
+
+    /**
+     * A consistent, read-only view of the population as of one commit. Safe
+     * to read from several threads; closing it lets writers reclaim the
+     * versions it was holding.
+     */
+    public static final class Snapshot implements Iterable<AnimalState>, AutoCloseable {
+
+        private final VersionedPopulation population;
+        private final int       slot;
+        private final long      epoch;
+        private final Version[] heads;
+        private final int       size;
+        private volatile boolean closed;
+
+        private Snapshot(VersionedPopulation population, int slot, long epoch, Version[] heads, int size) {
+            this.population = population;
+            this.slot       = slot;
+            this.epoch      = epoch;
+            this.heads      = heads;
+            this.size       = size;
+        }
+
+        /** Returns the epoch this snapshot sees. */
+        public long epoch() { return epoch; }
+
+        /**
+         * Returns the number of rows this snapshot can address. Rows added by
+         * a commit after the snapshot's epoch may be counted; they read as
+         * {@code null}.
+         */
+        public int size() { return size; }
+
+        /**
+         * Returns a row's state as of this snapshot's epoch.
+         *
+         * @param row the row to read
+         * @return the state, or {@code null} if the row was removed or not yet
+         *         added at this epoch
+         * @throws IndexOutOfBoundsException if {@code row} is outside {@code [0, size())}
+         * @throws IllegalStateException     if the snapshot has been closed
+         */
+        public AnimalState get(int row) {
+            checkIndex(row, size);
+            if (closed) {
+                throw new IllegalStateException("Snapshot is closed");
+            }
+            return visible((Version) HEADS.getAcquire(heads, row), epoch);
+        }
+
+        /**
+         * Iterates over the rows present at this snapshot's epoch, skipping
+         * removed ones.
+         */
+        @Override
+        public Iterator<AnimalState> iterator() {
+            return new Iterator<>() {
+                private int row = -1;
+                private AnimalState next = advance();
+
+                private AnimalState advance() {
+                    while (++row < size) {
+                        AnimalState state = get(row);
+                        if (state != null) {
+                            return state;
+                        }
+                    }
+                    return null;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return next != null;
+                }
+
+                @Override
+                public AnimalState next() {
+                    if (next == null) {
+                        throw new NoSuchElementException();
+                    }
+                    AnimalState state = next;
+                    next = advance();
+                    return state;
+                }
+            };
+        }
+
+        /**
+         * Unpins the epoch. Idempotent; the snapshot cannot be read afterwards.
+         */
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                population.readers.set(slot, IDLE);
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Reclamation
+    // -------------------------------------------------------------------------
+
+    /**
+     * Cuts, in every row, the versions that no open or future snapshot can
+     * reach. Writers already do this for the rows they commit to; this
+     * catches rows last written while an old snapshot was open.
+     *
+     * @return the number of versions released
+     */
+    public long reclaim() {
+        writeLock.lock();
+        try {
+            long horizon = horizon();
+            Version[] heads = this.heads;
+            long released = 0;
+            for (int row = 0, size = this.size; row < size; row++) {
+                released += cut((Version) HEADS.getAcquire(heads, row), horizon);
+            }
+            versions -= released;
+            return released;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of versions held beyond each row's newest, which
+     * grows while old snapshots are open and shrinks as writers reclaim.
+     */
+    public long retainedVersions() {
+        writeLock.lock();
+        try {
+            return versions - size;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the oldest epoch any open or future snapshot can see: the
+     * smallest pinned epoch, or the current one if none is older. The clock
+     * is read before the slots, which {@link #snapshot()} relies on: a
+     * snapshot whose pin this misses will find the clock moved and re-pin
+     * at an epoch no older than the one read here.
+     */
+    private long horizon() {
+        long horizon = clock.get();
+        for (int i = 0; i < readers.length(); i++) {
+            horizon = Math.min(horizon, readers.get(i));
+        }
+        return horizon;
+    }
+
+    /**
+     * Cuts the chain below the newest version at or before {@code horizon}
+     * and returns how many versions were cut.
+     */
+    private static long cut(Version head, long horizon) {
+        Version keep = head;
+        while (keep != null && keep.epoch > horizon) {
+            keep = keep.older;
+        }
+        if (keep == null) {
+            return 0;
+        }
+        long cut = 0;
+        for (Version v = keep.older; v != null; v = v.older) {
+            cut++;
+        }
+        keep.older = null;
+        return cut;
+    }
+
+    // -------------------------------------------------------------------------
+    // Helpers
+    // -------------------------------------------------------------------------
+
+    /** Claims an idle reader slot, starting from one chosen by the thread to spread contention. */
+    private int claimSlot() {
+        int slots = readers.length();
+        int start = (int) ((Thread.currentThread().threadId() * 0x9E3779B9L >>> 16) % slots);
+        while (true) {
+            for (int i = 0; i < slots; i++) {
+                int slot = (start + i) % slots;
+                if (readers.get(slot) == IDLE && readers.compareAndSet(slot, IDLE, clock.get())) {
+                    return slot;
+                }
+            }
+            // Yield rather than spin: the holders may be virtual threads waiting for this carrier
+            Thread.yield();
+        }
+    }
+
+    /** Returns the state of the newest version at or before {@code epoch}. */
+    private static AnimalState visible(Version version, long epoch) {
+        while (version != null && version.epoch > epoch) {
+            version = version.older;
+        }
+        return version == null ? null : version.state;
+    }
+
+    private Version head(int row) {
+        return (Version) HEADS.getAcquire(heads, row);
+    }
+
+    private int checkRow(int row) {
+        checkIndex(row, size);
+        return row;
+    }
+
+    private static void checkIndex(int row, int size) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of range [0, " + size + ")");
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Builder
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns a builder with the default settings.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Configures a {@link VersionedPopulation}.
+     */
+    public static final class Builder {
+
+        private int initialCapacity = 1024;
+        private int maxReaders      = Math.max(16, Runtime.getRuntime().availableProcessors() * 4);
+
+        private Builder() {
+        }
+
+        /**
+         * Sets how many rows fit before the row table grows. Default 1024.
+         *
+         * @param initialCapacity the initial number of rows
+         */
+        public Builder initialCapacity(int initialCapacity) {
+            if (initialCapacity < 1) {
+                throw new IllegalArgumentException("initialCapacity must be positive: " + initialCapacity);
+            }
+            this.initialCapacity = initialCapacity;
+            return this;
+        }
+
+        /**
+         * Sets how many snapshots may be open at once. Every commit scans one
+         * slot per reader, so this should not be much larger than needed.
+         * Default four per processor, at least 16.
+         *
+         * @param maxReaders the number of reader slots
+         */
+        public Builder maxReaders(int maxReaders) {
+            if (maxReaders < 1) {
+                throw new IllegalArgumentException("maxReaders must be positive: " + maxReaders);
+            }
+            this.maxReaders = maxReaders;
+            return this;
+        }
+
+        /**
+         * Creates an empty population.
+         */
+        public VersionedPopulation build() {
+            return new VersionedPopulation(this);
+        }
+    }
+}
@@ -0,0 +1,624 @@
+package animals.index;
+
+import animals.Animal;
+import animals.AnimalObserver;
+import animals.Species;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntConsumer;
+
+/**
+ * A population of animals with secondary indexes for fast lookups.
+ *
+ * <p>Each registered animal is given a <em>row number</em>, and the registry
+ * keeps these indexes over the rows:</p>
+ * <ul>
+ *   <li>a hash index on {@code name};</li>
+ *   <li>{@link CompressedBitmap} indexes on {@code colour}, {@code home},
+ *       {@code friendly} and species;</li>
+ *   <li>a sorted index on {@code age}, and a sorted index of weight buckets,
+ *       for range queries.</li>
+ * </ul>
+ *
+ * <p>A query such as "friendly ginger cats aged 2–5" intersects the matching
+ * bitmaps, smallest first, instead of calling getters on every animal:</p>
+ *
+ * <pre>{@code
+ * List<Animal> cats = registry.query()
+ *         .species(Species.CAT).colour("ginger").friendly(true).ageBetween(2, 5)
+ *         .list();
+ * }</pre>
+ *
+ * <p>The registry attaches itself to every animal it holds as an
+ * {@link AnimalObserver}, so calling {@code setColour}, {@code setAge},
+ * {@code setFriendly} and the other setters keeps the indexes up to date.
+ * Queries take a shared lock and updates an exclusive one, so the registry
+ * may be used from several threads. Each row remembers the values it is
+ * indexed under, and a callback moves the row from those to the animal's
+ * current values rather than trusting the callback's arguments: callbacks
+ * from the atomic update methods can arrive out of order (see
+ * {@link AnimalObserver}), and the last one to run leaves the indexes
+ * matching the animal.</p>
+ */
+public final class AnimalRegistry implements AnimalObserver {
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // -------------------------------------------------------------------------
+    // Rows
+    // -------------------------------------------------------------------------
+
+    /** Animal held in each row; {@code null} for a free row. */
+    private final List<Animal> animals = new ArrayList<>();
+
+    /** Row number of each registered animal. */
+    private final Map<Animal, Integer> rows = new IdentityHashMap<>();
+
+    /** Rows freed by {@link #remove(Animal)}, reused before new rows are added. */
+    private int[] freeRows = new int[16];
+    private int freeCount;
+
+    /** Every occupied row. */
+    private final CompressedBitmap all = new CompressedBitmap();
+
+    // Values each row is indexed under, which a late callback may not match
+    private String[] names   = new String[16];
+    private String[] colours = new String[16];
+    private String[] homes   = new String[16];
+    private int[]    ages    = new int[16];
+    private float[]  weights = new float[16];
+
+    // -------------------------------------------------------------------------
+    // Indexes
+    // -------------------------------------------------------------------------
+
+    /** Rows per name. Names are nearly unique, so a small sorted array beats a bitmap. */
+    private final Map<String, int[]> byName = new HashMap<>();
+
+    private final Map<String, CompressedBitmap> byColour = new HashMap<>();
+
+    private final Map<String, CompressedBitmap> byHome = new HashMap<>();
+
+    /** Rows whose animal is friendly; the unfriendly rows are {@code all} minus these. */
+    private final CompressedBitmap friendly = new CompressedBitmap();
+
+    private final CompressedBitmap[] bySpecies = new CompressedBitmap[Species.values().length];
+
+    private final NavigableMap<Integer, CompressedBitmap> byAge = new TreeMap<>();
+
+    /**
+     * Rows per weight bucket (see {@link #weightBucket}). A bitmap per distinct
+     * weight would be close to one per row; rows in the two buckets at the
+     * ends of a range are checked against {@link #weights} instead.
+     */
+    private final NavigableMap<Integer, CompressedBitmap> byWeight = new TreeMap<>();
+
+    /**
+     * Constructs an empty registry.
+     */
+    public AnimalRegistry() {
+        Arrays.setAll(bySpecies, i -> new CompressedBitmap());
+    }
+
+    // -------------------------------------------------------------------------
+    // Registration
+    // -------------------------------------------------------------------------
+
+    /**
+     * Registers an animal and indexes its current state. Registering an animal
+     * that is already present has no effect.
+     *
+     * @param animal the animal to add
+     * @return the animal's row number
+     */
+    public int add(Animal animal) {
+        lock.writeLock().lock();
+        try {
+            Integer existing = rows.get(animal);
+            if (existing != null) {
+                return existing;
+            }
+            int row;
+            if (freeCount > 0) {
+                row = freeRows[--freeCount];
+                animals.set(row, animal);
+            } else {
+                row = animals.size();
+                animals.add(animal);
+                if (row == ages.length) {
+                    grow(row * 2);
+                }
+            }
+            rows.put(animal, row);
+            // Observe before reading the values: a change made from here on calls
+            // back, waits for this lock and then re-reads what index() stored
+            animal.addObserver(this);
+            index(row, animal);
+            return row;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Registers every animal in a collection.
+     *
+     * @param population the animals to add
+     */
+    public void addAll(Collection<? extends Animal> population) {
+        for (Animal animal : population) {
+            add(animal);
+        }
+    }
+
+    /**
+     * Unregisters an animal and stops tracking its changes.
+     *
+     * @param animal the animal to remove
+     * @return {@code true} if the animal was registered
+     */
+    public boolean remove(Animal animal) {
+        lock.writeLock().lock();
+        try {
+            Integer row = rows.remove(animal);
+            if (row == null) {
+                return false;
+            }
+            animal.removeObserver(this);
+            unindex(row, animal);
+            animals.set(row, null);
+            if (freeCount == freeRows.length) {
+                freeRows = Arrays.copyOf(freeRows, freeCount * 2);
+            }
+            freeRows[freeCount++] = row;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of registered animals.
+     * @return the population size
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return rows.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns every registered animal with the given name, using the hash index.
+     *
+     * @param name the name to look up
+     * @return the matching animals, possibly empty
+     */
+    public List<Animal> named(String name) {
+        return query().named(name).list();
+    }
+
+    /**
+     * Starts a new query. Criteria added to the query are combined with AND.
+     *
+     * @return an empty query matching every animal
+     */
+    public Query query() {
+        return new Query();
+    }
+
+    // -------------------------------------------------------------------------
+    // AnimalObserver — keep the indexes in step with the setters
+    // -------------------------------------------------------------------------
+
+    @Override
+    public void nameChanged(Animal animal, String oldName, String newName) {
+        update(animal, row -> {
+            String name = animal.getName();
+            if (!Objects.equals(names[row], name)) {
+                removeName(names[row], row);
+                addName(name, row);
+                names[row] = name;
+            }
+        });
+    }
+
+    @Override
+    public void ageChanged(Animal animal, int oldAge, int newAge) {
+        update(animal, row -> {
+            int age = animal.getAge();
+            if (ages[row] != age) {
+                move(byAge, ages[row], age, row);
+                ages[row] = age;
+            }
+        });
+    }
+
+    @Override
+    public void weightChanged(Animal animal, float oldWeight, float newWeight) {
+        update(animal, row -> {
+            float weight = animal.getWeight();
+            int   from   = weightBucket(weights[row]);
+            int   to     = weightBucket(weight);
+            if (from != to) {
+                move(byWeight, from, to, row);
+            }
+            weights[row] = weight;
+        });
+    }
+
+    @Override
+    public void colourChanged(Animal animal, String oldColour, String newColour) {
+        update(animal, row -> {
+            String colour = animal.getColour();
+            if (!Objects.equals(colours[row], colour)) {
+                move(byColour, colours[row], colour, row);
+                colours[row] = colour;
+            }
+        });
+    }
+
+    @Override
+    public void friendlyChanged(Animal animal, boolean oldFriendly, boolean newFriendly) {
+        update(animal, row -> {
+            if (animal.isFriendly()) {
+                friendly.add(row);
+            } else {
+                friendly.remove(row);
+            }
+        });
+    }
+
+    @Override
+    public void homeChanged(Animal animal, String oldHome, String newHome) {
+        update(animal, row -> {
+            String home = animal.getHome();
+            if (!Objects.equals(homes[row], home)) {
+                move(byHome, homes[row], home, row);
+                homes[row] = home;
+            }
+        });
+    }
+
+    // -------------------------------------------------------------------------
+    // Index maintenance — callers hold the write lock
+    // -------------------------------------------------------------------------
+
+    /**
+     * Runs an index update for a registered animal under the write lock. The
+     * update reads the animal's current value, so whichever callback runs
+     * last leaves the row indexed correctly.
+     */
+    private void update(Animal animal, IntConsumer change) {
+        lock.writeLock().lock();
+        try {
+            Integer row = rows.get(animal);
+            if (row != null) {
+                change.accept(row);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void index(int row, Animal animal) {
+        names[row]   = animal.getName();
+        colours[row] = animal.getColour();
+        homes[row]   = animal.getHome();
+        ages[row]    = animal.getAge();
+        weights[row] = animal.getWeight();
+        all.add(row);
+        addName(names[row], row);
+        bitmap(byColour, colours[row]).add(row);
+        bitmap(byHome, homes[row]).add(row);
+        if (animal.isFriendly()) {
+            friendly.add(row);
+        }
+        bySpecies[Species.of(animal).ordinal()].add(row);
+        bitmap(byAge, ages[row]).add(row);
+        bitmap(byWeight, weightBucket(weights[row])).add(row);
+    }
+
+    /** Removes a row from the indexes it was last filed under, which the animal may no longer match. */
+    private void unindex(int row, Animal animal) {
+        all.remove(row);
+        removeName(names[row], row);
+        removeFrom(byColour, colours[row], row);
+        removeFrom(byHome, homes[row], row);
+        friendly.remove(row);
+        bySpecies[Species.of(animal).ordinal()].remove(row);
+        removeFrom(byAge, ages[row], row);
+        removeFrom(byWeight, weightBucket(weights[row]), row);
+        names[row]   = null;
+        colours[row] = null;
+        homes[row]   = null;
+    }
+
+    private void grow(int capacity) {
+        names   = Arrays.copyOf(names, capacity);
+        colours = Arrays.copyOf(colours, capacity);
+        homes   = Arrays.copyOf(homes, capacity);
+        ages    = Arrays.copyOf(ages, capacity);
+        weights = Arrays.copyOf(weights, capacity);
+    }
+
+    /**
+     * Returns the weight's bucket: 128 buckets per power of two, so a bucket
+     * spans under 1% of the weights in it. Buckets are in the same order as
+     * {@link Float#compare}, which keeps {@code -0.0} below {@code 0.0} and
+     * {@code NaN} above every other weight.
+     */
+    static int weightBucket(float weight) {
+        int bits = Float.floatToIntBits(weight);
+        return (bits ^ (bits >> 31 & 0x7FFFFFFF)) >> 16;
+    }
+
+    private void addName(String name, int row) {
+        int[] current = byName.get(name);
+        if (current == null) {
+            byName.put(name, new int[] { row });
+            return;
+        }
+        int[] grown = Arrays.copyOf(current, current.length + 1);
+        grown[current.length] = row;
+        Arrays.sort(grown);
+        byName.put(name, grown);
+    }
+
+    private void removeName(String name, int row) {
+        int[] current = byName.get(name);
+        if (current == null) {
+            return;
+        }
+        int i = Arrays.binarySearch(current, row);
+        if (i < 0) {
+            return;
+        }
+        if (current.length == 1) {
+            byName.remove(name);
+            return;
+        }
+        int[] shrunk = new int[current.length - 1];
+        System.arraycopy(current, 0, shrunk, 0, i);
+        System.arraycopy(current, i + 1, shrunk, i, current.length - i - 1);
+        byName.put(name, shrunk);
+    }
+
+    private static <K> CompressedBitmap bitmap(Map<K, CompressedBitmap> index, K key) {
+        return index.computeIfAbsent(key, k -> new CompressedBitmap());
+    }
+
+    private static <K> void removeFrom(Map<K, CompressedBitmap> index, K key, int row) {
+        CompressedBitmap rowsForKey = index.get(key);
+        if (rowsForKey != null) {
+            rowsForKey.remove(row);
+            if (rowsForKey.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    private static <K> void move(Map<K, CompressedBitmap> index, K from, K to, int row) {
+        removeFrom(index, from, row);
+        bitmap(index, to).add(row);
+    }
+
+    // -------------------------------------------------------------------------
+    // Queries
+    // -------------------------------------------------------------------------
+
+    /**
+     * A conjunction of criteria over the registry's indexes. Build it with the
+     * fluent methods, then run it with {@link #list()} or {@link #count()}.
+     * A query is evaluated against the registry's state at the time it is run.
+     */
+    public final class Query {
+
+        private boolean hasName;
+        private String name;
+        private boolean hasColour;
+        private String colour;
+        private boolean hasHome;
+        private String home;
+        private Boolean friendlyValue;
+        private Species species;
+        private int minAge = Integer.MIN_VALUE;
+        private int maxAge = Integer.MAX_VALUE;
+        private boolean hasAgeRange;
+        private float minWeight = Float.NEGATIVE_INFINITY;
+        private float maxWeight = Float.POSITIVE_INFINITY;
+        private boolean hasWeightRange;
+
+        private Query() {
+        }
+
+        /**
+         * Restricts the query to animals with exactly this name.
+         * @param name the name to match
+         * @return this query
+         */
+        public Query named(String name) { this.hasName = true; this.name = name; return this; }
+
+        /**
+         * Restricts the query to animals of exactly this colour.
+         * @param colour the colour to match
+         * @return this query
+         */
+        public Query colour(String colour) { this.hasColour = true; this.colour = colour; return this; }
+
+        /**
+         * Restricts the query to animals with exactly this home.
+         * @param home the home to match
+         * @return this query
+         */
+        public Query home(String home) { this.hasHome = true; this.home = home; return this; }
+
+        /**
+         * Restricts the query by friendliness.
+         * @param friendly the friendliness to match
+         * @return this query
+         */
+        public Query friendly(boolean friendly) { this.friendlyValue = friendly; return this; }
+
+        /**
+         * Restricts the query to one species.
+         * @param species the species to match
+         * @return this query
+         */
+        public Query species(Species species) { this.species = species; return this; }
+
+        /**
+         * Restricts the query to ages in {@code [min, max]}, inclusive.
+         * @param min the lowest age
+         * @param max the highest age
+         * @return this query
+         */
+        public Query ageBetween(int min, int max) {
+            this.hasAgeRange = true;
+            this.minAge = min;
+            this.maxAge = max;
+            return this;
+        }
+
+        /**
+         * Restricts the query to weights in {@code [min, max]}, inclusive.
+         * @param min the lowest weight in kilograms
+         * @param max the highest weight in kilograms
+         * @return this query
+         */
+        public Query weightBetween(float min, float max) {
+            this.hasWeightRange = true;
+            this.minWeight = min;
+            this.maxWeight = max;
+            return this;
+        }
+
+        /**
+         * Returns the row numbers of every matching animal.
+         * @return a new bitmap of matching rows
+         */
+        public CompressedBitmap rows() {
+            lock.readLock().lock();
+            try {
+                return evaluate();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        /**
+         * Returns the number of matching animals.
+         * @return the match count
+         */
+        public int count() {
+            return rows().cardinality();
+        }
+
+        /**
+         * Returns every matching animal, in row order.
+         * @return the matching animals
+         */
+        public List<Animal> list() {
+            lock.readLock().lock();
+            try {
+                CompressedBitmap matches = evaluate();
+                List<Animal> result = new ArrayList<>(matches.cardinality());
+                matches.forEach(row -> result.add(animals.get(row)));
+                return result;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        /**
+         * Intersects the criteria, starting from the most selective one so that
+         * every later step only touches the rows still in play. Caller holds the
+         * read lock.
+         */
+        private CompressedBitmap evaluate() {
+            List<CompressedBitmap> terms = new ArrayList<>();
+            if (hasName) {
+                CompressedBitmap named = new CompressedBitmap();
+                int[] nameRows = byName.get(name);
+                if (nameRows != null) {
+                    for (int row : nameRows) {
+                        named.add(row);
+                    }
+                }
+                terms.add(named);
+            }
+            if (hasColour) {
+                terms.add(byColour.getOrDefault(colour, new CompressedBitmap()));
+            }
+            if (hasHome) {
+                terms.add(byHome.getOrDefault(home, new CompressedBitmap()));
+            }
+            if (Boolean.TRUE.equals(friendlyValue)) {
+                terms.add(friendly);
+            }
+            if (species != null) {
+                terms.add(bySpecies[species.ordinal()]);
+            }
+            if (hasAgeRange) {
+                terms.add(CompressedBitmap.union(minAge > maxAge ? List.of()
+                        : byAge.subMap(minAge, true, maxAge, true).values()));
+            }
+            if (hasWeightRange) {
+                terms.add(!(minWeight <= maxWeight) ? new CompressedBitmap() : weighing(minWeight, maxWeight));
+            }
+            if (terms.isEmpty()) {
+                terms.add(all);
+            }
+
+            terms.sort(Comparator.comparingInt(CompressedBitmap::cardinality));
+            CompressedBitmap result = terms.get(0).copy();
+            for (int i = 1; i < terms.size() && !result.isEmpty(); i++) {
+                result = result.and(terms.get(i));
+            }
+            // "Unfriendly" is the complement of an index, so it is applied last
+            if (Boolean.FALSE.equals(friendlyValue) && !result.isEmpty()) {
+                result = result.andNot(friendly);
+            }
+            return result;
+        }
+
+        /**
+         * Returns the rows weighing between {@code min} and {@code max}: whole
+         * buckets inside the range, and the rows of the two end buckets that
+         * fall within it. Caller holds the read lock.
+         */
+        private CompressedBitmap weighing(float min, float max) {
+            int first = weightBucket(min);
+            int last  = weightBucket(max);
+            List<CompressedBitmap> inside = new ArrayList<>();
+            CompressedBitmap ends = new CompressedBitmap();
+            for (Map.Entry<Integer, CompressedBitmap> bucket : byWeight.subMap(first, true, last, true).entrySet()) {
+                int key = bucket.getKey();
+                if (key != first && key != last) {
+                    inside.add(bucket.getValue());
+                    continue;
+                }
+                bucket.getValue().forEach(row -> {
+                    if (Float.compare(weights[row], min) >= 0 && Float.compare(weights[row], max) <= 0) {
+                        ends.add(row);
+                    }
+                });
+            }
+            inside.add(ends);
+            return CompressedBitmap.union(inside);
+        }
+    }
+}
@@ -0,0 +1,598 @@
+package animals.index;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.IntConsumer;
+
+/**
+ * A compressed set of non-negative {@code int} row numbers, in the style of a
+ * Roaring bitmap.
+ *
+ * <p>The 32-bit row space is split into chunks of 65,536 rows keyed by the
+ * high 16 bits. Each non-empty chunk is stored in whichever container is
+ * smaller for its contents:</p>
+ * <ul>
+ *   <li>a sorted {@code char[]} of low 16-bit values while the chunk holds at
+ *       most {@value #ARRAY_MAX} rows (2 bytes per row), or</li>
+ *   <li>a 65,536-bit {@code long[]} bitmap (8 KiB) once it holds more.</li>
+ * </ul>
+ *
+ * <p>Sparse sets (a rare colour) therefore stay small, dense sets (every
+ * friendly animal) cost one bit per row, and intersections only touch the
+ * chunks both operands share. This class is not thread-safe.</p>
+ */
+public final class CompressedBitmap {
+
+    /** Largest cardinality kept in an array container. */
+    private static final int ARRAY_MAX = 4096;
+
+    /** High 16 bits of each chunk, sorted. */
+    private char[] keys = new char[4];
+
+    /** Container of each chunk, parallel to {@link #keys}. */
+    private Container[] containers = new Container[4];
+
+    /** Number of chunks in use. */
+    private int chunks;
+
+    /**
+     * Constructs an empty bitmap.
+     */
+    public CompressedBitmap() {
+    }
+
+    // -------------------------------------------------------------------------
+    // Single-row operations
+    // -------------------------------------------------------------------------
+
+    /**
+     * Adds a row to the set.
+     * @param row a non-negative row number
+     */
+    public void add(int row) {
+        char high = (char) (row >>> 16);
+        int i = find(high);
+        if (i < 0) {
+            i = -i - 1;
+            insertChunk(i, high, new ArrayContainer());
+        }
+        containers[i] = containers[i].add((char) row);
+    }
+
+    /**
+     * Removes a row from the set, if present.
+     * @param row a non-negative row number
+     */
+    public void remove(int row) {
+        int i = find((char) (row >>> 16));
+        if (i < 0) {
+            return;
+        }
+        Container c = containers[i].remove((char) row);
+        if (c.cardinality() == 0) {
+            removeChunk(i);
+        } else {
+            containers[i] = c;
+        }
+    }
+
+    /**
+     * Returns whether a row is in the set.
+     * @param row a non-negative row number
+     * @return {@code true} if present
+     */
+    public boolean contains(int row) {
+        int i = find((char) (row >>> 16));
+        return i >= 0 && containers[i].contains((char) row);
+    }
+
+    // -------------------------------------------------------------------------
+    // Whole-set operations
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns the number of rows in the set.
+     * @return the cardinality
+     */
+    public int cardinality() {
+        int total = 0;
+        for (int i = 0; i < chunks; i++) {
+            total += containers[i].cardinality();
+        }
+        return total;
+    }
+
+    /**
+     * Returns whether the set is empty.
+     * @return {@code true} if no rows are present
+     */
+    public boolean isEmpty() { return chunks == 0; }
+
+    /**
+     * Returns a new bitmap holding the rows present in both this and {@code other}.
+     * @param other the bitmap to intersect with
+     * @return the intersection
+     */
+    public CompressedBitmap and(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < chunks && j < other.chunks) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                Container c = containers[i].and(other.containers[j]);
+                if (c.cardinality() > 0) {
+                    result.insertChunk(result.chunks, keys[i], c);
+                }
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns a new bitmap holding the rows present in this or {@code other}.
+     * @param other the bitmap to unite with
+     * @return the union
+     */
+    public CompressedBitmap or(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < chunks || j < other.chunks) {
+            if (j == other.chunks || (i < chunks && keys[i] < other.keys[j])) {
+                result.insertChunk(result.chunks, keys[i], containers[i].copy());
+                i++;
+            } else if (i == chunks || keys[i] > other.keys[j]) {
+                result.insertChunk(result.chunks, other.keys[j], other.containers[j].copy());
+                j++;
+            } else {
+                result.insertChunk(result.chunks, keys[i], containers[i].or(other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Adds every row of {@code other} to this bitmap.
+     * @param other the rows to add
+     */
+    public void addAll(CompressedBitmap other) {
+        for (int j = 0; j < other.chunks; j++) {
+            int i = find(other.keys[j]);
+            if (i < 0) {
+                insertChunk(-i - 1, other.keys[j], other.containers[j].copy());
+            } else {
+                containers[i] = containers[i].or(other.containers[j]);
+            }
+        }
+    }
+
+    /**
+     * Returns an independent copy of this bitmap.
+     * @return a new bitmap with the same rows
+     */
+    public CompressedBitmap copy() {
+        CompressedBitmap result = new CompressedBitmap();
+        result.addAll(this);
+        return result;
+    }
+
+    /**
+     * Returns the union of many bitmaps. Each chunk is accumulated in a single
+     * 65,536-bit scratch bitmap, so the cost is linear in the total number of
+     * containers rather than growing with every pairwise merge.
+     *
+     * @param bitmaps the bitmaps to unite
+     * @return a new bitmap holding every row of every input
+     */
+    public static CompressedBitmap union(Iterable<CompressedBitmap> bitmaps) {
+        TreeMap<Character, long[]> scratch = new TreeMap<>();
+        for (CompressedBitmap bitmap : bitmaps) {
+            for (int i = 0; i < bitmap.chunks; i++) {
+                long[] words = scratch.computeIfAbsent(bitmap.keys[i], k -> new long[1024]);
+                bitmap.containers[i].orInto(words);
+            }
+        }
+        CompressedBitmap result = new CompressedBitmap();
+        for (Map.Entry<Character, long[]> chunk : scratch.entrySet()) {
+            long[] words = chunk.getValue();
+            int card = 0;
+            for (long word : words) {
+                card += Long.bitCount(word);
+            }
+            BitmapContainer container = new BitmapContainer(words, card);
+            result.insertChunk(result.chunks, chunk.getKey(), card <= ARRAY_MAX ? container.toArray() : container);
+        }
+        return result;
+    }
+
+    /**
+     * Returns a new bitmap holding the rows in this set but not in {@code other}.
+     * @param other the rows to exclude
+     * @return the difference
+     */
+    public CompressedBitmap andNot(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap();
+        for (int i = 0; i < chunks; i++) {
+            int j = other.find(keys[i]);
+            Container c = j < 0 ? containers[i].copy() : containers[i].andNot(other.containers[j]);
+            if (c.cardinality() > 0) {
+                result.insertChunk(result.chunks, keys[i], c);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Calls {@code action} with every row in ascending order.
+     * @param action the callback
+     */
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < chunks; i++) {
+            containers[i].forEach(keys[i] << 16, action);
+        }
+    }
+
+    /**
+     * Returns the rows in ascending order.
+     * @return a new array of row numbers
+     */
+    public int[] toArray() {
+        int[] rows = new int[cardinality()];
+        int[] n = { 0 };
+        forEach(row -> rows[n[0]++] = row);
+        return rows;
+    }
+
+    /**
+     * Returns an approximate heap footprint of the containers, in bytes.
+     * @return the estimated size
+     */
+    public long sizeInBytes() {
+        long bytes = 16L + keys.length * 2L + containers.length * 4L;
+        for (int i = 0; i < chunks; i++) {
+            bytes += containers[i].sizeInBytes();
+        }
+        return bytes;
+    }
+
+    // -------------------------------------------------------------------------
+    // Chunk bookkeeping
+    // -------------------------------------------------------------------------
+
+    private int find(char high) {
+        return Arrays.binarySearch(keys, 0, chunks, high);
+    }
+
+    private void insertChunk(int at, char high, Container container) {
+        if (chunks == keys.length) {
+            keys       = Arrays.copyOf(keys, chunks * 2);
+            containers = Arrays.copyOf(containers, chunks * 2);
+        }
+        System.arraycopy(keys, at, keys, at + 1, chunks - at);
+        System.arraycopy(containers, at, containers, at + 1, chunks - at);
+        keys[at]       = high;
+        containers[at] = container;
+        chunks++;
+    }
+
+    private void removeChunk(int at) {
+        System.arraycopy(keys, at + 1, keys, at, chunks - at - 1);
+        System.arraycopy(containers, at + 1, containers, at, chunks - at - 1);
+        containers[--chunks] = null;
+    }
+
+    // -------------------------------------------------------------------------
+    // Containers — the rows of one 65,536-row chunk
+    // -------------------------------------------------------------------------
+
+    /** Holds the low 16 bits of the rows in one chunk. Mutators may return a replacement. */
+    private abstract static sealed class Container permits ArrayContainer, BitmapContainer {
+        abstract int cardinality();
+        abstract boolean contains(char low);
+        abstract Container add(char low);
+        abstract Container remove(char low);
+        abstract Container and(Container other);
+        abstract Container or(Container other);
+        abstract Container andNot(Container other);
+        abstract Container copy();
+        abstract void orInto(long[] words);
+        abstract void forEach(int base, IntConsumer action);
+        abstract long sizeInBytes();
+    }
+
+    /** A sorted array of up to {@value #ARRAY_MAX} values. */
+    private static final class ArrayContainer extends Container {
+
+        private char[] values;
+        private int size;
+
+        ArrayContainer() {
+            this(new char[4], 0);
+        }
+
+        ArrayContainer(char[] values, int size) {
+            this.values = values;
+            this.size   = size;
+        }
+
+        @Override int cardinality() { return size; }
+
+        @Override boolean contains(char low) { return Arrays.binarySearch(values, 0, size, low) >= 0; }
+
+        @Override
+        Container add(char low) {
+            int i = Arrays.binarySearch(values, 0, size, low);
+            if (i >= 0) {
+                return this;
+            }
+            if (size == ARRAY_MAX) {
+                return toBitmap().add(low);
+            }
+            i = -i - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, Math.min(size * 2, ARRAY_MAX));
+            }
+            System.arraycopy(values, i, values, i + 1, size - i);
+            values[i] = low;
+            size++;
+            return this;
+        }
+
+        @Override
+        Container remove(char low) {
+            int i = Arrays.binarySearch(values, 0, size, low);
+            if (i >= 0) {
+                System.arraycopy(values, i + 1, values, i, size - i - 1);
+                size--;
+            }
+            return this;
+        }
+
+        @Override
+        Container and(Container other) {
+            char[] out = new char[size];
+            int n = 0;
+            if (other instanceof ArrayContainer a) {
+                int i = 0;
+                int j = 0;
+                while (i < size && j < a.size) {
+                    if (values[i] < a.values[j]) {
+                        i++;
+                    } else if (values[i] > a.values[j]) {
+                        j++;
+                    } else {
+                        out[n++] = values[i];
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < size; i++) {
+                    if (other.contains(values[i])) {
+                        out[n++] = values[i];
+                    }
+                }
+            }
+            return new ArrayContainer(out, n);
+        }
+
+        @Override
+        Container or(Container other) {
+            if (other instanceof BitmapContainer b) {
+                return b.or(this);
+            }
+            ArrayContainer a = (ArrayContainer) other;
+            char[] out = new char[size + a.size];
+            int n = 0;
+            int i = 0;
+            int j = 0;
+            while (i < size || j < a.size) {
+                if (j == a.size || (i < size && values[i] < a.values[j])) {
+                    out[n++] = values[i++];
+                } else if (i == size || values[i] > a.values[j]) {
+                    out[n++] = a.values[j++];
+                } else {
+                    out[n++] = values[i];
+                    i++;
+                    j++;
+                }
+            }
+            ArrayContainer merged = new ArrayContainer(out, n);
+            return n > ARRAY_MAX ? merged.toBitmap() : merged;
+        }
+
+        @Override
+        Container andNot(Container other) {
+            char[] out = new char[size];
+            int n = 0;
+            for (int i = 0; i < size; i++) {
+                if (!other.contains(values[i])) {
+                    out[n++] = values[i];
+                }
+            }
+            return new ArrayContainer(out, n);
+        }
+
+        @Override Container copy() { return new ArrayContainer(Arrays.copyOf(values, Math.max(size, 1)), size); }
+
+        @Override
+        void orInto(long[] words) {
+            for (int i = 0; i < size; i++) {
+                words[values[i] >>> 6] |= 1L << values[i];
+            }
+        }
+
+        @Override
+        void forEach(int base, IntConsumer action) {
+            for (int i = 0; i < size; i++) {
+                action.accept(base | values[i]);
+            }
+        }
+
+        @Override long sizeInBytes() { return 24L + values.length * 2L; }
+
+        BitmapContainer toBitmap() {
+            long[] words = new long[1024];
+            for (int i = 0; i < size; i++) {
+                words[values[i] >>> 6] |= 1L << values[i];
+            }
+            return new BitmapContainer(words, size);
+        }
+    }
+
+    /** A plain 65,536-bit bitmap. */
+    private static final class BitmapContainer extends Container {
+
+        private final long[] words;
+        private int cardinality;
+
+        BitmapContainer() {
+            this(new long[1024], 0);
+        }
+
+        BitmapContainer(long[] words, int cardinality) {
+            this.words       = words;
+            this.cardinality = cardinality;
+        }
+
+        @Override int cardinality() { return cardinality; }
+
+        @Override boolean contains(char low) { return (words[low >>> 6] & (1L << low)) != 0; }
+
+        @Override
+        Container add(char low) {
+            long before = words[low >>> 6];
+            long after  = before | (1L << low);
+            if (before != after) {
+                words[low >>> 6] = after;
+                cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        Container remove(char low) {
+            long before = words[low >>> 6];
+            long after  = before & ~(1L << low);
+            if (before != after) {
+                words[low >>> 6] = after;
+                cardinality--;
+            }
+            return cardinality <= ARRAY_MAX ? toArray() : this;
+        }
+
+        @Override
+        Container and(Container other) {
+            if (other instanceof ArrayContainer a) {
+                return a.and(this);
+            }
+            long[] theirs = ((BitmapContainer) other).words;
+            int card = 0;
+            for (int i = 0; i < words.length; i++) {
+                card += Long.bitCount(words[i] & theirs[i]);
+            }
+            if (card <= ARRAY_MAX) {
+                // Small result: write the array directly instead of a bitmap
+                char[] values = new char[Math.max(card, 1)];
+                int n = 0;
+                for (int i = 0; i < words.length; i++) {
+                    long word = words[i] & theirs[i];
+                    while (word != 0) {
+                        values[n++] = (char) ((i << 6) | Long.numberOfTrailingZeros(word));
+                        word &= word - 1;
+                    }
+                }
+                return new ArrayContainer(values, card);
+            }
+            long[] out = new long[1024];
+            for (int i = 0; i < out.length; i++) {
+                out[i] = words[i] & theirs[i];
+            }
+            return new BitmapContainer(out, card);
+        }
+
+        @Override
+        Container or(Container other) {
+            long[] out = words.clone();
+            if (other instanceof ArrayContainer a) {
+                BitmapContainer result = new BitmapContainer(out, cardinality);
+                for (int i = 0; i < a.size; i++) {
+                    result.add(a.values[i]);
+                }
+                return result;
+            }
+            long[] theirs = ((BitmapContainer) other).words;
+            int card = 0;
+            for (int i = 0; i < out.length; i++) {
+                out[i] |= theirs[i];
+                card += Long.bitCount(out[i]);
+            }
+            return new BitmapContainer(out, card);
+        }
+
+        @Override
+        Container andNot(Container other) {
+            long[] out = words.clone();
+            if (other instanceof BitmapContainer b) {
+                for (int i = 0; i < out.length; i++) {
+                    out[i] &= ~b.words[i];
+                }
+            } else {
+                ArrayContainer a = (ArrayContainer) other;
+                for (int i = 0; i < a.size; i++) {
+                    out[a.values[i] >>> 6] &= ~(1L << a.values[i]);
+                }
+            }
+            int card = 0;
+            for (long word : out) {
+                card += Long.bitCount(word);
+            }
+            BitmapContainer result = new BitmapContainer(out, card);
+            return card <= ARRAY_MAX ? result.toArray() : result;
+        }
+
+        @Override Container copy() { return new BitmapContainer(words.clone(), cardinality); }
+
+        @Override
+        void orInto(long[] target) {
+            for (int i = 0; i < words.length; i++) {
+                target[i] |= words[i];
+            }
+        }
+
+        @Override
+        void forEach(int base, IntConsumer action) {
+            for (int i = 0; i < words.length; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    action.accept(base | (i << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+
+        @Override long sizeInBytes() { return 24L + words.length * 8L; }
+
+        ArrayContainer toArray() {
+            char[] values = new char[Math.max(cardinality, 1)];
+            int n = 0;
+            for (int i = 0; i < words.length; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    values[n++] = (char) ((i << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return new ArrayContainer(values, cardinality);
+        }
+    }
+}
@@ -0,0 +1,943 @@
+package animals.index;
+
+import animals.Animal;
+import animals.AnimalObserver;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * An index of animals by name for exact, prefix and approximate lookups.
+ *
+ * <p>Names are kept in sorted arrays that share the animals' own
+ * {@code String}s, so the index costs two references per distinct name and
+ * three bytes beside them: the length of the prefix each name shares with
+ * the one before it, and the character where they part. A sorted array is a
+ * trie laid out flat: the names below any trie node are one contiguous run,
+ * which {@link #withPrefix} finds by binary search and {@link #similarTo}
+ * walks depth-first, reading the shared-prefix lengths to jump over a run. The approximate search runs the
+ * Levenshtein dynamic program one character — one trie level — at a time,
+ * reuses the rows of the prefix a name shares with the previous one, and
+ * skips the whole run below a prefix as soon as every cell of its row
+ * exceeds the edit bound. It therefore touches the trie nodes within reach
+ * of the query, not every name.</p>
+ *
+ * <pre>{@code
+ * NameSearchIndex index = NameSearchIndex.of(animals);
+ * List<Animal> buds = index.withPrefix("Bud", 20);
+ * List<NameSearchIndex.Match> cats = index.similarTo("Whiskrs", 2, 10);   // finds "Whiskers"
+ * }</pre>
+ *
+ * <p>New names go to a small sorted <em>delta</em> array, which is merged
+ * into the large <em>base</em> array once it grows past about
+ * {@code 16 * sqrt(base)} names: an insert shifts at most the delta, and the
+ * linear merge is spread over many inserts, though the one update that
+ * triggers it waits for it. Names that lose their last
+ * animal are left in place, skipped by lookups, and dropped by the next
+ * merge. {@link #addAll} sorts its batch and merges it in one pass, which is
+ * how a large population should be loaded.</p>
+ *
+ * <p>The index attaches itself to every animal it holds as an
+ * {@link AnimalObserver}, so {@link Animal#setName} and
+ * {@link Animal#compareAndSetName} keep it up to date. Lookups take a shared
+ * lock and updates an exclusive one, so the index may be used from several
+ * threads. Names are compared by {@code char}, case-sensitively, as
+ * {@link String#compareTo} does.</p>
+ */
+public final class NameSearchIndex implements AnimalObserver {
+
+    /** A name found by {@link #similarTo}, with its edit distance from the query. */
+    public record Match(Animal animal, String name, int distance) { }
+
+    /** Smallest delta that triggers a merge, so a small index is not merged on every insert. */
+    private static final int MIN_DELTA = 4096;
+
+    /** Runs of this length are insertion-sorted before {@link #sort} merges them. */
+    private static final int RUN = 32;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** Most names, sorted. */
+    private Segment base = new Segment(0);
+
+    /** Names added since the last merge, sorted; never a name that is also in {@link #base}. */
+    private Segment delta = new Segment(64);
+
+    /** Animals whose name is {@code null}: not searchable, but still observed. */
+    private final Set<Animal> unnamed = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /** Number of animals held. */
+    private int size;
+
+    /**
+     * Constructs an empty index.
+     */
+    public NameSearchIndex() {
+    }
+
+    /**
+     * Builds an index over a population in one sorted pass.
+     *
+     * @param population the animals to index
+     * @return a new index holding them
+     */
+    public static NameSearchIndex of(Collection<? extends Animal> population) {
+        NameSearchIndex index = new NameSearchIndex();
+        index.addAll(population);
+        return index;
+    }
+
+    // -------------------------------------------------------------------------
+    // Registration
+    // -------------------------------------------------------------------------
+
+    /**
+     * Adds an animal under its current name. Adding an animal that is already
+     * present has no effect.
+     *
+     * @param animal the animal to add
+     * @return {@code true} if the animal was not already present
+     */
+    public boolean add(Animal animal) {
+        lock.writeLock().lock();
+        try {
+            String name = animal.getName();
+            if (!insert(animal, name)) {
+                return false;
+            }
+            animal.addObserver(this);
+            size++;
+            refile(animal, name);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds every animal in a collection: sorts them by name and merges them
+     * into the index in one pass. Lookups wait until it is done.
+     *
+     * @param population the animals to add
+     */
+    public void addAll(Collection<? extends Animal> population) {
+        // Read each name once, so a concurrent rename cannot upset the sort
+        long[]   keys    = new long[population.size()];
+        String[] names   = new String[population.size()];
+        Animal[] animals = new Animal[population.size()];
+        List<Animal> nameless = new ArrayList<>();
+        int n = 0;
+        for (Animal animal : population) {
+            String name = animal.getName();
+            if (name == null) {
+                nameless.add(animal);
+            } else {
+                keys[n]    = key(name);
+                names[n]   = name;
+                animals[n] = animal;
+                n++;
+            }
+        }
+        sort(keys, names, animals, n);
+        Segment batch = Segment.grouped(keys, names, animals, n);
+
+        lock.writeLock().lock();
+        try {
+            Consumer<Animal> added = animal -> {
+                animal.addObserver(this);
+                size++;
+            };
+            if (base.length == 0 && delta.length == 0) {
+                // Loading an empty index: every animal in the batch is new
+                for (int i = 0; i < batch.length; i++) {
+                    forEach(batch.holders[i], added);
+                }
+                base = batch.freeze();
+            } else {
+                base  = Segment.merge(Segment.merge(base, delta, null), batch, added);
+                delta = new Segment(64);
+            }
+            for (Animal animal : nameless) {
+                if (unnamed.add(animal)) {
+                    added.accept(animal);
+                }
+            }
+            // The names were read before the observers were attached
+            for (int i = 0; i < n; i++) {
+                refile(animals[i], names[i]);
+            }
+            for (Animal animal : nameless) {
+                refile(animal, null);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes an animal and stops tracking its name.
+     *
+     * @param animal the animal to remove
+     * @return {@code true} if the animal was present
+     */
+    public boolean remove(Animal animal) {
+        lock.writeLock().lock();
+        try {
+            if (!delete(animal, animal.getName())) {
+                return false;
+            }
+            animal.removeObserver(this);
+            size--;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of animals held.
+     * @return the population size
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Lookups
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns every animal with exactly this name.
+     *
+     * @param name the name to look up
+     * @return the matching animals, possibly empty
+     */
+    public List<Animal> named(String name) {
+        List<Animal> result = new ArrayList<>();
+        if (name == null) {
+            return result;
+        }
+        lock.readLock().lock();
+        try {
+            int at = base.find(name);
+            if (at >= 0) {
+                collect(base.holders[at], result, Integer.MAX_VALUE);
+            } else if ((at = delta.find(name)) >= 0) {
+                collect(delta.holders[at], result, Integer.MAX_VALUE);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns animals whose name starts with {@code prefix}, in name order.
+     *
+     * @param prefix the start of the name; the empty string matches every name
+     * @param limit  the most animals to return
+     * @return up to {@code limit} matching animals
+     * @throws IllegalArgumentException if {@code limit} is negative
+     */
+    public List<Animal> withPrefix(String prefix, int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("limit must not be negative: " + limit);
+        }
+        List<Animal> result = new ArrayList<>(Math.min(limit, 64));
+        lock.readLock().lock();
+        try {
+            int i = base.lowerBound(prefix);
+            int j = delta.lowerBound(prefix);
+            while (result.size() < limit) {
+                boolean inBase  = i < base.length && base.names[i].startsWith(prefix);
+                boolean inDelta = j < delta.length && delta.names[j].startsWith(prefix);
+                if (inBase && (!inDelta || base.names[i].compareTo(delta.names[j]) < 0)) {
+                    collect(base.holders[i++], result, limit);
+                } else if (inDelta) {
+                    collect(delta.holders[j++], result, limit);
+                } else {
+                    break;
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns animals whose name is within {@code maxEdits} insertions,
+     * deletions or substitutions of {@code name}, closest first and then in
+     * name order.
+     *
+     * @param name     the name to approximate
+     * @param maxEdits the largest edit distance to accept
+     * @param limit    the most animals to return
+     * @return up to {@code limit} matches
+     * @throws IllegalArgumentException if {@code maxEdits} or {@code limit} is negative
+     */
+    public List<Match> similarTo(String name, int maxEdits, int limit) {
+        if (maxEdits < 0) {
+            throw new IllegalArgumentException("maxEdits must not be negative: " + maxEdits);
+        }
+        if (limit < 0) {
+            throw new IllegalArgumentException("limit must not be negative: " + limit);
+        }
+        List<Match> matches = new ArrayList<>();
+        if (maxEdits == 0) {
+            // A binary search, not a walk
+            for (Animal animal : named(name)) {
+                matches.add(new Match(animal, name, 0));
+            }
+            return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+        }
+        Levenshtein automaton = new Levenshtein(name, maxEdits);
+        lock.readLock().lock();
+        try {
+            automaton.search(base, matches);
+            automaton.search(delta, matches);
+        } finally {
+            lock.readLock().unlock();
+        }
+        matches.sort(Comparator.comparingInt(Match::distance).thenComparing(Match::name));
+        return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+    }
+
+    // -------------------------------------------------------------------------
+    // AnimalObserver — keep the index in step with setName
+    // -------------------------------------------------------------------------
+
+    /**
+     * Moves the animal to its current name. Two renames of one animal on
+     * different threads may call back in either order; only the callback
+     * that finds the animal under its old name moves it, and it moves it to
+     * the name the animal has by then, so the index ends at the final name.
+     */
+    @Override
+    public void nameChanged(Animal animal, String oldName, String newName) {
+        lock.writeLock().lock();
+        try {
+            if (delete(animal, oldName)) {
+                insert(animal, animal.getName());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Maintenance — callers hold the write lock
+    // -------------------------------------------------------------------------
+
+    /**
+     * Moves an animal filed under {@code filedName} to its current name, if a
+     * rename slipped in before the index was observing it. Renames from then
+     * on call back and wait for the lock held here, so reading the name now
+     * leaves nothing unreported.
+     */
+    private void refile(Animal animal, String filedName) {
+        String name = animal.getName();
+        if (!Objects.equals(name, filedName) && delete(animal, filedName)) {
+            insert(animal, name);
+        }
+    }
+
+    private boolean insert(Animal animal, String name) {
+        if (name == null) {
+            return unnamed.add(animal);
+        }
+        int at = base.find(name);
+        if (at >= 0) {
+            return base.add(at, animal);
+        }
+        at = delta.find(name);
+        if (at >= 0) {
+            return delta.add(at, animal);
+        }
+        delta.insert(-at - 1, name, animal);
+        if (delta.length > Math.max(MIN_DELTA, 16 * (int) Math.sqrt(base.length))) {
+            base  = Segment.merge(base, delta, null);
+            delta = new Segment(64);
+        }
+        return true;
+    }
+
+    private boolean delete(Animal animal, String name) {
+        if (name == null) {
+            return unnamed.remove(animal);
+        }
+        int at = base.find(name);
+        if (at >= 0) {
+            boolean removed = base.remove(at, animal);
+            if (base.dead > base.length / 4 + MIN_DELTA) {
+                base  = Segment.merge(base, delta, null);
+                delta = new Segment(64);
+            }
+            return removed;
+        }
+        at = delta.find(name);
+        return at >= 0 && delta.remove(at, animal);
+    }
+
+    // -------------------------------------------------------------------------
+    // Holders: the animals of one name, as a lone Animal or an Animal[]
+    // -------------------------------------------------------------------------
+
+    private static boolean contains(Object holder, Animal animal) {
+        if (holder instanceof Animal[] many) {
+            for (Animal a : many) {
+                if (a == animal) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return holder == animal;
+    }
+
+    /** Returns the holder with {@code animal} added; the same holder if it is already there. */
+    private static Object with(Object holder, Animal animal) {
+        if (holder == null) {
+            return animal;
+        }
+        if (contains(holder, animal)) {
+            return holder;
+        }
+        if (holder instanceof Animal[] many) {
+            Animal[] grown = Arrays.copyOf(many, many.length + 1);
+            grown[many.length] = animal;
+            return grown;
+        }
+        return new Animal[] {(Animal) holder, animal};
+    }
+
+    /** Returns the holder without {@code animal}: {@code null} once it is empty. */
+    private static Object without(Object holder, Animal animal) {
+        if (holder == animal) {
+            return null;
+        }
+        if (!(holder instanceof Animal[] many)) {
+            return holder;
+        }
+        for (int i = 0; i < many.length; i++) {
+            if (many[i] == animal) {
+                if (many.length == 2) {
+                    return many[1 - i];
+                }
+                Animal[] shrunk = new Animal[many.length - 1];
+                System.arraycopy(many, 0, shrunk, 0, i);
+                System.arraycopy(many, i + 1, shrunk, i, many.length - i - 1);
+                return shrunk;
+            }
+        }
+        return holder;
+    }
+
+    private static void collect(Object holder, List<Animal> result, int limit) {
+        if (holder instanceof Animal[] many) {
+            for (int i = 0; i < many.length && result.size() < limit; i++) {
+                result.add(many[i]);
+            }
+        } else if (holder != null && result.size() < limit) {
+            result.add((Animal) holder);
+        }
+    }
+
+    /** Calls {@code action} for every animal in a holder. */
+    private static void forEach(Object holder, Consumer<Animal> action) {
+        if (holder instanceof Animal[] many) {
+            for (Animal animal : many) {
+                action.accept(animal);
+            }
+        } else if (holder != null) {
+            action.accept((Animal) holder);
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Segment
+    // -------------------------------------------------------------------------
+
+    /**
+     * Distinct names in ascending order, each with its animals. A name whose
+     * holder is {@code null} is <em>dead</em>: kept for the ordering until the
+     * next merge, but matching nothing.
+     *
+     * <p>Alongside each name the segment keeps the trie shape that
+     * {@link Levenshtein} walks, so the walk rarely reads a name itself:</p>
+     * <ul>
+     *   <li>{@code lcp[i]}: the length of the prefix that name {@code i}
+     *       shares with name {@code i - 1} — the depth at which it branches
+     *       off — capped at 255;</li>
+     *   <li>{@code branch[i]}: its character at that depth;</li>
+     *   <li>for the base, the least {@code lcp} of each block of 64 and of
+     *       4096 names, so a walk can step over a large run sharing a prefix
+     *       a block at a time.</li>
+     * </ul>
+     */
+    private static final class Segment {
+
+        String[] names;
+        Object[] holders;
+        byte[]   lcp;
+        char[]   branch;
+        int      length;
+        int      dead;
+
+        private static final VarHandle LCP_WORDS =
+                MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+        private static final long ONES  = 0x0101010101010101L;
+        private static final long HIGHS = 0x8080808080808080L;
+
+        /** Block minima of {@link #lcp}; {@code null} for the delta, which stays small. */
+        byte[] min64;
+        byte[] min4096;
+
+        Segment(int capacity) {
+            names   = new String[capacity];
+            holders = new Object[capacity];
+            lcp     = new byte[capacity];
+            branch  = new char[capacity];
+        }
+
+        /** Returns the index of {@code name}, or {@code -(insertion point) - 1}. */
+        int find(String name) {
+            return Arrays.binarySearch(names, 0, length, name);
+        }
+
+        /** Returns the index of the first name at or after {@code key}. */
+        int lowerBound(String key) {
+            int at = find(key);
+            return at >= 0 ? at : -at - 1;
+        }
+
+        boolean add(int at, Animal animal) {
+            Object holder = holders[at];
+            Object grown  = with(holder, animal);
+            if (grown == holder) {
+                return false;
+            }
+            if (holder == null) {
+                dead--;
+            }
+            holders[at] = grown;
+            return true;
+        }
+
+        boolean remove(int at, Animal animal) {
+            Object holder = holders[at];
+            Object shrunk = without(holder, animal);
+            if (shrunk == holder) {
+                return false;
+            }
+            if (shrunk == null) {
+                dead++;
+            }
+            holders[at] = shrunk;
+            return true;
+        }
+
+        void insert(int at, String name, Animal animal) {
+            if (length == names.length) {
+                int capacity = Math.max(16, length * 2);
+                names   = Arrays.copyOf(names, capacity);
+                holders = Arrays.copyOf(holders, capacity);
+                lcp     = Arrays.copyOf(lcp, capacity);
+                branch  = Arrays.copyOf(branch, capacity);
+            }
+            System.arraycopy(names, at, names, at + 1, length - at);
+            System.arraycopy(holders, at, holders, at + 1, length - at);
+            System.arraycopy(lcp, at, lcp, at + 1, length - at);
+            System.arraycopy(branch, at, branch, at + 1, length - at);
+            names[at]   = name;
+            holders[at] = animal;
+            length++;
+            link(at);
+            if (at + 1 < length) {
+                link(at + 1);
+            }
+        }
+
+        /** Sets {@link #lcp} and {@link #branch} of name {@code i} from name {@code i - 1}. */
+        void link(int i) {
+            String name   = names[i];
+            int    shared = 0;
+            if (i > 0) {
+                String previous = names[i - 1];
+                int n = Math.min(255, Math.min(previous.length(), name.length()));
+                while (shared < n && previous.charAt(shared) == name.charAt(shared)) {
+                    shared++;
+                }
+            }
+            lcp[i]    = (byte) shared;
+            // Only the first name can end where it branches: it is then empty
+            branch[i] = shared < name.length() ? name.charAt(shared) : 0;
+        }
+
+        /** Appends a name, linking it to the one before unless its links are given. */
+        void append(String name, Object holder, Segment source, int index) {
+            names[length]   = name;
+            holders[length] = holder;
+            if (source != null) {
+                lcp[length]    = source.lcp[index];
+                branch[length] = source.branch[index];
+                length++;
+            } else {
+                link(length++);
+            }
+        }
+
+        /** Computes the block minima of {@link #lcp}, making this segment a base. */
+        Segment freeze() {
+            min64   = new byte[(length + 63) >>> 6];
+            min4096 = new byte[(length + 4095) >>> 12];
+            Arrays.fill(min64, (byte) 255);
+            Arrays.fill(min4096, (byte) 255);
+            for (int i = 0; i < length; i++) {
+                int value = lcp[i] & 0xFF;
+                if (value < (min64[i >>> 6] & 0xFF)) {
+                    min64[i >>> 6] = (byte) value;
+                }
+                if (value < (min4096[i >>> 12] & 0xFF)) {
+                    min4096[i >>> 12] = (byte) value;
+                }
+            }
+            return this;
+        }
+
+        /** Returns the first index at or after {@code from} whose name is not below {@code key}. */
+        int gallop(int from, String key) {
+            if (from >= length || names[from].compareTo(key) >= 0) {
+                return from;
+            }
+            // names[low] < key; widen until names[high] >= key or the end
+            int low  = from;
+            int step = 1;
+            int high = from + 1;
+            while (high < length && names[high].compareTo(key) < 0) {
+                low  = high;
+                step <<= 1;
+                high = from + step;
+            }
+            int at = Arrays.binarySearch(names, low + 1, Math.min(high, length), key);
+            return at >= 0 ? at : -at - 1;
+        }
+
+        /**
+         * Returns the index of the first name after {@code from} that does not
+         * share the first {@code depth} characters of name {@code from}: the
+         * first later name that branches off above that depth.
+         */
+        int skip(int from, int depth) {
+            int i = from + 1;
+            while (i < length) {
+                if ((i & 63) == 0 && min64 != null) {
+                    if ((i & 4095) == 0 && (min4096[i >>> 12] & 0xFF) >= depth) {
+                        i += 4096;
+                        continue;
+                    }
+                    if ((min64[i >>> 6] & 0xFF) >= depth) {
+                        i += 64;
+                        continue;
+                    }
+                }
+                if ((i & 7) == 0 && i + 8 <= length && depth <= 128) {
+                    // Eight lcp bytes at once: the high bit of each byte below depth
+                    // is set, and the lowest such bit is exact
+                    long word  = (long) LCP_WORDS.get(lcp, i);
+                    long below = (word - ONES * depth) & ~word & HIGHS;
+                    if (below == 0) {
+                        i += 8;
+                        continue;
+                    }
+                    return i + (Long.numberOfTrailingZeros(below) >>> 3);
+                }
+                if ((lcp[i] & 0xFF) < depth) {
+                    return i;
+                }
+                i++;
+            }
+            return length;
+        }
+
+        /**
+         * Groups sorted parallel arrays into a segment, dropping repeats of an
+         * animal. Equal names have equal keys, so most names are told apart
+         * without reading them.
+         */
+        static Segment grouped(long[] keys, String[] names, Animal[] animals, int n) {
+            Segment segment = new Segment(n);
+            for (int i = 0; i < n; i++) {
+                int last = segment.length - 1;
+                if (last >= 0 && keys[i] == keys[i - 1] && segment.names[last].equals(names[i])) {
+                    segment.holders[last] = with(segment.holders[last], animals[i]);
+                } else {
+                    segment.append(names[i], animals[i], null, 0);
+                }
+            }
+            return segment;
+        }
+
+        /**
+         * Merges two segments into a new base without dead names. For a name
+         * in both, {@code b}'s animals join {@code a}'s. If {@code added} is
+         * given, it is called for each of {@code b}'s animals that {@code a}
+         * did not already hold.
+         *
+         * <p>Runs of {@code a} between {@code b}'s names are found by
+         * galloping and copied with their links, so merging a small delta
+         * into a large base reads few names; only a name that follows a
+         * {@code b} name or a dropped one is linked afresh.</p>
+         */
+        static Segment merge(Segment a, Segment b, Consumer<Animal> added) {
+            Segment merged = new Segment(a.length - a.dead + b.length - b.dead);
+            Consumer<Animal> report = added != null ? added : animal -> { };
+            int i    = 0;
+            int last = -1;      // index in a of the name appended last, if it came from a
+            for (int j = 0; j <= b.length; j++) {
+                int end = j == b.length ? a.length : a.gallop(i, b.names[j]);
+                for (; i < end; i++) {
+                    if (a.holders[i] != null) {
+                        merged.append(a.names[i], a.holders[i], last == i - 1 ? a : null, i);
+                        last = i;
+                    }
+                }
+                if (j == b.length) {
+                    break;
+                }
+                boolean shared = i < a.length && a.names[i].equals(b.names[j]);
+                Object[] holder = {shared ? a.holders[i] : null};
+                forEach(b.holders[j], animal -> {
+                    Object grown = with(holder[0], animal);
+                    if (grown != holder[0]) {
+                        holder[0] = grown;
+                        report.accept(animal);
+                    }
+                });
+                if (holder[0] != null) {
+                    merged.append(b.names[j], holder[0], shared && last == i - 1 ? a : null, i);
+                    last = shared ? i : -2;
+                }
+                if (shared) {
+                    i++;
+                }
+            }
+            return merged.freeze();
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Levenshtein search
+    // -------------------------------------------------------------------------
+
+    /**
+     * The edit-distance automaton for one query, run over a segment as a trie.
+     * Row {@code d} holds the distances between the first {@code d}
+     * characters of the current name and every prefix of the query.
+     */
+    private static final class Levenshtein {
+
+        private final char[] query;
+        private final int    maxEdits;
+        private int[][]      rows;
+
+        Levenshtein(String query, int maxEdits) {
+            this.query    = query == null ? new char[0] : query.toCharArray();
+            this.maxEdits = maxEdits;
+            this.rows     = new int[32][];
+            int[] first = new int[this.query.length + 2];
+            Arrays.setAll(first, column -> Math.min(column, maxEdits + 1));
+            rows[0] = first;
+        }
+
+        void search(Segment segment, List<Match> matches) {
+            // Rows up to valid hold for the last name visited; each name shares
+            // lcp[i] characters with it, so the walk resumes from there
+            int valid = 0;
+            int i     = 0;
+            while (i < segment.length) {
+                int depth = Math.min(segment.lcp[i] & 0xFF, valid);
+                if (depth == (segment.lcp[i] & 0xFF) && (i > 0 || !segment.names[0].isEmpty())) {
+                    // Step into the branch without reading the name: most die here
+                    if (!step(segment.branch[i], ++depth)) {
+                        valid = depth;
+                        i     = segment.skip(i, depth);
+                        continue;
+                    }
+                }
+                String  name  = segment.names[i];
+                boolean alive = true;
+                while (depth < name.length()) {
+                    if (!step(name.charAt(depth), ++depth)) {
+                        alive = false;
+                        break;
+                    }
+                }
+                valid = depth;
+                if (!alive) {
+                    // No name below this prefix can come back within maxEdits
+                    i = segment.skip(i, depth);
+                    continue;
+                }
+                int distance = distance(depth);
+                if (distance <= maxEdits) {
+                    forEach(segment.holders[i], animal -> matches.add(new Match(animal, name, distance)));
+                }
+                i++;
+            }
+        }
+
+        /**
+         * Computes row {@code depth} from the one above it for character
+         * {@code c}, and returns whether any cell is still within bound.
+         * Only the band of columns within {@code maxEdits} of the diagonal
+         * can be within bound, so only those are computed; the cells either
+         * side of the band are set to {@code maxEdits + 1} for the next row.
+         */
+        private boolean step(char c, int depth) {
+            if (depth == rows.length) {
+                rows = Arrays.copyOf(rows, depth * 2);
+            }
+            int[] above = rows[depth - 1];
+            int[] row   = rows[depth];
+            if (row == null) {
+                row = rows[depth] = new int[query.length + 2];
+            }
+            int far  = maxEdits + 1;
+            int from = Math.max(1, depth - maxEdits);
+            int to   = Math.min(query.length, depth + maxEdits);
+            row[0]        = Math.min(depth, far);
+            row[from - 1] = from == 1 ? row[0] : far;
+            row[to + 1]   = far;
+            int min = row[0];
+            for (int column = from; column <= to; column++) {
+                int cost = query[column - 1] == c ? 0 : 1;
+                int cell = Math.min(Math.min(above[column] + 1, row[column - 1] + 1), above[column - 1] + cost);
+                row[column] = Math.min(cell, far);
+                min = Math.min(min, cell);
+            }
+            return min <= maxEdits;
+        }
+
+        /** Returns the distance of a whole name of this length, or more than maxEdits. */
+        private int distance(int depth) {
+            return Math.abs(depth - query.length) <= maxEdits ? rows[depth][query.length] : maxEdits + 1;
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Bulk sort
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns up to the first eight characters of a name, a byte each, packed
+     * into a long so that comparing keys unsigned orders names as
+     * {@link String#compareTo} does whenever the keys differ. A character
+     * above 254 is stored as 255 and ends the key, and a short name is padded
+     * with zeros; either way equal keys only mean the names need comparing.
+     */
+    private static long key(String name) {
+        long key = 0;
+        int  n   = Math.min(8, name.length());
+        int  i   = 0;
+        for (; i < n; i++) {
+            char c = name.charAt(i);
+            key = key << 8 | Math.min(c, 255);
+            if (c >= 255) {
+                i++;
+                break;
+            }
+        }
+        return key << (8 * (8 - i));
+    }
+
+    private static int compare(long[] keys, String[] names, int i, int j) {
+        int order = Long.compareUnsigned(keys[i], keys[j]);
+        return order != 0 ? order : names[i].compareTo(names[j]);
+    }
+
+    /**
+     * Sorts the first {@code n} names, moving each key and animal with its
+     * name: a stable bottom-up merge sort over insertion-sorted runs. Keys
+     * settle most comparisons from one array instead of from millions of
+     * scattered strings, and no pair objects are needed.
+     */
+    private static void sort(long[] keys, String[] names, Animal[] animals, int n) {
+        for (int low = 0; low < n; low += RUN) {
+            int high = Math.min(low + RUN, n);
+            for (int i = low + 1; i < high; i++) {
+                long   key    = keys[i];
+                String name   = names[i];
+                Animal animal = animals[i];
+                int j = i - 1;
+                while (j >= low) {
+                    int order = Long.compareUnsigned(keys[j], key);
+                    if (order < 0 || order == 0 && names[j].compareTo(name) <= 0) {
+                        break;
+                    }
+                    keys[j + 1]    = keys[j];
+                    names[j + 1]   = names[j];
+                    animals[j + 1] = animals[j];
+                    j--;
+                }
+                keys[j + 1]    = key;
+                names[j + 1]   = name;
+                animals[j + 1] = animal;
+            }
+        }
+        if (n <= RUN) {
+            return;
+        }
+        long[]   fromKeys    = keys;
+        String[] fromNames   = names;
+        Animal[] fromAnimals = animals;
+        long[]   toKeys      = new long[n];
+        String[] toNames     = new String[n];
+        Animal[] toAnimals   = new Animal[n];
+        for (int width = RUN; width < n; width <<= 1) {
+            for (int low = 0; low < n; low += 2 * width) {
+                int middle = Math.min(low + width, n);
+                int high   = Math.min(low + 2 * width, n);
+                int i = low;
+                int j = middle;
+                for (int k = low; k < high; k++) {
+                    int from = j >= high || (i < middle && compare(fromKeys, fromNames, i, j) <= 0) ? i++ : j++;
+                    toKeys[k]    = fromKeys[from];
+                    toNames[k]   = fromNames[from];
+                    toAnimals[k] = fromAnimals[from];
+                }
+            }
+            long[]   swapKeys    = fromKeys;
+            String[] swapNames   = fromNames;
+            Animal[] swapAnimals = fromAnimals;
+            fromKeys    = toKeys;
+            fromNames   = toNames;
+            fromAnimals = toAnimals;
+            toKeys      = swapKeys;
+            toNames     = swapNames;
+            toAnimals   = swapAnimals;
+        }
+        if (fromNames != names) {
+            System.arraycopy(fromKeys, 0, keys, 0, n);
+            System.arraycopy(fromNames, 0, names, 0, n);
+            System.arraycopy(fromAnimals, 0, animals, 0, n);
+        }
+    }
+}
@@ -0,0 +1,389 @@
+package animals.io;
+
+import animals.Animal;
+import animals.Bird;
+import animals.Cat;
+import animals.Dog;
+import animals.Fish;
+import animals.Species;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A compact binary encoding of single animals, for sending them between
+ * processes without Java serialization.
+ *
+ * <p>Each animal is written as one self-describing record:</p>
+ * <pre>
+ *   byte     species tag         ({@link Species#tag()})
+ *   byte     flags               bit 0 = friendly, bit 1 = canFly (birds only)
+ *   varint   age                 zigzag-encoded, so small negative ages stay small
+ *   float    weight              4 bytes, big-endian IEEE 754 bits
+ *   varint   wings or fins       zigzag-encoded; birds and fish only
+ *   string   name, colour, home  each a varint of (UTF-8 length + 1), 0 for null,
+ *                                followed by the UTF-8 bytes
+ * </pre>
+ *
+ * <p>A varint stores 7 bits per byte, low bits first, with the top bit set
+ * on every byte but the last. A typical animal therefore takes 7 bytes (8
+ * for a bird or fish) plus its strings.</p>
+ *
+ * <p>A <em>batch</em> ({@link #encodeAll}, {@link #decodeAll}) is a varint
+ * record count followed by that many records.</p>
+ *
+ * <p>Encoding writes straight into the caller's buffer and decoding reads
+ * straight from it — no intermediate streams and no reflection. Strings in
+ * a heap buffer are decoded in place from its backing array; a direct
+ * buffer needs one temporary copy per string.
+ * Unpaired surrogates in strings are written as {@code '?'}, as
+ * {@code String.getBytes(UTF_8)} does. All methods are static and
+ * thread-safe.</p>
+ */
+public final class AnimalCodec {
+
+    private static final int FRIENDLY = 1;
+    private static final int CAN_FLY  = 2;
+
+    /** A zigzag varint of a 32-bit value never needs more than five bytes. */
+    private static final int MAX_VARINT_BYTES = 5;
+
+    private AnimalCodec() {
+        // Static methods only
+    }
+
+    // -------------------------------------------------------------------------
+    // Single records
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns the exact number of bytes {@link #encode(Animal, ByteBuffer)}
+     * writes for this animal.
+     */
+    public static int encodedSize(Animal animal) {
+        Species species = Species.of(animal);
+        int size = 2 + varintSize(zigzag(animal.getAge())) + Float.BYTES;
+        if (species == Species.BIRD) {
+            size += varintSize(zigzag(((Bird) animal).getNumberOfWings()));
+        } else if (species == Species.FISH) {
+            size += varintSize(zigzag(((Fish) animal).getNumberOfFins()));
+        }
+        return size + stringSize(animal.getName()) + stringSize(animal.getColour()) + stringSize(animal.getHome());
+    }
+
+    /**
+     * Writes one animal at the buffer's position and advances it.
+     *
+     * @throws BufferOverflowException if the record does not fit; the
+     *         buffer's position is then left unchanged
+     */
+    public static void encode(Animal animal, ByteBuffer buffer) {
+        int start = buffer.position();
+        try {
+            Species species = Species.of(animal);
+            int flags = animal.isFriendly() ? FRIENDLY : 0;
+            int limbs = 0;
+            if (species == Species.BIRD) {
+                Bird bird = (Bird) animal;
+                flags |= bird.canFly() ? CAN_FLY : 0;
+                limbs = bird.getNumberOfWings();
+            } else if (species == Species.FISH) {
+                limbs = ((Fish) animal).getNumberOfFins();
+            }
+            buffer.put(species.tag());
+            buffer.put((byte) flags);
+            putVarint(buffer, zigzag(animal.getAge()));
+            putInt(buffer, Float.floatToRawIntBits(animal.getWeight()));
+            if (species == Species.BIRD || species == Species.FISH) {
+                putVarint(buffer, zigzag(limbs));
+            }
+            putString(buffer, animal.getName());
+            putString(buffer, animal.getColour());
+            putString(buffer, animal.getHome());
+        } catch (BufferOverflowException e) {
+            buffer.position(start);
+            throw e;
+        }
+    }
+
+    /**
+     * Encodes one animal into a new array of exactly the right size.
+     */
+    public static byte[] encode(Animal animal) {
+        byte[] bytes = new byte[encodedSize(animal)];
+        encode(animal, ByteBuffer.wrap(bytes));
+        return bytes;
+    }
+
+    /**
+     * Reads one animal at the buffer's position and advances past it. If the
+     * record cannot be read, the buffer's position is left unchanged.
+     *
+     * @throws BufferUnderflowException if the buffer ends inside the record
+     * @throws IllegalArgumentException if the bytes are not a valid record
+     */
+    public static Animal decode(ByteBuffer buffer) {
+        int start = buffer.position();
+        try {
+            Species species = Species.fromTag(buffer.get());
+            int flags = buffer.get();
+            if ((flags & ~(FRIENDLY | CAN_FLY)) != 0) {
+                throw new IllegalArgumentException("unknown flags 0x" + Integer.toHexString(flags & 0xFF));
+            }
+            int age = unzigzag(getVarint(buffer));
+            float weight = Float.intBitsToFloat(getInt(buffer));
+            int limbs = species == Species.BIRD || species == Species.FISH ? unzigzag(getVarint(buffer)) : 0;
+            String name   = getString(buffer);
+            String colour = getString(buffer);
+            String home   = getString(buffer);
+            boolean friendly = (flags & FRIENDLY) != 0;
+            return switch (species) {
+                case DOG  -> new Dog (name, age, weight, colour, friendly, home);
+                case CAT  -> new Cat (name, age, weight, colour, friendly, home);
+                case BIRD -> new Bird(name, age, weight, colour, friendly, home, limbs, (flags & CAN_FLY) != 0);
+                case FISH -> new Fish(name, age, weight, colour, friendly, home, limbs);
+            };
+        } catch (RuntimeException e) {
+            buffer.position(start);
+            throw e;
+        }
+    }
+
+    /**
+     * Decodes one animal from a whole array.
+     *
+     * @throws IllegalArgumentException if the array is not exactly one valid record
+     */
+    public static Animal decode(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        Animal animal;
+        try {
+            animal = decode(buffer);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("truncated record");
+        }
+        if (buffer.hasRemaining()) {
+            throw new IllegalArgumentException(buffer.remaining() + " bytes after record");
+        }
+        return animal;
+    }
+
+    // -------------------------------------------------------------------------
+    // Batches
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns the exact number of bytes {@link #encodeAll} writes for these animals.
+     */
+    public static int encodedSize(Collection<? extends Animal> animals) {
+        int size = varintSize(animals.size());
+        for (Animal animal : animals) {
+            size += encodedSize(animal);
+        }
+        return size;
+    }
+
+    /**
+     * Writes a batch — a count followed by every animal — and advances the
+     * buffer's position.
+     *
+     * @throws BufferOverflowException if the batch does not fit; the
+     *         buffer's position is then left unchanged
+     */
+    public static void encodeAll(Collection<? extends Animal> animals, ByteBuffer buffer) {
+        int start = buffer.position();
+        try {
+            putVarint(buffer, animals.size());
+            for (Animal animal : animals) {
+                encode(animal, buffer);
+            }
+        } catch (BufferOverflowException e) {
+            buffer.position(start);
+            throw e;
+        }
+    }
+
+    /**
+     * Reads a batch written by {@link #encodeAll}, passing each animal to
+     * {@code consumer} as it is decoded. If a record cannot be read, the
+     * animals before it have already been passed on.
+     *
+     * @return the number of animals decoded
+     * @throws BufferUnderflowException if the buffer ends inside the batch
+     * @throws IllegalArgumentException if a record is invalid
+     */
+    public static int decodeAll(ByteBuffer buffer, Consumer<? super Animal> consumer) {
+        int count = getVarint(buffer);
+        if (count < 0) {
+            throw new IllegalArgumentException("negative batch size " + count);
+        }
+        for (int i = 0; i < count; i++) {
+            consumer.accept(decode(buffer));
+        }
+        return count;
+    }
+
+    /**
+     * Reads a batch written by {@link #encodeAll} into a list.
+     */
+    public static List<Animal> decodeAll(ByteBuffer buffer) {
+        int count = getVarint(buffer);
+        if (count < 0) {
+            throw new IllegalArgumentException("negative batch size " + count);
+        }
+        // Each record is at least 7 bytes; do not trust a huge count from bad input
+        List<Animal> animals = new ArrayList<>(Math.min(count, buffer.remaining() / 7));
+        for (int i = 0; i < count; i++) {
+            animals.add(decode(buffer));
+        }
+        return animals;
+    }
+
+    // -------------------------------------------------------------------------
+    // Primitives — package-private so MutationLog records share the encoding
+    // -------------------------------------------------------------------------
+
+    static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static int varintSize(int value) {
+        // 1 byte per started group of 7 bits; zero still takes one byte
+        return Math.max(1, (32 - Integer.numberOfLeadingZeros(value) + 6) / 7);
+    }
+
+    static void putVarint(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    static int getVarint(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0, i = 0; i < MAX_VARINT_BYTES; i++, shift += 7) {
+            int b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("varint longer than " + MAX_VARINT_BYTES + " bytes");
+    }
+
+    /** Writes big-endian whatever the buffer's byte order, so the format is fixed. */
+    private static void putInt(ByteBuffer buffer, int value) {
+        buffer.put((byte) (value >>> 24));
+        buffer.put((byte) (value >>> 16));
+        buffer.put((byte) (value >>> 8));
+        buffer.put((byte) value);
+    }
+
+    private static int getInt(ByteBuffer buffer) {
+        return (buffer.get() & 0xFF) << 24 | (buffer.get() & 0xFF) << 16
+             | (buffer.get() & 0xFF) << 8  | (buffer.get() & 0xFF);
+    }
+
+    // -------------------------------------------------------------------------
+    // Strings
+    // -------------------------------------------------------------------------
+
+    static int stringSize(String s) {
+        if (s == null) {
+            return 1;
+        }
+        int length = utf8Length(s);
+        return varintSize(length + 1) + length;
+    }
+
+    /** Returns the UTF-8 length of a string, with unpaired surrogates counted as one byte. */
+    private static int utf8Length(String s) {
+        int length = s.length();
+        int bytes = length;
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            if (c >= 0x80) {
+                if (c < 0x800) {
+                    bytes += 1;
+                } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    bytes += 2; // four bytes for two chars
+                    i++;
+                } else if (Character.isSurrogate(c)) {
+                    // Written as '?'
+                } else {
+                    bytes += 2;
+                }
+            }
+        }
+        return bytes;
+    }
+
+    static void putString(ByteBuffer buffer, String s) {
+        if (s == null) {
+            buffer.put((byte) 0);
+            return;
+        }
+        int length = utf8Length(s);
+        putVarint(buffer, length + 1);
+        if (buffer.remaining() < length) {
+            throw new BufferOverflowException();
+        }
+        int chars = s.length();
+        for (int i = 0; i < chars; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < chars && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                buffer.put((byte) (0xF0 | (cp >> 18)));
+                buffer.put((byte) (0x80 | ((cp >> 12) & 0x3F)));
+                buffer.put((byte) (0x80 | ((cp >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (cp & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                buffer.put((byte) '?');
+            } else {
+                buffer.put((byte) (0xE0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    static String getString(ByteBuffer buffer) {
+        int length = getVarint(buffer) - 1;
+        if (length < 0) {
+            if (length == -1) {
+                return null;
+            }
+            throw new IllegalArgumentException("bad string length " + length);
+        }
+        if (length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        String s;
+        if (buffer.hasArray()) {
+            // Decode in place from the backing array
+            s = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        } else {
+            byte[] bytes = new byte[length];
+            buffer.get(buffer.position(), bytes);
+            s = new String(bytes, StandardCharsets.UTF_8);
+        }
+        buffer.position(buffer.position() + length);
+        return s;
+    }
+}
@@ -0,0 +1,495 @@
+package animals.io;
+
+import animals.Animal;
+import animals.store.AnimalStore;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Loads animals from a CSV or NDJSON file of any size, in bounded memory,
+ * parsing on several threads.
+ *
+ * <p>The calling thread reads the file through a {@link FileChannel} into a
+ * fixed set of reusable chunk buffers, cutting each chunk at its last line
+ * break so that no line is split. Worker threads take chunks from a bounded
+ * queue, parse every line into a {@code Dog}, {@code Cat}, {@code Bird} or
+ * {@code Fish} according to its {@code species} field, and hand each chunk's
+ * animals to the caller's sink as one batch. When the workers fall behind the
+ * reader waits for a free buffer, so memory use is fixed by the chunk size,
+ * queue length and thread count — about
+ * {@code chunkBytes * (queueChunks + threads + 2)} — and not by the file.</p>
+ *
+ * <pre>{@code
+ * AnimalIngest ingest = AnimalIngest.builder()
+ *         .threads(8)
+ *         .rejects(Path.of("animals.rejects"))
+ *         .build();
+ * IngestReport report = ingest.ingest(Path.of("animals.csv"), batch -> registry.addAll(batch));
+ * System.out.println(report);  // rows, rejects and rows/sec
+ * }</pre>
+ *
+ * <p><b>Rejects.</b> A line that cannot be parsed is not loaded. If a reject
+ * file is configured, it gets one line per rejected input line:
+ * the input line's byte offset in the file, a tab, the reason, a tab, and the
+ * original text. Blank lines are skipped silently.</p>
+ *
+ * <p><b>Ordering.</b> Batches are passed to the sink from the worker threads,
+ * possibly several at once and not in file order, so the sink must be
+ * thread-safe. Within a batch, animals are in file order.</p>
+ *
+ * @see IngestFormat
+ */
+public final class AnimalIngest {
+
+    /** Default size of each chunk buffer. */
+    public static final int DEFAULT_CHUNK_BYTES = 1 << 20;
+
+    /** Longest reject text kept for a line too long to fit in a chunk. */
+    private static final int OVERLONG_PREFIX = 200;
+
+    private final IngestFormat format;
+    private final int threads;
+    private final int chunkBytes;
+    private final int queueChunks;
+    private final Path rejects;
+
+    private AnimalIngest(Builder builder) {
+        this.format      = builder.format;
+        this.threads     = builder.threads;
+        this.chunkBytes  = builder.chunkBytes;
+        this.queueChunks = builder.queueChunks == 0 ? 2 * builder.threads : builder.queueChunks;
+        this.rejects     = builder.rejects;
+    }
+
+    /**
+     * Returns a builder with the defaults: format chosen by file name, one
+     * thread per processor, {@value #DEFAULT_CHUNK_BYTES}-byte chunks, two
+     * queued chunks per thread, and no reject file.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    // -------------------------------------------------------------------------
+    // Ingest
+    // -------------------------------------------------------------------------
+
+    /**
+     * Loads every animal in {@code file}, passing them to {@code sink} in batches.
+     *
+     * @param file the CSV or NDJSON file
+     * @param sink receives the animals, one batch per chunk; called from
+     *             several threads at once
+     * @return counts and throughput of the load
+     * @throws IOException if the file cannot be read, the reject file cannot
+     *         be written, or a CSV header is longer than a chunk
+     * @throws InterruptedException if the calling thread is interrupted
+     */
+    public IngestReport ingest(Path file, Consumer<? super List<Animal>> sink) throws IOException, InterruptedException {
+        Objects.requireNonNull(sink, "sink");
+        IngestFormat fileFormat = format != null ? format : IngestFormat.of(file);
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             Rejects rejected = new Rejects(rejects)) {
+            Run run = new Run(fileFormat, sink, rejected);
+            run.read(channel);
+            return new IngestReport(run.rows.sum(), rejected.count.sum(), channel.size(), System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Loads every animal in {@code file} into a columnar store, in file order
+     * within each chunk. The workers add to the store while holding its
+     * monitor, so other threads touching the store during the load must
+     * synchronise on it too.
+     *
+     * @param file  the CSV or NDJSON file
+     * @param store the store to append the animals to
+     * @return counts and throughput of the load
+     * @throws IOException if the file cannot be read, the reject file cannot
+     *         be written, or a CSV header is longer than a chunk
+     * @throws InterruptedException if the calling thread is interrupted
+     * @see #ingest(Path, Consumer)
+     */
+    public IngestReport ingestInto(Path file, AnimalStore store) throws IOException, InterruptedException {
+        return ingest(file, batch -> {
+            synchronized (store) {
+                for (Animal animal : batch) {
+                    store.add(animal);
+                }
+            }
+        });
+    }
+
+    /** A range of complete lines in a chunk buffer; {@code buffer == null} stops a worker. */
+    private record Chunk(ByteBuffer buffer, int from, int to, long fileOffset) {
+        static final Chunk END = new Chunk(null, 0, 0, 0);
+    }
+
+    /** The state of one {@link #ingest} call. */
+    private final class Run {
+
+        private final IngestFormat format;
+        private final Consumer<? super List<Animal>> sink;
+        private final Rejects rejects;
+
+        private final BlockingQueue<ByteBuffer> free;
+        private final BlockingQueue<Chunk> work = new ArrayBlockingQueue<>(queueChunks);
+        private final LongAdder rows = new LongAdder();
+
+        /** First failure on a worker thread; once set, the workers discard their chunks. */
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        /** Set once the header has been read; always set for NDJSON. */
+        private volatile RowParser parser;
+
+        Run(IngestFormat format, Consumer<? super List<Animal>> sink, Rejects rejects) {
+            this.format  = format;
+            this.sink    = sink;
+            this.rejects = rejects;
+            int buffers = queueChunks + threads + 2;
+            free = new ArrayBlockingQueue<>(buffers);
+            for (int i = 0; i < buffers; i++) {
+                free.add(ByteBuffer.allocate(chunkBytes));
+            }
+            if (format == IngestFormat.NDJSON) {
+                parser = RowParser.of(format, null);
+            }
+        }
+
+        /** Reads the file into chunks on this thread while the workers parse them. */
+        void read(FileChannel channel) throws IOException, InterruptedException {
+            List<Thread> workers = new ArrayList<>(threads);
+            for (int i = 0; i < threads; i++) {
+                workers.add(Thread.ofPlatform().name("animal-ingest-", i).daemon(true).start(this::parseChunks));
+            }
+            try {
+                split(channel);
+            } catch (Throwable t) {
+                // Make the workers discard what is still queued
+                failure.compareAndSet(null, t);
+                throw t;
+            } finally {
+                for (int i = 0; i < threads; i++) {
+                    work.put(Chunk.END);
+                }
+                for (Thread worker : workers) {
+                    worker.join();
+                }
+            }
+            Throwable t = failure.get();
+            if (t instanceof UncheckedIOException e) {
+                throw e.getCause();
+            }
+            if (t instanceof RuntimeException e) {
+                throw e;
+            }
+            if (t instanceof Error e) {
+                throw e;
+            }
+        }
+
+        /**
+         * Fills buffers from the channel and queues the complete lines in each,
+         * carrying a trailing partial line over into the next buffer.
+         */
+        private void split(FileChannel channel) throws IOException, InterruptedException {
+            ByteBuffer buffer = free.take();
+            byte[] bytes = buffer.array();
+            long offset = 0;         // file offset of bytes[0]
+            int filled = 0;          // bytes in the buffer
+            boolean eof = false;
+            boolean firstRead = true;
+            boolean skipping = false; // discarding the rest of an over-long line
+
+            while (failure.get() == null) {
+                while (!eof && filled < bytes.length) {
+                    buffer.limit(bytes.length).position(filled);
+                    int n = channel.read(buffer);
+                    if (n < 0) {
+                        eof = true;
+                    } else {
+                        filled += n;
+                    }
+                }
+                int from = 0;
+                if (firstRead) {
+                    firstRead = false;
+                    if (filled >= 3 && (bytes[0] & 0xFF) == 0xEF && (bytes[1] & 0xFF) == 0xBB && (bytes[2] & 0xFF) == 0xBF) {
+                        from = 3; // UTF-8 byte order mark
+                    }
+                }
+                if (skipping) {
+                    int newline = indexOf(bytes, from, filled);
+                    if (newline < 0) {
+                        if (eof) {
+                            break;
+                        }
+                        offset += filled;
+                        filled = 0;
+                        continue;
+                    }
+                    from = newline + 1;
+                    skipping = false;
+                }
+                if (eof && from >= filled) {
+                    break;
+                }
+                if (parser == null) {
+                    int newline = indexOf(bytes, from, filled);
+                    if (newline < 0 && !eof) {
+                        throw new IOException("CSV header is longer than " + bytes.length + " bytes");
+                    }
+                    int end = newline < 0 ? filled : newline;
+                    parser = RowParser.of(format, decode(bytes, from, end));
+                    from = newline < 0 ? filled : newline + 1;
+                }
+
+                int to;
+                if (eof) {
+                    to = filled; // the last line need not end with a line break
+                } else {
+                    int lastNewline = lastIndexOf(bytes, from, filled);
+                    if (lastNewline < 0 && from == 0) {
+                        // One line fills the whole buffer
+                        rejects.reject(offset, "line longer than " + bytes.length + " bytes",
+                                decode(bytes, 0, Math.min(filled, OVERLONG_PREFIX)) + "...");
+                        skipping = true;
+                        offset += filled;
+                        filled = 0;
+                        continue;
+                    }
+                    to = lastNewline < 0 ? from : lastNewline + 1;
+                }
+
+                if (to > from) {
+                    ByteBuffer next = free.take();
+                    System.arraycopy(bytes, to, next.array(), 0, filled - to);
+                    work.put(new Chunk(buffer, from, to, offset + from));
+                    offset += to;
+                    filled -= to;
+                    buffer = next;
+                    bytes = next.array();
+                } else if (from > 0) {
+                    System.arraycopy(bytes, from, bytes, 0, filled - from);
+                    offset += from;
+                    filled -= from;
+                }
+                if (eof && filled == 0) {
+                    break;
+                }
+            }
+            free.put(buffer);
+        }
+
+        /** Worker loop: parses queued chunks until the end marker. */
+        private void parseChunks() {
+            String[] values = new String[RowParser.FIELDS];
+            try {
+                while (true) {
+                    Chunk chunk = work.take();
+                    if (chunk.buffer() == null) {
+                        return;
+                    }
+                    List<Animal> batch = null;
+                    try {
+                        if (failure.get() == null) {
+                            batch = parse(chunk, values);
+                        }
+                    } catch (Throwable t) {
+                        failure.compareAndSet(null, t);
+                    } finally {
+                        free.put(chunk.buffer());
+                    }
+                    if (batch != null && !batch.isEmpty()) {
+                        try {
+                            sink.accept(batch);
+                            rows.add(batch.size());
+                        } catch (Throwable t) {
+                            failure.compareAndSet(null, t);
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                failure.compareAndSet(null, e);
+            }
+        }
+
+        private List<Animal> parse(Chunk chunk, String[] values) {
+            RowParser parser = this.parser;
+            byte[] bytes = chunk.buffer().array();
+            List<Animal> batch = new ArrayList<>();
+            int lineStart = chunk.from();
+            while (lineStart < chunk.to()) {
+                int newline = indexOf(bytes, lineStart, chunk.to());
+                int next = newline < 0 ? chunk.to() : newline + 1;
+                int lineEnd = newline < 0 ? chunk.to() : newline;
+                if (lineEnd > lineStart && bytes[lineEnd - 1] == '\r') {
+                    lineEnd--;
+                }
+                if (lineEnd > lineStart) {
+                    String line = decode(bytes, lineStart, lineEnd);
+                    if (!line.isBlank()) {
+                        try {
+                            batch.add(parser.parse(line, values));
+                        } catch (IllegalArgumentException e) {
+                            try {
+                                rejects.reject(chunk.fileOffset() + (lineStart - chunk.from()), e.getMessage(), line);
+                            } catch (IOException io) {
+                                throw new UncheckedIOException(io);
+                            }
+                        }
+                    }
+                }
+                lineStart = next;
+            }
+            return batch;
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Helpers
+    // -------------------------------------------------------------------------
+
+    private static int indexOf(byte[] bytes, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (bytes[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int lastIndexOf(byte[] bytes, int from, int to) {
+        for (int i = to - 1; i >= from; i--) {
+            if (bytes[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String decode(byte[] bytes, int from, int to) {
+        return new String(bytes, from, to - from, StandardCharsets.UTF_8);
+    }
+
+    /** Counts rejected lines and, if configured, writes them to the reject file. */
+    private static final class Rejects implements AutoCloseable {
+
+        private final Writer out;
+        private final LongAdder count = new LongAdder();
+
+        Rejects(Path path) throws IOException {
+            this.out = path == null ? null : Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+        }
+
+        void reject(long offset, String reason, String line) throws IOException {
+            count.increment();
+            if (out != null) {
+                synchronized (this) {
+                    out.write(Long.toString(offset));
+                    out.write('\t');
+                    out.write(reason);
+                    out.write('\t');
+                    out.write(line);
+                    out.write('\n');
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (out != null) {
+                out.close();
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Builder
+    // -------------------------------------------------------------------------
+
+    /**
+     * Configures an {@link AnimalIngest}. Obtained from {@link AnimalIngest#builder()}.
+     */
+    public static final class Builder {
+
+        private IngestFormat format;
+        private int threads = Runtime.getRuntime().availableProcessors();
+        private int chunkBytes = DEFAULT_CHUNK_BYTES;
+        private int queueChunks;
+        private Path rejects;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the file format. By default it is chosen from each file's name
+         * by {@link IngestFormat#of(Path)}.
+         */
+        public Builder format(IngestFormat format) {
+            this.format = Objects.requireNonNull(format, "format");
+            return this;
+        }
+
+        /** Sets the number of parsing threads. */
+        public Builder threads(int threads) {
+            if (threads < 1) {
+                throw new IllegalArgumentException("threads must be positive: " + threads);
+            }
+            this.threads = threads;
+            return this;
+        }
+
+        /**
+         * Sets the size of each chunk buffer, which is also the longest line
+         * that can be loaded; longer lines are rejected.
+         */
+        public Builder chunkBytes(int chunkBytes) {
+            if (chunkBytes < 64) {
+                throw new IllegalArgumentException("chunkBytes must be at least 64: " + chunkBytes);
+            }
+            this.chunkBytes = chunkBytes;
+            return this;
+        }
+
+        /** Sets how many read chunks may wait for a parsing thread. Twice the thread count by default. */
+        public Builder queueChunks(int queueChunks) {
+            if (queueChunks < 1) {
+                throw new IllegalArgumentException("queueChunks must be positive: " + queueChunks);
+            }
+            this.queueChunks = queueChunks;
+            return this;
+        }
+
+        /** Writes rejected lines to this file, replacing it. By default they are only counted. */
+        public Builder rejects(Path rejects) {
+            this.rejects = rejects;
+            return this;
+        }
+
+        /**
+         * Creates an ingest with these settings. It holds no buffers or
+         * threads between calls, so one instance may load many files.
+         */
+        public AnimalIngest build() {
+            return new AnimalIngest(this);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package animals.io;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * The text formats {@link AnimalIngest} can read. Both hold one animal per
+ * line, with these fields (names are case-insensitive):
+ *
+ * <table>
+ *   <caption>Fields</caption>
+ *   <tr><th>Field</th><th>Type</th><th>Required for</th></tr>
+ *   <tr><td>{@code species}</td><td>{@code dog}, {@code cat}, {@code bird} or {@code fish}</td><td>all</td></tr>
+ *   <tr><td>{@code name}, {@code colour}, {@code home}</td><td>text</td><td>all</td></tr>
+ *   <tr><td>{@code age}</td><td>integer</td><td>all</td></tr>
+ *   <tr><td>{@code weight}</td><td>decimal</td><td>all</td></tr>
+ *   <tr><td>{@code friendly}</td><td>{@code true} or {@code false}</td><td>all</td></tr>
+ *   <tr><td>{@code numberOfWings}</td><td>integer</td><td>birds</td></tr>
+ *   <tr><td>{@code canFly}</td><td>{@code true} or {@code false}</td><td>birds</td></tr>
+ *   <tr><td>{@code numberOfFins}</td><td>integer</td><td>fish</td></tr>
+ * </table>
+ *
+ * <p>Fields not needed by a row's species may be empty or missing.</p>
+ */
+public enum IngestFormat {
+
+    /**
+     * Comma-separated values. The first line is a header naming the columns,
+     * in any order. Fields may be quoted with {@code "}, with {@code ""} for a
+     * quote inside a quoted field; a quoted field may not span lines.
+     */
+    CSV,
+
+    /**
+     * Newline-delimited JSON: one flat JSON object per line, e.g.
+     * {@code {"species":"dog","name":"Buddy","age":3,...}}. Unknown keys are ignored.
+     */
+    NDJSON;
+
+    /**
+     * Picks the format from a file name: {@code .ndjson}, {@code .jsonl} and
+     * {@code .json} are {@link #NDJSON}; anything else is {@link #CSV}.
+     */
+    public static IngestFormat of(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        return name.endsWith(".ndjson") || name.endsWith(".jsonl") || name.endsWith(".json") ? NDJSON : CSV;
+    }
+}
@@ -0,0 +1,29 @@
+package animals.io;
+
+/**
+ * What happened during one {@link AnimalIngest#ingest} call.
+ *
+ * @param rows         animals created and passed to the sink
+ * @param rejected     malformed lines that were not loaded; they are also
+ *                     written to the reject file, if one is configured
+ * @param bytes        size of the input file
+ * @param elapsedNanos wall-clock time of the ingest
+ */
+public record IngestReport(long rows, long rejected, long bytes, long elapsedNanos) {
+
+    /** Returns the rows (accepted and rejected) processed per second. */
+    public double rowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : (rows + rejected) * 1e9 / elapsedNanos;
+    }
+
+    /** Returns the input read per second, in mebibytes. */
+    public double mebibytesPerSecond() {
+        return elapsedNanos == 0 ? 0 : bytes * 1e9 / elapsedNanos / (1 << 20);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%,d rows, %,d rejected, %,d bytes in %.2f s (%,.0f rows/s, %.1f MiB/s)",
+                rows, rejected, bytes, elapsedNanos / 1e9, rowsPerSecond(), mebibytesPerSecond());
+    }
+}
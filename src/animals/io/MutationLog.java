@@ -0,0 +1,921 @@
+package animals.io;
+
+import animals.Animal;
+import animals.AnimalObserver;
+import animals.Bird;
+import animals.Fish;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+import static animals.io.MutationLogFormat.*;
+
+/**
+ * A write-ahead log that makes a population of animals survive a crash.
+ *
+ * <pre>{@code
+ * try (MutationLog log = MutationLog.builder(dir).open()) {
+ *     List<Animal> animals = new ArrayList<>(log.recovered());   // state before the crash
+ *     Dog rex = new Dog("Rex", 3);
+ *     log.track(rex);                                            // logs its creation
+ *     rex.setAge(4);                                             // logged by the setter
+ *     log.checkpoint();                                          // compacts the log
+ * }
+ * }</pre>
+ *
+ * <p><b>Recording.</b> {@link #track(Animal)} logs the animal's creation and
+ * attaches the log to it as an {@link AnimalObserver}; from then on every
+ * setter — including the {@code Bird} and {@code Fish} ones and the
+ * {@code compareAndSet} forms — appends a compact binary record of the
+ * field's value ({@link MutationLogFormat}). The value is read back from the
+ * animal under the log's lock, so when atomic updates race and their
+ * callbacks arrive out of order, the last record still holds the value the
+ * animal ended up with. {@link #untrack(Animal)} logs a
+ * deletion.</p>
+ *
+ * <p><b>Group commit.</b> Setters only append to an in-memory buffer. A
+ * background thread writes the buffer out and calls {@code fsync} once per
+ * batch, so one {@code fsync} covers every mutation made while the previous
+ * one was in progress. Two settings trade latency for throughput:</p>
+ * <ul>
+ *   <li>{@link Builder#commit(Commit)} — with {@link Commit#SYNC} (the
+ *       default) a setter returns only once its record is on disk; with
+ *       {@link Commit#ASYNC} it returns at once, and a crash may lose the
+ *       mutations of the last batch. {@link #sync()} waits for everything
+ *       appended so far.</li>
+ *   <li>{@link Builder#commitInterval(Duration)} — how long the flusher waits
+ *       for more records before writing a batch smaller than
+ *       {@link Builder#batchBytes(int)}. Longer intervals mean fewer
+ *       {@code fsync}s and slower {@code SYNC} setters.</li>
+ * </ul>
+ *
+ * <p><b>Recovery and compaction.</b> Opening a log replays its checkpoint and
+ * segments and returns the result from {@link #recovered()}, already tracked.
+ * A record torn by a crash ends its segment's replay. {@link #checkpoint()}
+ * starts a new segment, writes every tracked animal to a new checkpoint,
+ * atomically replaces the old one and deletes the segments it covers.
+ * Mutations may continue during a checkpoint.</p>
+ *
+ * <p>All methods are thread-safe. If writing the log fails, the error is
+ * kept and every later mutation of a tracked animal throws an
+ * {@link UncheckedIOException}, because an unlogged change would silently be
+ * lost on recovery.</p>
+ */
+public final class MutationLog implements AnimalObserver, AutoCloseable {
+
+    /**
+     * When a setter on a tracked animal returns.
+     */
+    public enum Commit {
+        /** After its record has been written and forced to disk. */
+        SYNC,
+        /** At once; the record is forced with the next batch. */
+        ASYNC
+    }
+
+    private final Path directory;
+    private final Commit commit;
+    private final long commitIntervalNanos;
+    private final int batchBytes;
+
+    /** Guards everything below except the animals' observers. */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /** Signalled when records are appended, and on close. */
+    private final Condition work = lock.newCondition();
+
+    /** Signalled after each batch is forced (or fails). */
+    private final Condition forcedCondition = lock.newCondition();
+
+    /** Records appended since the flusher last took a batch. */
+    private ByteBuffer active;
+
+    /** The other buffer; {@code null} while the flusher is writing it. */
+    private ByteBuffer spare;
+
+    /** Records appended, and records known to be on disk. */
+    private long appended;
+    private long forced;
+
+    /** Whether the flusher is writing a batch to {@link #channel}. */
+    private boolean flushing;
+
+    private long segment;
+    private FileChannel channel;
+
+    /** Id of every tracked animal. */
+    private final Map<Animal, Long> ids = new IdentityHashMap<>();
+    private long nextId;
+
+    private boolean closed;
+    private IOException failure;
+
+    private final CRC32C crc = new CRC32C();
+
+    /** Held for the whole of {@link #checkpoint()}, so checkpoints run one at a time. */
+    private final Object checkpointLock = new Object();
+
+    private final List<Animal> recovered;
+
+    private final Thread flusher;
+
+    private MutationLog(Builder builder) throws IOException {
+        this.directory           = builder.directory;
+        this.commit              = builder.commit;
+        this.commitIntervalNanos = builder.commitInterval.toNanos();
+        this.batchBytes          = builder.batchBytes;
+        this.active              = ByteBuffer.allocate(batchBytes);
+        this.spare               = ByteBuffer.allocate(batchBytes);
+
+        Files.createDirectories(directory);
+        Map<Long, Animal> animals = new LinkedHashMap<>();
+        long firstSegment = readCheckpoint(animals);
+        TreeSet<Long> segments = listSegments();
+        for (long number : segments) {
+            if (number >= firstSegment) {
+                replaySegment(directory.resolve(segmentName(number)), animals);
+            } else {
+                // Covered by the checkpoint; left behind by an interrupted checkpoint()
+                Files.deleteIfExists(directory.resolve(segmentName(number)));
+            }
+        }
+        for (long id : animals.keySet()) {
+            nextId = Math.max(nextId, id + 1);
+        }
+        segment = Math.max(firstSegment, segments.isEmpty() ? 0 : segments.last() + 1);
+        channel = createSegment(segment);
+
+        for (Map.Entry<Long, Animal> entry : animals.entrySet()) {
+            ids.put(entry.getValue(), entry.getKey());
+            entry.getValue().addObserver(this);
+        }
+        recovered = List.copyOf(animals.values());
+
+        flusher = new Thread(this::flushLoop, "animals-mutation-log");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Returns a builder for a log in {@code directory}, which is created if
+     * it does not exist.
+     */
+    public static Builder builder(Path directory) {
+        return new Builder(directory);
+    }
+
+    // -------------------------------------------------------------------------
+    // Tracking
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns the animals recovered when the log was opened, in the order they
+     * were first tracked. They are already tracked.
+     */
+    public List<Animal> recovered() {
+        return recovered;
+    }
+
+    /**
+     * Logs the animal's creation and starts logging its mutations. Tracking an
+     * animal that is already tracked has no effect.
+     *
+     * @param animal the animal to track
+     */
+    public void track(Animal animal) {
+        lock.lock();
+        try {
+            if (ids.containsKey(animal)) {
+                return;
+            }
+            // A setter racing with this call either stored before the record
+            // below reads the animal, or its callback waits for the lock and
+            // is logged after the record — never lost
+            animal.addObserver(this);
+            long id = nextId++;
+            ids.put(animal, id);
+            ByteBuffer buffer = begin(CREATE, id, AnimalCodec.encodedSize(animal));
+            AnimalCodec.encode(animal, buffer);
+            end();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Logs the animal's deletion and stops logging its mutations. Does nothing
+     * if the animal is not tracked.
+     *
+     * @param animal the animal to stop tracking
+     */
+    public void untrack(Animal animal) {
+        lock.lock();
+        try {
+            Long id = ids.remove(animal);
+            if (id == null) {
+                return;
+            }
+            animal.removeObserver(this);
+            begin(DELETE, id, 0);
+            end();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns how many animals are tracked.
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return ids.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // AnimalObserver — one record per setter call
+    // -------------------------------------------------------------------------
+    //
+    // Each record holds the field's value read back from the animal under the
+    // lock, not the callback's new value: callbacks from racing atomic updates
+    // can arrive out of order (see AnimalObserver), and the record appended
+    // last must hold the value the animal ended up with.
+
+    @Override
+    public void nameChanged(Animal animal, String oldName, String newName) {
+        appendString(animal, NAME);
+    }
+
+    @Override
+    public void ageChanged(Animal animal, int oldAge, int newAge) {
+        appendInt(animal, AGE);
+    }
+
+    @Override
+    public void weightChanged(Animal animal, float oldWeight, float newWeight) {
+        lock.lock();
+        try {
+            Long id = ids.get(animal);
+            if (id != null) {
+                begin(WEIGHT, id, Integer.BYTES).putInt(Float.floatToRawIntBits(animal.getWeight()));
+                end();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void colourChanged(Animal animal, String oldColour, String newColour) {
+        appendString(animal, COLOUR);
+    }
+
+    @Override
+    public void friendlyChanged(Animal animal, boolean oldFriendly, boolean newFriendly) {
+        appendBoolean(animal, FRIENDLY);
+    }
+
+    @Override
+    public void homeChanged(Animal animal, String oldHome, String newHome) {
+        appendString(animal, HOME);
+    }
+
+    @Override
+    public void numberOfWingsChanged(Bird bird, int oldWings, int newWings) {
+        appendInt(bird, WINGS);
+    }
+
+    @Override
+    public void canFlyChanged(Bird bird, boolean oldCanFly, boolean newCanFly) {
+        appendBoolean(bird, CAN_FLY);
+    }
+
+    @Override
+    public void numberOfFinsChanged(Fish fish, int oldFins, int newFins) {
+        appendInt(fish, FINS);
+    }
+
+    private void appendInt(Animal animal, byte type) {
+        lock.lock();
+        try {
+            Long id = ids.get(animal);
+            if (id != null) {
+                int value = switch (type) {
+                    case AGE   -> animal.getAge();
+                    case WINGS -> ((Bird) animal).getNumberOfWings();
+                    default    -> ((Fish) animal).getNumberOfFins();
+                };
+                AnimalCodec.putVarint(begin(type, id, 5), AnimalCodec.zigzag(value));
+                end();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void appendBoolean(Animal animal, byte type) {
+        lock.lock();
+        try {
+            Long id = ids.get(animal);
+            if (id != null) {
+                boolean value = type == FRIENDLY ? animal.isFriendly() : ((Bird) animal).canFly();
+                begin(type, id, 1).put((byte) (value ? 1 : 0));
+                end();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void appendString(Animal animal, byte type) {
+        lock.lock();
+        try {
+            Long id = ids.get(animal);
+            if (id != null) {
+                String value = switch (type) {
+                    case NAME   -> animal.getName();
+                    case COLOUR -> animal.getColour();
+                    default     -> animal.getHome();
+                };
+                AnimalCodec.putString(begin(type, id, AnimalCodec.stringSize(value)), value);
+                end();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Appending — called with the lock held
+    // -------------------------------------------------------------------------
+
+    /** Start of the record being appended within {@link #active}. */
+    private int recordStart;
+
+    /**
+     * Starts a record of the given type and returns the buffer to write its
+     * value into, with room for at least {@code valueBytes}.
+     */
+    private ByteBuffer begin(byte type, long id, int valueBytes) {
+        if (failure != null) {
+            throw new UncheckedIOException("mutation log failed; the change was not logged", failure);
+        }
+        if (closed) {
+            throw new IllegalStateException("mutation log is closed");
+        }
+        // Back-pressure: do not let the buffer outgrow several batches
+        while (active.position() >= 4 * batchBytes && failure == null) {
+            forcedCondition.awaitUninterruptibly();
+        }
+        int needed = FRAME_SIZE + MAX_PAYLOAD_HEADER + valueBytes;
+        if (active.remaining() < needed) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(active.capacity() * 2, active.position() + needed));
+            active.flip();
+            grown.put(active);
+            active = grown;
+        }
+        recordStart = active.position();
+        active.position(recordStart + FRAME_SIZE);
+        active.put(type);
+        putVarlong(active, id);
+        return active;
+    }
+
+    /**
+     * Completes the record started by {@link #begin}, wakes the flusher and,
+     * for {@link Commit#SYNC}, waits until the record is on disk.
+     */
+    private void end() {
+        int payloadStart = recordStart + FRAME_SIZE;
+        int length = active.position() - payloadStart;
+        crc.reset();
+        crc.update(active.array(), active.arrayOffset() + payloadStart, length);
+        active.putInt(recordStart, length);
+        active.putInt(recordStart + Integer.BYTES, (int) crc.getValue());
+        long sequence = ++appended;
+        work.signal();
+        if (commit == Commit.SYNC) {
+            while (forced < sequence && failure == null) {
+                forcedCondition.awaitUninterruptibly();
+            }
+            if (forced < sequence) {
+                throw new UncheckedIOException("mutation log failed; the change may not be durable", failure);
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Flushing
+    // -------------------------------------------------------------------------
+
+    /**
+     * Waits until every record appended so far is on disk. Only needed with
+     * {@link Commit#ASYNC}.
+     *
+     * @throws IOException if writing the log failed
+     */
+    public void sync() throws IOException {
+        lock.lock();
+        try {
+            long target = appended;
+            while (forced < target && failure == null) {
+                forcedCondition.await();
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for the mutation log");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** The flusher thread: takes batches of records, writes and forces them. */
+    private void flushLoop() {
+        while (true) {
+            ByteBuffer batch;
+            long upTo;
+            FileChannel target;
+            lock.lock();
+            try {
+                while (active.position() == 0 && !closed) {
+                    work.await();
+                }
+                if (active.position() == 0) {
+                    return;
+                }
+                // Group commit: give other writers a moment to join a small batch
+                long deadline = System.nanoTime() + commitIntervalNanos;
+                long remaining;
+                while (active.position() < batchBytes && !closed
+                        && (remaining = deadline - System.nanoTime()) > 0) {
+                    work.awaitNanos(remaining);
+                }
+                batch    = active;
+                active   = spare;
+                spare    = null;
+                upTo     = appended;
+                target   = channel;
+                flushing = true;
+            } catch (InterruptedException e) {
+                fail(new InterruptedIOException("mutation log flusher interrupted"));
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            IOException error = null;
+            try {
+                batch.flip();
+                while (batch.hasRemaining()) {
+                    target.write(batch);
+                }
+                target.force(false);
+            } catch (IOException e) {
+                error = e;
+            }
+
+            lock.lock();
+            try {
+                batch.clear();
+                spare    = batch;
+                flushing = false;
+                if (error == null) {
+                    forced = upTo;
+                } else if (failure == null) {
+                    failure = error;
+                }
+                forcedCondition.signalAll();
+                if (failure != null) {
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void fail(IOException error) {
+        lock.lock();
+        try {
+            if (failure == null) {
+                failure = error;
+            }
+            forcedCondition.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Checkpoint
+    // -------------------------------------------------------------------------
+
+    /**
+     * Compacts the log: writes every tracked animal to a new checkpoint and
+     * deletes the segments it replaces. Mutations may continue meanwhile;
+     * those made after the checkpoint begins are kept in the new segment.
+     *
+     * @throws IOException if the checkpoint cannot be written; the previous
+     *         checkpoint and segments are then still intact
+     */
+    public void checkpoint() throws IOException {
+        synchronized (checkpointLock) {
+            checkpointLocked();
+        }
+    }
+
+    private void checkpointLocked() throws IOException {
+        long firstSegment;
+        long idLimit;
+        List<Map.Entry<Long, Animal>> snapshot = new ArrayList<>();
+        FileChannel old;
+        lock.lock();
+        try {
+            firstSegment = segment + 1;
+        } finally {
+            lock.unlock();
+        }
+        // Only checkpoints change the segment, so it is safe to create the next one unlocked
+        FileChannel next = createSegment(firstSegment);
+        lock.lock();
+        try {
+            if (failure != null) {
+                next.close();
+                throw failure;
+            }
+            // Let the batch in flight finish with the old segment, then switch
+            while (flushing) {
+                forcedCondition.awaitUninterruptibly();
+            }
+            old      = channel;
+            channel  = next;
+            segment  = firstSegment;
+            idLimit  = nextId;
+            for (Map.Entry<Animal, Long> entry : ids.entrySet()) {
+                snapshot.add(Map.entry(entry.getValue(), entry.getKey()));
+            }
+        } finally {
+            lock.unlock();
+        }
+        old.close();
+
+        // Every later change is logged in the new segment, which replays on top
+        // of whatever values the checkpoint happens to read
+        snapshot.sort(Map.Entry.comparingByKey());
+        Path tmp = directory.resolve(CHECKPOINT_TMP);
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            CRC32C sum = new CRC32C();
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+            buffer.putInt(CHECKPOINT_MAGIC).putShort(VERSION).putShort((short) 0)
+                  .putLong(firstSegment).putLong(idLimit).putLong(snapshot.size());
+            for (Map.Entry<Long, Animal> entry : snapshot) {
+                int size = 10 + AnimalCodec.encodedSize(entry.getValue());
+                if (buffer.remaining() < size) {
+                    buffer = drain(out, buffer, sum, size);
+                }
+                putVarlong(buffer, entry.getKey());
+                AnimalCodec.encode(entry.getValue(), buffer);
+            }
+            buffer = drain(out, buffer, sum, Integer.BYTES);
+            buffer.putInt((int) sum.getValue()).flip();
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            out.force(true);
+        }
+        Files.move(tmp, directory.resolve(CHECKPOINT), StandardCopyOption.ATOMIC_MOVE);
+        forceDirectory();
+        for (long number : listSegments()) {
+            if (number < firstSegment) {
+                Files.deleteIfExists(directory.resolve(segmentName(number)));
+            }
+        }
+    }
+
+    /** Writes out and checksums the buffer, returning an empty one with room for {@code needed}. */
+    private static ByteBuffer drain(FileChannel out, ByteBuffer buffer, CRC32C sum, int needed) throws IOException {
+        buffer.flip();
+        sum.update(buffer.duplicate());
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        return needed <= buffer.capacity() ? buffer.clear() : ByteBuffer.allocate(needed);
+    }
+
+    // -------------------------------------------------------------------------
+    // Close
+    // -------------------------------------------------------------------------
+
+    /**
+     * Writes and forces any outstanding records, stops logging every tracked
+     * animal and closes the log.
+     *
+     * @throws IOException if writing the log failed at any point
+     */
+    @Override
+    public void close() throws IOException {
+        List<Animal> animals;
+        lock.lock();
+        try {
+            animals = new ArrayList<>(ids.keySet());
+        } finally {
+            lock.unlock();
+        }
+        for (Animal animal : animals) {
+            animal.removeObserver(this);
+        }
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            work.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while closing the mutation log");
+        } finally {
+            channel.close();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Files and replay
+    // -------------------------------------------------------------------------
+
+    private FileChannel createSegment(long number) throws IOException {
+        FileChannel file = FileChannel.open(directory.resolve(segmentName(number)),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER_SIZE)
+                .putInt(SEGMENT_MAGIC).putShort(VERSION).putShort((short) 0).flip();
+        while (header.hasRemaining()) {
+            file.write(header);
+        }
+        file.force(true);
+        forceDirectory();
+        return file;
+    }
+
+    private TreeSet<Long> listSegments() throws IOException {
+        TreeSet<Long> numbers = new TreeSet<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "log-*.wal")) {
+            for (Path file : files) {
+                long number = segmentNumber(file.getFileName().toString());
+                if (number >= 0) {
+                    numbers.add(number);
+                }
+            }
+        }
+        return numbers;
+    }
+
+    /** Makes file creations and renames in the directory durable, where the platform allows it. */
+    private void forceDirectory() {
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            // Not supported on every platform (e.g. Windows); the data itself is forced
+        }
+    }
+
+    /**
+     * Loads the checkpoint, if any, into {@code animals} and returns the first
+     * segment to replay after it.
+     */
+    private long readCheckpoint(Map<Long, Animal> animals) throws IOException {
+        Path file = directory.resolve(CHECKPOINT);
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        ByteBuffer buffer = map(file);
+        if (buffer.remaining() < CHECKPOINT_HEADER_SIZE + Integer.BYTES) {
+            throw new IOException(file + ": checkpoint is truncated");
+        }
+        CRC32C sum = new CRC32C();
+        sum.update(buffer.slice(0, buffer.limit() - Integer.BYTES));
+        if ((int) sum.getValue() != buffer.getInt(buffer.limit() - Integer.BYTES)) {
+            throw new IOException(file + ": checkpoint checksum mismatch");
+        }
+        if (buffer.getInt() != CHECKPOINT_MAGIC) {
+            throw new IOException(file + ": not a checkpoint");
+        }
+        short version = buffer.getShort();
+        if (version != VERSION) {
+            throw new IOException(file + ": unsupported checkpoint version " + version);
+        }
+        buffer.getShort();
+        long firstSegment = buffer.getLong();
+        nextId = buffer.getLong();
+        long count = buffer.getLong();
+        try {
+            for (long i = 0; i < count; i++) {
+                long id = getVarlong(buffer);
+                animals.put(id, AnimalCodec.decode(buffer));
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException(file + ": corrupt checkpoint", e);
+        }
+        return firstSegment;
+    }
+
+    /**
+     * Applies every intact record of a segment to {@code animals}, stopping at
+     * the first torn one.
+     */
+    private static void replaySegment(Path file, Map<Long, Animal> animals) throws IOException {
+        ByteBuffer buffer = map(file);
+        if (buffer.remaining() < SEGMENT_HEADER_SIZE) {
+            return; // Crashed while creating the segment
+        }
+        if (buffer.getInt() != SEGMENT_MAGIC) {
+            throw new IOException(file + ": not a mutation log segment");
+        }
+        short version = buffer.getShort();
+        if (version != VERSION) {
+            throw new IOException(file + ": unsupported segment version " + version);
+        }
+        buffer.getShort();
+        CRC32C sum = new CRC32C();
+        while (buffer.remaining() >= FRAME_SIZE) {
+            int start    = buffer.position();
+            int length   = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length <= 0 || length > MAX_PAYLOAD || length > buffer.remaining()) {
+                return;
+            }
+            ByteBuffer payload = buffer.slice(buffer.position(), length);
+            sum.reset();
+            sum.update(payload.duplicate());
+            if ((int) sum.getValue() != checksum) {
+                return;
+            }
+            try {
+                apply(payload, animals);
+            } catch (BufferUnderflowException | IllegalArgumentException | ClassCastException e) {
+                throw new IOException(file + ": bad record at offset " + start, e);
+            }
+            buffer.position(buffer.position() + length);
+        }
+    }
+
+    /** Applies one record's payload to {@code animals}. */
+    private static void apply(ByteBuffer payload, Map<Long, Animal> animals) {
+        byte type = payload.get();
+        long id   = getVarlong(payload);
+        if (type == CREATE) {
+            animals.put(id, AnimalCodec.decode(payload));
+            return;
+        }
+        if (type == DELETE) {
+            animals.remove(id);
+            return;
+        }
+        Animal animal = animals.get(id);
+        if (animal == null) {
+            return; // Deleted later in the log, or before the checkpoint
+        }
+        switch (type) {
+            case NAME     -> animal.setName(AnimalCodec.getString(payload));
+            case AGE      -> animal.setAge(AnimalCodec.unzigzag(AnimalCodec.getVarint(payload)));
+            case WEIGHT   -> animal.setWeight(Float.intBitsToFloat(payload.getInt()));
+            case COLOUR   -> animal.setColour(AnimalCodec.getString(payload));
+            case FRIENDLY -> animal.setFriendly(payload.get() != 0);
+            case HOME     -> animal.setHome(AnimalCodec.getString(payload));
+            case WINGS    -> ((Bird) animal).setNumberOfWings(AnimalCodec.unzigzag(AnimalCodec.getVarint(payload)));
+            case CAN_FLY  -> ((Bird) animal).setCanFly(payload.get() != 0);
+            case FINS     -> ((Fish) animal).setNumberOfFins(AnimalCodec.unzigzag(AnimalCodec.getVarint(payload)));
+            default       -> throw new IllegalArgumentException("unknown record type " + type);
+        }
+    }
+
+    private static ByteBuffer map(Path file) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = in.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(file + ": larger than 2 GiB; checkpoint more often");
+            }
+            MappedByteBuffer mapped = in.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return mapped;
+        }
+    }
+
+    private static void putVarlong(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static long getVarlong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("varlong longer than 10 bytes");
+    }
+
+    // -------------------------------------------------------------------------
+    // Builder
+    // -------------------------------------------------------------------------
+
+    /**
+     * Configures and opens a {@link MutationLog}.
+     */
+    public static final class Builder {
+
+        private final Path directory;
+        private Commit commit = Commit.SYNC;
+        private Duration commitInterval = Duration.ZERO;
+        private int batchBytes = 1 << 16;
+
+        private Builder(Path directory) {
+            this.directory = Objects.requireNonNull(directory, "directory");
+        }
+
+        /**
+         * Sets whether setters wait for their records to reach disk. {@link Commit#SYNC} by default.
+         */
+        public Builder commit(Commit commit) {
+            this.commit = Objects.requireNonNull(commit, "commit");
+            return this;
+        }
+
+        /**
+         * Sets how long the flusher waits for a small batch to grow before
+         * forcing it. By default it does not wait: each batch holds whatever
+         * was appended while the previous {@code fsync} ran, which already
+         * groups the records of concurrent writers. A longer interval forces
+         * less often, for higher throughput and higher setter latency.
+         */
+        public Builder commitInterval(Duration interval) {
+            if (interval.isNegative() || interval.compareTo(Duration.ofSeconds(1)) > 0) {
+                throw new IllegalArgumentException("commit interval must be between 0 and 1 s: " + interval);
+            }
+            this.commitInterval = interval;
+            return this;
+        }
+
+        /**
+         * Sets the batch size that is written without waiting for the commit
+         * interval; 64 KiB by default.
+         */
+        public Builder batchBytes(int batchBytes) {
+            if (batchBytes < 256) {
+                throw new IllegalArgumentException("batchBytes must be at least 256: " + batchBytes);
+            }
+            this.batchBytes = batchBytes;
+            return this;
+        }
+
+        /**
+         * Recovers the log in the directory, if any, and opens it for appending.
+         *
+         * @throws IOException if the directory cannot be read or written, or
+         *         its checkpoint is corrupt
+         */
+        public MutationLog open() throws IOException {
+            return new MutationLog(this);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package animals.io;
+
+/**
+ * Constants describing the files written by {@link MutationLog}.
+ *
+ * <p>A log directory holds numbered <em>segments</em>, {@code log-NNNNNNNN.wal},
+ * and at most one {@code checkpoint}. All multi-byte values are big-endian.</p>
+ *
+ * <pre>
+ *   segment     magic "AWAL" (int) | version (short) | reserved (short)  — 8 bytes
+ *               then records until the end of the file
+ *   record      payload length (int) | CRC-32C of payload (int) | payload
+ *   payload     type (byte) | animal id (varlong) | value
+ *   value       CREATE          an {@link AnimalCodec} record
+ *               DELETE          nothing
+ *               AGE, WINGS, FINS zigzag varint
+ *               WEIGHT          IEEE 754 bits (int)
+ *               FRIENDLY, CAN_FLY one byte, 0 or 1
+ *               NAME, COLOUR, HOME an {@link AnimalCodec} string
+ *
+ *   checkpoint  magic "ACKP" (int) | version (short) | reserved (short)
+ *               | first segment to replay (long) | next id (long) | count (long)
+ *               | count × (animal id (varlong) | {@link AnimalCodec} record)
+ *               | CRC-32C of everything before it (int)
+ * </pre>
+ *
+ * <p>Every record holds a new value, not a difference, so replaying a record
+ * twice leaves the same state as replaying it once. Recovery loads the
+ * checkpoint and replays the segments from the one it names. A record whose
+ * length runs past the end of its segment, or whose checksum does not match,
+ * marks a write torn by a crash: the rest of that segment is ignored.</p>
+ */
+final class MutationLogFormat {
+
+    /** The four bytes {@code "AWAL"} that open every segment. */
+    static final int SEGMENT_MAGIC = 0x4157414C;
+
+    /** The four bytes {@code "ACKP"} that open a checkpoint. */
+    static final int CHECKPOINT_MAGIC = 0x41434B50;
+
+    /** Current format version. Bump on any incompatible layout change. */
+    static final short VERSION = 1;
+
+    /** Size of a segment header in bytes. */
+    static final int SEGMENT_HEADER_SIZE = 8;
+
+    /** Size of a checkpoint header in bytes. */
+    static final int CHECKPOINT_HEADER_SIZE = 32;
+
+    /** Length and checksum before each record's payload. */
+    static final int FRAME_SIZE = 8;
+
+    /** The largest payload a record may have; anything longer is treated as torn. */
+    static final int MAX_PAYLOAD = 1 << 24;
+
+    /** Worst case for a type byte plus a varlong id. */
+    static final int MAX_PAYLOAD_HEADER = 1 + 10;
+
+    // Record types
+    static final byte CREATE   = 1;
+    static final byte DELETE   = 2;
+    static final byte NAME     = 3;
+    static final byte AGE      = 4;
+    static final byte WEIGHT   = 5;
+    static final byte COLOUR   = 6;
+    static final byte FRIENDLY = 7;
+    static final byte HOME     = 8;
+    static final byte WINGS    = 9;
+    static final byte CAN_FLY  = 10;
+    static final byte FINS     = 11;
+
+    static final String CHECKPOINT     = "checkpoint";
+    static final String CHECKPOINT_TMP = "checkpoint.tmp";
+
+    private MutationLogFormat() {
+        // Constants only
+    }
+
+    /** Returns the file name of segment {@code number}. */
+    static String segmentName(long number) {
+        return String.format("log-%08d.wal", number);
+    }
+
+    /** Returns the number of a segment file, or {@code -1} if the name is not a segment's. */
+    static long segmentNumber(String fileName) {
+        if (!fileName.startsWith("log-") || !fileName.endsWith(".wal")) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(fileName.substring(4, fileName.length() - 4));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package animals.io;
+
+import animals.Animal;
+import animals.Bird;
+import animals.Cat;
+import animals.Dog;
+import animals.Fish;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Turns one line of an {@link IngestFormat} into an {@link Animal}.
+ *
+ * <p>A parser is created once per ingest and then used by several worker
+ * threads; each thread passes its own {@code String[]} of field values, so
+ * the parser itself holds no mutable state. Malformed lines are reported by
+ * throwing {@link IllegalArgumentException} with a short reason.</p>
+ */
+abstract sealed class RowParser {
+
+    /** The fields an animal is built from. */
+    enum Field {
+        SPECIES, NAME, AGE, WEIGHT, COLOUR, FRIENDLY, HOME, NUMBER_OF_WINGS, CAN_FLY, NUMBER_OF_FINS;
+
+        private static final Field[] VALUES = values();
+
+        /** Returns the field with this name, ignoring case, or {@code null}. */
+        static Field named(String name) {
+            String key = name.trim().replace("_", "").toLowerCase(Locale.ROOT);
+            for (Field field : VALUES) {
+                if (field.name().replace("_", "").toLowerCase(Locale.ROOT).equals(key)) {
+                    return field;
+                }
+            }
+            return null;
+        }
+    }
+
+    /** Number of {@link Field}s; the size of the values array. */
+    static final int FIELDS = Field.VALUES.length;
+
+    /**
+     * Creates the parser for a format.
+     *
+     * @param header the first line of the file for {@link IngestFormat#CSV};
+     *               ignored for {@link IngestFormat#NDJSON}
+     */
+    static RowParser of(IngestFormat format, String header) {
+        return switch (format) {
+            case CSV    -> new Csv(header);
+            case NDJSON -> new Ndjson();
+        };
+    }
+
+    /**
+     * Parses a line into an animal.
+     *
+     * @param line   the line, without its line terminator
+     * @param values scratch space of {@link #FIELDS} entries, owned by the calling thread
+     * @throws IllegalArgumentException if the line is malformed
+     */
+    final Animal parse(String line, String[] values) {
+        Arrays.fill(values, null);
+        split(line, values);
+        return build(values);
+    }
+
+    /** Stores each field found in the line at {@code values[field.ordinal()]}. */
+    abstract void split(String line, String[] values);
+
+    // -------------------------------------------------------------------------
+    // Building animals from field values
+    // -------------------------------------------------------------------------
+
+    private static Animal build(String[] values) {
+        String   species  = require(values, Field.SPECIES);
+        String   name     = require(values, Field.NAME);
+        int      age      = parseInt(values, Field.AGE);
+        float    weight   = parseFloat(values, Field.WEIGHT);
+        String   colour   = require(values, Field.COLOUR);
+        boolean  friendly = parseBoolean(values, Field.FRIENDLY);
+        String   home     = require(values, Field.HOME);
+        return switch (species.toLowerCase(Locale.ROOT)) {
+            case "dog"  -> new Dog(name, age, weight, colour, friendly, home);
+            case "cat"  -> new Cat(name, age, weight, colour, friendly, home);
+            case "bird" -> new Bird(name, age, weight, colour, friendly, home,
+                                    parseInt(values, Field.NUMBER_OF_WINGS), parseBoolean(values, Field.CAN_FLY));
+            case "fish" -> new Fish(name, age, weight, colour, friendly, home,
+                                    parseInt(values, Field.NUMBER_OF_FINS));
+            default     -> throw new IllegalArgumentException("unknown species '" + species + "'");
+        };
+    }
+
+    private static String require(String[] values, Field field) {
+        String value = values[field.ordinal()];
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("missing " + fieldName(field));
+        }
+        return value;
+    }
+
+    private static int parseInt(String[] values, Field field) {
+        String value = require(values, field).trim();
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("bad " + fieldName(field) + " '" + value + "'");
+        }
+    }
+
+    private static float parseFloat(String[] values, Field field) {
+        String value = require(values, field).trim();
+        try {
+            return Float.parseFloat(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("bad " + fieldName(field) + " '" + value + "'");
+        }
+    }
+
+    private static boolean parseBoolean(String[] values, Field field) {
+        String value = require(values, field).trim();
+        if (value.equalsIgnoreCase("true")) {
+            return true;
+        }
+        if (value.equalsIgnoreCase("false")) {
+            return false;
+        }
+        throw new IllegalArgumentException("bad " + fieldName(field) + " '" + value + "'");
+    }
+
+    private static String fieldName(Field field) {
+        String[] words = field.name().toLowerCase(Locale.ROOT).split("_");
+        StringBuilder sb = new StringBuilder(words[0]);
+        for (int i = 1; i < words.length; i++) {
+            sb.append(Character.toUpperCase(words[i].charAt(0))).append(words[i], 1, words[i].length());
+        }
+        return sb.toString();
+    }
+
+    // -------------------------------------------------------------------------
+    // CSV
+    // -------------------------------------------------------------------------
+
+    static final class Csv extends RowParser {
+
+        /** The field held by each column, or {@code null} for columns that are ignored. */
+        private final Field[] columns;
+
+        Csv(String header) {
+            String[] names = splitColumns(header, new String[countColumns(header)]);
+            columns = new Field[names.length];
+            for (int i = 0; i < names.length; i++) {
+                columns[i] = Field.named(names[i]);
+            }
+        }
+
+        @Override
+        void split(String line, String[] values) {
+            int column = 0;
+            int i = 0;
+            int length = line.length();
+            while (true) {
+                if (column >= columns.length) {
+                    throw new IllegalArgumentException("more than " + columns.length + " columns");
+                }
+                String value;
+                if (i < length && line.charAt(i) == '"') {
+                    StringBuilder sb = new StringBuilder();
+                    i++;
+                    while (true) {
+                        if (i >= length) {
+                            throw new IllegalArgumentException("unterminated quote");
+                        }
+                        char c = line.charAt(i++);
+                        if (c == '"') {
+                            if (i < length && line.charAt(i) == '"') {
+                                sb.append('"');
+                                i++;
+                            } else {
+                                break;
+                            }
+                        } else {
+                            sb.append(c);
+                        }
+                    }
+                    if (i < length && line.charAt(i) != ',') {
+                        throw new IllegalArgumentException("text after closing quote");
+                    }
+                    value = sb.toString();
+                } else {
+                    int comma = line.indexOf(',', i);
+                    int end = comma < 0 ? length : comma;
+                    value = line.substring(i, end);
+                    i = end;
+                }
+                Field field = columns[column++];
+                if (field != null) {
+                    values[field.ordinal()] = value;
+                }
+                if (i >= length) {
+                    break;
+                }
+                i++; // skip the comma
+            }
+            if (column != columns.length) {
+                throw new IllegalArgumentException("expected " + columns.length + " columns, found " + column);
+            }
+        }
+
+        private static int countColumns(String header) {
+            int count = 1;
+            for (int i = 0; i < header.length(); i++) {
+                if (header.charAt(i) == ',') {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        /** Splits a header, which is never quoted. */
+        private static String[] splitColumns(String header, String[] names) {
+            int from = 0;
+            for (int i = 0; i < names.length; i++) {
+                int comma = header.indexOf(',', from);
+                int end = comma < 0 ? header.length() : comma;
+                names[i] = header.substring(from, end);
+                from = end + 1;
+            }
+            return names;
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // NDJSON
+    // -------------------------------------------------------------------------
+
+    /**
+     * Reads a flat JSON object whose values are strings, numbers, booleans or
+     * {@code null}. Nested objects and arrays are rejected.
+     */
+    static final class Ndjson extends RowParser {
+
+        @Override
+        void split(String line, String[] values) {
+            Cursor in = new Cursor(line);
+            in.expect('{');
+            if (!in.consume('}')) {
+                do {
+                    String key = in.string();
+                    in.expect(':');
+                    String value = in.value();
+                    Field field = Field.named(key);
+                    if (field != null) {
+                        values[field.ordinal()] = value;
+                    }
+                } while (in.consume(','));
+                in.expect('}');
+            }
+            in.end();
+        }
+
+        /** A position in the line being parsed. */
+        private static final class Cursor {
+
+            private final String line;
+            private int i;
+
+            Cursor(String line) {
+                this.line = line;
+            }
+
+            private void skipSpace() {
+                while (i < line.length() && Character.isWhitespace(line.charAt(i))) {
+                    i++;
+                }
+            }
+
+            boolean consume(char c) {
+                skipSpace();
+                if (i < line.length() && line.charAt(i) == c) {
+                    i++;
+                    return true;
+                }
+                return false;
+            }
+
+            void expect(char c) {
+                if (!consume(c)) {
+                    throw new IllegalArgumentException("expected '" + c + "' at column " + (i + 1));
+                }
+            }
+
+            void end() {
+                skipSpace();
+                if (i != line.length()) {
+                    throw new IllegalArgumentException("text after object at column " + (i + 1));
+                }
+            }
+
+            /** Reads a value as text; {@code null} for JSON {@code null}. */
+            String value() {
+                skipSpace();
+                if (i >= line.length()) {
+                    throw new IllegalArgumentException("missing value");
+                }
+                char c = line.charAt(i);
+                if (c == '"') {
+                    return string();
+                }
+                if (c == '{' || c == '[') {
+                    throw new IllegalArgumentException("nested value at column " + (i + 1));
+                }
+                int start = i;
+                while (i < line.length() && ",}".indexOf(line.charAt(i)) < 0 && !Character.isWhitespace(line.charAt(i))) {
+                    i++;
+                }
+                String literal = line.substring(start, i);
+                return literal.equals("null") ? null : literal;
+            }
+
+            String string() {
+                expect('"');
+                StringBuilder sb = new StringBuilder();
+                while (true) {
+                    if (i >= line.length()) {
+                        throw new IllegalArgumentException("unterminated string");
+                    }
+                    char c = line.charAt(i++);
+                    if (c == '"') {
+                        return sb.toString();
+                    }
+                    if (c != '\\') {
+                        sb.append(c);
+                        continue;
+                    }
+                    if (i >= line.length()) {
+                        throw new IllegalArgumentException("unterminated string");
+                    }
+                    char e = line.charAt(i++);
+                    switch (e) {
+                        case '"', '\\', '/' -> sb.append(e);
+                        case 'b' -> sb.append('\b');
+                        case 'f' -> sb.append('\f');
+                        case 'n' -> sb.append('\n');
+                        case 'r' -> sb.append('\r');
+                        case 't' -> sb.append('\t');
+                        case 'u' -> {
+                            if (i + 4 > line.length()) {
+                                throw new IllegalArgumentException("bad \\u escape");
+                            }
+                            try {
+                                sb.append((char) Integer.parseInt(line, i, i + 4, 16));
+                            } catch (NumberFormatException ex) {
+                                throw new IllegalArgumentException("bad \\u escape");
+                            }
+                            i += 4;
+                        }
+                        default -> throw new IllegalArgumentException("bad escape '\\" + e + "'");
+                    }
+                }
+            }
+        }
+    }
+}
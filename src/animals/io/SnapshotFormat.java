@@ -0,0 +1,50 @@
+package animals.io;
+
+/**
+ * Constants describing the binary snapshot file format shared by
+ * {@link SnapshotWriter} and {@link SnapshotReader}.
+ *
+ * <p>All multi-byte values are big-endian. A file consists of:</p>
+ * <pre>
+ *   header   magic "ANML" (int) | version (short) | reserved (short)
+ *            | record count (long) | index offset (long)           — 24 bytes
+ *   records  species tag (byte) | flags (byte) | age (int) | weight (float)
+ *            | wings or fins (int) | name | colour | home          — one per animal
+ *   index    byte offset of each record (long)                    — one per animal
+ * </pre>
+ *
+ * <p>Each string is an {@code int} byte length followed by that many UTF-8
+ * bytes; a length of {@code -1} encodes {@code null}. The index is written
+ * last, so a reader can find record {@code i} in constant time without
+ * scanning the records before it.</p>
+ */
+final class SnapshotFormat {
+
+    /** The four bytes {@code "ANML"} that open every snapshot. */
+    static final int MAGIC = 0x414E4D4C;
+
+    /** Current format version. Bump on any incompatible layout change. */
+    static final short VERSION = 1;
+
+    /** Size of the file header in bytes. */
+    static final int HEADER_SIZE = 24;
+
+    /** Byte offset of the record count within the header. */
+    static final int COUNT_OFFSET = 8;
+
+    /** Byte offset of the index offset within the header. */
+    static final int INDEX_OFFSET = 16;
+
+    /** Flag bit: the animal is friendly. */
+    static final int FRIENDLY = 1;
+
+    /** Flag bit: the bird can fly. */
+    static final int CAN_FLY = 2;
+
+    /** String length that encodes {@code null}. */
+    static final int NULL_LENGTH = -1;
+
+    private SnapshotFormat() {
+        // Constants only
+    }
+}
@@ -0,0 +1,185 @@
+package animals.io;
+
+import animals.Animal;
+import animals.Bird;
+import animals.Cat;
+import animals.Dog;
+import animals.Fish;
+import animals.Species;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Opens a snapshot written by {@link SnapshotWriter} by memory-mapping it.
+ *
+ * <p>Opening a snapshot maps the file and validates its header; nothing else
+ * is read, so start-up time does not depend on the population size. Each
+ * record is decoded into a {@code Dog}, {@code Cat}, {@code Bird} or
+ * {@code Fish} on its first {@link #get(long)} and the same instance is
+ * returned thereafter.</p>
+ *
+ * <p>The mapping belongs to a shared {@link Arena} and is released by
+ * {@link #close()}. Animals already decoded remain usable after closing.
+ * {@link #get(long)} may be called from several threads at once.</p>
+ *
+ * @see SnapshotFormat
+ */
+public final class SnapshotReader implements AutoCloseable {
+
+    /** Decoded animals are cached in pages of this many entries. */
+    private static final int PAGE_BITS = 12;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+    private static final ValueLayout.OfInt   INT   = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+    private static final ValueLayout.OfLong  LONG  = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+    private static final ValueLayout.OfFloat FLOAT = ValueLayout.JAVA_FLOAT_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+    private static final ValueLayout.OfShort SHORT = ValueLayout.JAVA_SHORT_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+
+    /** Owns the mapping. */
+    private final Arena arena;
+
+    /** The whole mapped file. */
+    private final MemorySegment file;
+
+    /** Number of records. */
+    private final long count;
+
+    /** Byte offset of the record index. */
+    private final long indexOffset;
+
+    /** Lazily allocated pages of decoded animals. */
+    private final AtomicReferenceArray<AtomicReferenceArray<Animal>> pages;
+
+    private SnapshotReader(Arena arena, MemorySegment file) throws IOException {
+        this.arena = arena;
+        this.file  = file;
+
+        if (file.byteSize() < SnapshotFormat.HEADER_SIZE || file.get(INT, 0) != SnapshotFormat.MAGIC) {
+            throw new IOException("Not an animal snapshot");
+        }
+        short version = file.get(SHORT, 4);
+        if (version != SnapshotFormat.VERSION) {
+            throw new IOException("Unsupported snapshot version " + version
+                    + " (expected " + SnapshotFormat.VERSION + ")");
+        }
+        this.count       = file.get(LONG, SnapshotFormat.COUNT_OFFSET);
+        this.indexOffset = file.get(LONG, SnapshotFormat.INDEX_OFFSET);
+        if (count < 0 || indexOffset < SnapshotFormat.HEADER_SIZE
+                || indexOffset + count * Long.BYTES != file.byteSize()) {
+            throw new IOException("Snapshot is truncated or was not closed properly");
+        }
+        this.pages = new AtomicReferenceArray<>((int) ((count + PAGE_SIZE - 1) >>> PAGE_BITS));
+    }
+
+    /**
+     * Memory-maps a snapshot file.
+     *
+     * @param path the snapshot to open
+     * @return a reader over the snapshot
+     * @throws IOException if the file cannot be mapped or is not a valid snapshot
+     */
+    public static SnapshotReader open(Path path) throws IOException {
+        Arena arena = Arena.ofShared();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MemorySegment file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+            return new SnapshotReader(arena, file);
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the number of animals in the snapshot.
+     * @return the record count
+     */
+    public long size() { return count; }
+
+    /**
+     * Returns the animal stored at the given index, decoding it on first access.
+     *
+     * @param index the record index
+     * @return the animal; repeated calls return the same instance
+     * @throws IllegalStateException if the record is corrupt
+     */
+    public Animal get(long index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + count);
+        }
+        int pageNo = (int) (index >>> PAGE_BITS);
+        AtomicReferenceArray<Animal> page = pages.get(pageNo);
+        if (page == null) {
+            pages.compareAndSet(pageNo, null, new AtomicReferenceArray<>(PAGE_SIZE));
+            page = pages.get(pageNo);
+        }
+        int slot = (int) (index & (PAGE_SIZE - 1));
+        Animal animal = page.get(slot);
+        if (animal == null) {
+            // Two threads may decode the same record; only one copy is kept
+            page.compareAndSet(slot, null, decode(file.get(LONG, indexOffset + index * Long.BYTES)));
+            animal = page.get(slot);
+        }
+        return animal;
+    }
+
+    /**
+     * Unmaps the file.
+     */
+    @Override
+    public void close() {
+        arena.close();
+    }
+
+    // -------------------------------------------------------------------------
+    // Decoding
+    // -------------------------------------------------------------------------
+
+    /** Decodes the record starting at the given byte offset. */
+    private Animal decode(long at) {
+        Species species = Species.fromTag(file.get(ValueLayout.JAVA_BYTE, at));
+        int     flags   = file.get(ValueLayout.JAVA_BYTE, at + 1);
+        int     age     = file.get(INT, at + 2);
+        float   weight  = file.get(FLOAT, at + 6);
+        int     limbs   = file.get(INT, at + 10);
+
+        long[] cursor = { at + 14 };
+        String name   = readString(cursor);
+        String colour = readString(cursor);
+        String home   = readString(cursor);
+        boolean friendly = (flags & SnapshotFormat.FRIENDLY) != 0;
+
+        return switch (species) {
+            case DOG  -> new Dog(name, age, weight, colour, friendly, home);
+            case CAT  -> new Cat(name, age, weight, colour, friendly, home);
+            case BIRD -> new Bird(name, age, weight, colour, friendly, home, limbs,
+                                  (flags & SnapshotFormat.CAN_FLY) != 0);
+            case FISH -> new Fish(name, age, weight, colour, friendly, home, limbs);
+        };
+    }
+
+    /** Reads a length-prefixed UTF-8 string and advances {@code cursor[0]} past it. */
+    private String readString(long[] cursor) {
+        long at = cursor[0];
+        int length = file.get(INT, at);
+        if (length == SnapshotFormat.NULL_LENGTH) {
+            cursor[0] = at + 4;
+            return null;
+        }
+        if (length < 0 || length > file.byteSize() - at - 4) {
+            throw new IllegalStateException("Corrupt string length " + length + " at offset " + at);
+        }
+        byte[] bytes = new byte[length];
+        MemorySegment.copy(file, ValueLayout.JAVA_BYTE, at + 4, bytes, 0, length);
+        cursor[0] = at + 4 + length;
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,196 @@
+package animals.io;
+
+import animals.Animal;
+import animals.Bird;
+import animals.Fish;
+import animals.Species;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Writes an animal population to a binary snapshot file that
+ * {@link SnapshotReader} can later memory-map.
+ *
+ * <p>Animals are streamed to disk as they are appended, so writing a large
+ * population needs only one {@code long} of memory per animal (for the
+ * record index). The header and index are completed by {@link #close()};
+ * a snapshot that was never closed is rejected by the reader.</p>
+ *
+ * <pre>{@code
+ * try (SnapshotWriter writer = SnapshotWriter.create(path)) {
+ *     for (Animal animal : animals) {
+ *         writer.append(animal);
+ *     }
+ * }
+ * }</pre>
+ *
+ * @see SnapshotFormat
+ */
+public final class SnapshotWriter implements AutoCloseable {
+
+    /** The file being written. */
+    private final FileChannel channel;
+
+    /** Buffered stream over {@link #channel} for the record section. */
+    private final DataOutputStream out;
+
+    /** Byte offset of each record written so far. */
+    private long[] offsets = new long[1024];
+
+    /** Number of records written so far. */
+    private long count;
+
+    /** Byte offset at which the next record will be written. */
+    private long position = SnapshotFormat.HEADER_SIZE;
+
+    /** Set while a record is being written, and left set if writing it fails. */
+    private boolean failed;
+
+    private SnapshotWriter(FileChannel channel) throws IOException {
+        this.channel = channel;
+        // Leave room for the header; it is filled in by close()
+        channel.position(SnapshotFormat.HEADER_SIZE);
+        this.out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+    }
+
+    /**
+     * Creates (or truncates) a snapshot file and returns a writer for it.
+     *
+     * @param path the file to write
+     * @return a new writer positioned after the header
+     * @throws IOException if the file cannot be opened
+     */
+    public static SnapshotWriter create(Path path) throws IOException {
+        return new SnapshotWriter(FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING));
+    }
+
+    /**
+     * Writes a complete snapshot of the given animals in one call.
+     *
+     * @param path    the file to write
+     * @param animals the animals to store, in order
+     * @throws IOException if writing fails
+     */
+    public static void write(Path path, Iterable<? extends Animal> animals) throws IOException {
+        try (SnapshotWriter writer = create(path)) {
+            for (Animal animal : animals) {
+                writer.append(animal);
+            }
+        }
+    }
+
+    /**
+     * Appends one animal record.
+     *
+     * <p>The record is encoded in full before anything is written, so an
+     * animal that cannot be encoded leaves the snapshot as it was. If writing
+     * itself fails, the snapshot is abandoned: later appends throw, and
+     * {@link #close()} leaves the header blank so the reader rejects the
+     * file.</p>
+     *
+     * @param animal the animal to write
+     * @throws IOException if writing fails, or failed on an earlier append
+     */
+    public void append(Animal animal) throws IOException {
+        if (failed) {
+            throw new IOException("Snapshot was abandoned after an earlier write failed");
+        }
+        int flags = animal.isFriendly() ? SnapshotFormat.FRIENDLY : 0;
+        int limbs = 0;
+        if (animal instanceof Bird bird) {
+            limbs = bird.getNumberOfWings();
+            if (bird.canFly()) {
+                flags |= SnapshotFormat.CAN_FLY;
+            }
+        } else if (animal instanceof Fish fish) {
+            limbs = fish.getNumberOfFins();
+        }
+        byte   tag    = Species.of(animal).tag();
+        byte[] name   = utf8(animal.getName());
+        byte[] colour = utf8(animal.getColour());
+        byte[] home   = utf8(animal.getHome());
+        if (count == offsets.length) {
+            if (count >= Integer.MAX_VALUE / 2) {
+                throw new IOException("Snapshot is limited to " + count + " records");
+            }
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+
+        long start = position;
+        failed = true;
+        out.writeByte(tag);
+        out.writeByte(flags);
+        out.writeInt(animal.getAge());
+        out.writeFloat(animal.getWeight());
+        out.writeInt(limbs);
+        writeString(name);
+        writeString(colour);
+        writeString(home);
+        failed = false;
+        // Indexed only once the whole record is in the stream
+        position = start + 14 + length(name) + length(colour) + length(home);
+        offsets[(int) count++] = start;
+    }
+
+    /**
+     * Writes the record index and the header, then closes the file. If an
+     * append failed part-way, only closes the file: its header stays blank,
+     * so it cannot be opened as a snapshot.
+     *
+     * @throws IOException if writing fails
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (failed) {
+                return;
+            }
+            long indexOffset = position;
+            for (int i = 0; i < count; i++) {
+                out.writeLong(offsets[i]);
+            }
+            out.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(SnapshotFormat.HEADER_SIZE);
+            header.putInt(SnapshotFormat.MAGIC)
+                  .putShort(SnapshotFormat.VERSION)
+                  .putShort((short) 0)
+                  .putLong(count)
+                  .putLong(indexOffset)
+                  .flip();
+            channel.write(header, 0);
+        } finally {
+            channel.close();
+        }
+    }
+
+    /** Encodes a string, or returns {@code null} for {@code null}. */
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** Returns the bytes {@link #writeString(byte[])} writes for an encoded string. */
+    private static int length(byte[] bytes) {
+        return 4 + (bytes == null ? 0 : bytes.length);
+    }
+
+    /** Writes a length-prefixed UTF-8 string. */
+    private void writeString(byte[] bytes) throws IOException {
+        if (bytes == null) {
+            out.writeInt(SnapshotFormat.NULL_LENGTH);
+            return;
+        }
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
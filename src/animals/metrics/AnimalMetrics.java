@@ -0,0 +1,166 @@
+package animals.metrics;
+
+import animals.Animal;
+import animals.Behaviour;
+import animals.Species;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Call counters, latency histograms and JFR events for the animals' hot
+ * methods: every behaviour ({@code makeSound()}, {@code fetch()},
+ * {@code climb()}, {@code swim()}, {@code fly()}) and description rendering
+ * ({@code toString()}, {@code describeTo(StringBuilder)},
+ * {@code describeTo(ByteBuffer)}).
+ *
+ * <p><b>Enabling.</b> Instrumentation is off unless the JVM is started with
+ * {@code -Danimals.metrics=true}. The flag is read once into the
+ * {@code static final} field {@link #ENABLED}, which the JIT compiler treats
+ * as a constant: with it off, the instrumented methods compile to exactly
+ * what they were before, so disabled instrumentation costs nothing after
+ * warm-up.</p>
+ *
+ * <p><b>What is recorded</b> when enabled:</p>
+ * <ul>
+ *   <li>a {@link LongAdder} per species and behaviour, counting calls;</li>
+ *   <li>a {@link LatencyHistogram} per behaviour, timing each call, which is
+ *       dominated by the installed {@link animals.sound.SoundSink};</li>
+ *   <li>a counter and a histogram per species for description rendering;</li>
+ *   <li>a {@link BehaviourEvent} or {@link DescriptionEvent} for JFR, which
+ *       costs little unless a recording enables the event.</li>
+ * </ul>
+ *
+ * <p>{@link #snapshot()} returns all counters and histograms at once.
+ * {@code describeTo(Appendable)} is not instrumented on its own, because
+ * subclasses override it and call {@code super}; it is measured through the
+ * entry points above.</p>
+ */
+public final class AnimalMetrics {
+
+    /** Whether instrumentation is on; set by the {@code animals.metrics} system property. */
+    public static final boolean ENABLED = Boolean.getBoolean("animals.metrics");
+
+    private static final Species[]   SPECIES    = Species.values();
+    private static final Behaviour[] BEHAVIOURS = Behaviour.values();
+
+    /** Calls per species and behaviour, indexed by {@link #slot}. */
+    private static final LongAdder[] CALLS = adders(SPECIES.length * BEHAVIOURS.length);
+
+    /** Behaviour latency in nanoseconds, per behaviour. */
+    private static final LatencyHistogram[] BEHAVIOUR_LATENCY = histograms(BEHAVIOURS.length);
+
+    /** Description renderings per species. */
+    private static final LongAdder[] DESCRIPTIONS = adders(SPECIES.length);
+
+    /** Description latency in nanoseconds, per species. */
+    private static final LatencyHistogram[] DESCRIPTION_LATENCY = histograms(SPECIES.length);
+
+    private AnimalMetrics() {
+        // Static methods only
+    }
+
+    // -------------------------------------------------------------------------
+    // Recording — called by Animal only when ENABLED
+    // -------------------------------------------------------------------------
+
+    /**
+     * Records a behaviour that started at {@code startNanos} (from
+     * {@link System#nanoTime()}) and ends now, and ends {@code event}.
+     */
+    public static void behaviour(Animal animal, Behaviour behaviour, long startNanos, BehaviourEvent event) {
+        long elapsed = System.nanoTime() - startNanos;
+        Species species = Species.of(animal);
+        CALLS[slot(species, behaviour)].increment();
+        BEHAVIOUR_LATENCY[behaviour.ordinal()].record(elapsed);
+        event.end();
+        if (event.shouldCommit()) {
+            event.species   = species.name();
+            event.behaviour = behaviour.name();
+            event.name      = animal.getName();
+            event.commit();
+        }
+    }
+
+    /**
+     * Records a description rendering that started at {@code startNanos} and
+     * ends now, and ends {@code event}.
+     */
+    public static void description(Animal animal, long startNanos, DescriptionEvent event) {
+        long elapsed = System.nanoTime() - startNanos;
+        Species species = Species.of(animal);
+        DESCRIPTIONS[species.ordinal()].increment();
+        DESCRIPTION_LATENCY[species.ordinal()].record(elapsed);
+        event.end();
+        if (event.shouldCommit()) {
+            event.species = species.name();
+            event.name    = animal.getName();
+            event.commit();
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Reading
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns the current counts and histograms. Calls in progress may or may
+     * not be included. All zero when instrumentation is disabled.
+     */
+    public static MetricsSnapshot snapshot() {
+        long[][] calls = new long[SPECIES.length][BEHAVIOURS.length];
+        for (Species species : SPECIES) {
+            for (Behaviour behaviour : BEHAVIOURS) {
+                calls[species.ordinal()][behaviour.ordinal()] = CALLS[slot(species, behaviour)].sum();
+            }
+        }
+        LatencyHistogram.Snapshot[] behaviourLatency = new LatencyHistogram.Snapshot[BEHAVIOURS.length];
+        for (int i = 0; i < BEHAVIOURS.length; i++) {
+            behaviourLatency[i] = BEHAVIOUR_LATENCY[i].snapshot();
+        }
+        long[] descriptions = new long[SPECIES.length];
+        LatencyHistogram.Snapshot[] descriptionLatency = new LatencyHistogram.Snapshot[SPECIES.length];
+        for (int i = 0; i < SPECIES.length; i++) {
+            descriptions[i] = DESCRIPTIONS[i].sum();
+            descriptionLatency[i] = DESCRIPTION_LATENCY[i].snapshot();
+        }
+        return new MetricsSnapshot(calls, behaviourLatency, descriptions, descriptionLatency);
+    }
+
+    /**
+     * Sets every counter and histogram back to zero.
+     */
+    public static void reset() {
+        for (LongAdder adder : CALLS) {
+            adder.reset();
+        }
+        for (LongAdder adder : DESCRIPTIONS) {
+            adder.reset();
+        }
+        for (LatencyHistogram histogram : BEHAVIOUR_LATENCY) {
+            histogram.reset();
+        }
+        for (LatencyHistogram histogram : DESCRIPTION_LATENCY) {
+            histogram.reset();
+        }
+    }
+
+    private static int slot(Species species, Behaviour behaviour) {
+        return species.ordinal() * BEHAVIOURS.length + behaviour.ordinal();
+    }
+
+    private static LongAdder[] adders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    private static LatencyHistogram[] histograms(int count) {
+        LatencyHistogram[] histograms = new LatencyHistogram[count];
+        for (int i = 0; i < count; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+        return histograms;
+    }
+}
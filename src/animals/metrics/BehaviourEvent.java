@@ -0,0 +1,31 @@
+package animals.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event recorded around each behaviour an animal performs —
+ * {@code makeSound()}, {@code fetch()}, {@code climb()}, {@code swim()} or
+ * {@code fly()} — when {@link AnimalMetrics#ENABLED} is set and a recording
+ * has the event enabled.
+ */
+@Name("animals.Behaviour")
+@Label("Animal Behaviour")
+@Category("Animals")
+@Description("An animal performing a behaviour, timed around its output")
+@StackTrace(false)
+public final class BehaviourEvent extends Event {
+
+    @Label("Species")
+    String species;
+
+    @Label("Behaviour")
+    String behaviour;
+
+    @Label("Animal Name")
+    String name;
+}
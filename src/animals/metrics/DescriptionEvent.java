@@ -0,0 +1,27 @@
+package animals.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event recorded around each rendering of an animal's description —
+ * {@code toString()} and the {@code describeTo} overloads — when
+ * {@link AnimalMetrics#ENABLED} is set and a recording has the event enabled.
+ */
+@Name("animals.Description")
+@Label("Animal Description")
+@Category("Animals")
+@Description("Rendering of an animal's description")
+@StackTrace(false)
+public final class DescriptionEvent extends Event {
+
+    @Label("Species")
+    String species;
+
+    @Label("Animal Name")
+    String name;
+}
@@ -0,0 +1,195 @@
+package animals.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A concurrent histogram of non-negative {@code long} values — typically
+ * latencies in nanoseconds — with bounded relative error.
+ *
+ * <p>Values are counted in log-linear buckets, in the style of HdrHistogram:
+ * every power of two is divided into {@value #SUB_BUCKETS} equal sub-buckets,
+ * so a value is known to within {@code 1/}{@value #SUB_BUCKETS} (about 3%) of
+ * itself, whatever its magnitude. Values below {@value #SUB_BUCKETS} are
+ * counted exactly. The whole {@code long} range fits in under two thousand
+ * buckets, so the histogram never resizes.</p>
+ *
+ * <p>{@link #record(long)} is lock-free and safe to call from any number of
+ * threads: it is a single atomic add on one bucket, plus striped updates of
+ * the sum and extremes. {@link #snapshot()} copies the counts for reading.</p>
+ */
+public final class LatencyHistogram {
+
+    /** log2 of {@link #SUB_BUCKETS}. */
+    private static final int SUB_BITS = 5;
+
+    /** Buckets per power of two; sets the precision. */
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+    /** Enough buckets for every value up to {@link Long#MAX_VALUE}. */
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder       sum    = new LongAdder();
+    private final LongAccumulator min    = new LongAccumulator(Math::min, Long.MAX_VALUE);
+    private final LongAccumulator max    = new LongAccumulator(Math::max, Long.MIN_VALUE);
+
+    /**
+     * Records one value. Negative values are recorded as zero.
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts.getAndIncrement(bucketOf(value));
+        sum.add(value);
+        min.accumulate(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * Discards every recorded value. Values recorded concurrently with a reset
+     * may be partly kept.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        sum.reset();
+        min.reset();
+        max.reset();
+    }
+
+    /**
+     * Returns a copy of the current counts. Values recorded while the copy is
+     * being taken may or may not be included.
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+        return new Snapshot(copy, count, sum.sum(), min.get(), max.get());
+    }
+
+    // -------------------------------------------------------------------------
+    // Bucket arithmetic
+    // -------------------------------------------------------------------------
+
+    /** Returns the bucket counting a non-negative value. */
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    /** Returns the smallest value counted by a bucket. */
+    static long lowestIn(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int group = bucket / SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (group - 1);
+    }
+
+    /** Returns the largest value counted by a bucket. */
+    static long highestIn(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        return lowestIn(bucket) + (1L << (bucket / SUB_BUCKETS - 1)) - 1;
+    }
+
+    // -------------------------------------------------------------------------
+    // Snapshot
+    // -------------------------------------------------------------------------
+
+    /**
+     * An immutable copy of a histogram's counts.
+     */
+    public static final class Snapshot {
+
+        private final long[] counts;
+        private final long   count;
+        private final long   sum;
+        private final long   min;
+        private final long   max;
+
+        Snapshot(long[] counts, long count, long sum, long min, long max) {
+            this.counts = counts;
+            this.count  = count;
+            this.sum    = sum;
+            this.min    = count == 0 ? 0 : min;
+            this.max    = count == 0 ? 0 : max;
+        }
+
+        /** Returns the number of recorded values. */
+        public long count() { return count; }
+
+        /** Returns the smallest recorded value, or {@code 0} when empty. */
+        public long min() { return min; }
+
+        /** Returns the largest recorded value, or {@code 0} when empty. */
+        public long max() { return max; }
+
+        /** Returns the exact mean of the recorded values, or {@code NaN} when empty. */
+        public double mean() {
+            return count == 0 ? Double.NaN : (double) sum / count;
+        }
+
+        /**
+         * Returns the value at or below which {@code percentile} percent of the
+         * recorded values fall, e.g. {@code percentile(99.9)}.
+         *
+         * <p>The result is the top of the bucket holding that value, capped at
+         * {@link #max()}, so it never understates a latency; it overstates it by
+         * at most about 3%. Returns {@code 0} when empty.</p>
+         *
+         * @param percentile a value from {@code 0} to {@code 100}
+         */
+        public long percentile(double percentile) {
+            if (!(percentile >= 0 && percentile <= 100)) {
+                throw new IllegalArgumentException("percentile must be between 0 and 100: " + percentile);
+            }
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.max(min, Math.min(highestIn(i), max));
+                }
+            }
+            return max;
+        }
+
+        /**
+         * Returns a one-line summary, with values divided by {@code unit} and
+         * labelled {@code unitName} — for example {@code summary(1_000, "µs")}
+         * for nanosecond latencies.
+         */
+        public String summary(double unit, String unitName) {
+            return String.format("n=%d mean=%.1f%s p50=%.1f%s p90=%.1f%s p99=%.1f%s p99.9=%.1f%s max=%.1f%s",
+                    count,
+                    mean() / unit,          unitName,
+                    percentile(50) / unit,  unitName,
+                    percentile(90) / unit,  unitName,
+                    percentile(99) / unit,  unitName,
+                    percentile(99.9) / unit, unitName,
+                    max / unit,             unitName);
+        }
+
+        @Override
+        public String toString() {
+            return summary(1, "");
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package animals.metrics;
+
+import animals.Behaviour;
+import animals.Species;
+
+/**
+ * The counters and histograms of {@link AnimalMetrics} at one moment.
+ * Latencies are in nanoseconds.
+ */
+public final class MetricsSnapshot {
+
+    private final long[][] calls;
+    private final LatencyHistogram.Snapshot[] behaviourLatency;
+    private final long[] descriptions;
+    private final LatencyHistogram.Snapshot[] descriptionLatency;
+
+    MetricsSnapshot(long[][] calls, LatencyHistogram.Snapshot[] behaviourLatency,
+                    long[] descriptions, LatencyHistogram.Snapshot[] descriptionLatency) {
+        this.calls              = calls;
+        this.behaviourLatency   = behaviourLatency;
+        this.descriptions       = descriptions;
+        this.descriptionLatency = descriptionLatency;
+    }
+
+    /** Returns how many times animals of {@code species} performed {@code behaviour}. */
+    public long calls(Species species, Behaviour behaviour) {
+        return calls[species.ordinal()][behaviour.ordinal()];
+    }
+
+    /** Returns how many times {@code behaviour} was performed, by any species. */
+    public long calls(Behaviour behaviour) {
+        long total = 0;
+        for (long[] bySpecies : calls) {
+            total += bySpecies[behaviour.ordinal()];
+        }
+        return total;
+    }
+
+    /** Returns the latency distribution of {@code behaviour}, over all species. */
+    public LatencyHistogram.Snapshot latency(Behaviour behaviour) {
+        return behaviourLatency[behaviour.ordinal()];
+    }
+
+    /** Returns how many descriptions of animals of {@code species} were rendered. */
+    public long descriptions(Species species) {
+        return descriptions[species.ordinal()];
+    }
+
+    /** Returns the latency distribution of rendering descriptions of {@code species}. */
+    public LatencyHistogram.Snapshot descriptionLatency(Species species) {
+        return descriptionLatency[species.ordinal()];
+    }
+
+    /**
+     * Returns a table of non-zero call counts followed by latency summaries,
+     * in microseconds.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("calls:");
+        for (Species species : Species.values()) {
+            for (Behaviour behaviour : Behaviour.values()) {
+                long n = calls(species, behaviour);
+                if (n != 0) {
+                    sb.append(String.format("%n  %-5s %-10s %,d", species, behaviour, n));
+                }
+            }
+        }
+        sb.append(String.format("%nbehaviour latency:"));
+        for (Behaviour behaviour : Behaviour.values()) {
+            if (latency(behaviour).count() != 0) {
+                sb.append(String.format("%n  %-10s %s", behaviour, latency(behaviour).summary(1_000, "µs")));
+            }
+        }
+        sb.append(String.format("%ndescription latency:"));
+        for (Species species : Species.values()) {
+            if (descriptionLatency(species).count() != 0) {
+                sb.append(String.format("%n  %-10s %s", species, descriptionLatency(species).summary(1_000, "µs")));
+            }
+        }
+        return sb.toString();
+    }
+}
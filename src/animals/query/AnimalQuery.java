@@ -0,0 +1,108 @@
+package animals.query;
+
+import animals.Animal;
+import animals.Species;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * A {@link ParallelQuery} over a list of animal objects. Created by
+ * {@link ParallelQuery#over(java.util.List)}.
+ *
+ * <pre>{@code
+ * double meanCatWeight = ParallelQuery.over(animals)
+ *         .species(Species.CAT)
+ *         .stats(Animal::getWeight)
+ *         .average();
+ * NavigableMap<Integer, Long> fins = ParallelQuery.over(animals)
+ *         .species(Species.FISH)
+ *         .histogram(a -> ((Fish) a).getNumberOfFins());
+ * }</pre>
+ */
+public final class AnimalQuery extends ParallelQuery<AnimalQuery> {
+
+    /** The population, copied from the caller's list. */
+    private final Animal[] animals;
+
+    AnimalQuery(Animal[] animals) {
+        super(animals.length, row -> Species.of(animals[row]).ordinal());
+        this.animals = animals;
+    }
+
+    /**
+     * Keeps only animals that pass {@code test}. Called concurrently from
+     * several threads.
+     *
+     * @param test the condition an animal must meet
+     * @return this query
+     */
+    public AnimalQuery where(Predicate<? super Animal> test) {
+        return and(row -> test.test(animals[row]));
+    }
+
+    /**
+     * Returns count, sum, minimum and maximum of {@code measure} over the
+     * matching animals.
+     *
+     * @param measure the value to aggregate
+     * @return the statistics, {@link Stats#EMPTY} if nothing matches
+     */
+    public Stats stats(ToDoubleFunction<? super Animal> measure) {
+        return groupBySpecies(measure).total();
+    }
+
+    /**
+     * Returns count, sum, minimum and maximum of {@code measure} for each species.
+     *
+     * @param measure the value to aggregate
+     * @return the statistics of each species
+     */
+    public SpeciesStats groupBySpecies(ToDoubleFunction<? super Animal> measure) {
+        return new SpeciesStats(groupRows(row -> measure.applyAsDouble(animals[row])));
+    }
+
+    /**
+     * Returns the {@code k} matching animals with the largest {@code measure},
+     * largest first. Ties keep the animals' order in the list.
+     *
+     * @param k       the most animals to return
+     * @param measure the value to rank by
+     * @return at most {@code k} animals, best first
+     * @throws IllegalArgumentException if {@code k} is negative
+     */
+    public List<Animal> topK(int k, ToDoubleFunction<? super Animal> measure) {
+        return toAnimals(topRows(k, row -> measure.applyAsDouble(animals[row])));
+    }
+
+    /**
+     * Returns how many matching animals have each value of {@code key}.
+     *
+     * @param key the value to count by
+     * @return the count of each key that occurs, in key order
+     */
+    public NavigableMap<Integer, Long> histogram(ToIntFunction<? super Animal> key) {
+        return histogramRows(row -> key.applyAsInt(animals[row]));
+    }
+
+    /**
+     * Returns the matching animals, in list order.
+     *
+     * @return the matching animals
+     */
+    public List<Animal> list() {
+        return toAnimals(matchingRows());
+    }
+
+    private List<Animal> toAnimals(int[] rows) {
+        List<Animal> result = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            result.add(animals[row]);
+        }
+        return result;
+    }
+}
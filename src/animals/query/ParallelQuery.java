@@ -0,0 +1,508 @@
+package animals.query;
+
+import animals.Animal;
+import animals.Species;
+import animals.store.AnimalStore;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntPredicate;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Supplier;
+
+/**
+ * A filter-and-aggregate query that runs in parallel on a {@link ForkJoinPool}.
+ *
+ * <p>Every population is treated as a sequence of <em>rows</em> numbered from
+ * zero. A query splits the rows into ranges, and each range is scanned by its
+ * own fork/join task into a private <em>partial aggregate</em> — counts, sums,
+ * a bounded top-K heap, a histogram. When both halves of a split finish, their
+ * partials are merged, so tasks never share mutable state and no locking or
+ * atomic updates happen during the scan.</p>
+ *
+ * <p>Two kinds of population are supported:</p>
+ * <ul>
+ *   <li>{@link #over(List)} — a {@code List<Animal>}, with filters and
+ *       measures written against {@link Animal};</li>
+ *   <li>{@link #over(AnimalStore)} — a columnar {@link AnimalStore}, with
+ *       filters and measures written against row numbers, so a scan reads the
+ *       store's primitive columns and never materialises an animal.</li>
+ * </ul>
+ *
+ * <pre>{@code
+ * SpeciesStats weights = ParallelQuery.over(animals).groupBySpecies(Animal::getWeight);
+ * long fliers = ParallelQuery.over(animals)
+ *         .where(a -> a instanceof Bird bird && bird.canFly())
+ *         .count();
+ * }</pre>
+ *
+ * <p>A query is a builder: {@code where} and {@code species} narrow it and
+ * return the same object. The population must not be modified while a query
+ * runs. Queries run on {@link ForkJoinPool#commonPool()} unless another pool
+ * is given with {@link #pool(ForkJoinPool)}.</p>
+ *
+ * @param <Q> the concrete query type, returned by the builder methods
+ */
+public abstract sealed class ParallelQuery<Q extends ParallelQuery<Q>> permits AnimalQuery, StoreQuery {
+
+    /** Ranges smaller than this are never split further. */
+    private static final int MIN_LEAF_ROWS = 4096;
+
+    /** Target number of leaf tasks per worker, so that uneven leaves even out. */
+    private static final int LEAVES_PER_WORKER = 4;
+
+    /** Number of rows in the population. */
+    private final int size;
+
+    /** Species ordinal of each row. */
+    private final IntUnaryOperator speciesOf;
+
+    /** Rows to include; {@code null} means every row. */
+    private IntPredicate filter;
+
+    /** Pool that runs the tasks. */
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+
+    ParallelQuery(int size, IntUnaryOperator speciesOf) {
+        this.size      = size;
+        this.speciesOf = speciesOf;
+    }
+
+    // -------------------------------------------------------------------------
+    // Entry points
+    // -------------------------------------------------------------------------
+
+    /**
+     * Starts a query over a list of animals. The list is copied into an array
+     * once, so that every task reads it without bounds or modification checks.
+     *
+     * @param animals the population; must not contain {@code null}
+     * @return a query matching every animal in the list
+     */
+    public static AnimalQuery over(List<? extends Animal> animals) {
+        return new AnimalQuery(animals.toArray(new Animal[0]));
+    }
+
+    /**
+     * Starts a query over a columnar store.
+     *
+     * @param store the population
+     * @return a query matching every row of the store
+     */
+    public static StoreQuery over(AnimalStore store) {
+        return new StoreQuery(store);
+    }
+
+    // -------------------------------------------------------------------------
+    // Builder methods shared by both kinds of query
+    // -------------------------------------------------------------------------
+
+    /**
+     * Runs this query on the given pool instead of the common pool.
+     *
+     * @param pool the pool to run on
+     * @return this query
+     */
+    public Q pool(ForkJoinPool pool) {
+        this.pool = Objects.requireNonNull(pool, "pool");
+        return self();
+    }
+
+    /**
+     * Keeps only animals of the given species.
+     *
+     * @param species the species to keep
+     * @return this query
+     */
+    public Q species(Species... species) {
+        int mask = 0;
+        for (Species s : species) {
+            mask |= 1 << s.ordinal();
+        }
+        int wanted = mask;
+        return and(row -> (wanted & (1 << speciesOf.applyAsInt(row))) != 0);
+    }
+
+    /**
+     * Returns the number of animals that match.
+     *
+     * @return the number of matching animals
+     */
+    public long count() {
+        return run(Count::new).count;
+    }
+
+    // -------------------------------------------------------------------------
+    // Row-level operations used by the subclasses
+    // -------------------------------------------------------------------------
+
+    @SuppressWarnings("unchecked")
+    final Q self() {
+        return (Q) this;
+    }
+
+    /** Narrows the query to rows that also pass {@code test}. */
+    final Q and(IntPredicate test) {
+        filter = filter == null ? test : filter.and(test);
+        return self();
+    }
+
+    /** Statistics of {@code measure} per species, indexed by ordinal. */
+    final Stats[] groupRows(IntToDoubleFunction measure) {
+        return run(() -> new Group(speciesOf, measure)).toStats();
+    }
+
+    /** The {@code k} matching rows with the largest {@code measure}, largest first. */
+    final int[] topRows(int k, IntToDoubleFunction measure) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must not be negative: " + k);
+        }
+        return run(() -> new TopK(k, measure)).toRows();
+    }
+
+    /** Number of matching rows for each value of {@code key}. */
+    final NavigableMap<Integer, Long> histogramRows(IntUnaryOperator key) {
+        return run(() -> new Histogram(key)).toMap();
+    }
+
+    /** Every matching row, in ascending order. */
+    final int[] matchingRows() {
+        return run(Rows::new).toArray();
+    }
+
+    /**
+     * Scans every row that passes the filter into partial aggregates and
+     * returns their merge.
+     */
+    private <P extends Partial<P>> P run(Supplier<P> partials) {
+        int leaf = Math.max(MIN_LEAF_ROWS, size / (pool.getParallelism() * LEAVES_PER_WORKER));
+        return pool.invoke(new Scan<>(0, size, leaf, filter, partials));
+    }
+
+    // -------------------------------------------------------------------------
+    // Fork/join task
+    // -------------------------------------------------------------------------
+
+    /**
+     * Scans the rows {@code [from, to)}: directly when the range is small,
+     * otherwise by splitting it in two and merging the halves' partials.
+     */
+    @SuppressWarnings("serial") // Tasks are never serialised
+    private static final class Scan<P extends Partial<P>> extends RecursiveTask<P> {
+
+        private final int from;
+        private final int to;
+        private final int leaf;
+        private final IntPredicate filter; // null for every row
+        private final Supplier<P> partials;
+
+        Scan(int from, int to, int leaf, IntPredicate filter, Supplier<P> partials) {
+            this.from     = from;
+            this.to       = to;
+            this.leaf     = leaf;
+            this.filter   = filter;
+            this.partials = partials;
+        }
+
+        @Override
+        protected P compute() {
+            if (to - from <= leaf) {
+                P partial = partials.get();
+                if (filter == null) {
+                    for (int row = from; row < to; row++) {
+                        partial.accept(row);
+                    }
+                } else {
+                    for (int row = from; row < to; row++) {
+                        if (filter.test(row)) {
+                            partial.accept(row);
+                        }
+                    }
+                }
+                return partial;
+            }
+            int middle = (from + to) >>> 1;
+            Scan<P> left  = new Scan<>(from, middle, leaf, filter, partials);
+            Scan<P> right = new Scan<>(middle, to, leaf, filter, partials);
+            left.fork();
+            P result = right.compute();
+            // Left rows come first, so order-sensitive partials stay in row order
+            return left.join().mergeFrom(result);
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Partial aggregates — one per leaf task, merged pairwise
+    // -------------------------------------------------------------------------
+
+    /**
+     * A partial aggregate over some of the rows. Each instance is used by one
+     * task at a time, so implementations are not thread-safe.
+     */
+    private abstract static class Partial<P extends Partial<P>> {
+
+        /** Adds one matching row. */
+        abstract void accept(int row);
+
+        /**
+         * Adds the rows of {@code later}, which all come after this partial's
+         * rows, and returns the result (usually {@code this}).
+         */
+        abstract P mergeFrom(P later);
+    }
+
+    private static final class Count extends Partial<Count> {
+
+        private long count;
+
+        @Override void accept(int row) { count++; }
+
+        @Override
+        Count mergeFrom(Count later) {
+            count += later.count;
+            return this;
+        }
+    }
+
+    /** Count, sum, minimum and maximum of a measure for each species. */
+    private static final class Group extends Partial<Group> {
+
+        private final IntUnaryOperator speciesOf;
+        private final IntToDoubleFunction measure;
+
+        private final long[]   counts = new long[Species.values().length];
+        private final double[] sums   = new double[counts.length];
+        private final double[] mins   = new double[counts.length];
+        private final double[] maxs   = new double[counts.length];
+
+        Group(IntUnaryOperator speciesOf, IntToDoubleFunction measure) {
+            this.speciesOf = speciesOf;
+            this.measure   = measure;
+            Arrays.fill(mins, Double.POSITIVE_INFINITY);
+            Arrays.fill(maxs, Double.NEGATIVE_INFINITY);
+        }
+
+        @Override
+        void accept(int row) {
+            int s = speciesOf.applyAsInt(row);
+            double value = measure.applyAsDouble(row);
+            counts[s]++;
+            sums[s] += value;
+            mins[s] = Math.min(mins[s], value);
+            maxs[s] = Math.max(maxs[s], value);
+        }
+
+        @Override
+        Group mergeFrom(Group later) {
+            for (int s = 0; s < counts.length; s++) {
+                counts[s] += later.counts[s];
+                sums[s]   += later.sums[s];
+                mins[s]    = Math.min(mins[s], later.mins[s]);
+                maxs[s]    = Math.max(maxs[s], later.maxs[s]);
+            }
+            return this;
+        }
+
+        Stats[] toStats() {
+            Stats[] stats = new Stats[counts.length];
+            for (int s = 0; s < counts.length; s++) {
+                stats[s] = counts[s] == 0 ? Stats.EMPTY : new Stats(counts[s], sums[s], mins[s], maxs[s]);
+            }
+            return stats;
+        }
+    }
+
+    /**
+     * The {@code k} best rows seen so far, kept in a binary min-heap so that the
+     * worst of them is at the root. A row is better than another when its
+     * measure is larger by {@link Double#compare}, or equal with a smaller row
+     * number — so the result does not depend on how the rows were split.
+     *
+     * <p>The heap starts small and doubles up to {@code k}, so a leaf holds
+     * no more than it has matched: a large {@code k} over many small leaves
+     * does not allocate {@code k} slots per leaf.</p>
+     */
+    private static final class TopK extends Partial<TopK> {
+
+        private static final int INITIAL_CAPACITY = 16;
+
+        private final int k;
+        private final IntToDoubleFunction measure;
+
+        private double[] keys;
+        private int[]    rows;
+        private int      size;
+
+        TopK(int k, IntToDoubleFunction measure) {
+            this.k       = k;
+            this.measure = measure;
+            this.keys    = new double[Math.min(k, INITIAL_CAPACITY)];
+            this.rows    = new int[keys.length];
+        }
+
+        @Override
+        void accept(int row) {
+            offer(measure.applyAsDouble(row), row);
+        }
+
+        @Override
+        TopK mergeFrom(TopK later) {
+            // Offer the smaller heap's rows to the larger one; the result is the same either way
+            TopK into = later.size > size ? later : this;
+            TopK from = into == this ? later : this;
+            for (int i = 0; i < from.size; i++) {
+                into.offer(from.keys[i], from.rows[i]);
+            }
+            return into;
+        }
+
+        private void offer(double key, int row) {
+            if (size < k) {
+                if (size == keys.length) {
+                    int capacity = (int) Math.min(k, 2L * size);
+                    keys = Arrays.copyOf(keys, capacity);
+                    rows = Arrays.copyOf(rows, capacity);
+                }
+                keys[size] = key;
+                rows[size] = row;
+                siftUp(size++);
+            } else if (k > 0 && better(key, row, keys[0], rows[0])) {
+                keys[0] = key;
+                rows[0] = row;
+                siftDown(0);
+            }
+        }
+
+        private static boolean better(double key, int row, double otherKey, int otherRow) {
+            int c = Double.compare(key, otherKey);
+            return c > 0 || (c == 0 && row < otherRow);
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!better(keys[parent], rows[parent], keys[i], rows[i])) {
+                    break;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int worst = i;
+                int left  = 2 * i + 1;
+                int right = left + 1;
+                if (left < size && better(keys[worst], rows[worst], keys[left], rows[left])) {
+                    worst = left;
+                }
+                if (right < size && better(keys[worst], rows[worst], keys[right], rows[right])) {
+                    worst = right;
+                }
+                if (worst == i) {
+                    return;
+                }
+                swap(i, worst);
+                i = worst;
+            }
+        }
+
+        private void swap(int a, int b) {
+            double key = keys[a]; keys[a] = keys[b]; keys[b] = key;
+            int    row = rows[a]; rows[a] = rows[b]; rows[b] = row;
+        }
+
+        /** Drains the heap into an array, best row first. */
+        int[] toRows() {
+            int[] result = new int[size];
+            for (int i = size - 1; i >= 0; i--) {
+                result[i] = rows[0];
+                swap(0, --size);
+                siftDown(0);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Counts per integer key. Small non-negative keys — wing and fin counts,
+     * ages — are counted in an array; any others go to a sorted map.
+     */
+    private static final class Histogram extends Partial<Histogram> {
+
+        private static final int DENSE_KEYS = 256;
+
+        private final IntUnaryOperator key;
+        private final long[] dense = new long[DENSE_KEYS];
+        private final TreeMap<Integer, Long> sparse = new TreeMap<>();
+
+        Histogram(IntUnaryOperator key) {
+            this.key = key;
+        }
+
+        @Override
+        void accept(int row) {
+            int k = key.applyAsInt(row);
+            if (k >= 0 && k < DENSE_KEYS) {
+                dense[k]++;
+            } else {
+                sparse.merge(k, 1L, Long::sum);
+            }
+        }
+
+        @Override
+        Histogram mergeFrom(Histogram later) {
+            for (int k = 0; k < DENSE_KEYS; k++) {
+                dense[k] += later.dense[k];
+            }
+            later.sparse.forEach((k, n) -> sparse.merge(k, n, Long::sum));
+            return this;
+        }
+
+        NavigableMap<Integer, Long> toMap() {
+            TreeMap<Integer, Long> map = new TreeMap<>(sparse);
+            for (int k = 0; k < DENSE_KEYS; k++) {
+                if (dense[k] != 0) {
+                    map.put(k, dense[k]);
+                }
+            }
+            return map;
+        }
+    }
+
+    /** The matching row numbers, in order. */
+    private static final class Rows extends Partial<Rows> {
+
+        private int[] rows = new int[16];
+        private int   size;
+
+        @Override
+        void accept(int row) {
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size * 2);
+            }
+            rows[size++] = row;
+        }
+
+        @Override
+        Rows mergeFrom(Rows later) {
+            if (size + later.size > rows.length) {
+                rows = Arrays.copyOf(rows, size + later.size);
+            }
+            System.arraycopy(later.rows, 0, rows, size, later.size);
+            size += later.size;
+            return this;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(rows, size);
+        }
+    }
+}
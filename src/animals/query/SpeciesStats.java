@@ -0,0 +1,79 @@
+package animals.query;
+
+import animals.Species;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * {@link Stats} for each species, as returned by a group-by-species query.
+ */
+public final class SpeciesStats {
+
+    /** Statistics of each species, indexed by {@link Species#ordinal()}. */
+    private final Stats[] bySpecies;
+
+    SpeciesStats(Stats[] bySpecies) {
+        this.bySpecies = bySpecies;
+    }
+
+    /**
+     * Returns statistics built from those of each species, for example when
+     * combining the results of several processes.
+     *
+     * @param bySpecies statistics per species; absent species are empty
+     * @return the combined statistics
+     */
+    public static SpeciesStats of(Map<Species, Stats> bySpecies) {
+        Stats[] stats = new Stats[Species.values().length];
+        for (Species species : Species.values()) {
+            stats[species.ordinal()] = bySpecies.getOrDefault(species, Stats.EMPTY);
+        }
+        return new SpeciesStats(stats);
+    }
+
+    /**
+     * Returns the statistics of one species; {@link Stats#EMPTY} if no animal
+     * of that species matched.
+     *
+     * @param species the species to look up
+     * @return its statistics
+     */
+    public Stats get(Species species) {
+        return bySpecies[species.ordinal()];
+    }
+
+    /**
+     * Returns the statistics of all species combined.
+     *
+     * @return the statistics of every matching animal
+     */
+    public Stats total() {
+        Stats total = Stats.EMPTY;
+        for (Stats stats : bySpecies) {
+            total = total.merge(stats);
+        }
+        return total;
+    }
+
+    /**
+     * Returns the species that matched at least one animal, with their statistics.
+     *
+     * @return an unmodifiable map in species order
+     */
+    public Map<Species, Stats> asMap() {
+        Map<Species, Stats> map = new EnumMap<>(Species.class);
+        for (Species species : Species.values()) {
+            if (bySpecies[species.ordinal()].count() > 0) {
+                map.put(species, bySpecies[species.ordinal()]);
+            }
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    @Override
+    public String toString() {
+        return asMap().toString();
+    }
+}
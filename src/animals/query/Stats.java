@@ -0,0 +1,43 @@
+package animals.query;
+
+/**
+ * Count, sum, minimum and maximum of a numeric measure over a set of animals.
+ *
+ * <p>An empty set has a count of zero, a sum of zero, and a minimum and
+ * maximum of {@code NaN}.</p>
+ *
+ * @param count number of animals measured
+ * @param sum   sum of the measure
+ * @param min   smallest value of the measure, or {@code NaN} when empty
+ * @param max   largest value of the measure, or {@code NaN} when empty
+ */
+public record Stats(long count, double sum, double min, double max) {
+
+    /** Statistics of an empty set. */
+    public static final Stats EMPTY = new Stats(0, 0.0, Double.NaN, Double.NaN);
+
+    /**
+     * Returns the mean of the measure, or {@code NaN} when empty.
+     *
+     * @return {@code sum / count}, or {@code NaN} when empty
+     */
+    public double average() {
+        return count == 0 ? Double.NaN : sum / count;
+    }
+
+    /**
+     * Combines these statistics with those of a disjoint set.
+     *
+     * @param other statistics of a set with no animal in common with this one
+     * @return the statistics of both sets together
+     */
+    public Stats merge(Stats other) {
+        if (other.count == 0) {
+            return this;
+        }
+        if (count == 0) {
+            return other;
+        }
+        return new Stats(count + other.count, sum + other.sum, Math.min(min, other.min), Math.max(max, other.max));
+    }
+}
@@ -0,0 +1,97 @@
+package animals.query;
+
+import animals.store.AnimalStore;
+
+import java.util.NavigableMap;
+import java.util.function.IntPredicate;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * A {@link ParallelQuery} over a columnar {@link AnimalStore}. Created by
+ * {@link ParallelQuery#over(AnimalStore)}.
+ *
+ * <p>Filters and measures receive a row number and read the store's columns
+ * directly, so no animal objects are created during a scan:</p>
+ *
+ * <pre>{@code
+ * long fliers = ParallelQuery.over(store)
+ *         .species(Species.BIRD)
+ *         .where(store::canFly)
+ *         .count();
+ * int[] heaviest = ParallelQuery.over(store).topK(10, store::getWeight);
+ * }</pre>
+ *
+ * <p>The store is only read, from several threads at once; it must not be
+ * modified until the query returns.</p>
+ */
+public final class StoreQuery extends ParallelQuery<StoreQuery> {
+
+    StoreQuery(AnimalStore store) {
+        super(store.size(), row -> store.getSpecies(row).ordinal());
+    }
+
+    /**
+     * Keeps only rows that pass {@code test}. Called concurrently from
+     * several threads.
+     *
+     * @param test the condition a row must meet
+     * @return this query
+     */
+    public StoreQuery where(IntPredicate test) {
+        return and(test);
+    }
+
+    /**
+     * Returns count, sum, minimum and maximum of {@code measure} over the
+     * matching rows.
+     *
+     * @param measure the value to aggregate
+     * @return the statistics, {@link Stats#EMPTY} if nothing matches
+     */
+    public Stats stats(IntToDoubleFunction measure) {
+        return groupBySpecies(measure).total();
+    }
+
+    /**
+     * Returns count, sum, minimum and maximum of {@code measure} for each species.
+     *
+     * @param measure the value to aggregate
+     * @return the statistics of each species
+     */
+    public SpeciesStats groupBySpecies(IntToDoubleFunction measure) {
+        return new SpeciesStats(groupRows(measure));
+    }
+
+    /**
+     * Returns the {@code k} matching rows with the largest {@code measure},
+     * largest first. Ties are broken by the lower row number.
+     *
+     * @param k       the most rows to return
+     * @param measure the value to rank by
+     * @return at most {@code k} row numbers, best first
+     * @throws IllegalArgumentException if {@code k} is negative
+     */
+    public int[] topK(int k, IntToDoubleFunction measure) {
+        return topRows(k, measure);
+    }
+
+    /**
+     * Returns how many matching rows have each value of {@code key}.
+     *
+     * @param key the value to count by
+     * @return the count of each key that occurs, in key order
+     */
+    public NavigableMap<Integer, Long> histogram(IntUnaryOperator key) {
+        return histogramRows(key);
+    }
+
+    /**
+     * Returns the matching row numbers, in ascending order.
+     *
+     * @return the matching row numbers
+     */
+    public int[] rows() {
+        return matchingRows();
+    }
+}
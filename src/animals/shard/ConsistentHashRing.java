@@ -0,0 +1,163 @@
+package animals.shard;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Assigns names to shards by consistent hashing.
+ *
+ * <p>Each shard is placed at {@code virtualNodes} pseudo-random points on a
+ * 64-bit ring, and a name belongs to the shard owning the first point at or
+ * after the name's hash, wrapping round at the end. Adding a shard therefore
+ * moves only the names that now fall just before its points — about
+ * {@code 1/(n+1)} of them, all to the new shard — and removing one moves only
+ * that shard's names. With 128 virtual nodes per shard the largest shard
+ * holds within about 15% of the mean.</p>
+ *
+ * <p>A name's hash is {@link String#hashCode()}, which is specified by the
+ * language, mixed to 64 bits, so every process computes the same owner.
+ * Rings are immutable; {@link #with(int)} and {@link #without(int)} return
+ * new ones.</p>
+ */
+public final class ConsistentHashRing {
+
+    /** Default points per shard. */
+    public static final int DEFAULT_VIRTUAL_NODES = 128;
+
+    /** Most points per shard. */
+    public static final int MAX_VIRTUAL_NODES = 1 << 16;
+
+    private final int   virtualNodes;
+    private final int[] shards;
+    private final long[] points;
+    private final int[]  owners;
+
+    /**
+     * Creates a ring over the given shards.
+     *
+     * @param shards       the shard ids; duplicates are ignored
+     * @param virtualNodes the number of points per shard
+     * @throws IllegalArgumentException if {@code shards} is empty or
+     *                                  {@code virtualNodes} is not between 1
+     *                                  and {@value #MAX_VIRTUAL_NODES}
+     */
+    public ConsistentHashRing(int[] shards, int virtualNodes) {
+        if (virtualNodes < 1 || virtualNodes > MAX_VIRTUAL_NODES) {
+            throw new IllegalArgumentException("virtualNodes must be between 1 and " + MAX_VIRTUAL_NODES + ": " + virtualNodes);
+        }
+        int[] ids = Arrays.stream(shards).distinct().sorted().toArray();
+        if (ids.length == 0) {
+            throw new IllegalArgumentException("A ring needs at least one shard");
+        }
+        this.virtualNodes = virtualNodes;
+        this.shards       = ids;
+
+        int n = ids.length * virtualNodes;
+        long[]    unsorted = new long[n];
+        Integer[] order    = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            unsorted[i] = mix((long) ids[i / virtualNodes] << 32 | i % virtualNodes);
+            order[i]    = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(unsorted[a], unsorted[b]));
+        this.points = new long[n];
+        this.owners = new int[n];
+        for (int i = 0; i < n; i++) {
+            points[i] = unsorted[order[i]];
+            owners[i] = ids[order[i] / virtualNodes];
+        }
+    }
+
+    /**
+     * Returns a ring with one more shard.
+     *
+     * @param shard the shard to add
+     */
+    public ConsistentHashRing with(int shard) {
+        int[] ids = Arrays.copyOf(shards, shards.length + 1);
+        ids[shards.length] = shard;
+        return new ConsistentHashRing(ids, virtualNodes);
+    }
+
+    /**
+     * Returns a ring without a shard.
+     *
+     * @param shard the shard to remove
+     * @throws IllegalArgumentException if it is the only shard
+     */
+    public ConsistentHashRing without(int shard) {
+        return new ConsistentHashRing(Arrays.stream(shards).filter(id -> id != shard).toArray(), virtualNodes);
+    }
+
+    /**
+     * Returns the shard that owns a name.
+     *
+     * @param name the name; {@code null} hashes like the empty string
+     */
+    public int shardFor(String name) {
+        return ownerOf(hash(name));
+    }
+
+    /** Returns the owner of the first point at or after {@code hash}. */
+    int ownerOf(long hash) {
+        int index = Arrays.binarySearch(points, hash);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return owners[index == points.length ? 0 : index];
+    }
+
+    /** Returns the ring position of a name. */
+    static long hash(String name) {
+        return mix(name == null ? 0 : name.hashCode());
+    }
+
+    /** MurmurHash3's 64-bit finalizer: a bijection, so distinct inputs never collide. */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /** Returns the shard ids, in ascending order. */
+    public int[] shards() { return shards.clone(); }
+
+    /** Returns the number of points per shard. */
+    public int virtualNodes() { return virtualNodes; }
+
+    /** Returns whether the ring includes a shard. */
+    public boolean contains(int shard) {
+        return Arrays.binarySearch(shards, shard) >= 0;
+    }
+
+    // -------------------------------------------------------------------------
+    // Encoding, for sending a ring to the workers
+    // -------------------------------------------------------------------------
+
+    int encodedSize() {
+        return 4 + 4 + 4 * shards.length;
+    }
+
+    void encode(ByteBuffer buffer) {
+        buffer.putInt(virtualNodes).putInt(shards.length);
+        for (int shard : shards) {
+            buffer.putInt(shard);
+        }
+    }
+
+    static ConsistentHashRing decode(ByteBuffer buffer) {
+        int virtualNodes = buffer.getInt();
+        int count = buffer.getInt();
+        if (count < 1 || count > buffer.remaining() / 4) {
+            throw new IllegalArgumentException("Corrupt shard count: " + count);
+        }
+        int[] shards = new int[count];
+        for (int i = 0; i < count; i++) {
+            shards[i] = buffer.getInt();
+        }
+        return new ConsistentHashRing(shards, virtualNodes);
+    }
+}
@@ -0,0 +1,112 @@
+package animals.shard;
+
+import animals.Species;
+import animals.index.AnimalRegistry;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The criteria of a {@link ShardedRegistry.Query}, in a form that can be sent
+ * to the workers and applied there to an {@link AnimalRegistry.Query}.
+ *
+ * <pre>
+ *   byte     mask       which criteria follow, one bit each, in this order
+ *   string   name       int UTF-8 length, then the bytes; -1 for null
+ *   string   colour
+ *   string   home
+ *   byte     friendly   0 or 1
+ *   byte     species    {@link Species#tag()}
+ *   int x2   age range
+ *   float x2 weight range
+ * </pre>
+ */
+final class Criteria {
+
+    private static final int NAME     = 1;
+    private static final int COLOUR   = 1 << 1;
+    private static final int HOME     = 1 << 2;
+    private static final int FRIENDLY = 1 << 3;
+    private static final int SPECIES  = 1 << 4;
+    private static final int AGE      = 1 << 5;
+    private static final int WEIGHT   = 1 << 6;
+
+    int     mask;
+    String  name;
+    String  colour;
+    String  home;
+    boolean friendly;
+    Species species;
+    int     minAge;
+    int     maxAge;
+    float   minWeight;
+    float   maxWeight;
+
+    void name(String name)          { this.name = name;         mask |= NAME; }
+    void colour(String colour)      { this.colour = colour;     mask |= COLOUR; }
+    void home(String home)          { this.home = home;         mask |= HOME; }
+    void friendly(boolean friendly) { this.friendly = friendly; mask |= FRIENDLY; }
+    void species(Species species)   { this.species = species;   mask |= SPECIES; }
+
+    void ageBetween(int min, int max) {
+        minAge = min;
+        maxAge = max;
+        mask  |= AGE;
+    }
+
+    void weightBetween(float min, float max) {
+        minWeight = min;
+        maxWeight = max;
+        mask     |= WEIGHT;
+    }
+
+    /** Returns whether the criteria select by name, and so touch only one shard. */
+    boolean hasName() {
+        return (mask & NAME) != 0;
+    }
+
+    /** Returns a registry query with these criteria. */
+    AnimalRegistry.Query applyTo(AnimalRegistry registry) {
+        AnimalRegistry.Query query = registry.query();
+        if ((mask & NAME) != 0)     query.named(name);
+        if ((mask & COLOUR) != 0)   query.colour(colour);
+        if ((mask & HOME) != 0)     query.home(home);
+        if ((mask & FRIENDLY) != 0) query.friendly(friendly);
+        if ((mask & SPECIES) != 0)  query.species(species);
+        if ((mask & AGE) != 0)      query.ageBetween(minAge, maxAge);
+        if ((mask & WEIGHT) != 0)   query.weightBetween(minWeight, maxWeight);
+        return query;
+    }
+
+    // -------------------------------------------------------------------------
+    // Encoding
+    // -------------------------------------------------------------------------
+
+    int encodedSize() {
+        return 1 + Frames.stringSize(name) + Frames.stringSize(colour) + Frames.stringSize(home)
+                + 2 + 8 + 8;
+    }
+
+    void encode(ByteBuffer buffer) {
+        buffer.put((byte) mask);
+        if ((mask & NAME) != 0)     Frames.putString(buffer, name);
+        if ((mask & COLOUR) != 0)   Frames.putString(buffer, colour);
+        if ((mask & HOME) != 0)     Frames.putString(buffer, home);
+        if ((mask & FRIENDLY) != 0) buffer.put((byte) (friendly ? 1 : 0));
+        if ((mask & SPECIES) != 0)  buffer.put(species.tag());
+        if ((mask & AGE) != 0)      buffer.putInt(minAge).putInt(maxAge);
+        if ((mask & WEIGHT) != 0)   buffer.putFloat(minWeight).putFloat(maxWeight);
+    }
+
+    static Criteria decode(ByteBuffer buffer) {
+        Criteria criteria = new Criteria();
+        int mask = buffer.get();
+        if ((mask & NAME) != 0)     criteria.name(Frames.getString(buffer));
+        if ((mask & COLOUR) != 0)   criteria.colour(Frames.getString(buffer));
+        if ((mask & HOME) != 0)     criteria.home(Frames.getString(buffer));
+        if ((mask & FRIENDLY) != 0) criteria.friendly(buffer.get() != 0);
+        if ((mask & SPECIES) != 0)  criteria.species(Species.fromTag(buffer.get()));
+        if ((mask & AGE) != 0)      criteria.ageBetween(buffer.getInt(), buffer.getInt());
+        if ((mask & WEIGHT) != 0)   criteria.weightBetween(buffer.getFloat(), buffer.getFloat());
+        return criteria;
+    }
+}
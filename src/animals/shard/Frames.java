@@ -0,0 +1,146 @@
+package animals.shard;
+
+import animals.Animal;
+import animals.io.AnimalCodec;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+
+/**
+ * The wire protocol between {@link ShardedRegistry} and its
+ * {@link ShardWorker}s.
+ *
+ * <p>Every request and response is one frame:</p>
+ * <pre>
+ *   int    length   of what follows
+ *   byte   code     the operation in a request; {@link #OK} or {@link #ERROR} in a response
+ *   bytes  payload
+ * </pre>
+ *
+ * <p>Animals travel as {@link AnimalCodec} batches. An error response
+ * carries the worker's message as a string. Requests on one connection are
+ * answered in order, one at a time.</p>
+ */
+final class Frames {
+
+    // Requests, with their payloads and responses
+
+    /** Batch of animals; responds with the int number added. */
+    static final byte PUT = 1;
+
+    /** {@link Criteria}; responds with the int number of matches. */
+    static final byte COUNT = 2;
+
+    /** {@link Criteria}; responds with the matching animals as a batch. */
+    static final byte LIST = 3;
+
+    /** {@link Criteria} and a measure ordinal; responds with count, sum, min and max per species. */
+    static final byte STATS = 4;
+
+    /** String name; responds with the int number removed. */
+    static final byte REMOVE = 5;
+
+    /** No payload; responds with the int number of animals held. */
+    static final byte SIZE = 6;
+
+    /**
+     * A ring and the worker's shard id; removes and responds with the animals
+     * the ring assigns to other shards.
+     */
+    static final byte EXTRACT = 7;
+
+    /** No payload; responds, then the worker exits. */
+    static final byte SHUTDOWN = 8;
+
+    // Response codes
+
+    static final byte OK    = 0;
+    static final byte ERROR = 1;
+
+    /** Largest frame accepted, so a corrupt length cannot exhaust the heap. */
+    static final int MAX_FRAME = 1 << 30;
+
+    static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+    private Frames() {
+        // Static methods only
+    }
+
+    /** A received frame. */
+    record Frame(byte code, ByteBuffer payload) { }
+
+    static void write(DataOutputStream out, byte code, ByteBuffer payload) throws IOException {
+        out.writeInt(1 + payload.remaining());
+        out.writeByte(code);
+        out.write(payload.array(), payload.arrayOffset() + payload.position(), payload.remaining());
+        out.flush();
+    }
+
+    /**
+     * Reads one frame.
+     *
+     * @throws EOFException if the stream ends before a frame starts
+     */
+    static Frame read(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 1 || length > MAX_FRAME) {
+            throw new IOException("Corrupt frame length: " + length);
+        }
+        byte code = in.readByte();
+        byte[] payload = new byte[length - 1];
+        in.readFully(payload);
+        return new Frame(code, ByteBuffer.wrap(payload));
+    }
+
+    // -------------------------------------------------------------------------
+    // Payloads
+    // -------------------------------------------------------------------------
+
+    static ByteBuffer batch(Collection<? extends Animal> animals) {
+        ByteBuffer buffer = ByteBuffer.allocate(AnimalCodec.encodedSize(animals));
+        AnimalCodec.encodeAll(animals, buffer);
+        return buffer.flip();
+    }
+
+    static ByteBuffer ofInt(int value) {
+        return ByteBuffer.allocate(4).putInt(value).flip();
+    }
+
+    static ByteBuffer ofString(String value) {
+        ByteBuffer buffer = ByteBuffer.allocate(stringSize(value));
+        putString(buffer, value);
+        return buffer.flip();
+    }
+
+    static int stringSize(String value) {
+        return 4 + (value == null ? 0 : value.getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    static void putString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.putInt(-1);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            buffer.putInt(bytes.length).put(bytes);
+        }
+    }
+
+    static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length == -1) {
+            return null;
+        }
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("Corrupt string length: " + length);
+        }
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+                StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+}
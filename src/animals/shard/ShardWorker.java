@@ -0,0 +1,204 @@
+package animals.shard;
+
+import animals.Animal;
+import animals.Species;
+import animals.index.AnimalRegistry;
+import animals.io.AnimalCodec;
+import animals.query.ParallelQuery;
+import animals.query.SpeciesStats;
+import animals.query.Stats;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * One shard of a {@link ShardedRegistry}: an {@link AnimalRegistry} served
+ * over a loopback socket.
+ *
+ * <p>{@link ShardedRegistry} normally starts each worker in its own JVM
+ * through {@link #main(String[])}. A worker can also be started by hand —
+ * {@code java -cp ... animals.shard.ShardWorker 7001} — and attached with
+ * {@link ShardedRegistry.Builder#workers}, or started in-process with
+ * {@link #start(int)}.</p>
+ *
+ * <p>Each connection is served on its own virtual thread, one request at a
+ * time; see {@link Frames} for the protocol. A request that fails is
+ * answered with an error frame and the connection stays open.</p>
+ */
+public final class ShardWorker implements AutoCloseable {
+
+    private final AnimalRegistry registry = new AnimalRegistry();
+    private final ServerSocket   server;
+    private final Set<Socket>    connections = ConcurrentHashMap.newKeySet();
+    private final CountDownLatch closed      = new CountDownLatch(1);
+
+    private ShardWorker(ServerSocket server) {
+        this.server = server;
+    }
+
+    /**
+     * Starts a worker listening on the loopback interface.
+     *
+     * @param port the port, or 0 for any free port
+     * @throws IOException if the port cannot be bound
+     */
+    public static ShardWorker start(int port) throws IOException {
+        ShardWorker worker = new ShardWorker(new ServerSocket(port, 50, InetAddress.getLoopbackAddress()));
+        Thread.ofVirtual().name("shard-accept-" + worker.port()).start(worker::accept);
+        return worker;
+    }
+
+    /**
+     * Runs a worker until it is sent a shutdown request or the process that
+     * started it exits. Prints {@code LISTENING <port>} once it accepts
+     * connections.
+     *
+     * @param args the port to listen on; any free port if absent
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        ShardWorker worker = start(args.length > 0 ? Integer.parseInt(args[0]) : 0);
+        System.out.println("LISTENING " + worker.port());
+        System.out.flush();
+        // A worker launched by a coordinator must not outlive it
+        ProcessHandle.current().parent().ifPresent(parent -> parent.onExit().thenRun(worker::close));
+        worker.closed.await();
+    }
+
+    /** Returns the port the worker listens on. */
+    public int port() {
+        return server.getLocalPort();
+    }
+
+    /** Returns the number of animals the worker holds. */
+    public int size() {
+        return registry.size();
+    }
+
+    /**
+     * Stops accepting connections and closes the open ones. Idempotent.
+     */
+    @Override
+    public void close() {
+        try {
+            server.close();
+            for (Socket socket : connections) {
+                socket.close();
+            }
+        } catch (IOException e) {
+            // Closing anyway
+        } finally {
+            closed.countDown();
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Serving
+    // -------------------------------------------------------------------------
+
+    private void accept() {
+        while (!server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                socket.setTcpNoDelay(true);
+                connections.add(socket);
+                Thread.ofVirtual().name("shard-conn").start(() -> serve(socket));
+            } catch (IOException e) {
+                if (!server.isClosed()) {
+                    System.err.println("ShardWorker: accept failed: " + e);
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket;
+             DataInputStream  in  = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16))) {
+            while (true) {
+                Frames.Frame request = Frames.read(in);
+                ByteBuffer response;
+                try {
+                    response = handle(request.code(), request.payload());
+                } catch (RuntimeException e) {
+                    Frames.write(out, Frames.ERROR, Frames.ofString(String.valueOf(e)));
+                    continue;
+                }
+                Frames.write(out, Frames.OK, response);
+                if (request.code() == Frames.SHUTDOWN) {
+                    close();
+                    return;
+                }
+            }
+        } catch (EOFException | SocketException e) {
+            // Peer went away, or the worker is closing
+        } catch (IOException e) {
+            System.err.println("ShardWorker: connection failed: " + e);
+        } finally {
+            connections.remove(socket);
+        }
+    }
+
+    private ByteBuffer handle(byte code, ByteBuffer payload) {
+        return switch (code) {
+            case Frames.PUT -> {
+                List<Animal> animals = AnimalCodec.decodeAll(payload);
+                registry.addAll(animals);
+                yield Frames.ofInt(animals.size());
+            }
+            case Frames.COUNT -> Frames.ofInt(Criteria.decode(payload).applyTo(registry).count());
+            case Frames.LIST -> Frames.batch(Criteria.decode(payload).applyTo(registry).list());
+            case Frames.STATS -> {
+                List<Animal> matches = Criteria.decode(payload).applyTo(registry).list();
+                ShardedRegistry.Measure measure = ShardedRegistry.Measure.values()[payload.get()];
+                yield stats(ParallelQuery.over(matches).groupBySpecies(measure.function));
+            }
+            case Frames.REMOVE -> {
+                int removed = 0;
+                for (Animal animal : registry.named(Frames.getString(payload))) {
+                    if (registry.remove(animal)) {
+                        removed++;
+                    }
+                }
+                yield Frames.ofInt(removed);
+            }
+            case Frames.SIZE -> Frames.ofInt(registry.size());
+            case Frames.EXTRACT -> {
+                int self = payload.getInt();
+                ConsistentHashRing ring = ConsistentHashRing.decode(payload);
+                List<Animal> moving = new ArrayList<>();
+                for (Animal animal : registry.query().list()) {
+                    if (ring.shardFor(animal.getName()) != self && registry.remove(animal)) {
+                        moving.add(animal);
+                    }
+                }
+                yield Frames.batch(moving);
+            }
+            case Frames.SHUTDOWN -> Frames.EMPTY;
+            default -> throw new IllegalArgumentException("Unknown request " + code);
+        };
+    }
+
+    /** Encodes count, sum, min and max for every species, in ordinal order. */
+    private static ByteBuffer stats(SpeciesStats bySpecies) {
+        ByteBuffer buffer = ByteBuffer.allocate(Species.values().length * 32);
+        for (Species species : Species.values()) {
+            Stats stats = bySpecies.get(species);
+            buffer.putLong(stats.count()).putDouble(stats.sum()).putDouble(stats.min()).putDouble(stats.max());
+        }
+        return buffer.flip();
+    }
+}
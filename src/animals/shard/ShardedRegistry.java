@@ -0,0 +1,776 @@
+package animals.shard;
+
+import animals.Animal;
+import animals.Species;
+import animals.index.AnimalRegistry;
+import animals.io.AnimalCodec;
+import animals.query.SpeciesStats;
+import animals.query.Stats;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * An animal registry partitioned by name across several worker processes.
+ *
+ * <p>Each animal lives on the shard that a {@link ConsistentHashRing} assigns
+ * its name to. Every shard is a {@link ShardWorker} — by default a separate
+ * JVM on this machine, started with the same class path — holding an
+ * {@link AnimalRegistry} and reached over a loopback socket, with animals
+ * sent in the {@link AnimalCodec} encoding.</p>
+ *
+ * <pre>{@code
+ * try (ShardedRegistry registry = ShardedRegistry.builder().shards(4).build()) {
+ *     registry.addAll(animals);
+ *     long brownDogs = registry.query().species(Species.DOG).colour("brown").count();
+ *     SpeciesStats weights = registry.query().friendly(true).stats(Measure.WEIGHT);
+ *     int moved = registry.addShard();
+ * }
+ * }</pre>
+ *
+ * <p>Lookups and queries by name go to the one shard that owns the name.
+ * Other queries are scattered to every shard in parallel and their results
+ * gathered: counts and {@link Stats} are merged, lists concatenated in shard
+ * order. {@link #addShard()} and {@link #removeShard(int)} move only the
+ * animals whose owner changes, straight between the workers' registries.</p>
+ *
+ * <p>The shards hold copies: changing an animal after adding it does not
+ * change the registry, and every animal returned is a new object. Names are
+ * nearly unique, so a name's animals are usually on a shard of their own,
+ * but every animal of one name is always on the same shard.</p>
+ *
+ * <p>All methods may be called from several threads. Each shard has one
+ * connection, used by one request at a time; adding or removing a shard
+ * waits for requests in progress and holds back new ones until it is done.
+ * A failure talking to a worker is thrown as an {@link UncheckedIOException},
+ * and an error inside a worker as an {@link IllegalStateException}.</p>
+ */
+public final class ShardedRegistry implements AutoCloseable {
+
+    /** A numeric field to aggregate with {@link Query#stats(Measure)}. */
+    public enum Measure {
+        AGE(Animal::getAge),
+        WEIGHT(Animal::getWeight);
+
+        final ToDoubleFunction<Animal> function;
+
+        Measure(ToDoubleFunction<Animal> function) {
+            this.function = function;
+        }
+    }
+
+    /** How long a new worker has to start listening. */
+    private static final long START_TIMEOUT_SECONDS = 30;
+
+    private final int          virtualNodes;
+    private final List<String> jvmOptions;
+
+    /** Guards {@link #ring} and {@link #shards}: read by requests, written by rebalancing. */
+    private final ReentrantReadWriteLock topology = new ReentrantReadWriteLock();
+    private final Map<Integer, Shard>    shards   = new TreeMap<>();
+    private ConsistentHashRing           ring;
+    private int                          nextId;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private boolean closed;
+
+    private ShardedRegistry(Builder builder) {
+        this.virtualNodes = builder.virtualNodes;
+        this.jvmOptions   = List.copyOf(builder.jvmOptions);
+    }
+
+    /** Returns a builder for a registry of two local worker processes. */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    // -------------------------------------------------------------------------
+    // Animals
+    // -------------------------------------------------------------------------
+
+    /**
+     * Adds a copy of an animal to the shard that owns its name.
+     *
+     * @param animal the animal to add
+     */
+    public void add(Animal animal) {
+        addAll(List.of(animal));
+    }
+
+    /**
+     * Adds copies of animals, sending each shard its share in one request and
+     * all shards theirs in parallel.
+     *
+     * @param animals the animals to add
+     */
+    public void addAll(Collection<? extends Animal> animals) {
+        topology.readLock().lock();
+        try {
+            Map<Shard, List<Animal>> partitions = partition(animals, ring);
+            gather(partitions.keySet(), shard -> shard.call(Frames.PUT, Frames.batch(partitions.get(shard))));
+        } finally {
+            topology.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns copies of the animals with a name, asking only the shard that
+     * owns it.
+     *
+     * @param name the name to look up
+     * @return the matching animals; empty if there are none
+     */
+    public List<Animal> named(String name) {
+        return query().named(name).list();
+    }
+
+    /**
+     * Removes every animal with a name.
+     *
+     * @param name the name to remove
+     * @return the number of animals removed
+     */
+    public int remove(String name) {
+        topology.readLock().lock();
+        try {
+            return shardFor(name).call(Frames.REMOVE, Frames.ofString(name)).getInt();
+        } finally {
+            topology.readLock().unlock();
+        }
+    }
+
+    /** Returns the number of animals on all shards. */
+    public long size() {
+        topology.readLock().lock();
+        try {
+            long size = 0;
+            for (ByteBuffer response : gather(shards.values(), shard -> shard.call(Frames.SIZE, Frames.EMPTY))) {
+                size += response.getInt();
+            }
+            return size;
+        } finally {
+            topology.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of animals on each shard, by shard id, to show how
+     * evenly names are spread.
+     */
+    public Map<Integer, Integer> shardSizes() {
+        topology.readLock().lock();
+        try {
+            List<Shard>      targets   = List.copyOf(shards.values());
+            List<ByteBuffer> responses = gather(targets, shard -> shard.call(Frames.SIZE, Frames.EMPTY));
+            Map<Integer, Integer> sizes = new LinkedHashMap<>();
+            for (int i = 0; i < targets.size(); i++) {
+                sizes.put(targets.get(i).id, responses.get(i).getInt());
+            }
+            return sizes;
+        } finally {
+            topology.readLock().unlock();
+        }
+    }
+
+    /** Starts a query with no criteria, which matches every animal. */
+    public Query query() {
+        return new Query();
+    }
+
+    // -------------------------------------------------------------------------
+    // Topology
+    // -------------------------------------------------------------------------
+
+    /** Returns the ring currently assigning names to shards. */
+    public ConsistentHashRing ring() {
+        topology.readLock().lock();
+        try {
+            return ring;
+        } finally {
+            topology.readLock().unlock();
+        }
+    }
+
+    /**
+     * Starts another local worker and moves to it the animals whose names it
+     * now owns — about {@code 1/(n+1)} of them. No other animal moves.
+     *
+     * <p>If moving fails, the new worker is shut down, the ring is left as it
+     * was and the animals taken off the other shards are put back, as far as
+     * those workers still answer.</p>
+     *
+     * @return the number of animals moved
+     * @throws IOException           if the worker cannot be started
+     * @throws UncheckedIOException  if talking to a worker fails while moving
+     * @throws IllegalStateException if a worker reports an error while moving
+     */
+    public int addShard() throws IOException {
+        topology.writeLock().lock();
+        try {
+            checkOpen();
+            Shard shard = launch(nextId++);
+            List<Shard> existing = List.copyOf(shards.values());
+            ConsistentHashRing target = ring.with(shard.id);
+            shards.put(shard.id, shard);
+            try {
+                int moved = rebalance(existing, ring, target);
+                ring = target;
+                return moved;
+            } catch (RuntimeException e) {
+                shards.remove(shard.id);
+                shard.shutDown();
+                throw e;
+            }
+        } finally {
+            topology.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Moves every animal off a shard to the shards that now own their names,
+     * then shuts the shard down.
+     *
+     * <p>If moving fails, the shard stays, the ring is left as it was and
+     * the animals taken off it are put back, as far as the workers still
+     * answer.</p>
+     *
+     * @param id the shard to remove
+     * @return the number of animals moved
+     * @throws IllegalArgumentException if there is no such shard, or it is the last one
+     * @throws UncheckedIOException     if talking to a worker fails while moving
+     * @throws IllegalStateException    if a worker reports an error while moving
+     */
+    public int removeShard(int id) {
+        topology.writeLock().lock();
+        try {
+            checkOpen();
+            Shard shard = shards.get(id);
+            if (shard == null) {
+                throw new IllegalArgumentException("No shard " + id);
+            }
+            if (shards.size() == 1) {
+                throw new IllegalArgumentException("Cannot remove the last shard");
+            }
+            ConsistentHashRing target = ring.without(id);
+            int moved = rebalance(List.of(shard), ring, target);
+            ring = target;
+            shards.remove(id);
+            shard.shutDown();
+            return moved;
+        } finally {
+            topology.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Asks each of {@code sources} for the animals {@code target} assigns
+     * elsewhere and sends them to their new owners. If that fails, undoes
+     * what it can and rethrows: see {@link #restore}. Caller holds the write
+     * lock and installs {@code target} only if this returns.
+     */
+    private int rebalance(List<Shard> sources, ConsistentHashRing current, ConsistentHashRing target) {
+        Map<Shard, ByteBuffer> extracted = new LinkedHashMap<>();
+        Map<Shard, ByteBuffer> placed    = new LinkedHashMap<>();
+        try {
+            gather(sources, shard -> shard.call(Frames.EXTRACT, extractRequest(shard, target)), extracted);
+            List<Animal> moving = new ArrayList<>();
+            for (ByteBuffer batch : extracted.values()) {
+                moving.addAll(AnimalCodec.decodeAll(batch.duplicate()));
+            }
+            Map<Shard, List<Animal>> partitions = partition(moving, target);
+            gather(partitions.keySet(), shard -> shard.call(Frames.PUT, Frames.batch(partitions.get(shard))), placed);
+            return moving.size();
+        } catch (RuntimeException e) {
+            restore(extracted, placed.keySet(), current, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Undoes a failed rebalance as far as the workers allow: takes the moved
+     * animals back off the shards that received them, which {@code current}
+     * does not assign them to, then returns each source's animals to it.
+     * Anything that fails on the way is added to {@code failure} as
+     * suppressed.
+     */
+    private void restore(Map<Shard, ByteBuffer> extracted, Collection<Shard> placed,
+                         ConsistentHashRing current, RuntimeException failure) {
+        for (Shard shard : placed) {
+            try {
+                shard.call(Frames.EXTRACT, extractRequest(shard, current));
+            } catch (RuntimeException e) {
+                failure.addSuppressed(e);
+            }
+        }
+        extracted.forEach((shard, batch) -> {
+            try {
+                // An extracted batch is already in the PUT encoding
+                shard.call(Frames.PUT, batch.duplicate());
+            } catch (RuntimeException e) {
+                failure.addSuppressed(e);
+            }
+        });
+    }
+
+    /** Encodes an {@link Frames#EXTRACT} request for a shard: its id, then the ring. */
+    private static ByteBuffer extractRequest(Shard shard, ConsistentHashRing ring) {
+        ByteBuffer request = ByteBuffer.allocate(4 + ring.encodedSize()).putInt(shard.id);
+        ring.encode(request);
+        return request.flip();
+    }
+
+    /**
+     * Shuts down every worker this registry started and closes the
+     * connections to the others. Idempotent.
+     */
+    @Override
+    public void close() {
+        topology.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            for (Shard shard : shards.values()) {
+                shard.shutDown();
+            }
+            shards.clear();
+        } finally {
+            topology.writeLock().unlock();
+            executor.close();
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Scatter-gather
+    // -------------------------------------------------------------------------
+
+    /** Returns the shard owning a name. Caller holds the read lock. */
+    private Shard shardFor(String name) {
+        checkOpen();
+        return shards.get(ring.shardFor(name));
+    }
+
+    /** Groups animals by the shard {@code ring} assigns them to, keeping their order. */
+    private Map<Shard, List<Animal>> partition(Collection<? extends Animal> animals, ConsistentHashRing ring) {
+        checkOpen();
+        Map<Shard, List<Animal>> partitions = new LinkedHashMap<>();
+        for (Animal animal : animals) {
+            Shard shard = shards.get(ring.shardFor(animal.getName()));
+            partitions.computeIfAbsent(shard, s -> new ArrayList<>()).add(animal);
+        }
+        return partitions;
+    }
+
+    /**
+     * Sends a request to each target in parallel and returns the responses in
+     * target order. A single target is called on this thread.
+     */
+    private List<ByteBuffer> gather(Collection<Shard> targets, Function<Shard, ByteBuffer> request) {
+        return new ArrayList<>(gather(targets, request, new LinkedHashMap<>()).values());
+    }
+
+    /**
+     * Like {@link #gather(Collection, Function)}, but records each response in
+     * {@code completed} as it arrives. If a target fails, waits for the rest,
+     * so that {@code completed} holds every request that took effect, then
+     * throws the first failure.
+     */
+    private Map<Shard, ByteBuffer> gather(Collection<Shard> targets, Function<Shard, ByteBuffer> request,
+                                          Map<Shard, ByteBuffer> completed) {
+        checkOpen();
+        if (targets.size() <= 1) {
+            for (Shard shard : targets) {
+                completed.put(shard, request.apply(shard));
+            }
+            return completed;
+        }
+        Map<Shard, Future<ByteBuffer>> futures = new LinkedHashMap<>();
+        for (Shard shard : targets) {
+            futures.put(shard, executor.submit(() -> request.apply(shard)));
+        }
+        RuntimeException failure = null;
+        for (Map.Entry<Shard, Future<ByteBuffer>> entry : futures.entrySet()) {
+            try {
+                completed.put(entry.getKey(), entry.getValue().get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted waiting for a shard", e);
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException cause
+                            ? cause
+                            : new IllegalStateException(e.getCause());
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return completed;
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Registry is closed");
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Workers
+    // -------------------------------------------------------------------------
+
+    /**
+     * Starts a worker JVM with this JVM's Java, class path and preview and
+     * module options, and connects to it once it prints its port.
+     */
+    private Shard launch(int id) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        for (String argument : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            if (argument.equals("--enable-preview") || argument.startsWith("--add-modules")) {
+                command.add(argument);
+            }
+        }
+        command.addAll(jvmOptions);
+        command.addAll(List.of("-cp", System.getProperty("java.class.path"), ShardWorker.class.getName(), "0"));
+
+        Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        try {
+            BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+            Future<String> line = executor.submit(reader::readLine);
+            String ready = line.get(START_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            if (ready == null || !ready.startsWith("LISTENING ")) {
+                throw new IOException("Shard " + id + " did not start: " + ready);
+            }
+            int port = Integer.parseInt(ready.substring("LISTENING ".length()).trim());
+            return new Shard(id, process, new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        } catch (IOException | RuntimeException e) {
+            process.destroyForcibly();
+            throw e;
+        } catch (Exception e) {
+            process.destroyForcibly();
+            throw new IOException("Shard " + id + " did not start", e);
+        }
+    }
+
+    /** A connection to one worker. */
+    private static final class Shard {
+
+        final int id;
+
+        /** The worker's process, or {@code null} if it was started elsewhere. */
+        private final Process          process;
+        private final Socket           socket;
+        private final DataInputStream  in;
+        private final DataOutputStream out;
+        private final ReentrantLock    lock = new ReentrantLock();
+
+        Shard(int id, Process process, InetSocketAddress address) throws IOException {
+            this.id      = id;
+            this.process = process;
+            this.socket  = new Socket();
+            try {
+                socket.setTcpNoDelay(true);
+                socket.connect(address);
+                this.in  = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16));
+                this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16));
+            } catch (IOException e) {
+                socket.close();
+                throw e;
+            }
+        }
+
+        /**
+         * Sends one request and waits for its response.
+         *
+         * @return the response payload
+         * @throws UncheckedIOException  if the connection fails
+         * @throws IllegalStateException if the worker reports an error
+         */
+        ByteBuffer call(byte code, ByteBuffer payload) {
+            lock.lock();
+            try {
+                Frames.write(out, code, payload);
+                Frames.Frame response = Frames.read(in);
+                if (response.code() != Frames.OK) {
+                    throw new IllegalStateException("Shard " + id + ": " + Frames.getString(response.payload()));
+                }
+                return response.payload();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Shard " + id + " failed", e);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /** Stops a worker this registry started, and closes the connection. */
+        void shutDown() {
+            try {
+                if (process != null) {
+                    call(Frames.SHUTDOWN, Frames.EMPTY);
+                }
+            } catch (RuntimeException e) {
+                // Stopped anyway below
+            }
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Nothing more to release
+            }
+            if (process != null) {
+                try {
+                    if (!process.waitFor(5, TimeUnit.SECONDS)) {
+                        process.destroyForcibly();
+                    }
+                } catch (InterruptedException e) {
+                    process.destroyForcibly();
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Query
+    // -------------------------------------------------------------------------
+
+    /**
+     * Criteria over the whole registry, evaluated by each shard's indexes.
+     * Criteria combine with AND; calling a method again replaces that
+     * criterion. A query by name goes to one shard, any other to all of them.
+     */
+    public final class Query {
+
+        private final Criteria criteria = new Criteria();
+
+        private Query() { }
+
+        /** Keeps only animals with this name. */
+        public Query named(String name) { criteria.name(name); return this; }
+
+        /** Keeps only animals of this colour. */
+        public Query colour(String colour) { criteria.colour(colour); return this; }
+
+        /** Keeps only animals with this home. */
+        public Query home(String home) { criteria.home(home); return this; }
+
+        /** Keeps only friendly or only unfriendly animals. */
+        public Query friendly(boolean friendly) { criteria.friendly(friendly); return this; }
+
+        /** Keeps only animals of this species. */
+        public Query species(Species species) { criteria.species(species); return this; }
+
+        /** Keeps only animals aged between {@code min} and {@code max}, inclusive. */
+        public Query ageBetween(int min, int max) { criteria.ageBetween(min, max); return this; }
+
+        /** Keeps only animals weighing between {@code min} and {@code max}, inclusive. */
+        public Query weightBetween(float min, float max) { criteria.weightBetween(min, max); return this; }
+
+        /** Returns the number of matching animals on all shards. */
+        public long count() {
+            long count = 0;
+            for (ByteBuffer response : scatter(Frames.COUNT, 0, null)) {
+                count += response.getInt();
+            }
+            return count;
+        }
+
+        /** Returns copies of the matching animals, shard by shard. */
+        public List<Animal> list() {
+            List<Animal> animals = new ArrayList<>();
+            for (ByteBuffer response : scatter(Frames.LIST, 0, null)) {
+                animals.addAll(AnimalCodec.decodeAll(response));
+            }
+            return animals;
+        }
+
+        /**
+         * Returns count, sum, minimum and maximum of a measure for each
+         * species, computed on each shard and merged.
+         */
+        public SpeciesStats stats(Measure measure) {
+            Species[] species = Species.values();
+            Stats[]   merged  = new Stats[species.length];
+            Arrays.fill(merged, Stats.EMPTY);
+            for (ByteBuffer response : scatter(Frames.STATS, 1, measure)) {
+                for (int i = 0; i < species.length; i++) {
+                    Stats stats = new Stats(response.getLong(), response.getDouble(),
+                            response.getDouble(), response.getDouble());
+                    merged[i] = merged[i].merge(stats);
+                }
+            }
+            Map<Species, Stats> bySpecies = new EnumMap<>(Species.class);
+            for (int i = 0; i < species.length; i++) {
+                bySpecies.put(species[i], merged[i]);
+            }
+            return SpeciesStats.of(bySpecies);
+        }
+
+        /** Sends the criteria, and a measure if given, to every shard they touch. */
+        private List<ByteBuffer> scatter(byte code, int extra, Measure measure) {
+            ByteBuffer request = ByteBuffer.allocate(criteria.encodedSize() + extra);
+            criteria.encode(request);
+            if (measure != null) {
+                request.put((byte) measure.ordinal());
+            }
+            request.flip();
+            topology.readLock().lock();
+            try {
+                Collection<Shard> targets = criteria.hasName()
+                        ? List.of(shardFor(criteria.name))
+                        : shards.values();
+                return gather(targets, shard -> shard.call(code, request.duplicate()));
+            } finally {
+                topology.readLock().unlock();
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Builder
+    // -------------------------------------------------------------------------
+
+    /**
+     * Builder for {@link ShardedRegistry}.
+     */
+    public static final class Builder {
+
+        private int                 shards       = 2;
+        private int                 virtualNodes = ConsistentHashRing.DEFAULT_VIRTUAL_NODES;
+        private List<String>        jvmOptions   = List.of();
+        private InetSocketAddress[] workers;
+
+        private Builder() { }
+
+        /**
+         * Sets how many worker processes to start. Default 2.
+         *
+         * @throws IllegalArgumentException if {@code shards} is not positive
+         */
+        public Builder shards(int shards) {
+            if (shards < 1) {
+                throw new IllegalArgumentException("shards must be positive: " + shards);
+            }
+            this.shards = shards;
+            return this;
+        }
+
+        /**
+         * Sets the number of ring points per shard. Default
+         * {@value ConsistentHashRing#DEFAULT_VIRTUAL_NODES}.
+         *
+         * @throws IllegalArgumentException if {@code virtualNodes} is not between
+         *                                  1 and {@value ConsistentHashRing#MAX_VIRTUAL_NODES}
+         */
+        public Builder virtualNodes(int virtualNodes) {
+            if (virtualNodes < 1 || virtualNodes > ConsistentHashRing.MAX_VIRTUAL_NODES) {
+                throw new IllegalArgumentException("virtualNodes must be between 1 and "
+                        + ConsistentHashRing.MAX_VIRTUAL_NODES + ": " + virtualNodes);
+            }
+            this.virtualNodes = virtualNodes;
+            return this;
+        }
+
+        /**
+         * Sets extra options for the worker JVMs, such as {@code -Xmx1g}.
+         */
+        public Builder jvmOptions(String... options) {
+            this.jvmOptions = List.of(options);
+            return this;
+        }
+
+        /**
+         * Attaches to workers that are already running instead of starting
+         * them; they become shards 0, 1, 2 and so on in this order, so every
+         * registry attached to the same workers must list them in the same
+         * order. Shards added later are started locally as usual.
+         *
+         * @throws IllegalArgumentException if no worker is given
+         */
+        public Builder workers(InetSocketAddress... workers) {
+            if (workers.length == 0) {
+                throw new IllegalArgumentException("At least one worker is needed");
+            }
+            this.workers = workers.clone();
+            return this;
+        }
+
+        /**
+         * Starts or connects to the workers.
+         *
+         * @throws IOException if a worker cannot be started or reached; any
+         *                     already started are shut down
+         */
+        public ShardedRegistry build() throws IOException {
+            ShardedRegistry registry = new ShardedRegistry(this);
+            int count = workers != null ? workers.length : shards;
+            try {
+                List<Future<Shard>> starting = new ArrayList<>(count);
+                for (int id = 0; id < count; id++) {
+                    int shard = id;
+                    starting.add(registry.executor.submit(() -> workers != null
+                            ? new Shard(shard, null, workers[shard])
+                            : registry.launch(shard)));
+                }
+                IOException failure = null;
+                for (Future<Shard> future : starting) {
+                    try {
+                        Shard shard = future.get();
+                        registry.shards.put(shard.id, shard);
+                    } catch (ExecutionException e) {
+                        if (failure == null) {
+                            failure = e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+                        }
+                    }
+                }
+                if (failure != null) {
+                    throw failure;
+                }
+            } catch (IOException e) {
+                registry.close();
+                throw e;
+            } catch (InterruptedException e) {
+                registry.close();
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted starting workers", e);
+            }
+            int[] ids = registry.shards.keySet().stream().mapToInt(Integer::intValue).toArray();
+            registry.ring   = new ConsistentHashRing(ids, virtualNodes);
+            registry.nextId = count;
+            return registry;
+        }
+    }
+}
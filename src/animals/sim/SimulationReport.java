@@ -0,0 +1,45 @@
+package animals.sim;
+
+import animals.metrics.LatencyHistogram;
+
+/**
+ * What happened during one {@link SimulationScheduler#run} call.
+ *
+ * @param animals            number of animals simulated
+ * @param ticks              number of ticks completed
+ * @param elapsedNanos       wall-clock time of the whole run
+ * @param tasks              behaviour tasks run, one per animal per tick
+ * @param failures           tasks whose behaviour threw an exception
+ * @param overruns           ticks that finished after the next tick was due
+ * @param schedulingLatency  nanoseconds from releasing each task to it starting to run
+ * @param tickDuration       nanoseconds from the start to the end of each tick
+ */
+public record SimulationReport(int animals,
+                               long ticks,
+                               long elapsedNanos,
+                               long tasks,
+                               long failures,
+                               long overruns,
+                               LatencyHistogram.Snapshot schedulingLatency,
+                               LatencyHistogram.Snapshot tickDuration) {
+
+    /** Returns the completed ticks per second of wall-clock time. */
+    public double ticksPerSecond() {
+        return elapsedNanos == 0 ? 0 : ticks * 1e9 / elapsedNanos;
+    }
+
+    /** Returns the behaviour tasks run per second of wall-clock time. */
+    public double tasksPerSecond() {
+        return elapsedNanos == 0 ? 0 : tasks * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%,d animals, %,d ticks in %.2f s (%.2f ticks/s, %,.0f tasks/s), %d failures, %d overruns%n"
+                        + "  scheduling latency: %s%n"
+                        + "  tick duration:      %s",
+                animals, ticks, elapsedNanos / 1e9, ticksPerSecond(), tasksPerSecond(), failures, overruns,
+                schedulingLatency.summary(1_000, "µs"),
+                tickDuration.summary(1_000_000, "ms"));
+    }
+}
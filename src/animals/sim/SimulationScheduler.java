@@ -0,0 +1,292 @@
+package animals.sim;
+
+import animals.Animal;
+import animals.SpeciesDispatch;
+import animals.metrics.LatencyHistogram;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Drives animal behaviour on a fixed tick, running every animal's behaviour
+ * for a tick as its own virtual-thread task.
+ *
+ * <p>On each tick the scheduler releases one task per animal — by default
+ * {@link #defaultBehaviour(Animal)}, which calls {@code makeSound()} and the
+ * animal's own activity ({@code fetch()}, {@code climb()}, {@code fly()} or
+ * {@code swim()}). Virtual threads are cheap enough to create by the million,
+ * so a blocking behaviour (one writing to a slow {@link animals.sound.SoundSink},
+ * say) parks only its own task, not a platform thread. The tick ends when
+ * every task has finished; the next one starts when it is due.</p>
+ *
+ * <pre>{@code
+ * SimulationScheduler scheduler = SimulationScheduler.builder()
+ *         .tickRate(10)
+ *         .maxInFlight(50_000)
+ *         .fairness(SimulationScheduler.Fairness.ROTATE)
+ *         .build();
+ * SimulationReport report = scheduler.run(animals, 100);
+ * System.out.println(report);
+ * }</pre>
+ *
+ * <p><b>Configuration.</b></p>
+ * <ul>
+ *   <li>{@link Builder#tickRate(double)} — ticks per second; {@code 0} runs
+ *       the ticks back to back. A tick that takes longer than its period is
+ *       counted as an <em>overrun</em> and the next tick starts at once; ticks
+ *       are never skipped.</li>
+ *   <li>{@link Builder#maxInFlight(int)} — the most tasks alive at once. The
+ *       releasing thread waits for a permit before starting each task, which
+ *       bounds memory when there are millions of animals.</li>
+ *   <li>{@link Builder#fairness(Fairness)} — the order in which animals are
+ *       released within a tick; see {@link Fairness}.</li>
+ * </ul>
+ *
+ * <p><b>Measurements.</b> The {@link SimulationReport} returned by
+ * {@link #run} gives ticks per second, tasks per second, overruns, and
+ * percentiles of the <em>scheduling latency</em> — the time from releasing a
+ * task to it starting to run on a carrier thread — and of the tick duration.</p>
+ *
+ * <p>A scheduler runs one simulation at a time. {@link #stop()} may be called
+ * from any thread to end a run after the current tick.</p>
+ */
+public final class SimulationScheduler {
+
+    /**
+     * The order in which animals are released within a tick.
+     */
+    public enum Fairness {
+        /** Release the animals in list order every tick. */
+        FIXED,
+        /**
+         * Start each tick one place further along the list, wrapping round,
+         * so that over many ticks every animal is released early as often as late.
+         */
+        ROTATE,
+        /** Release the animals in a new random order every tick. */
+        SHUFFLE
+    }
+
+    private final long periodNanos;
+    private final int maxInFlight;
+    private final Fairness fairness;
+    private final Consumer<? super Animal> behaviour;
+    private final ThreadFactory threads = Thread.ofVirtual().factory();
+
+    /** Set by {@link #stop()}; cleared when a run starts. */
+    private volatile boolean stopping;
+
+    private SimulationScheduler(Builder builder) {
+        this.periodNanos = builder.tickRate == 0 ? 0 : Math.round(1e9 / builder.tickRate);
+        this.maxInFlight = builder.maxInFlight;
+        this.fairness    = builder.fairness;
+        this.behaviour   = builder.behaviour;
+    }
+
+    /**
+     * Returns a builder with the defaults: no tick rate limit, no in-flight
+     * limit, {@link Fairness#ROTATE} ordering and {@link #defaultBehaviour(Animal)}.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * The behaviour run for each animal on each tick unless another is
+     * configured: {@code makeSound()} followed by the animal's own activity.
+     * Both go through {@link SpeciesDispatch}, so the mixed population does
+     * not make the call sites megamorphic.
+     */
+    public static void defaultBehaviour(Animal animal) {
+        SpeciesDispatch.makeSound(animal);
+        SpeciesDispatch.perform(animal);
+    }
+
+    // -------------------------------------------------------------------------
+    // Running
+    // -------------------------------------------------------------------------
+
+    /**
+     * Runs the simulation for {@code ticks} ticks, or until {@link #stop()} is
+     * called, and blocks until the last tick has finished.
+     *
+     * @param animals the animals to simulate; must not change during the run
+     * @param ticks   number of ticks to run
+     * @return measurements of the run
+     * @throws InterruptedException if the calling thread is interrupted; the
+     *         tasks already released are left to finish
+     */
+    public SimulationReport run(List<? extends Animal> animals, long ticks) throws InterruptedException {
+        if (ticks < 0) {
+            throw new IllegalArgumentException("ticks must not be negative: " + ticks);
+        }
+        Animal[] order = animals.toArray(new Animal[0]);
+        Semaphore permits = maxInFlight == Integer.MAX_VALUE ? null : new Semaphore(maxInFlight);
+        LatencyHistogram latency = new LatencyHistogram();
+        LatencyHistogram tickDuration = new LatencyHistogram();
+        LongAdder failures = new LongAdder();
+        Random random = new Random();
+        long overruns = 0;
+        long completed = 0;
+
+        stopping = false;
+        long start = System.nanoTime();
+        long due = start;
+        while (completed < ticks && !stopping) {
+            if (fairness == Fairness.SHUFFLE) {
+                shuffle(order, random);
+            }
+            int first = fairness == Fairness.ROTATE && order.length > 0 ? (int) (completed % order.length) : 0;
+
+            long tickStart = System.nanoTime();
+            runTick(order, first, permits, latency, failures);
+            long tickEnd = System.nanoTime();
+            tickDuration.record(tickEnd - tickStart);
+            completed++;
+
+            if (periodNanos > 0) {
+                due += periodNanos;
+                long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    sleepNanos(wait);
+                } else {
+                    overruns++;
+                    due = System.nanoTime();
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        return new SimulationReport(order.length, completed, elapsed, completed * order.length,
+                failures.sum(), overruns, latency.snapshot(), tickDuration.snapshot());
+    }
+
+    /**
+     * Ends the current {@link #run} after the tick in progress. Has no effect
+     * when no simulation is running.
+     */
+    public void stop() {
+        stopping = true;
+    }
+
+    /**
+     * Releases one task per animal, starting at {@code first}, and waits for
+     * them all to finish.
+     */
+    private void runTick(Animal[] order, int first, Semaphore permits,
+                         LatencyHistogram latency, LongAdder failures) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(order.length);
+        for (int i = 0; i < order.length; i++) {
+            int index = first + i;
+            Animal animal = order[index < order.length ? index : index - order.length];
+            if (permits != null) {
+                permits.acquire();
+            }
+            long released = System.nanoTime();
+            threads.newThread(() -> {
+                latency.record(System.nanoTime() - released);
+                try {
+                    behaviour.accept(animal);
+                } catch (Throwable t) {
+                    failures.increment();
+                } finally {
+                    if (permits != null) {
+                        permits.release();
+                    }
+                    done.countDown();
+                }
+            }).start();
+        }
+        done.await();
+    }
+
+    private static void shuffle(Animal[] order, Random random) {
+        for (int i = order.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            Animal swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+    }
+
+    private static void sleepNanos(long nanos) throws InterruptedException {
+        long deadline = System.nanoTime() + nanos;
+        for (long left = nanos; left > 0; left = deadline - System.nanoTime()) {
+            LockSupport.parkNanos(left);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Builder
+    // -------------------------------------------------------------------------
+
+    /**
+     * Configures a {@link SimulationScheduler}. Obtained from {@link SimulationScheduler#builder()}.
+     */
+    public static final class Builder {
+
+        private double tickRate;
+        private int maxInFlight = Integer.MAX_VALUE;
+        private Fairness fairness = Fairness.ROTATE;
+        private Consumer<? super Animal> behaviour = SimulationScheduler::defaultBehaviour;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the target ticks per second; {@code 0} (the default) runs ticks
+         * back to back.
+         */
+        public Builder tickRate(double ticksPerSecond) {
+            if (!(ticksPerSecond >= 0) || Double.isInfinite(ticksPerSecond)) {
+                throw new IllegalArgumentException("tick rate must be finite and non-negative: " + ticksPerSecond);
+            }
+            this.tickRate = ticksPerSecond;
+            return this;
+        }
+
+        /**
+         * Limits how many behaviour tasks may be alive at once. Unlimited by default.
+         */
+        public Builder maxInFlight(int maxInFlight) {
+            if (maxInFlight < 1) {
+                throw new IllegalArgumentException("maxInFlight must be positive: " + maxInFlight);
+            }
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        /**
+         * Sets the order in which animals are released within a tick.
+         */
+        public Builder fairness(Fairness fairness) {
+            this.fairness = Objects.requireNonNull(fairness, "fairness");
+            return this;
+        }
+
+        /**
+         * Sets what each animal does on each tick. Called from many virtual
+         * threads at once, so it must be thread-safe.
+         */
+        public Builder behaviour(Consumer<? super Animal> behaviour) {
+            this.behaviour = Objects.requireNonNull(behaviour, "behaviour");
+            return this;
+        }
+
+        /**
+         * Creates a scheduler with these settings.
+         */
+        public SimulationScheduler build() {
+            return new SimulationScheduler(this);
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package animals.sketch;
+
+import animals.Animal;
+import animals.store.AnimalCursor;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Approximate statistics over a stream of animals, in fixed memory: distinct
+ * colours and homes, weight and age quantiles, and the most common names.
+ *
+ * <ul>
+ *   <li>{@link #colours()} and {@link #homes()} — {@link HyperLogLog}
+ *       distinct counts;</li>
+ *   <li>{@link #weights()} and {@link #ages()} — {@link KllSketch} quantiles
+ *       and ranks;</li>
+ *   <li>{@link #names()} — {@link HeavyHitters}, a count-min sketch plus the
+ *       top {@code k} names.</li>
+ * </ul>
+ *
+ * <p>Memory is set by the {@link Builder} and does not grow with the number
+ * of animals: with the defaults, about 32 KiB for the two distinct counts,
+ * 5 KiB for the quantiles and 160 KiB for the name counts. Each class
+ * documents its own error bound.</p>
+ *
+ * <p><b>Threads and shards.</b> An instance is not thread-safe. Give each
+ * thread or shard its own, built with the same settings, and
+ * {@link #merge(AnimalSketches)} them at the end; every sketch merges
+ * without adding error. {@link #encode(ByteBuffer)} and
+ * {@link #decode(ByteBuffer)} move sketches between processes.</p>
+ *
+ * <pre>{@code
+ * AnimalSketches sketches = AnimalSketches.builder().build();
+ * AnimalCursor cursor = store.cursor();
+ * sketches.addAll(cursor);
+ * long colours = sketches.colours().estimate();
+ * float median = sketches.weights().quantile(0.5);
+ * }</pre>
+ */
+public final class AnimalSketches {
+
+    private final HyperLogLog  colours;
+    private final HyperLogLog  homes;
+    private final KllSketch    weights;
+    private final KllSketch    ages;
+    private final HeavyHitters names;
+    private long count;
+
+    private AnimalSketches(HyperLogLog colours, HyperLogLog homes, KllSketch weights,
+                           KllSketch ages, HeavyHitters names) {
+        this.colours = colours;
+        this.homes   = homes;
+        this.weights = weights;
+        this.ages    = ages;
+        this.names   = names;
+    }
+
+    // -------------------------------------------------------------------------
+    // Updating
+    // -------------------------------------------------------------------------
+
+    /**
+     * Adds one animal to every sketch.
+     *
+     * @param animal the animal to add
+     */
+    public void add(Animal animal) {
+        colours.add(animal.getColour());
+        homes.add(animal.getHome());
+        weights.add(animal.getWeight());
+        ages.add(animal.getAge());
+        names.add(animal.getName());
+        count++;
+    }
+
+    /**
+     * Adds every animal in {@code animals}.
+     *
+     * @param animals the animals to add
+     */
+    public void addAll(Iterable<? extends Animal> animals) {
+        for (Animal animal : animals) {
+            add(animal);
+        }
+    }
+
+    /**
+     * Adds every row from the cursor's next row onwards, reading the strings
+     * through its reused {@link CharSequence} views, so the scan allocates
+     * nothing except when a name enters the top {@code k}.
+     *
+     * @param cursor the rows to add
+     */
+    public void addAll(AnimalCursor cursor) {
+        while (cursor.next()) {
+            colours.add(cursor.colour());
+            homes.add(cursor.home());
+            weights.add(cursor.getWeight());
+            ages.add(cursor.getAge());
+            names.add(cursor.name());
+            count++;
+        }
+    }
+
+    /**
+     * Adds everything in {@code other} to these sketches.
+     *
+     * @param other sketches built with the same settings
+     * @throws IllegalArgumentException if the settings differ, in which case
+     *                                  nothing is merged
+     */
+    public void merge(AnimalSketches other) {
+        colours.checkMergeable(other.colours);
+        homes.checkMergeable(other.homes);
+        weights.checkMergeable(other.weights);
+        ages.checkMergeable(other.ages);
+        names.checkMergeable(other.names);
+        colours.merge(other.colours);
+        homes.merge(other.homes);
+        weights.merge(other.weights);
+        ages.merge(other.ages);
+        names.merge(other.names);
+        count += other.count;
+    }
+
+    // -------------------------------------------------------------------------
+    // Accessors
+    // -------------------------------------------------------------------------
+
+    /** Returns how many animals have been added. */
+    public long count() { return count; }
+
+    /** Returns the distinct count of colours. */
+    public HyperLogLog colours() { return colours; }
+
+    /** Returns the distinct count of homes. */
+    public HyperLogLog homes() { return homes; }
+
+    /** Returns the weight quantiles. */
+    public KllSketch weights() { return weights; }
+
+    /** Returns the age quantiles. */
+    public KllSketch ages() { return ages; }
+
+    /** Returns the most common names. */
+    public HeavyHitters names() { return names; }
+
+    // -------------------------------------------------------------------------
+    // Encoding
+    // -------------------------------------------------------------------------
+
+    /** Returns the number of bytes {@link #encode(ByteBuffer)} writes. */
+    public int encodedSize() {
+        return 8 + colours.encodedSize() + homes.encodedSize() + weights.encodedSize()
+                + ages.encodedSize() + names.encodedSize();
+    }
+
+    /**
+     * Writes the count, then each sketch in turn.
+     *
+     * @param buffer where to write; needs {@link #encodedSize()} bytes remaining
+     */
+    public void encode(ByteBuffer buffer) {
+        buffer.putLong(count);
+        colours.encode(buffer);
+        homes.encode(buffer);
+        weights.encode(buffer);
+        ages.encode(buffer);
+        names.encode(buffer);
+    }
+
+    /**
+     * Reads sketches written by {@link #encode(ByteBuffer)}.
+     *
+     * @param buffer where to read
+     * @return the decoded sketches
+     * @throws IllegalArgumentException if the data is not valid
+     */
+    public static AnimalSketches decode(ByteBuffer buffer) {
+        long count = buffer.getLong();
+        AnimalSketches sketches = new AnimalSketches(HyperLogLog.decode(buffer), HyperLogLog.decode(buffer),
+                KllSketch.decode(buffer), KllSketch.decode(buffer), HeavyHitters.decode(buffer));
+        sketches.count = count;
+        return sketches;
+    }
+
+    // -------------------------------------------------------------------------
+    // Builder
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns a builder with the default settings.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Configures the size, and so the accuracy, of each sketch. Sketches can
+     * only be merged with others built with the same settings.
+     */
+    public static final class Builder {
+
+        private int    precision = HyperLogLog.DEFAULT_PRECISION;
+        private int    quantileK = KllSketch.DEFAULT_K;
+        private int    topNames  = HeavyHitters.DEFAULT_K;
+        private double epsilon   = CountMinSketch.DEFAULT_EPSILON;
+        private double delta     = CountMinSketch.DEFAULT_DELTA;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the HyperLogLog precision for colours and homes. Default 14.
+         *
+         * @param precision log2 of the number of registers
+         */
+        public Builder precision(int precision) {
+            if (precision < HyperLogLog.MIN_PRECISION || precision > HyperLogLog.MAX_PRECISION) {
+                throw new IllegalArgumentException("precision must be between " + HyperLogLog.MIN_PRECISION
+                        + " and " + HyperLogLog.MAX_PRECISION + ": " + precision);
+            }
+            this.precision = precision;
+            return this;
+        }
+
+        /**
+         * Sets the KLL accuracy parameter for weights and ages. Default 200.
+         *
+         * @param k the accuracy parameter
+         */
+        public Builder quantileK(int k) {
+            if (k < KllSketch.MIN_K) {
+                throw new IllegalArgumentException("k must be at least " + KllSketch.MIN_K + ": " + k);
+            }
+            this.quantileK = k;
+            return this;
+        }
+
+        /**
+         * Sets how many of the most common names to track. Default 20.
+         *
+         * @param topNames the number of names
+         */
+        public Builder topNames(int topNames) {
+            if (topNames < 1) {
+                throw new IllegalArgumentException("topNames must be positive: " + topNames);
+            }
+            this.topNames = topNames;
+            return this;
+        }
+
+        /**
+         * Sets the count-min error bound for name counts: estimates are at
+         * most {@code epsilon} times the total above the true count, with
+         * probability {@code 1 - delta}. Default 0.001 and 0.01.
+         *
+         * @param epsilon the additive error, as a fraction of the total
+         * @param delta   the probability of exceeding it
+         */
+        public Builder nameError(double epsilon, double delta) {
+            if (!(epsilon > 0 && epsilon < 1) || !(delta > 0 && delta < 1)) {
+                throw new IllegalArgumentException("epsilon and delta must be between 0 and 1: "
+                        + epsilon + ", " + delta);
+            }
+            this.epsilon = epsilon;
+            this.delta   = delta;
+            return this;
+        }
+
+        /**
+         * Creates empty sketches with these settings.
+         */
+        public AnimalSketches build() {
+            return new AnimalSketches(new HyperLogLog(precision), new HyperLogLog(precision),
+                    new KllSketch(quantileK), new KllSketch(quantileK),
+                    new HeavyHitters(topNames, new CountMinSketch(epsilon, delta)));
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package animals.sketch;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Estimates how often each string has been added, in fixed memory
+ * (Cormode and Muthukrishnan's count-min sketch).
+ *
+ * <p>The sketch is {@code depth} rows of {@code width} counters. Adding a
+ * string increments one counter per row, chosen by the string's hash; the
+ * estimate is the smallest of those counters. Other strings that share a
+ * counter can only add to it, so the estimate never undercounts.</p>
+ *
+ * <p><b>Error.</b> Built with {@link #CountMinSketch(double, double)}, the
+ * width is at least {@code e/ε} and the depth {@code ln(1/δ)}, so each
+ * estimate is at most {@code ε·n} above the true count with probability at
+ * least {@code 1 − δ}, where {@code n} is the total added. The defaults,
+ * {@code ε = 0.001} and {@code δ = 0.01}, take 4,096 × 5 counters (160 KiB).
+ * The bound is relative to the whole stream, so it is tight only for
+ * frequent strings — which is what {@link HeavyHitters} needs.</p>
+ *
+ * <p><b>Merging.</b> Sketches of the same shape merge by adding counters,
+ * which gives exactly the sketch of the combined input. Instances are not
+ * thread-safe.</p>
+ */
+public final class CountMinSketch {
+
+    /** Default additive error, as a fraction of the total count. */
+    public static final double DEFAULT_EPSILON = 0.001;
+
+    /** Default probability that an estimate exceeds its error bound. */
+    public static final double DEFAULT_DELTA = 0.01;
+
+    private final int width;
+    private final int depth;
+    private final long[] counters;
+    private long total;
+
+    /**
+     * Creates an empty sketch with the given shape.
+     *
+     * @param width counters per row, rounded up to a power of two
+     * @param depth number of rows
+     * @throws IllegalArgumentException if either is not positive, or the
+     *                                  sketch would be too large
+     */
+    public CountMinSketch(int width, int depth) {
+        if (width < 1 || depth < 1 || width > 1 << 24 || depth > 32) {
+            throw new IllegalArgumentException("Unsupported count-min shape " + width + " x " + depth);
+        }
+        this.width    = width == 1 ? 1 : Integer.highestOneBit(width - 1) << 1;
+        this.depth    = depth;
+        this.counters = new long[this.width * depth];
+    }
+
+    /**
+     * Creates an empty sketch sized for the given error bound.
+     *
+     * @param epsilon the additive error, as a fraction of the total count
+     * @param delta   the probability that an estimate exceeds that error
+     * @throws IllegalArgumentException if either is not between 0 and 1
+     */
+    public CountMinSketch(double epsilon, double delta) {
+        this(widthFor(epsilon), depthFor(delta));
+    }
+
+    /**
+     * Creates an empty sketch with the default error bound.
+     */
+    public CountMinSketch() {
+        this(DEFAULT_EPSILON, DEFAULT_DELTA);
+    }
+
+    private static int widthFor(double epsilon) {
+        if (!(epsilon > 0 && epsilon < 1)) {
+            throw new IllegalArgumentException("epsilon must be between 0 and 1: " + epsilon);
+        }
+        return (int) Math.min(1 << 24, Math.ceil(Math.E / epsilon));
+    }
+
+    private static int depthFor(double delta) {
+        if (!(delta > 0 && delta < 1)) {
+            throw new IllegalArgumentException("delta must be between 0 and 1: " + delta);
+        }
+        return (int) Math.ceil(Math.log(1 / delta));
+    }
+
+    // -------------------------------------------------------------------------
+    // Updating
+    // -------------------------------------------------------------------------
+
+    /**
+     * Counts one occurrence of a string. {@code null} is ignored.
+     *
+     * @param value the string to count
+     */
+    public void add(CharSequence value) {
+        if (value != null) {
+            addHash(Hashing.hash(value), 1);
+        }
+    }
+
+    /**
+     * Counts {@code count} occurrences of a string. {@code null} is ignored.
+     *
+     * @param value the string to count
+     * @param count how many occurrences, not negative
+     */
+    public void add(CharSequence value, long count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count must not be negative: " + count);
+        }
+        if (value != null) {
+            addHash(Hashing.hash(value), count);
+        }
+    }
+
+    /** Adds by hash. */
+    void addHash(long hash, long count) {
+        for (int row = 0, base = 0; row < depth; row++, base += width) {
+            counters[base + column(hash, row)] += count;
+        }
+        total += count;
+    }
+
+    /**
+     * Returns the hash's counter within a row. Each row re-mixes the hash
+     * with its own seed, so two strings that share a counter in one row are
+     * no more likely than any others to share one in the next. Deriving the
+     * rows as {@code h1 + i·h2} is cheaper, but two strings whose
+     * {@code h1} and {@code h2} agree modulo the width then share every
+     * counter: a rare string colliding that way with a frequent one inherits
+     * its whole count, about once per {@code width²} pairs instead of once
+     * per {@code width^depth}.
+     */
+    private int column(long hash, int row) {
+        return (int) Hashing.fmix(hash + row * 0x9E3779B97F4A7C15L) & (width - 1);
+    }
+
+    /**
+     * Adds every count in {@code other} to this sketch.
+     *
+     * @param other a sketch with the same width and depth
+     * @throws IllegalArgumentException if the shapes differ
+     */
+    public void merge(CountMinSketch other) {
+        checkMergeable(other);
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] += other.counters[i];
+        }
+        total += other.total;
+    }
+
+    /** Throws what {@link #merge} would for {@code other}, without merging. */
+    void checkMergeable(CountMinSketch other) {
+        if (other.width != width || other.depth != depth) {
+            throw new IllegalArgumentException("Cannot merge " + other.width + " x " + other.depth
+                    + " into " + width + " x " + depth);
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Estimating
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns the estimated number of times {@code value} was added: never
+     * less than the true count.
+     *
+     * @param value the string to look up
+     * @return the estimate, or {@code 0} for {@code null}
+     */
+    public long estimate(CharSequence value) {
+        return value == null ? 0 : estimateHash(Hashing.hash(value));
+    }
+
+    long estimateHash(long hash) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0, base = 0; row < depth; row++, base += width) {
+            estimate = Math.min(estimate, counters[base + column(hash, row)]);
+        }
+        return estimate;
+    }
+
+    /** Returns the total of all counts added. */
+    public long total() { return total; }
+
+    /** Returns the counters per row. */
+    public int width() { return width; }
+
+    /** Returns the number of rows. */
+    public int depth() { return depth; }
+
+    /** Returns the additive error bound as a fraction of {@link #total()}: {@code e / width}. */
+    public double epsilon() { return Math.E / width; }
+
+    /** Returns the probability of exceeding the error bound: {@code e^-depth}. */
+    public double delta() { return Math.exp(-depth); }
+
+    // -------------------------------------------------------------------------
+    // Encoding
+    // -------------------------------------------------------------------------
+
+    /** Returns the number of bytes {@link #encode(ByteBuffer)} writes. */
+    public int encodedSize() {
+        return 4 + 4 + 8 + 8 * counters.length;
+    }
+
+    /**
+     * Writes the sketch: width, depth, total, then the counters row by row.
+     *
+     * @param buffer where to write
+     */
+    public void encode(ByteBuffer buffer) {
+        buffer.putInt(width).putInt(depth).putLong(total);
+        buffer.asLongBuffer().put(counters);
+        buffer.position(buffer.position() + 8 * counters.length);
+    }
+
+    /**
+     * Reads a sketch written by {@link #encode(ByteBuffer)}.
+     *
+     * @param buffer where to read
+     * @return the decoded sketch
+     * @throws IllegalArgumentException if the data is not a valid sketch
+     */
+    public static CountMinSketch decode(ByteBuffer buffer) {
+        int width = buffer.getInt();
+        int depth = buffer.getInt();
+        if (Integer.bitCount(width) != 1) {
+            throw new IllegalArgumentException("Corrupt count-min width: " + width);
+        }
+        CountMinSketch sketch = new CountMinSketch(width, depth);
+        sketch.total = buffer.getLong();
+        buffer.asLongBuffer().get(sketch.counters);
+        buffer.position(buffer.position() + 8 * sketch.counters.length);
+        return sketch;
+    }
+}
@@ -0,0 +1,84 @@
+package animals.sketch;
+
+/**
+ * The 64-bit hash shared by the sketches.
+ *
+ * <p>{@code String.hashCode()} has only 32 bits and is weak in its low bits,
+ * which matters to a sketch: HyperLogLog needs a uniform 64-bit value to
+ * count past a few billion distinct strings accurately, and count-min needs
+ * several independent row indexes. This is MurmurHash3's 64-bit mixing
+ * applied to the UTF-16 chars, four at a time. It reads a
+ * {@link CharSequence} char by char, so an off-heap cursor's reused buffer
+ * hashes the same as the equal {@code String}, without allocating.</p>
+ */
+final class Hashing {
+
+    private static final long C1 = 0x87C37B91114253D5L;
+    private static final long C2 = 0x4CF5AD432745937FL;
+
+    private Hashing() {
+        // Static methods only
+    }
+
+    /** Returns a well-mixed 64-bit hash of the characters of {@code value}. */
+    static long hash(CharSequence value) {
+        // Separate copies give the JIT a known receiver type in the hot loop
+        return value instanceof String string ? hash(string) : hashChars(value);
+    }
+
+    private static long hash(String value) {
+        int length = value.length();
+        long h = 0x9E3779B97F4A7C15L;
+        int i = 0;
+        for (; i + 4 <= length; i += 4) {
+            long k = value.charAt(i)
+                    | (long) value.charAt(i + 1) << 16
+                    | (long) value.charAt(i + 2) << 32
+                    | (long) value.charAt(i + 3) << 48;
+            h ^= mixK(k);
+            h = Long.rotateLeft(h, 27) * 5 + 0x52DCE729;
+        }
+        long k = 0;
+        for (int shift = 0; i < length; i++, shift += 16) {
+            k |= (long) value.charAt(i) << shift;
+        }
+        h ^= mixK(k);
+        return fmix(h ^ length);
+    }
+
+    private static long hashChars(CharSequence value) {
+        int length = value.length();
+        long h = 0x9E3779B97F4A7C15L;
+        int i = 0;
+        for (; i + 4 <= length; i += 4) {
+            long k = value.charAt(i)
+                    | (long) value.charAt(i + 1) << 16
+                    | (long) value.charAt(i + 2) << 32
+                    | (long) value.charAt(i + 3) << 48;
+            h ^= mixK(k);
+            h = Long.rotateLeft(h, 27) * 5 + 0x52DCE729;
+        }
+        long k = 0;
+        for (int shift = 0; i < length; i++, shift += 16) {
+            k |= (long) value.charAt(i) << shift;
+        }
+        h ^= mixK(k);
+        return fmix(h ^ length);
+    }
+
+    /** MurmurHash3's finalizer: every input bit affects every output bit. */
+    static long fmix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static long mixK(long k) {
+        k *= C1;
+        k = Long.rotateLeft(k, 31);
+        return k * C2;
+    }
+}
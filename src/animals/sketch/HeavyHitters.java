@@ -0,0 +1,348 @@
+package animals.sketch;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tracks the most frequent strings in a stream, in fixed memory: a
+ * {@link CountMinSketch} for the counts plus the {@code k} strings with the
+ * highest estimates so far.
+ *
+ * <p>Each string is counted in the sketch and its new estimate compared with
+ * the smallest estimate among the candidates, which sit in a min-heap. A
+ * string already among the candidates has its estimate updated in place; a
+ * new one replaces the smallest candidate if its estimate is larger. Only
+ * candidates keep their text, so a cursor's reused {@link CharSequence} is
+ * copied to a {@code String} only when it enters the top {@code k}.</p>
+ *
+ * <p><b>Error.</b> Estimates carry the count-min bound: never below the true
+ * count, and at most {@code ε·n} above it with probability {@code 1 − δ}.
+ * Any string whose true count exceeds {@code ε·n} more than the
+ * {@code k}-th largest count is reported. Strings are identified by their
+ * 64-bit hash, so two strings with the same hash — vanishingly unlikely —
+ * would be counted together.</p>
+ *
+ * <p><b>Merging.</b> {@link #merge(HeavyHitters)} merges the count-min
+ * sketches exactly, then re-estimates the union of both candidate sets
+ * against the merged counts and keeps the top {@code k}. Instances are not
+ * thread-safe.</p>
+ */
+public final class HeavyHitters {
+
+    /** Default number of strings to track. */
+    public static final int DEFAULT_K = 20;
+
+    /** A tracked string and its estimated count. */
+    public record Entry(String name, long estimate) { }
+
+    private final int k;
+    private final CountMinSketch counts;
+
+    // Candidates, by a stable id from 0 to k - 1
+    private final String[] names;
+    private final long[]   hashes;
+    private final long[]   estimates;
+    private int size;
+
+    /** Ids ordered as a min-heap on estimate, and each id's position in it. */
+    private final int[] heap;
+    private final int[] heapIndex;
+
+    /** Open-addressed hash to id + 1, with 0 marking an empty slot. */
+    private final long[] slotHashes;
+    private final int[]  slotIds;
+
+    /**
+     * Creates an empty tracker.
+     *
+     * @param k      how many strings to track
+     * @param counts the count-min sketch to count with, normally empty
+     * @throws IllegalArgumentException if {@code k} is not positive
+     */
+    public HeavyHitters(int k, CountMinSketch counts) {
+        if (k < 1 || k > 1 << 20) {
+            throw new IllegalArgumentException("k must be between 1 and " + (1 << 20) + ": " + k);
+        }
+        this.k         = k;
+        this.counts    = counts;
+        this.names     = new String[k];
+        this.hashes    = new long[k];
+        this.estimates = new long[k];
+        this.heap      = new int[k];
+        this.heapIndex = new int[k];
+        int slots = Integer.highestOneBit(k * 2 - 1) << 1;
+        this.slotHashes = new long[slots];
+        this.slotIds    = new int[slots];
+    }
+
+    /**
+     * Creates an empty tracker with a default-sized count-min sketch.
+     *
+     * @param k how many strings to track
+     */
+    public HeavyHitters(int k) {
+        this(k, new CountMinSketch());
+    }
+
+    /**
+     * Creates an empty tracker for the {@linkplain #DEFAULT_K default} number of strings.
+     */
+    public HeavyHitters() {
+        this(DEFAULT_K);
+    }
+
+    // -------------------------------------------------------------------------
+    // Updating
+    // -------------------------------------------------------------------------
+
+    /**
+     * Counts one occurrence of a string. {@code null} is ignored.
+     *
+     * @param value the string to count; copied only if it becomes a candidate
+     */
+    public void add(CharSequence value) {
+        if (value == null) {
+            return;
+        }
+        long hash = Hashing.hash(value);
+        counts.addHash(hash, 1);
+        offer(hash, counts.estimateHash(hash), value);
+    }
+
+    /**
+     * Adds everything counted by {@code other} to this tracker.
+     *
+     * @param other a tracker whose count-min sketch has the same shape
+     * @throws IllegalArgumentException if the sketch shapes differ
+     */
+    public void merge(HeavyHitters other) {
+        counts.merge(other.counts);
+        refresh();
+        for (int id = 0; id < other.size; id++) {
+            long hash = other.hashes[id];
+            offer(hash, counts.estimateHash(hash), other.names[id]);
+        }
+    }
+
+    /** Throws what {@link #merge} would for {@code other}, without merging. */
+    void checkMergeable(HeavyHitters other) {
+        counts.checkMergeable(other.counts);
+    }
+
+    /** Updates or admits a candidate with its latest estimate. */
+    private void offer(long hash, long estimate, CharSequence value) {
+        int slot = find(hash);
+        if (slotIds[slot] != 0) {
+            int id = slotIds[slot] - 1;
+            estimates[id] = estimate;
+            siftDown(heapIndex[id]);
+        } else if (size < k) {
+            int id = size++;
+            names[id]     = value.toString();
+            hashes[id]    = hash;
+            estimates[id] = estimate;
+            slotHashes[slot] = hash;
+            slotIds[slot]    = id + 1;
+            heap[id]      = id;
+            heapIndex[id] = id;
+            siftUp(id);
+        } else if (estimate > estimates[heap[0]]) {
+            int id = heap[0];
+            remove(hashes[id]);
+            names[id]     = value.toString();
+            hashes[id]    = hash;
+            estimates[id] = estimate;
+            // The removal may have shifted entries, so look the slot up again
+            slot = find(hash);
+            slotHashes[slot] = hash;
+            slotIds[slot]    = id + 1;
+            siftDown(0);
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Heap and hash table
+    // -------------------------------------------------------------------------
+
+    /**
+     * Re-reads every candidate's estimate from the sketch and restores the
+     * heap. A stored estimate goes stale when other strings sharing its
+     * counters are added; it can only have grown.
+     */
+    private void refresh() {
+        for (int id = 0; id < size; id++) {
+            estimates[id] = counts.estimateHash(hashes[id]);
+        }
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    private void siftUp(int i) {
+        int id = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (estimates[heap[parent]] <= estimates[id]) {
+                break;
+            }
+            place(i, heap[parent]);
+            i = parent;
+        }
+        place(i, id);
+    }
+
+    private void siftDown(int i) {
+        int id = heap[i];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && estimates[heap[child + 1]] < estimates[heap[child]]) {
+                child++;
+            }
+            if (estimates[id] <= estimates[heap[child]]) {
+                break;
+            }
+            place(i, heap[child]);
+            i = child;
+        }
+        place(i, id);
+    }
+
+    private void place(int i, int id) {
+        heap[i]       = id;
+        heapIndex[id] = i;
+    }
+
+    /** Returns the slot holding {@code hash}, or the empty slot where it would go. */
+    private int find(long hash) {
+        int mask = slotIds.length - 1;
+        int slot = (int) hash & mask;
+        while (slotIds[slot] != 0 && slotHashes[slot] != hash) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /** Removes {@code hash}, shifting later entries back so no lookup is cut short. */
+    private void remove(long hash) {
+        int mask = slotIds.length - 1;
+        int hole = find(hash);
+        slotIds[hole] = 0;
+        for (int slot = (hole + 1) & mask; slotIds[slot] != 0; slot = (slot + 1) & mask) {
+            int home = (int) slotHashes[slot] & mask;
+            // Move the entry back if the hole lies between its home slot and where it is now
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                slotHashes[hole] = slotHashes[slot];
+                slotIds[hole]    = slotIds[slot];
+                slotIds[slot]    = 0;
+                hole = slot;
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Queries
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns the tracked strings with their current estimates, most
+     * frequent first, with ties in name order.
+     *
+     * @return a new list of at most {@code k} entries
+     */
+    public List<Entry> top() {
+        refresh();
+        Integer[] order = new Integer[size];
+        for (int id = 0; id < size; id++) {
+            order[id] = id;
+        }
+        Arrays.sort(order, (a, b) -> estimates[a] != estimates[b]
+                ? Long.compare(estimates[b], estimates[a])
+                : names[a].compareTo(names[b]));
+        List<Entry> top = new ArrayList<>(size);
+        for (int id : order) {
+            top.add(new Entry(names[id], estimates[id]));
+        }
+        return top;
+    }
+
+    /**
+     * Returns the estimated count of any string, tracked or not.
+     *
+     * @param value the string to look up
+     * @return the count-min estimate
+     */
+    public long estimate(CharSequence value) {
+        return counts.estimate(value);
+    }
+
+    /** Returns how many strings are tracked. */
+    public int k() { return k; }
+
+    /** Returns the total number of strings counted. */
+    public long total() { return counts.total(); }
+
+    /** Returns the count-min sketch behind the estimates. */
+    public CountMinSketch counts() { return counts; }
+
+    // -------------------------------------------------------------------------
+    // Encoding
+    // -------------------------------------------------------------------------
+
+    /** Returns the number of bytes {@link #encode(ByteBuffer)} writes. */
+    public int encodedSize() {
+        int bytes = 4 + 4 + counts.encodedSize();
+        for (int id = 0; id < size; id++) {
+            bytes += 4 + names[id].getBytes(StandardCharsets.UTF_8).length;
+        }
+        return bytes;
+    }
+
+    /**
+     * Writes the tracker: {@code k}, the count-min sketch, then the
+     * candidates' names in UTF-8. Hashes and estimates are recomputed on
+     * decoding.
+     *
+     * @param buffer where to write
+     */
+    public void encode(ByteBuffer buffer) {
+        buffer.putInt(k);
+        counts.encode(buffer);
+        buffer.putInt(size);
+        for (int id = 0; id < size; id++) {
+            byte[] bytes = names[id].getBytes(StandardCharsets.UTF_8);
+            buffer.putInt(bytes.length).put(bytes);
+        }
+    }
+
+    /**
+     * Reads a tracker written by {@link #encode(ByteBuffer)}.
+     *
+     * @param buffer where to read
+     * @return the decoded tracker
+     * @throws IllegalArgumentException if the data is not a valid tracker
+     */
+    public static HeavyHitters decode(ByteBuffer buffer) {
+        int k = buffer.getInt();
+        HeavyHitters hitters = new HeavyHitters(k, CountMinSketch.decode(buffer));
+        int size = buffer.getInt();
+        if (size < 0 || size > k) {
+            throw new IllegalArgumentException("Corrupt candidate count: " + size);
+        }
+        for (int i = 0; i < size; i++) {
+            int length = buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) {
+                throw new IllegalArgumentException("Corrupt name length: " + length);
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            String name = new String(bytes, StandardCharsets.UTF_8);
+            long hash = Hashing.hash(name);
+            hitters.offer(hash, hitters.counts.estimateHash(hash), name);
+        }
+        return hitters;
+    }
+}
@@ -0,0 +1,214 @@
+package animals.sketch;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Estimates how many distinct strings have been added, in fixed memory.
+ *
+ * <p>Each string is hashed to 64 bits; the first {@code precision} bits pick
+ * one of {@code m = 2^precision} one-byte registers, and the register keeps
+ * the longest run of leading zeros seen in the remaining bits. The estimate
+ * comes from the histogram of the registers, using Ertl's improved estimator
+ * ("New cardinality estimation algorithms for HyperLogLog sketches", 2017),
+ * which is unbiased from zero to billions without the empirical bias tables
+ * of HyperLogLog++.</p>
+ *
+ * <p><b>Error.</b> The relative standard error is about
+ * {@code 1.04 / sqrt(m)}: 0.81% at the default precision of 14 (16 KiB of
+ * registers), 1.6% at 12 (4 KiB), 0.41% at 16 (64 KiB). About 95% of
+ * estimates fall within twice that. Small counts are close to exact.
+ * Adding the same string again never changes the estimate.</p>
+ *
+ * <p><b>Merging.</b> {@link #merge(HyperLogLog)} takes the larger of each
+ * register, which gives exactly the sketch of the combined input, so
+ * per-thread or per-shard sketches can be combined with no extra error.
+ * Instances are not thread-safe.</p>
+ */
+public final class HyperLogLog {
+
+    /** Smallest supported precision: 16 registers. */
+    public static final int MIN_PRECISION = 4;
+
+    /** Largest supported precision: 262,144 registers. */
+    public static final int MAX_PRECISION = 18;
+
+    /** Default precision: 16,384 registers, 0.81% standard error. */
+    public static final int DEFAULT_PRECISION = 14;
+
+    private final int precision;
+    private final byte[] registers;
+
+    /**
+     * Creates an empty sketch.
+     *
+     * @param precision log2 of the number of registers, from {@value #MIN_PRECISION}
+     *                  to {@value #MAX_PRECISION}
+     * @throws IllegalArgumentException if {@code precision} is out of range
+     */
+    public HyperLogLog(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("precision must be between " + MIN_PRECISION
+                    + " and " + MAX_PRECISION + ": " + precision);
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    /**
+     * Creates an empty sketch with the {@linkplain #DEFAULT_PRECISION default precision}.
+     */
+    public HyperLogLog() {
+        this(DEFAULT_PRECISION);
+    }
+
+    // -------------------------------------------------------------------------
+    // Updating
+    // -------------------------------------------------------------------------
+
+    /**
+     * Adds a string. {@code null} is ignored.
+     *
+     * @param value the string to count
+     */
+    public void add(CharSequence value) {
+        if (value != null) {
+            addHash(Hashing.hash(value));
+        }
+    }
+
+    /** Adds a value by its 64-bit hash, which must be uniformly distributed. */
+    void addHash(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        // The sentinel bit caps the rank at 64 - precision + 1 when the rest are all zero
+        int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    /**
+     * Adds everything counted by {@code other} to this sketch.
+     *
+     * @param other a sketch with the same precision
+     * @throws IllegalArgumentException if the precisions differ
+     */
+    public void merge(HyperLogLog other) {
+        checkMergeable(other);
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    /** Throws what {@link #merge} would for {@code other}, without merging. */
+    void checkMergeable(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Cannot merge precision " + other.precision + " into " + precision);
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Estimating
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns the estimated number of distinct strings added.
+     */
+    public long estimate() {
+        int q = 64 - precision;
+        int[] histogram = new int[q + 2];
+        for (byte register : registers) {
+            histogram[register]++;
+        }
+        double m = registers.length;
+        double z = m * tau(1 - histogram[q + 1] / m);
+        for (int k = q; k >= 1; k--) {
+            z = 0.5 * (z + histogram[k]);
+        }
+        z += m * sigma(histogram[0] / m);
+        return Math.round(m * m / (2 * Math.log(2)) / z);
+    }
+
+    /** Returns the relative standard error of {@link #estimate()} at this precision. */
+    public double standardError() {
+        return 1.04 / Math.sqrt(registers.length);
+    }
+
+    /** Returns log2 of the number of registers. */
+    public int precision() { return precision; }
+
+    /** Returns the memory held by the registers, in bytes. */
+    public int sizeInBytes() { return registers.length; }
+
+    /** Ertl's sigma function, for the registers never set. */
+    private static double sigma(double x) {
+        if (x == 1) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double y = 1;
+        double z = x;
+        double previous;
+        do {
+            x *= x;
+            previous = z;
+            z += x * y;
+            y += y;
+        } while (z != previous);
+        return z;
+    }
+
+    /** Ertl's tau function, for the registers at the maximum rank. */
+    private static double tau(double x) {
+        if (x == 0 || x == 1) {
+            return 0;
+        }
+        double y = 1;
+        double z = 1 - x;
+        double previous;
+        do {
+            x = Math.sqrt(x);
+            previous = z;
+            y *= 0.5;
+            z -= (1 - x) * (1 - x) * y;
+        } while (z != previous);
+        return z / 3;
+    }
+
+    // -------------------------------------------------------------------------
+    // Encoding
+    // -------------------------------------------------------------------------
+
+    /** Returns the number of bytes {@link #encode(ByteBuffer)} writes. */
+    public int encodedSize() {
+        return 1 + registers.length;
+    }
+
+    /**
+     * Writes the sketch: its precision, then one byte per register.
+     *
+     * @param buffer where to write
+     */
+    public void encode(ByteBuffer buffer) {
+        buffer.put((byte) precision).put(registers);
+    }
+
+    /**
+     * Reads a sketch written by {@link #encode(ByteBuffer)}.
+     *
+     * @param buffer where to read
+     * @return the decoded sketch
+     * @throws IllegalArgumentException if the data is not a valid sketch
+     */
+    public static HyperLogLog decode(ByteBuffer buffer) {
+        HyperLogLog sketch = new HyperLogLog(buffer.get());
+        buffer.get(sketch.registers);
+        int maxRank = 64 - sketch.precision + 1;
+        for (byte register : sketch.registers) {
+            if (register < 0 || register > maxRank) {
+                throw new IllegalArgumentException("Corrupt register value: " + register);
+            }
+        }
+        return sketch;
+    }
+}
@@ -0,0 +1,385 @@
+package animals.sketch;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Estimates quantiles and ranks of a stream of {@code float} values in fixed
+ * memory, using the KLL sketch (Karnin, Lang and Liberty, "Optimal Quantile
+ * Approximation in Streams", 2016).
+ *
+ * <p>Values enter level 0. When the sketch is full, the lowest level that is
+ * over its capacity is <em>compacted</em>: sorted, and every other value —
+ * starting at a random one of the first two — moves up a level with twice
+ * the weight, while the rest are discarded. Level {@code h} may hold about
+ * {@code k · (2/3)^(top − h)} values, so the sketch keeps roughly
+ * {@code 3k} values however long the stream.</p>
+ *
+ * <p><b>Error.</b> Errors are in <em>rank</em>, not value: a query for the
+ * {@code q}-quantile returns a value whose true rank is within
+ * {@code ±ε·n} of {@code q·n}. With the default {@code k = 200}, ε is about
+ * 1.65% with 99% confidence (the bound published for the same parameters by
+ * Apache DataSketches); it scales as {@code 1/k}. {@link #min()},
+ * {@link #max()} and {@link #count()} are exact, and so is every answer
+ * until the stream outgrows level 0.</p>
+ *
+ * <p><b>Merging.</b> {@link #merge(KllSketch)} appends each level of the
+ * other sketch to the same level here and compacts as needed; the result
+ * has the same error bound as a sketch fed the combined stream. Instances
+ * are not thread-safe.</p>
+ */
+public final class KllSketch {
+
+    /** Default accuracy parameter. */
+    public static final int DEFAULT_K = 200;
+
+    /** Smallest supported accuracy parameter. */
+    public static final int MIN_K = 8;
+
+    private static final double CAPACITY_RATIO = 2.0 / 3.0;
+
+    /** Smallest capacity of any level, so the lowest levels do not compact every few values. */
+    private static final int MIN_CAPACITY = 8;
+
+    private final int k;
+    private final SplittableRandom random;
+
+    /** Values at each level; level {@code h} values weigh {@code 2^h}. */
+    private float[][] levels = new float[1][];
+    private int[] sizes = new int[1];
+
+    /** Capacity of each level, and their total, recomputed when a level is added. */
+    private int[] capacities;
+    private int   totalCapacity;
+    private int   retained;
+
+    private long  count;
+    private float min = Float.NaN;
+    private float max = Float.NaN;
+
+    /**
+     * Creates an empty sketch.
+     *
+     * @param k the accuracy parameter; the rank error scales as {@code 1/k}
+     *          and the memory as {@code k}
+     * @throws IllegalArgumentException if {@code k} is less than {@value #MIN_K}
+     */
+    public KllSketch(int k) {
+        if (k < MIN_K) {
+            throw new IllegalArgumentException("k must be at least " + MIN_K + ": " + k);
+        }
+        this.k      = k;
+        this.random = new SplittableRandom();
+        computeCapacities();
+        levels[0]   = new float[capacities[0]];
+    }
+
+    /**
+     * Creates an empty sketch with the {@linkplain #DEFAULT_K default accuracy}.
+     */
+    public KllSketch() {
+        this(DEFAULT_K);
+    }
+
+    // -------------------------------------------------------------------------
+    // Updating
+    // -------------------------------------------------------------------------
+
+    /**
+     * Adds a value. {@code NaN} is ignored.
+     *
+     * @param value the value to add
+     */
+    public void add(float value) {
+        if (Float.isNaN(value)) {
+            return;
+        }
+        if (count++ == 0) {
+            min = value;
+            max = value;
+        } else {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        append(0, value);
+        if (retained >= totalCapacity) {
+            compress();
+        }
+    }
+
+    /**
+     * Adds everything in {@code other} to this sketch.
+     *
+     * @param other a sketch with the same {@code k}; may be this sketch,
+     *              which then counts every value twice
+     * @throws IllegalArgumentException if the sketches have different {@code k}
+     */
+    public void merge(KllSketch other) {
+        checkMergeable(other);
+        if (other.count == 0) {
+            return;
+        }
+        while (levels.length < other.levels.length) {
+            addLevel();
+        }
+        for (int h = 0; h < other.levels.length; h++) {
+            // Read before appending: when other is this sketch, append grows the level being read
+            float[] values = other.levels[h];
+            int     size   = other.sizes[h];
+            for (int i = 0; i < size; i++) {
+                append(h, values[i]);
+            }
+        }
+        min    = count == 0 ? other.min : Math.min(min, other.min);
+        max    = count == 0 ? other.max : Math.max(max, other.max);
+        count += other.count;
+        compress();
+    }
+
+    /** Throws what {@link #merge} would for {@code other}, without merging. */
+    void checkMergeable(KllSketch other) {
+        if (other.k != k) {
+            throw new IllegalArgumentException("Cannot merge k=" + other.k + " into k=" + k);
+        }
+    }
+
+    /**
+     * Compacts the lowest over-full level until the sketch as a whole is
+     * within its capacity. A level may run over its own capacity while
+     * others have room; compacting only when the whole sketch is full
+     * ("lazy" compaction) keeps more values, and so more accuracy, for the
+     * same memory, and compacts level 0 in large batches.
+     */
+    private void compress() {
+        while (retained >= totalCapacity) {
+            int h = 0;
+            while (sizes[h] < capacities[h]) {
+                h++;
+            }
+            if (h + 1 == levels.length) {
+                addLevel();
+            }
+            compact(h);
+        }
+    }
+
+    /** Sorts level {@code h} and promotes every other value of its pairs to level {@code h + 1}. */
+    private void compact(int h) {
+        float[] level = levels[h];
+        int size = sizes[h];
+        Arrays.sort(level, 0, size);
+        // An odd value out stays behind, so the total weight is preserved exactly
+        int pairs = size & ~1;
+        int from  = size - pairs;
+        for (int i = from + random.nextInt(2); i < size; i += 2) {
+            append(h + 1, level[i]);
+        }
+        retained -= size - from;
+        sizes[h]  = from;
+    }
+
+    private void append(int h, float value) {
+        float[] level = levels[h];
+        int size = sizes[h];
+        if (size == level.length) {
+            levels[h] = level = Arrays.copyOf(level, Math.max(2, size + (size >> 1)));
+        }
+        level[size] = value;
+        sizes[h] = size + 1;
+        retained++;
+    }
+
+    private void addLevel() {
+        int height = levels.length;
+        levels = Arrays.copyOf(levels, height + 1);
+        sizes  = Arrays.copyOf(sizes, height + 1);
+        computeCapacities();
+        levels[height] = new float[capacities[height]];
+    }
+
+    /** Sets each level's capacity: {@code k} at the top, shrinking by 2/3 per level below. */
+    private void computeCapacities() {
+        int height = levels.length;
+        capacities    = new int[height];
+        totalCapacity = 0;
+        for (int h = 0; h < height; h++) {
+            int depth = height - h - 1;
+            capacities[h]  = Math.max(MIN_CAPACITY, (int) Math.ceil(k * Math.pow(CAPACITY_RATIO, depth)));
+            totalCapacity += capacities[h];
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Queries
+    // -------------------------------------------------------------------------
+
+    /** Returns how many values have been added. */
+    public long count() { return count; }
+
+    /** Returns the smallest value added, or {@code NaN} if none. */
+    public float min() { return min; }
+
+    /** Returns the largest value added, or {@code NaN} if none. */
+    public float max() { return max; }
+
+    /** Returns the accuracy parameter. */
+    public int k() { return k; }
+
+    /** Returns how many values the sketch currently keeps. */
+    public int retained() { return retained; }
+
+    /**
+     * Returns an estimate of the {@code q}-quantile: a value such that about
+     * {@code q·n} of the values added are less than or equal to it.
+     * {@code quantile(0)} is the exact minimum and {@code quantile(1)} the
+     * exact maximum.
+     *
+     * @param q the fraction, from 0 to 1
+     * @return the estimated quantile, or {@code NaN} if the sketch is empty
+     * @throws IllegalArgumentException if {@code q} is outside {@code [0, 1]}
+     */
+    public float quantile(double q) {
+        if (!(q >= 0 && q <= 1)) {
+            throw new IllegalArgumentException("q must be between 0 and 1: " + q);
+        }
+        if (count == 0) {
+            return Float.NaN;
+        }
+        if (q == 0) {
+            return min;
+        }
+        if (q == 1) {
+            return max;
+        }
+        Weighted sorted = sorted();
+        long target = (long) Math.ceil(q * count);
+        long cumulative = 0;
+        for (int i = 0; i < sorted.values.length; i++) {
+            cumulative += sorted.weights[i];
+            if (cumulative >= target) {
+                return sorted.values[i];
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Returns the estimated fraction of the values added that are less than
+     * or equal to {@code value}.
+     *
+     * @param value the value to rank
+     * @return the normalised rank, from 0 to 1, or {@code NaN} if the sketch is empty
+     */
+    public double rank(float value) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long weight = 0;
+        for (int h = 0; h < levels.length; h++) {
+            float[] level = levels[h];
+            int below = 0;
+            for (int i = 0; i < sizes[h]; i++) {
+                if (level[i] <= value) {
+                    below++;
+                }
+            }
+            weight += (long) below << h;
+        }
+        return (double) weight / count;
+    }
+
+    /** The retained values in ascending order, each with its weight. */
+    private record Weighted(float[] values, long[] weights) { }
+
+    private Weighted sorted() {
+        int retained = this.retained;
+        long[] packed = new long[retained];
+        int n = 0;
+        for (int h = 0; h < levels.length; h++) {
+            for (int i = 0; i < sizes[h]; i++) {
+                // Sortable float bits in the high word, level in the low byte
+                packed[n++] = (long) sortable(levels[h][i]) << 32 | h;
+            }
+        }
+        Arrays.sort(packed);
+        float[] values  = new float[retained];
+        long[]  weights = new long[retained];
+        for (int i = 0; i < retained; i++) {
+            values[i]  = unsortable((int) (packed[i] >> 32));
+            weights[i] = 1L << (packed[i] & 0xFF);
+        }
+        return new Weighted(values, weights);
+    }
+
+    /** Maps float bits to ints that compare in the same order as the floats. */
+    private static int sortable(float value) {
+        int bits = Float.floatToIntBits(value);
+        return bits ^ ((bits >> 31) & 0x7FFFFFFF);
+    }
+
+    private static float unsortable(int sortable) {
+        return Float.intBitsToFloat(sortable ^ ((sortable >> 31) & 0x7FFFFFFF));
+    }
+
+    // -------------------------------------------------------------------------
+    // Encoding
+    // -------------------------------------------------------------------------
+
+    /** Returns the number of bytes {@link #encode(ByteBuffer)} writes. */
+    public int encodedSize() {
+        return 4 + 8 + 4 + 4 + 1 + 4 * levels.length + 4 * retained();
+    }
+
+    /**
+     * Writes the sketch: {@code k}, the count, min and max, then each level's
+     * size and values.
+     *
+     * @param buffer where to write
+     */
+    public void encode(ByteBuffer buffer) {
+        buffer.putInt(k).putLong(count).putFloat(min).putFloat(max).put((byte) levels.length);
+        for (int h = 0; h < levels.length; h++) {
+            buffer.putInt(sizes[h]);
+            for (int i = 0; i < sizes[h]; i++) {
+                buffer.putFloat(levels[h][i]);
+            }
+        }
+    }
+
+    /**
+     * Reads a sketch written by {@link #encode(ByteBuffer)}.
+     *
+     * @param buffer where to read
+     * @return the decoded sketch
+     * @throws IllegalArgumentException if the data is not a valid sketch
+     */
+    public static KllSketch decode(ByteBuffer buffer) {
+        KllSketch sketch = new KllSketch(buffer.getInt());
+        sketch.count = buffer.getLong();
+        sketch.min   = buffer.getFloat();
+        sketch.max   = buffer.getFloat();
+        int height = buffer.get();
+        if (height < 1 || height > 62) {
+            throw new IllegalArgumentException("Corrupt level count: " + height);
+        }
+        while (sketch.levels.length < height) {
+            sketch.addLevel();
+        }
+        long weight = 0;
+        for (int h = 0; h < height; h++) {
+            int size = buffer.getInt();
+            if (size < 0 || size > buffer.remaining() / 4) {
+                throw new IllegalArgumentException("Corrupt level size: " + size);
+            }
+            for (int i = 0; i < size; i++) {
+                sketch.append(h, buffer.getFloat());
+            }
+            weight += (long) size << h;
+        }
+        if (weight != sketch.count) {
+            throw new IllegalArgumentException("Level weights " + weight + " do not match count " + sketch.count);
+        }
+        return sketch;
+    }
+}
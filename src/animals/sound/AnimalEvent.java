@@ -0,0 +1,35 @@
+package animals.sound;
+
+import animals.Animal;
+import animals.Behaviour;
+import animals.Species;
+
+/**
+ * One line of animal behaviour as a typed event, as delivered by
+ * {@link AnimalEventPublisher}.
+ *
+ * <p>The animal's name is captured when the event is emitted, so a later
+ * {@code setName} does not change events already published. The animal
+ * itself is the live object.</p>
+ *
+ * @param sequence  the publisher's count of events before this one; strictly
+ *                  increasing in emission order
+ * @param nanoTime  {@link System#nanoTime()} when the event was emitted
+ * @param animal    the animal performing the behaviour
+ * @param behaviour which behaviour produced the line
+ * @param name      the animal's name when the event was emitted
+ * @param text      the text that follows the name, e.g. {@code " says: Woof! Woof!"}
+ */
+public record AnimalEvent(long sequence, long nanoTime, Animal animal, Behaviour behaviour,
+                          String name, String text) {
+
+    /** Returns the species of the animal. */
+    public Species species() {
+        return Species.of(animal);
+    }
+
+    /** Returns the line the default sink would print: the name followed by the text. */
+    public String line() {
+        return name + text;
+    }
+}
@@ -0,0 +1,533 @@
+package animals.sound;
+
+import animals.Animal;
+import animals.Behaviour;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A {@link SoundSink} that publishes every behaviour line as an
+ * {@link AnimalEvent} to {@link Flow.Subscriber}s, each fed from its own
+ * bounded buffer so that a slow subscriber does not hold up the animals.
+ *
+ * <pre>{@code
+ *   AnimalEventPublisher events = AnimalEventPublisher.builder()
+ *           .bufferSize(4096)
+ *           .overflow(Overflow.DROP_OLDEST)
+ *           .build();
+ *   events.subscribe(mySubscriber);
+ *   SoundSinks.install(events);
+ * }</pre>
+ *
+ * <p><b>Buffers.</b> {@link #emit} appends the event to the buffer of every
+ * current subscriber — a short critical section per subscriber, with no I/O
+ * and no call into subscriber code. When a buffer is full, its
+ * {@link Overflow} policy decides what happens: the emitting thread waits
+ * ({@link Overflow#BLOCK}), the oldest event is discarded
+ * ({@link Overflow#DROP_OLDEST}), or the buffer is thinned to an evenly
+ * spaced sample of the events offered ({@link Overflow#SAMPLE}). Only {@code BLOCK} lets a
+ * slow subscriber slow the producers down; the others count what they lose in
+ * {@link #dropped()}.</p>
+ *
+ * <p><b>Delivery.</b> Each subscriber has its own virtual thread that moves
+ * events out of its buffer and calls {@code onNext} with a <em>batch</em>: a
+ * list of up to {@code batchSize} events, in emission order. Demand is
+ * counted in batches, so {@code request(1)} asks for one list. A batch is
+ * delivered as soon as it is full, or once its oldest event has waited
+ * {@code maxDelay}, so the producers wake the delivery thread about once per
+ * batch rather than once per event. A subscriber that falls behind receives
+ * full batches back to back. All signals to one subscriber come from its delivery
+ * thread, one at a time, as {@link Flow} requires.</p>
+ *
+ * <p><b>Shutdown.</b> {@link #close()} stops accepting events; each subscriber
+ * then receives what is left in its buffer (subject to its demand) followed
+ * by {@code onComplete}. A subscriber whose {@code onSubscribe} or
+ * {@code onNext} throws is cancelled. Lines emitted while there are no
+ * subscribers are discarded, not printed.</p>
+ */
+public final class AnimalEventPublisher implements SoundSink, Flow.Publisher<List<AnimalEvent>>, AutoCloseable {
+
+    /**
+     * What to do with an event that arrives when a subscriber's buffer is full.
+     */
+    public enum Overflow {
+        /**
+         * Make the emitting thread wait until the subscriber takes a batch.
+         * Nothing is lost, but the producers run no faster than the slowest
+         * subscriber, and an animal emitting from inside {@code onNext} to a
+         * full buffer of its own subscriber would wait forever.
+         */
+        BLOCK,
+        /** Discard the oldest buffered event to make room. Keeps the most recent events. */
+        DROP_OLDEST,
+        /**
+         * Thin the buffer to an evenly spaced sample. When it fills, every
+         * other buffered event is discarded and from then on only every
+         * second event offered is kept; each time it fills again the spacing
+         * doubles. Once the subscriber empties the buffer, every event is
+         * kept again. The subscriber sees the whole of a burst, in order, at
+         * a resolution that falls as the burst grows — suited to consumers
+         * that want a picture of the burst rather than just its end.
+         */
+        SAMPLE
+    }
+
+    private static final Subscription[] NO_SUBSCRIPTIONS = new Subscription[0];
+
+    private final int bufferSize;
+    private final int batchSize;
+    private final long maxDelayNanos;
+    private final Overflow overflow;
+    private final ThreadFactory threads = Thread.ofVirtual().name("animal-events-", 0).factory();
+
+    /** Current subscriptions; replaced, never modified in place. Guarded by {@code this} for writes. */
+    private volatile Subscription[] subscriptions = NO_SUBSCRIPTIONS;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final LongAdder  dropped  = new LongAdder();
+
+    private volatile boolean closed;
+
+    private AnimalEventPublisher(Builder builder) {
+        this.bufferSize    = builder.bufferSize;
+        this.batchSize     = builder.batchSize;
+        this.maxDelayNanos = builder.maxDelay.toNanos();
+        this.overflow      = builder.overflow;
+    }
+
+    /**
+     * Returns a builder with the defaults: 1,024 events buffered per
+     * subscriber, batches of up to 256 delayed by at most 1 ms, and
+     * {@link Overflow#DROP_OLDEST}.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    // -------------------------------------------------------------------------
+    // Publishing
+    // -------------------------------------------------------------------------
+
+    /**
+     * Publishes one line to every current subscriber. Does nothing once the
+     * publisher is closed or while no one is subscribed.
+     */
+    @Override
+    public void emit(Animal animal, Behaviour behaviour, String text) {
+        Subscription[] current = subscriptions;
+        if (current.length == 0 || closed) {
+            return;
+        }
+        AnimalEvent event = new AnimalEvent(sequence.getAndIncrement(), System.nanoTime(),
+                animal, behaviour, animal.getName(), text);
+        for (Subscription subscription : current) {
+            subscription.offer(event);
+        }
+    }
+
+    /**
+     * Subscribes to the events emitted from now on. The subscriber receives
+     * {@code onSubscribe} on its delivery thread, and nothing until it
+     * requests batches. Subscribing to a closed publisher completes at once.
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super List<AnimalEvent>> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        Subscription subscription = new Subscription(subscriber);
+        synchronized (this) {
+            if (closed) {
+                subscription.complete();
+            } else {
+                Subscription[] current = subscriptions;
+                Subscription[] grown = Arrays.copyOf(current, current.length + 1);
+                grown[current.length] = subscription;
+                subscriptions = grown;
+            }
+        }
+        threads.newThread(subscription::deliver).start();
+    }
+
+    /**
+     * Stops accepting events. Each subscriber is sent the events already in
+     * its buffer as it requests them, then {@code onComplete}. Idempotent.
+     */
+    @Override
+    public void close() {
+        Subscription[] current;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed  = true;
+            current = subscriptions;
+            subscriptions = NO_SUBSCRIPTIONS;
+        }
+        for (Subscription subscription : current) {
+            subscription.complete();
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Statistics
+    // -------------------------------------------------------------------------
+
+    /** Returns how many subscribers are currently receiving events. */
+    public int subscribers() { return subscriptions.length; }
+
+    /**
+     * Returns how many events have been lost to a full buffer, summed over
+     * all subscribers. Always {@code 0} with {@link Overflow#BLOCK}.
+     */
+    public long dropped() { return dropped.sum(); }
+
+    private synchronized void remove(Subscription subscription) {
+        Subscription[] current = subscriptions;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == subscription) {
+                Subscription[] shrunk = new Subscription[current.length - 1];
+                System.arraycopy(current, 0, shrunk, 0, i);
+                System.arraycopy(current, i + 1, shrunk, i, current.length - i - 1);
+                subscriptions = shrunk;
+                return;
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Subscription — one subscriber's buffer and delivery loop
+    // -------------------------------------------------------------------------
+
+    private final class Subscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super List<AnimalEvent>> subscriber;
+
+        private final ReentrantLock lock     = new ReentrantLock();
+        private final Condition     ready    = lock.newCondition();
+        private final Condition     notFull  = lock.newCondition();
+
+        // Ring buffer of pending events, oldest at head. Guarded by lock.
+        private final AnimalEvent[] ring = new AnimalEvent[bufferSize];
+        private int head;
+        private int count;
+
+        /**
+         * For {@link Overflow#SAMPLE}: keep one event in every {@code stride}
+         * offered. Doubles each time the buffer fills; back to 1 when it empties.
+         */
+        private long stride = 1;
+
+        /** Events skipped since the last one kept under {@link #stride}. */
+        private long skipped;
+
+        /** Batches requested and not yet delivered. Guarded by lock. */
+        private long demand;
+
+        /** Whether the delivery thread is waiting on {@link #ready}. Guarded by lock. */
+        private boolean waiting;
+
+        private boolean completing;
+        private boolean cancelled;
+
+        /** A rule violation to report with {@code onError}. Guarded by lock. */
+        private Throwable error;
+
+        Subscription(Flow.Subscriber<? super List<AnimalEvent>> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        /** Buffers an event, applying the overflow policy if the buffer is full. */
+        void offer(AnimalEvent event) {
+            lock.lock();
+            try {
+                if (cancelled || completing) {
+                    return;
+                }
+                if (stride > 1) {
+                    if (++skipped < stride) {
+                        dropped.increment();
+                        return;
+                    }
+                    skipped = 0;
+                }
+                if (count == ring.length) {
+                    switch (overflow) {
+                        case BLOCK -> {
+                            while (count == ring.length && !cancelled && !completing) {
+                                notFull.awaitUninterruptibly();
+                            }
+                            if (cancelled || completing) {
+                                return;
+                            }
+                        }
+                        case DROP_OLDEST -> {
+                            ring[head] = null;
+                            head = next(head);
+                            count--;
+                            dropped.increment();
+                        }
+                        case SAMPLE -> {
+                            // The event arriving now falls between two kept ones at the new spacing
+                            thin();
+                            dropped.increment();
+                            return;
+                        }
+                    }
+                }
+                ring[index(count)] = event;
+                count++;
+                // Wake the delivery thread to start its delay, or for a full batch
+                if (waiting && (count == 1 || count == batchSize || maxDelayNanos == 0)) {
+                    ready.signal();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void request(long n) {
+            lock.lock();
+            try {
+                if (n <= 0) {
+                    error = new IllegalArgumentException("request must be positive: " + n);
+                } else {
+                    demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                }
+                ready.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            lock.lock();
+            try {
+                cancelled = true;
+                Arrays.fill(ring, null);
+                count = 0;
+                ready.signal();
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            remove(this);
+        }
+
+        /** Marks the stream finished: deliver what is buffered, then complete. */
+        void complete() {
+            lock.lock();
+            try {
+                completing = true;
+                ready.signal();
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /** The delivery loop, run on the subscription's own virtual thread. */
+        void deliver() {
+            try {
+                subscriber.onSubscribe(this);
+            } catch (Throwable t) {
+                cancel();
+                return;
+            }
+            while (true) {
+                List<AnimalEvent> batch;
+                Throwable failure;
+                lock.lock();
+                try {
+                    awaitBatch();
+                    if (cancelled) {
+                        return;
+                    }
+                    failure = error;
+                    batch   = failure == null && count > 0 ? take() : null;
+                } finally {
+                    lock.unlock();
+                }
+                if (failure != null) {
+                    cancel();
+                    subscriber.onError(failure);
+                    return;
+                }
+                if (batch == null) {
+                    remove(this);
+                    subscriber.onComplete();
+                    return;
+                }
+                try {
+                    subscriber.onNext(batch);
+                } catch (Throwable t) {
+                    cancel();
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Waits until there is something to signal: a full batch, or a
+         * partial one whose oldest event has waited {@code maxDelay}, with
+         * demand for it; the end of the stream; or cancellation or an error.
+         * Called with the lock held.
+         */
+        private void awaitBatch() {
+            while (!cancelled && error == null) {
+                if (completing && (count == 0 || demand > 0)) {
+                    return;
+                }
+                long wait = Long.MAX_VALUE;
+                if (demand > 0 && count > 0) {
+                    if (count >= batchSize) {
+                        return;
+                    }
+                    wait = ring[head].nanoTime() + maxDelayNanos - System.nanoTime();
+                    if (wait <= 0) {
+                        return;
+                    }
+                }
+                waiting = true;
+                try {
+                    if (wait == Long.MAX_VALUE) {
+                        ready.awaitUninterruptibly();
+                    } else {
+                        ready.awaitNanos(wait);
+                    }
+                } catch (InterruptedException e) {
+                    // Only this publisher uses the delivery thread; an interrupt just re-checks the state
+                } finally {
+                    waiting = false;
+                }
+            }
+        }
+
+        /** Removes the next batch from the buffer. Called with the lock held and demand outstanding. */
+        private List<AnimalEvent> take() {
+            int size = Math.min(batchSize, count);
+            List<AnimalEvent> batch = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                batch.add(ring[head]);
+                ring[head] = null;
+                head = next(head);
+            }
+            count -= size;
+            if (count == 0) {
+                stride  = 1;
+                skipped = 0;
+            }
+            demand--;
+            notFull.signalAll();
+            return batch;
+        }
+
+        /**
+         * Keeps every other buffered event, ending with the newest, and
+         * doubles the stride so that later events are kept at the same
+         * spacing. Called with the lock held and the buffer full.
+         */
+        private void thin() {
+            int kept = count / 2;
+            for (int i = 0; i < kept; i++) {
+                ring[index(i)] = ring[index(2 * i + 1)];
+            }
+            for (int i = kept; i < count; i++) {
+                ring[index(i)] = null;
+            }
+            dropped.add(count - kept);
+            count   = kept;
+            skipped = stride;
+            stride *= 2;
+        }
+
+        private int index(int offset) {
+            int i = head + offset;
+            return i >= ring.length ? i - ring.length : i;
+        }
+
+        private int next(int i) {
+            return i + 1 == ring.length ? 0 : i + 1;
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Builder
+    // -------------------------------------------------------------------------
+
+    /**
+     * Configures an {@link AnimalEventPublisher}. Obtained from {@link AnimalEventPublisher#builder()}.
+     */
+    public static final class Builder {
+
+        private int bufferSize = 1024;
+        private int batchSize  = 256;
+        private Duration maxDelay = Duration.ofMillis(1);
+        private Overflow overflow = Overflow.DROP_OLDEST;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets how many events each subscriber's buffer holds. 1,024 by default.
+         */
+        public Builder bufferSize(int bufferSize) {
+            if (bufferSize < 1) {
+                throw new IllegalArgumentException("bufferSize must be positive: " + bufferSize);
+            }
+            this.bufferSize = bufferSize;
+            return this;
+        }
+
+        /**
+         * Sets the most events passed to one {@code onNext}. 256 by default.
+         */
+        public Builder batchSize(int batchSize) {
+            if (batchSize < 1) {
+                throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+            }
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        /**
+         * Sets how long an event may wait for its batch to fill before a
+         * partial batch is delivered. 1 ms by default; {@link Duration#ZERO}
+         * delivers as soon as there is demand, waking the delivery thread for
+         * every event.
+         */
+        public Builder maxDelay(Duration maxDelay) {
+            if (maxDelay.isNegative()) {
+                throw new IllegalArgumentException("maxDelay must not be negative: " + maxDelay);
+            }
+            this.maxDelay = maxDelay;
+            return this;
+        }
+
+        /**
+         * Sets what happens when a subscriber's buffer is full.
+         * {@link Overflow#DROP_OLDEST} by default.
+         */
+        public Builder overflow(Overflow overflow) {
+            this.overflow = Objects.requireNonNull(overflow, "overflow");
+            return this;
+        }
+
+        /**
+         * Creates a publisher with these settings and no subscribers.
+         */
+        public AnimalEventPublisher build() {
+            return new AnimalEventPublisher(this);
+        }
+    }
+}
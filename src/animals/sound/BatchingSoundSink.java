@@ -0,0 +1,119 @@
+package animals.sound;
+
+import animals.Animal;
+import animals.Behaviour;
+
+import java.io.Closeable;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A {@link SoundSink} that coalesces lines into large UTF-8 writes.
+ *
+ * <p>{@code System.out.println} takes a lock, encodes and flushes on every
+ * call. This sink instead copies each line into a buffer and only writes to
+ * its channel when {@code bufferBytes} of output have built up, or when
+ * {@link #flush()} or {@link #close()} is called. Lines therefore appear late;
+ * close the sink (or flush it) before relying on the output.</p>
+ *
+ * <p>All threads share one buffer guarded by one lock, but the lock is held
+ * only for a memory copy, not for I/O per line. Where many threads emit at
+ * once, {@link ThreadLocalSoundSink} avoids even that.</p>
+ */
+public final class BatchingSoundSink implements SoundSink, Closeable {
+
+    /** Default buffer size: 64 KiB. */
+    public static final int DEFAULT_BUFFER_BYTES = 1 << 16;
+
+    private final LineEncoder encoder;
+
+    private final WritableByteChannel channel;
+
+    /** Whether {@link #close()} closes {@link #channel}. */
+    private final boolean closeChannel;
+
+    /**
+     * Creates a sink writing to the given channel.
+     *
+     * @param channel      where to write the encoded lines
+     * @param bufferBytes  how many bytes to accumulate before each write
+     * @param closeChannel whether {@link #close()} should also close {@code channel}
+     */
+    public BatchingSoundSink(WritableByteChannel channel, int bufferBytes, boolean closeChannel) {
+        this.channel      = channel;
+        this.closeChannel = closeChannel;
+        this.encoder      = new LineEncoder(channel, this, bufferBytes);
+    }
+
+    /**
+     * Creates a sink that writes to a file through a {@link FileChannel},
+     * replacing any existing contents.
+     *
+     * @param path the file to write
+     * @return a new sink that owns, and will close, the file
+     * @throws IOException if the file cannot be opened
+     */
+    public static BatchingSoundSink toFile(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        return new BatchingSoundSink(channel, DEFAULT_BUFFER_BYTES, true);
+    }
+
+    /**
+     * Creates a sink that writes to the process's standard output, bypassing
+     * {@code System.out}. Flush {@code System.out} before installing it if the
+     * two must not interleave.
+     *
+     * @return a new sink over standard output; closing it leaves stdout open
+     */
+    public static BatchingSoundSink toStdout() {
+        return new BatchingSoundSink(Channels.newChannel(new FileOutputStream(FileDescriptor.out)),
+                DEFAULT_BUFFER_BYTES, false);
+    }
+
+    @Override
+    public void emit(Animal animal, Behaviour behaviour, String text) {
+        synchronized (this) {
+            try {
+                encoder.line(animal.getName(), text);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Writes out every buffered line.
+     */
+    @Override
+    public synchronized void flush() {
+        try {
+            encoder.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Flushes the sink and, if it owns its channel, closes the channel.
+     *
+     * @throws IOException if the final write or the close fails
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            encoder.flush();
+        } finally {
+            if (closeChannel) {
+                channel.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package animals.sound;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Accumulates lines of text and encodes them to UTF-8 in large batches.
+ *
+ * <p>Characters are copied into a reusable {@link CharBuffer}. When the next
+ * line would not fit, everything buffered is encoded into a reusable
+ * {@link ByteBuffer} and written to the channel in one call, so each write
+ * holds whole lines (only a line longer than the whole buffer is split). No
+ * objects are created per line. This class is not thread-safe; its callers
+ * provide the locking.</p>
+ */
+final class LineEncoder {
+
+    /** The platform line separator, as {@code println} would write. */
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    /** UTF-8 never needs more than three bytes per {@code char}. */
+    private static final int MAX_BYTES_PER_CHAR = 3;
+
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    /** Characters not yet encoded. Kept in write mode between calls. */
+    private final CharBuffer chars;
+
+    /** Encoded bytes not yet written. Kept in write mode between calls. */
+    private final ByteBuffer bytes;
+
+    /** Where batches are written. */
+    private final WritableByteChannel channel;
+
+    /** Lock held while writing to {@link #channel}; may be shared between encoders. */
+    private final Object channelLock;
+
+    /**
+     * @param channel     the destination of encoded bytes
+     * @param channelLock lock to hold while writing to {@code channel}
+     * @param bufferBytes size of the byte buffer; the char buffer is sized so
+     *                    that encoding it can never overflow the byte buffer
+     */
+    LineEncoder(WritableByteChannel channel, Object channelLock, int bufferBytes) {
+        int charCapacity = Math.max(bufferBytes / MAX_BYTES_PER_CHAR, 32);
+        this.channel     = channel;
+        this.channelLock = channelLock;
+        this.chars       = CharBuffer.allocate(charCapacity);
+        this.bytes       = ByteBuffer.allocate(charCapacity * MAX_BYTES_PER_CHAR);
+    }
+
+    /**
+     * Adds one line — {@code head}, then {@code tail}, then a line separator.
+     */
+    void line(String head, String tail) throws IOException {
+        if (head == null) {
+            head = "null";
+        }
+        int length = head.length() + tail.length() + LINE_SEPARATOR.length();
+        if (length > chars.remaining()) {
+            flush();
+        }
+        append(head);
+        append(tail);
+        append(LINE_SEPARATOR);
+    }
+
+    /**
+     * Encodes everything buffered and writes it to the channel.
+     */
+    void flush() throws IOException {
+        chars.flip();
+        encoder.encode(chars, bytes, false);
+        // A trailing high surrogate stays behind until its low half arrives
+        chars.compact();
+
+        bytes.flip();
+        synchronized (channelLock) {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+        }
+        bytes.clear();
+    }
+
+    private void append(String s) throws IOException {
+        int from = 0;
+        int length = s.length();
+        while (from < length) {
+            if (!chars.hasRemaining()) {
+                // Only reached by a line longer than the whole buffer
+                flush();
+            }
+            int n = Math.min(chars.remaining(), length - from);
+            // getChars copies straight into the backing array without allocating
+            s.getChars(from, from + n, chars.array(), chars.arrayOffset() + chars.position());
+            chars.position(chars.position() + n);
+            from += n;
+        }
+    }
+}
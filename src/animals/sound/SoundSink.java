@@ -0,0 +1,35 @@
+package animals.sound;
+
+import animals.Animal;
+import animals.Behaviour;
+
+/**
+ * Destination for the lines printed by {@link Animal#makeSound()} and the
+ * subclass behaviours ({@code fetch()}, {@code climb()}, {@code swim()},
+ * {@code fly()}).
+ *
+ * <p>Each line is the animal's name immediately followed by {@code text}, e.g.
+ * {@code "Buddy"} + {@code " says: Woof! Woof!"}. The two parts are passed
+ * separately so that a sink can write them without first concatenating
+ * them into a new string.</p>
+ *
+ * <p>The sink in use is chosen with {@link SoundSinks#install(SoundSink)}.
+ * Implementations must be safe to call from several threads at once.</p>
+ */
+@FunctionalInterface
+public interface SoundSink {
+
+    /**
+     * Outputs one line on behalf of an animal.
+     *
+     * @param animal    the animal performing the behaviour
+     * @param behaviour which behaviour produced the line
+     * @param text      the text that follows the animal's name
+     */
+    void emit(Animal animal, Behaviour behaviour, String text);
+
+    /**
+     * Forces any buffered lines to their destination. Does nothing by default.
+     */
+    default void flush() { }
+}
@@ -0,0 +1,64 @@
+package animals.sound;
+
+import java.util.Objects;
+
+/**
+ * Holds the installed {@link SoundSink} and provides the simple built-in ones.
+ *
+ * <p>Until another sink is installed, animals write to {@link #stdout()}, which
+ * behaves exactly like the original {@code System.out.println} calls.</p>
+ */
+public final class SoundSinks {
+
+    /** Prints each line with {@code System.out.println}. */
+    private static final SoundSink STDOUT = (animal, behaviour, text) ->
+            System.out.println(animal.getName() + text);
+
+    /** Ignores every line. */
+    private static final SoundSink DISCARD = (animal, behaviour, text) -> { };
+
+    /** The sink every animal currently writes to. */
+    private static volatile SoundSink installed = STDOUT;
+
+    private SoundSinks() {
+        // Static holder only
+    }
+
+    /**
+     * Returns the sink animals currently write to.
+     * @return the installed sink
+     */
+    public static SoundSink installed() { return installed; }
+
+    /**
+     * Makes every animal write to the given sink, and returns the sink that was
+     * installed before so that it can be restored later. The previous sink is
+     * flushed first so that no buffered lines are stranded.
+     *
+     * @param sink the sink to install
+     * @return the previously installed sink
+     */
+    public static SoundSink install(SoundSink sink) {
+        Objects.requireNonNull(sink, "sink");
+        SoundSink previous = installed;
+        installed = sink;
+        previous.flush();
+        return previous;
+    }
+
+    /**
+     * Returns the default sink, which prints each line with
+     * {@code System.out.println} — one synchronised, flushing write per line.
+     *
+     * @return the standard-output sink
+     */
+    public static SoundSink stdout() { return STDOUT; }
+
+    /**
+     * Returns a sink that discards every line, for throughput runs where the
+     * output itself is not wanted.
+     *
+     * @return the no-op sink
+     */
+    public static SoundSink discard() { return DISCARD; }
+}
@@ -0,0 +1,109 @@
+package animals.sound;
+
+import animals.Animal;
+import animals.Behaviour;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.WritableByteChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A {@link SoundSink} that gives every emitting thread its own batch buffer.
+ *
+ * <p>Lines from one thread are buffered together and written to the shared
+ * channel as a single block, so parallel callers only meet on the channel
+ * lock once per buffer-full rather than once per line. Lines from one thread
+ * stay in order; lines from different threads are interleaved block by block.</p>
+ *
+ * <p>Each thread keeps its buffer for the lifetime of the sink, so this sink
+ * suits a bounded pool of platform threads rather than very many short-lived
+ * (or virtual) threads.</p>
+ */
+public final class ThreadLocalSoundSink implements SoundSink, Closeable {
+
+    private final WritableByteChannel channel;
+
+    private final boolean closeChannel;
+
+    private final int bufferBytes;
+
+    /** Serialises whole-buffer writes from different threads. */
+    private final Object channelLock = new Object();
+
+    /** Every buffer created so far, so that {@link #flush()} can reach them all. */
+    private final Queue<LineEncoder> encoders = new ConcurrentLinkedQueue<>();
+
+    private final ThreadLocal<LineEncoder> local = ThreadLocal.withInitial(this::newEncoder);
+
+    /**
+     * Creates a sink writing to the given channel.
+     *
+     * @param channel      where to write the encoded lines
+     * @param bufferBytes  size of each thread's buffer
+     * @param closeChannel whether {@link #close()} should also close {@code channel}
+     */
+    public ThreadLocalSoundSink(WritableByteChannel channel, int bufferBytes, boolean closeChannel) {
+        this.channel      = channel;
+        this.bufferBytes  = bufferBytes;
+        this.closeChannel = closeChannel;
+    }
+
+    @Override
+    public void emit(Animal animal, Behaviour behaviour, String text) {
+        LineEncoder encoder = local.get();
+        // Uncontended except while another thread is flushing this buffer
+        synchronized (encoder) {
+            try {
+                encoder.line(animal.getName(), text);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Writes out every thread's buffered lines.
+     */
+    @Override
+    public void flush() {
+        try {
+            flushAll();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Flushes every thread's buffer and, if this sink owns its channel, closes it.
+     * Threads should have stopped emitting before the sink is closed.
+     *
+     * @throws IOException if a final write or the close fails
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flushAll();
+        } finally {
+            if (closeChannel) {
+                channel.close();
+            }
+        }
+    }
+
+    private void flushAll() throws IOException {
+        for (LineEncoder encoder : encoders) {
+            synchronized (encoder) {
+                encoder.flush();
+            }
+        }
+    }
+
+    private LineEncoder newEncoder() {
+        LineEncoder encoder = new LineEncoder(channel, channelLock, bufferBytes);
+        encoders.add(encoder);
+        return encoder;
+    }
+}
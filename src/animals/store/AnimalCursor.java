@@ -0,0 +1,129 @@
+package animals.store;
+
+import animals.Animal;
+import animals.Species;
+
+/**
+ * A reusable view that moves over the rows of a stored population and reads
+ * the current row with the same accessors as {@link Animal}.
+ *
+ * <p>Materialising every row as a {@code Dog}, {@code Cat}, {@code Bird} or
+ * {@code Fish} allocates one short-lived object per row — millions per scan.
+ * A cursor is one object for the whole scan:</p>
+ *
+ * <pre>{@code
+ *   AnimalStore.Cursor cursor = store.cursor();
+ *   while (cursor.next()) {
+ *       if (cursor.getSpecies() == Species.BIRD && cursor.canFly()) {
+ *           total += cursor.getWeight();
+ *       }
+ *   }
+ * }</pre>
+ *
+ * <p>Every accessor reads the store directly, so a cursor sees writes made
+ * to the store and never holds a stale copy. Only {@link #toAnimal()}
+ * allocates, and {@link #getName()}, {@link #getColour()} and
+ * {@link #getHome()} when the store keeps its strings off the heap. The
+ * {@link #name()}, {@link #colour()} and {@link #home()} views read the same
+ * strings without allocating in either store.</p>
+ *
+ * <p>A cursor starts before the first row. Its accessors throw
+ * {@code IndexOutOfBoundsException} unless it is on a row, and the
+ * bird- and fish-only accessors throw {@code IllegalStateException} on a row
+ * of another species, as the store's own accessors do. Cursors are not
+ * thread-safe; give each thread its own.</p>
+ */
+public interface AnimalCursor {
+
+    // -------------------------------------------------------------------------
+    // Movement
+    // -------------------------------------------------------------------------
+
+    /**
+     * Moves to the next row.
+     *
+     * @return {@code true} if the cursor is now on a row, {@code false} if it
+     *         has passed the last one
+     */
+    boolean next();
+
+    /**
+     * Moves to the given row.
+     *
+     * @param row the row to read next
+     * @throws IndexOutOfBoundsException if {@code row} is not in the store
+     */
+    void moveTo(long row);
+
+    /**
+     * Moves back to before the first row, so that {@link #next()} starts a
+     * new scan.
+     */
+    void reset();
+
+    /**
+     * Returns the index of the current row.
+     * @return the row index, or {@code -1} before the first row
+     */
+    long row();
+
+    // -------------------------------------------------------------------------
+    // Accessors — the same attributes as Animal, for the current row
+    // -------------------------------------------------------------------------
+
+    /** Returns the species of the current row. */
+    Species getSpecies();
+
+    /** Returns the name of the current row. */
+    String getName();
+
+    /** Returns the age of the current row, in years. */
+    int getAge();
+
+    /** Returns the weight of the current row, in kilograms. */
+    float getWeight();
+
+    /** Returns the colour of the current row. */
+    String getColour();
+
+    /** Returns whether the current row is friendly. */
+    boolean isFriendly();
+
+    /** Returns the home of the current row. */
+    String getHome();
+
+    /** Returns the number of wings of the current row, which must be a bird. */
+    int getNumberOfWings();
+
+    /** Returns whether the current row, which must be a bird, can fly. */
+    boolean canFly();
+
+    /** Returns the number of fins of the current row, which must be a fish. */
+    int getNumberOfFins();
+
+    // -------------------------------------------------------------------------
+    // Allocation-free string views
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns the name of the current row without allocating, or {@code null}.
+     * The result may be a buffer that the cursor reuses: it is valid only
+     * until the cursor moves, and must be copied (with {@code toString()})
+     * to be kept. Compare it with {@link String#contentEquals(CharSequence)}.
+     */
+    CharSequence name();
+
+    /** Returns the colour of the current row without allocating; see {@link #name()}. */
+    CharSequence colour();
+
+    /** Returns the home of the current row without allocating; see {@link #name()}. */
+    CharSequence home();
+
+    /**
+     * Materialises the current row as a new, detached {@code Dog},
+     * {@code Cat}, {@code Bird} or {@code Fish}.
+     *
+     * @return a copy of the current row
+     */
+    Animal toAnimal();
+}
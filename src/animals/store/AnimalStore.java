@@ -0,0 +1,618 @@
+package animals.store;
+
+import animals.Animal;
+import animals.Bird;
+import animals.Cat;
+import animals.Dog;
+import animals.Fish;
+import animals.Species;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A columnar ("struct-of-arrays") store for large animal populations.
+ *
+ * <p>Instead of one object per animal, every attribute lives in its own
+ * primitive array and an animal is simply a <em>row index</em> into those
+ * arrays:</p>
+ * <ul>
+ *   <li>{@code age}, {@code weight} — {@code int[]} and {@code float[]}</li>
+ *   <li>{@code friendly}, {@code canFly} — packed bitsets (one bit per row)</li>
+ *   <li>species — one tag byte per row (see {@link Species#tag()})</li>
+ *   <li>{@code numberOfWings} / {@code numberOfFins} — one shared {@code int[]};
+ *       a row is either a bird or a fish, never both</li>
+ *   <li>{@code name}, {@code colour}, {@code home} — {@code String[]} references,
+ *       so repeated values are shared rather than copied</li>
+ * </ul>
+ *
+ * <p>Scanning one attribute (say every {@code age}) therefore walks a single
+ * contiguous array instead of chasing a pointer to every animal.</p>
+ *
+ * <p><b>Memory.</b> Measured with JOL on JDK 21 (64-bit, compressed oops,
+ * 1,000,000 rows split evenly between the species, strings shared between
+ * rows): a mixed {@code List<Animal>} costs about <b>56 bytes per animal</b> —
+ * a 48-byte {@code Dog} or {@code Cat}, or a 56-byte {@code Bird} or
+ * {@code Fish}, plus a 4-byte list slot. That counts the {@code observers},
+ * {@code stamp} and cached-description fields every {@code Animal} now
+ * carries, but not the arrays and descriptions they point to once an animal
+ * is observed or printed. This store uses about <b>25.3 bytes per animal</b>
+ * at full capacity, roughly 55% less. Neither figure includes the
+ * {@code String} contents themselves.</p>
+ *
+ * <p><b>Views.</b> {@link #get(int)} materialises a row as the matching
+ * {@code Dog}, {@code Cat}, {@code Bird} or {@code Fish}, and {@link #set(int, Animal)}
+ * writes one back. The returned object is a detached copy: changes to it are
+ * not reflected in the store until it is written back. To scan without
+ * creating an object per row, use a {@link #cursor()} instead.</p>
+ *
+ * <p>This class is not thread-safe; callers that share a store between
+ * threads must synchronise externally.</p>
+ */
+public class AnimalStore {
+
+    /** Capacity used when none is given. */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    // -------------------------------------------------------------------------
+    // Columns — one array per attribute, indexed by row
+    // -------------------------------------------------------------------------
+
+    /** Number of rows in use. */
+    private int size;
+
+    /** Species tag of each row. */
+    private byte[] species;
+
+    /** Name of each row. */
+    private String[] names;
+
+    /** Age of each row, in years. */
+    private int[] ages;
+
+    /** Weight of each row, in kilograms. */
+    private float[] weights;
+
+    /** Colour of each row. */
+    private String[] colours;
+
+    /** Friendliness of each row, one bit per row. */
+    private long[] friendly;
+
+    /** Home of each row. */
+    private String[] homes;
+
+    /** Number of wings (birds) or fins (fish); unused for dogs and cats. */
+    private int[] limbs;
+
+    /** Flight capability of each row, one bit per row; only set for birds. */
+    private long[] canFly;
+
+    // -------------------------------------------------------------------------
+    // Constructors
+    // -------------------------------------------------------------------------
+
+    /**
+     * Constructs an empty store with a small default capacity.
+     */
+    public AnimalStore() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty store able to hold {@code capacity} rows before
+     * it needs to grow.
+     *
+     * @param capacity the initial number of rows to allocate
+     * @throws IllegalArgumentException if {@code capacity} is negative
+     */
+    public AnimalStore(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity must not be negative: " + capacity);
+        }
+        species  = new byte[capacity];
+        names    = new String[capacity];
+        ages     = new int[capacity];
+        weights  = new float[capacity];
+        colours  = new String[capacity];
+        friendly = new long[words(capacity)];
+        homes    = new String[capacity];
+        limbs    = new int[capacity];
+        canFly   = new long[words(capacity)];
+    }
+
+    // -------------------------------------------------------------------------
+    // Adding and materialising rows
+    // -------------------------------------------------------------------------
+
+    /**
+     * Appends a copy of the given animal's attributes as a new row.
+     *
+     * @param animal the animal to copy into the store
+     * @return the row index of the new row
+     */
+    public int add(Animal animal) {
+        int row = size;
+        ensureCapacity(row + 1);
+        // The row counts only once it is written, so a failed copy leaves no row behind
+        write(row, animal);
+        size = row + 1;
+        return row;
+    }
+
+    /**
+     * Overwrites an existing row with a copy of the given animal's attributes.
+     * The row's species changes to match {@code animal}.
+     *
+     * @param row    the row to overwrite
+     * @param animal the animal to copy into the row
+     */
+    public void set(int row, Animal animal) {
+        checkRow(row);
+        write(row, animal);
+    }
+
+    /** Copies an animal into a row, which may be at or past {@link #size()}. */
+    private void write(int row, Animal animal) {
+        Species s = Species.of(animal);
+        species[row] = s.tag();
+        names[row]   = animal.getName();
+        ages[row]    = animal.getAge();
+        weights[row] = animal.getWeight();
+        colours[row] = animal.getColour();
+        homes[row]   = animal.getHome();
+        setBit(friendly, row, animal.isFriendly());
+
+        // Subclass-specific columns
+        switch (s) {
+            case BIRD -> {
+                Bird bird = (Bird) animal;
+                limbs[row] = bird.getNumberOfWings();
+                setBit(canFly, row, bird.canFly());
+            }
+            case FISH -> {
+                limbs[row] = ((Fish) animal).getNumberOfFins();
+                setBit(canFly, row, false);
+            }
+            default -> {
+                limbs[row] = 0;
+                setBit(canFly, row, false);
+            }
+        }
+    }
+
+    /**
+     * Materialises a row as a new {@code Dog}, {@code Cat}, {@code Bird} or
+     * {@code Fish}. The result is a detached copy of the row.
+     *
+     * @param row the row to read
+     * @return a new animal holding the row's attributes
+     */
+    public Animal get(int row) {
+        checkRow(row);
+        String  name   = names[row];
+        int     age    = ages[row];
+        float   weight = weights[row];
+        String  colour = colours[row];
+        boolean fr     = getBit(friendly, row);
+        String  home   = homes[row];
+
+        return switch (Species.fromTag(species[row])) {
+            case DOG  -> new Dog(name, age, weight, colour, fr, home);
+            case CAT  -> new Cat(name, age, weight, colour, fr, home);
+            case BIRD -> new Bird(name, age, weight, colour, fr, home, limbs[row], getBit(canFly, row));
+            case FISH -> new Fish(name, age, weight, colour, fr, home, limbs[row]);
+        };
+    }
+
+    /**
+     * Returns the number of rows in the store.
+     * @return the row count
+     */
+    public int size() { return size; }
+
+    /**
+     * Grows the columns, if necessary, so that at least {@code capacity} rows
+     * fit without further reallocation.
+     *
+     * @param capacity the minimum number of rows required
+     */
+    public void ensureCapacity(int capacity) {
+        int current = ages.length;
+        if (capacity <= current) {
+            return;
+        }
+        // Grow by half again, like ArrayList, so appends stay amortised O(1)
+        int grown = Math.max(capacity, current + (current >> 1) + 1);
+        species  = Arrays.copyOf(species, grown);
+        names    = Arrays.copyOf(names, grown);
+        ages     = Arrays.copyOf(ages, grown);
+        weights  = Arrays.copyOf(weights, grown);
+        colours  = Arrays.copyOf(colours, grown);
+        friendly = Arrays.copyOf(friendly, words(grown));
+        homes    = Arrays.copyOf(homes, grown);
+        limbs    = Arrays.copyOf(limbs, grown);
+        canFly   = Arrays.copyOf(canFly, words(grown));
+    }
+
+    // -------------------------------------------------------------------------
+    // Row accessors — the same attributes as Animal, addressed by row index
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns the species of a row.
+     * @param row the row index
+     * @return the species
+     */
+    public Species getSpecies(int row) { checkRow(row); return Species.fromTag(species[row]); }
+
+    /**
+     * Returns the name of a row.
+     * @param row the row index
+     * @return the name
+     */
+    public String getName(int row) { checkRow(row); return names[row]; }
+
+    /**
+     * Sets the name of a row.
+     * @param row  the row index
+     * @param name the new name
+     */
+    public void setName(int row, String name) { checkRow(row); names[row] = name; }
+
+    /**
+     * Returns the age of a row.
+     * @param row the row index
+     * @return the age in years
+     */
+    public int getAge(int row) { checkRow(row); return ages[row]; }
+
+    /**
+     * Sets the age of a row.
+     * @param row the row index
+     * @param age the new age in years
+     */
+    public void setAge(int row, int age) { checkRow(row); ages[row] = age; }
+
+    /**
+     * Returns the weight of a row.
+     * @param row the row index
+     * @return the weight in kilograms
+     */
+    public float getWeight(int row) { checkRow(row); return weights[row]; }
+
+    /**
+     * Sets the weight of a row.
+     * @param row    the row index
+     * @param weight the new weight in kilograms
+     */
+    public void setWeight(int row, float weight) { checkRow(row); weights[row] = weight; }
+
+    /**
+     * Returns the colour of a row.
+     * @param row the row index
+     * @return the colour
+     */
+    public String getColour(int row) { checkRow(row); return colours[row]; }
+
+    /**
+     * Sets the colour of a row.
+     * @param row    the row index
+     * @param colour the new colour
+     */
+    public void setColour(int row, String colour) { checkRow(row); colours[row] = colour; }
+
+    /**
+     * Returns whether a row is friendly.
+     * @param row the row index
+     * @return {@code true} if friendly
+     */
+    public boolean isFriendly(int row) { checkRow(row); return getBit(friendly, row); }
+
+    /**
+     * Sets the friendliness of a row.
+     * @param row      the row index
+     * @param friendly {@code true} if friendly
+     */
+    public void setFriendly(int row, boolean friendly) { checkRow(row); setBit(this.friendly, row, friendly); }
+
+    /**
+     * Returns the home of a row.
+     * @param row the row index
+     * @return the home description
+     */
+    public String getHome(int row) { checkRow(row); return homes[row]; }
+
+    /**
+     * Sets the home of a row.
+     * @param row  the row index
+     * @param home the new home description
+     */
+    public void setHome(int row, String home) { checkRow(row); homes[row] = home; }
+
+    /**
+     * Returns the number of wings of a bird row.
+     * @param row the row index; must hold a {@link Species#BIRD}
+     * @return the wing count
+     */
+    public int getNumberOfWings(int row) { checkSpecies(row, Species.BIRD); return limbs[row]; }
+
+    /**
+     * Sets the number of wings of a bird row.
+     * @param row           the row index; must hold a {@link Species#BIRD}
+     * @param numberOfWings the new wing count
+     */
+    public void setNumberOfWings(int row, int numberOfWings) { checkSpecies(row, Species.BIRD); limbs[row] = numberOfWings; }
+
+    /**
+     * Returns whether a bird row can fly.
+     * @param row the row index; must hold a {@link Species#BIRD}
+     * @return {@code true} if the bird can fly
+     */
+    public boolean canFly(int row) { checkSpecies(row, Species.BIRD); return getBit(canFly, row); }
+
+    /**
+     * Sets whether a bird row can fly.
+     * @param row    the row index; must hold a {@link Species#BIRD}
+     * @param canFly {@code true} if the bird can fly
+     */
+    public void setCanFly(int row, boolean canFly) { checkSpecies(row, Species.BIRD); setBit(this.canFly, row, canFly); }
+
+    /**
+     * Returns the number of fins of a fish row.
+     * @param row the row index; must hold a {@link Species#FISH}
+     * @return the fin count
+     */
+    public int getNumberOfFins(int row) { checkSpecies(row, Species.FISH); return limbs[row]; }
+
+    /**
+     * Sets the number of fins of a fish row.
+     * @param row          the row index; must hold a {@link Species#FISH}
+     * @param numberOfFins the new fin count
+     */
+    public void setNumberOfFins(int row, int numberOfFins) { checkSpecies(row, Species.FISH); limbs[row] = numberOfFins; }
+
+    // -------------------------------------------------------------------------
+    // Column analytics — whole-column kernels, vectorized where available
+    // -------------------------------------------------------------------------
+    //
+    // These scan the weight and age columns directly with ColumnKernels, which
+    // uses the Vector API when the JVM runs with
+    // --add-modules jdk.incubator.vector and plain loops otherwise.
+
+    /**
+     * Returns the total weight of every row, in kilograms.
+     * @return the sum of the weight column
+     */
+    public double totalWeight() { return ColumnKernels.sum(weights, 0, size); }
+
+    /**
+     * Returns the mean weight, or {@code NaN} if the store is empty.
+     * @return the mean of the weight column
+     */
+    public double meanWeight() { return ColumnKernels.mean(weights, 0, size); }
+
+    /**
+     * Returns the smallest weight.
+     * @return the minimum of the weight column
+     * @throws NoSuchElementException if the store is empty
+     */
+    public float minWeight() { checkNotEmpty(); return ColumnKernels.min(weights, 0, size); }
+
+    /**
+     * Returns the largest weight.
+     * @return the maximum of the weight column
+     * @throws NoSuchElementException if the store is empty
+     */
+    public float maxWeight() { checkNotEmpty(); return ColumnKernels.max(weights, 0, size); }
+
+    /**
+     * Returns how many rows weigh between {@code min} and {@code max} kilograms, inclusive.
+     * @param min the lightest weight to count
+     * @param max the heaviest weight to count
+     * @return the number of matching rows
+     */
+    public int countWeightBetween(float min, float max) {
+        return ColumnKernels.countBetween(weights, 0, size, min, max);
+    }
+
+    /**
+     * Returns the rows that weigh between {@code min} and {@code max} kilograms, inclusive.
+     * @param min the lightest weight to select
+     * @param max the heaviest weight to select
+     * @return the matching row indexes, in ascending order
+     */
+    public int[] rowsWithWeightBetween(float min, float max) {
+        int[] rows = new int[size];
+        return Arrays.copyOf(rows, ColumnKernels.selectBetween(weights, 0, size, min, max, rows));
+    }
+
+    /**
+     * Returns the total age of every row, in years.
+     * @return the exact sum of the age column
+     */
+    public long totalAge() { return ColumnKernels.sum(ages, 0, size); }
+
+    /**
+     * Returns the mean age, or {@code NaN} if the store is empty.
+     * @return the mean of the age column
+     */
+    public double meanAge() { return ColumnKernels.mean(ages, 0, size); }
+
+    /**
+     * Returns the smallest age.
+     * @return the minimum of the age column
+     * @throws NoSuchElementException if the store is empty
+     */
+    public int minAge() { checkNotEmpty(); return ColumnKernels.min(ages, 0, size); }
+
+    /**
+     * Returns the largest age.
+     * @return the maximum of the age column
+     * @throws NoSuchElementException if the store is empty
+     */
+    public int maxAge() { checkNotEmpty(); return ColumnKernels.max(ages, 0, size); }
+
+    /**
+     * Returns how many rows are aged between {@code min} and {@code max} years, inclusive.
+     * @param min the youngest age to count
+     * @param max the oldest age to count
+     * @return the number of matching rows
+     */
+    public int countAgeBetween(int min, int max) {
+        return ColumnKernels.countBetween(ages, 0, size, min, max);
+    }
+
+    /**
+     * Returns the rows aged between {@code min} and {@code max} years, inclusive.
+     * @param min the youngest age to select
+     * @param max the oldest age to select
+     * @return the matching row indexes, in ascending order
+     */
+    public int[] rowsWithAgeBetween(int min, int max) {
+        int[] rows = new int[size];
+        return Arrays.copyOf(rows, ColumnKernels.selectBetween(ages, 0, size, min, max, rows));
+    }
+
+    // -------------------------------------------------------------------------
+    // Cursor
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns a new cursor positioned before the first row.
+     * @return a cursor over this store
+     */
+    public Cursor cursor() {
+        return new Cursor(this);
+    }
+
+    /**
+     * An {@link AnimalCursor} over an {@code AnimalStore}. The strings are
+     * already on the heap, so {@link #name()} and {@link #getName()} return the
+     * same {@code String} and nothing the cursor does allocates, apart from
+     * {@link #toAnimal()}.
+     */
+    public static final class Cursor implements AnimalCursor {
+
+        private final AnimalStore store;
+
+        /** The current row; {@code -1} before the first row. */
+        private int row = -1;
+
+        private Cursor(AnimalStore store) {
+            this.store = store;
+        }
+
+        @Override
+        public boolean next() {
+            if (row + 1 < store.size) {
+                row++;
+                return true;
+            }
+            row = store.size;
+            return false;
+        }
+
+        @Override
+        public void moveTo(long row) {
+            if (row < 0 || row >= store.size) {
+                throw new IndexOutOfBoundsException("Row " + row + " out of bounds for size " + store.size);
+            }
+            this.row = (int) row;
+        }
+
+        @Override
+        public void reset() { row = -1; }
+
+        @Override
+        public long row() { return row; }
+
+        @Override
+        public Species getSpecies() { return store.getSpecies(row); }
+
+        @Override
+        public String getName() { return store.getName(row); }
+
+        @Override
+        public int getAge() { return store.getAge(row); }
+
+        @Override
+        public float getWeight() { return store.getWeight(row); }
+
+        @Override
+        public String getColour() { return store.getColour(row); }
+
+        @Override
+        public boolean isFriendly() { return store.isFriendly(row); }
+
+        @Override
+        public String getHome() { return store.getHome(row); }
+
+        @Override
+        public int getNumberOfWings() { return store.getNumberOfWings(row); }
+
+        @Override
+        public boolean canFly() { return store.canFly(row); }
+
+        @Override
+        public int getNumberOfFins() { return store.getNumberOfFins(row); }
+
+        @Override
+        public CharSequence name() { return store.getName(row); }
+
+        @Override
+        public CharSequence colour() { return store.getColour(row); }
+
+        @Override
+        public CharSequence home() { return store.getHome(row); }
+
+        @Override
+        public Animal toAnimal() { return store.get(row); }
+    }
+
+    // -------------------------------------------------------------------------
+    // Helpers
+    // -------------------------------------------------------------------------
+
+    /** Returns the number of 64-bit words needed to hold {@code bits} bits. */
+    private static int words(int bits) {
+        return (bits + 63) >>> 6;
+    }
+
+    /** Reads one bit of a packed bitset. */
+    private static boolean getBit(long[] bits, int row) {
+        return (bits[row >>> 6] & (1L << row)) != 0;
+    }
+
+    /** Writes one bit of a packed bitset. */
+    private static void setBit(long[] bits, int row, boolean value) {
+        if (value) {
+            bits[row >>> 6] |= 1L << row;
+        } else {
+            bits[row >>> 6] &= ~(1L << row);
+        }
+    }
+
+    /** Rejects row indexes outside {@code [0, size)}. */
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of bounds for size " + size);
+        }
+    }
+
+    /** Rejects a minimum or maximum of no rows. */
+    private void checkNotEmpty() {
+        if (size == 0) {
+            throw new NoSuchElementException("Store is empty");
+        }
+    }
+
+    /** Rejects rows that do not hold the expected species. */
+    private void checkSpecies(int row, Species expected) {
+        checkRow(row);
+        if (species[row] != expected.tag()) {
+            throw new IllegalStateException("Row " + row + " is a " + Species.fromTag(species[row])
+                    + ", not a " + expected);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package animals.store;
+
+import java.util.Objects;
+
+/**
+ * Sum, minimum, maximum, mean and range-count kernels over primitive
+ * columns such as {@link AnimalStore}'s weights and ages.
+ *
+ * <p>When the JVM is started with {@code --add-modules jdk.incubator.vector},
+ * the kernels use the Vector API and process a whole SIMD register of values
+ * per instruction. Otherwise — or with {@code -Danimals.vector=false} — they
+ * fall back to plain loops. {@link #implementation()} says which is in use.
+ * Both give the same results, except that a vectorized float sum adds in a
+ * different order and may differ from the scalar sum in the last bits.</p>
+ *
+ * <p>Every method works on {@code values[from, to)}. "Between" is inclusive
+ * at both ends; {@code NaN} is never between anything, and {@code min}
+ * and {@code max} return {@code NaN} if any value is {@code NaN}, as
+ * {@link Math#min(float, float)} does. All methods are thread-safe.</p>
+ */
+public final class ColumnKernels {
+
+    private static final Kernels KERNELS = load();
+
+    private ColumnKernels() {
+        // Static methods only
+    }
+
+    /**
+     * Chooses the vector kernels if the module is present and not disabled.
+     * They are loaded reflectively so that this class still links without it.
+     */
+    private static Kernels load() {
+        if (!Boolean.parseBoolean(System.getProperty("animals.vector", "true"))
+                || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return new ScalarKernels();
+        }
+        try {
+            return (Kernels) Class.forName("animals.store.VectorKernels").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return new ScalarKernels();
+        }
+    }
+
+    /**
+     * Returns a description of the kernels in use, such as
+     * {@code "Vector API (256-bit, 8 float lanes)"} or {@code "scalar"}.
+     */
+    public static String implementation() {
+        return KERNELS instanceof ScalarKernels ? "scalar" : "Vector API (" + VectorKernels.shape() + ")";
+    }
+
+    // -------------------------------------------------------------------------
+    // float columns
+    // -------------------------------------------------------------------------
+
+    /** Returns the sum of the values, accumulated in {@code double} precision. */
+    public static double sum(float[] values, int from, int to) {
+        Objects.checkFromToIndex(from, to, values.length);
+        return KERNELS.sum(values, from, to);
+    }
+
+    /** Returns the mean of the values, or {@code NaN} if the range is empty. */
+    public static double mean(float[] values, int from, int to) {
+        return from == to ? Double.NaN : sum(values, from, to) / (to - from);
+    }
+
+    /** Returns the smallest value, or {@code +Infinity} if the range is empty. */
+    public static float min(float[] values, int from, int to) {
+        Objects.checkFromToIndex(from, to, values.length);
+        return KERNELS.min(values, from, to);
+    }
+
+    /** Returns the largest value, or {@code -Infinity} if the range is empty. */
+    public static float max(float[] values, int from, int to) {
+        Objects.checkFromToIndex(from, to, values.length);
+        return KERNELS.max(values, from, to);
+    }
+
+    /** Returns how many values lie in {@code [min, max]}. */
+    public static int countBetween(float[] values, int from, int to, float min, float max) {
+        Objects.checkFromToIndex(from, to, values.length);
+        return KERNELS.countBetween(values, from, to, min, max);
+    }
+
+    /**
+     * Writes the index of every value in {@code [min, max]} to {@code rows},
+     * in ascending order, and returns how many were written.
+     *
+     * @throws IndexOutOfBoundsException if {@code rows} is shorter than {@code to - from}
+     */
+    public static int selectBetween(float[] values, int from, int to, float min, float max, int[] rows) {
+        Objects.checkFromToIndex(from, to, values.length);
+        Objects.checkFromToIndex(0, to - from, rows.length);
+        return KERNELS.selectBetween(values, from, to, min, max, rows);
+    }
+
+    // -------------------------------------------------------------------------
+    // int columns
+    // -------------------------------------------------------------------------
+
+    /** Returns the exact sum of the values. */
+    public static long sum(int[] values, int from, int to) {
+        Objects.checkFromToIndex(from, to, values.length);
+        return KERNELS.sum(values, from, to);
+    }
+
+    /** Returns the mean of the values, or {@code NaN} if the range is empty. */
+    public static double mean(int[] values, int from, int to) {
+        return from == to ? Double.NaN : (double) sum(values, from, to) / (to - from);
+    }
+
+    /** Returns the smallest value, or {@link Integer#MAX_VALUE} if the range is empty. */
+    public static int min(int[] values, int from, int to) {
+        Objects.checkFromToIndex(from, to, values.length);
+        return KERNELS.min(values, from, to);
+    }
+
+    /** Returns the largest value, or {@link Integer#MIN_VALUE} if the range is empty. */
+    public static int max(int[] values, int from, int to) {
+        Objects.checkFromToIndex(from, to, values.length);
+        return KERNELS.max(values, from, to);
+    }
+
+    /** Returns how many values lie in {@code [min, max]}. */
+    public static int countBetween(int[] values, int from, int to, int min, int max) {
+        Objects.checkFromToIndex(from, to, values.length);
+        return KERNELS.countBetween(values, from, to, min, max);
+    }
+
+    /**
+     * Writes the index of every value in {@code [min, max]} to {@code rows},
+     * in ascending order, and returns how many were written.
+     *
+     * @throws IndexOutOfBoundsException if {@code rows} is shorter than {@code to - from}
+     */
+    public static int selectBetween(int[] values, int from, int to, int min, int max, int[] rows) {
+        Objects.checkFromToIndex(from, to, values.length);
+        Objects.checkFromToIndex(0, to - from, rows.length);
+        return KERNELS.selectBetween(values, from, to, min, max, rows);
+    }
+}
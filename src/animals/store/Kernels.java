@@ -0,0 +1,36 @@
+package animals.store;
+
+/**
+ * Aggregation and predicate kernels over a primitive column, implemented by
+ * {@link ScalarKernels} and {@link VectorKernels}. {@link ColumnKernels}
+ * checks the ranges and picks the implementation.
+ *
+ * <p>Every method works on the elements {@code [from, to)} of its array. The
+ * minimum and maximum of an empty range are the identities of {@code min}
+ * and {@code max}. "Between" is inclusive at both ends, and {@code NaN} is
+ * never between anything.</p>
+ */
+interface Kernels {
+
+    double sum(float[] values, int from, int to);
+
+    long sum(int[] values, int from, int to);
+
+    float min(float[] values, int from, int to);
+
+    float max(float[] values, int from, int to);
+
+    int min(int[] values, int from, int to);
+
+    int max(int[] values, int from, int to);
+
+    int countBetween(float[] values, int from, int to, float min, float max);
+
+    int countBetween(int[] values, int from, int to, int min, int max);
+
+    /** Writes the index of every matching element to {@code rows}, in order; returns how many. */
+    int selectBetween(float[] values, int from, int to, float min, float max, int[] rows);
+
+    /** Writes the index of every matching element to {@code rows}, in order; returns how many. */
+    int selectBetween(int[] values, int from, int to, int min, int max, int[] rows);
+}
@@ -0,0 +1,592 @@
+package animals.store;
+
+import animals.Animal;
+import animals.Bird;
+import animals.Cat;
+import animals.Dog;
+import animals.Fish;
+import animals.Species;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemoryLayout;
+import java.lang.foreign.MemoryLayout.PathElement;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.StructLayout;
+import java.lang.foreign.ValueLayout;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * An animal population stored entirely outside the Java heap.
+ *
+ * <p>Each animal is one fixed-size record in a {@link MemorySegment} laid out
+ * by {@link #RECORD}, which mirrors the fields of {@link Animal} plus the
+ * {@link Bird} and {@link Fish} extras. Strings are UTF-8 encoded into a
+ * second, bump-allocated segment and each record keeps a packed
+ * (offset, length) reference to them. Nothing per-animal is visible to the
+ * garbage collector, so a 100M-animal population costs the GC nothing to
+ * trace.</p>
+ *
+ * <p><b>Lifetime.</b> All memory is allocated from one {@link Arena}. Closing
+ * that arena frees every record and every string in bulk; any later access
+ * throws {@code IllegalStateException}. Populations created with
+ * {@link #allocate(long, long)} own a shared arena and free it in
+ * {@link #close()}; those created with {@link #allocate(Arena, long, long)}
+ * live exactly as long as the caller's arena.</p>
+ *
+ * <p><b>Strings.</b> Setting a string appends its bytes to the string segment;
+ * the old bytes are not reclaimed until the arena is closed. Reading a string
+ * necessarily creates a new {@code String} on the heap; a {@link #cursor()}
+ * can instead decode it into a reused buffer.</p>
+ *
+ * <p>Reads and writes of existing records are plain memory accesses and may be
+ * made from any thread when the arena is shared; {@link #add(Animal)} and the
+ * string setters are not thread-safe.</p>
+ */
+public final class OffHeapPopulation implements AutoCloseable {
+
+    // -------------------------------------------------------------------------
+    // Record layout — 40 bytes per animal
+    // -------------------------------------------------------------------------
+
+    /** Layout of one animal record. */
+    public static final StructLayout RECORD = MemoryLayout.structLayout(
+            ValueLayout.JAVA_LONG.withName("name"),
+            ValueLayout.JAVA_LONG.withName("colour"),
+            ValueLayout.JAVA_LONG.withName("home"),
+            ValueLayout.JAVA_FLOAT.withName("weight"),
+            ValueLayout.JAVA_INT.withName("age"),
+            ValueLayout.JAVA_INT.withName("limbs"),     // wings (Bird) or fins (Fish)
+            ValueLayout.JAVA_BYTE.withName("species"),
+            ValueLayout.JAVA_BYTE.withName("flags"),    // FRIENDLY | CAN_FLY
+            MemoryLayout.paddingLayout(2)
+    ).withName("animal");
+
+    private static final long NAME    = RECORD.byteOffset(PathElement.groupElement("name"));
+    private static final long COLOUR  = RECORD.byteOffset(PathElement.groupElement("colour"));
+    private static final long HOME    = RECORD.byteOffset(PathElement.groupElement("home"));
+    private static final long WEIGHT  = RECORD.byteOffset(PathElement.groupElement("weight"));
+    private static final long AGE     = RECORD.byteOffset(PathElement.groupElement("age"));
+    private static final long LIMBS   = RECORD.byteOffset(PathElement.groupElement("limbs"));
+    private static final long SPECIES = RECORD.byteOffset(PathElement.groupElement("species"));
+    private static final long FLAGS   = RECORD.byteOffset(PathElement.groupElement("flags"));
+
+    /** Flag bit: the animal is friendly. */
+    private static final byte FRIENDLY = 1;
+
+    /** Flag bit: the bird can fly. */
+    private static final byte CAN_FLY  = 2;
+
+    /** Low bits of a string reference hold the byte length; the rest the offset. */
+    private static final int  LENGTH_BITS = 24;
+    private static final long LENGTH_MASK = (1L << LENGTH_BITS) - 1;
+
+    // -------------------------------------------------------------------------
+    // State
+    // -------------------------------------------------------------------------
+
+    /** The arena every segment is allocated from. */
+    private final Arena arena;
+
+    /** Whether {@link #close()} should close {@link #arena}. */
+    private final boolean ownsArena;
+
+    /** The record array. */
+    private final MemorySegment records;
+
+    /** The UTF-8 string heap. */
+    private final MemorySegment strings;
+
+    /** Maximum number of records. */
+    private final long capacity;
+
+    /** Number of records in use. */
+    private long size;
+
+    /** Next free byte in {@link #strings}. */
+    private long stringTop;
+
+    // -------------------------------------------------------------------------
+    // Allocation
+    // -------------------------------------------------------------------------
+
+    /**
+     * Allocates a population backed by its own shared arena, freed by {@link #close()}.
+     *
+     * @param capacity    the maximum number of animals
+     * @param stringBytes the size of the UTF-8 string heap, in bytes
+     * @return a new, empty population
+     */
+    public static OffHeapPopulation allocate(long capacity, long stringBytes) {
+        return new OffHeapPopulation(Arena.ofShared(), true, capacity, stringBytes);
+    }
+
+    /**
+     * Allocates a population inside a caller-owned arena. The population is
+     * freed, together with everything else in the arena, when the arena is closed.
+     *
+     * @param arena       the arena to allocate from
+     * @param capacity    the maximum number of animals
+     * @param stringBytes the size of the UTF-8 string heap, in bytes
+     * @return a new, empty population
+     */
+    public static OffHeapPopulation allocate(Arena arena, long capacity, long stringBytes) {
+        return new OffHeapPopulation(arena, false, capacity, stringBytes);
+    }
+
+    private OffHeapPopulation(Arena arena, boolean ownsArena, long capacity, long stringBytes) {
+        if (capacity < 0 || stringBytes < 0) {
+            throw new IllegalArgumentException("Capacity and string heap size must not be negative");
+        }
+        this.arena     = arena;
+        this.ownsArena = ownsArena;
+        this.capacity  = capacity;
+        this.records   = arena.allocate(RECORD.byteSize() * capacity, RECORD.byteAlignment());
+        this.strings   = arena.allocate(Math.max(stringBytes, 1), 1);
+    }
+
+    /**
+     * Frees all memory if this population owns its arena; otherwise does nothing.
+     */
+    @Override
+    public void close() {
+        if (ownsArena) {
+            arena.close();
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Adding and materialising animals
+    // -------------------------------------------------------------------------
+
+    /**
+     * Appends a copy of the given animal as a new record.
+     *
+     * <p>The record becomes visible only once it is complete: if the animal's
+     * strings do not fit in the string heap, nothing is written and the
+     * population is unchanged.</p>
+     *
+     * @param animal the animal to copy
+     * @return the index of the new record
+     * @throws IllegalStateException if the population is full or the string heap is exhausted
+     */
+    public long add(Animal animal) {
+        if (size == capacity) {
+            throw new IllegalStateException("Population is full (capacity " + capacity + ")");
+        }
+        byte[] name   = utf8(animal.getName());
+        byte[] colour = utf8(animal.getColour());
+        byte[] home   = utf8(animal.getHome());
+        reserve(length(name) + length(colour) + length(home));
+
+        // Not yet counted in size, so offset() would reject it
+        long index = size;
+        long base  = index * RECORD.byteSize();
+        Species species = Species.of(animal);
+
+        records.set(ValueLayout.JAVA_BYTE, base + SPECIES, species.tag());
+        records.set(ValueLayout.JAVA_LONG, base + NAME, putString(name));
+        records.set(ValueLayout.JAVA_LONG, base + COLOUR, putString(colour));
+        records.set(ValueLayout.JAVA_LONG, base + HOME, putString(home));
+        records.set(ValueLayout.JAVA_FLOAT, base + WEIGHT, animal.getWeight());
+        records.set(ValueLayout.JAVA_INT, base + AGE, animal.getAge());
+
+        byte flags = animal.isFriendly() ? FRIENDLY : 0;
+        int limbs = 0;
+        if (animal instanceof Bird bird) {
+            limbs = bird.getNumberOfWings();
+            if (bird.canFly()) {
+                flags |= CAN_FLY;
+            }
+        } else if (animal instanceof Fish fish) {
+            limbs = fish.getNumberOfFins();
+        }
+        records.set(ValueLayout.JAVA_INT, base + LIMBS, limbs);
+        records.set(ValueLayout.JAVA_BYTE, base + FLAGS, flags);
+        size = index + 1;
+        return index;
+    }
+
+    /**
+     * Materialises a record as a new, on-heap {@code Dog}, {@code Cat},
+     * {@code Bird} or {@code Fish}.
+     *
+     * @param index the record index
+     * @return a detached copy of the record
+     */
+    public Animal get(long index) {
+        String  name     = getName(index);
+        int     age      = getAge(index);
+        float   weight   = getWeight(index);
+        String  colour   = getColour(index);
+        boolean friendly = isFriendly(index);
+        String  home     = getHome(index);
+
+        return switch (getSpecies(index)) {
+            case DOG  -> new Dog(name, age, weight, colour, friendly, home);
+            case CAT  -> new Cat(name, age, weight, colour, friendly, home);
+            case BIRD -> new Bird(name, age, weight, colour, friendly, home, getNumberOfWings(index), canFly(index));
+            case FISH -> new Fish(name, age, weight, colour, friendly, home, getNumberOfFins(index));
+        };
+    }
+
+    /**
+     * Returns the number of records in use.
+     * @return the population size
+     */
+    public long size() { return size; }
+
+    /**
+     * Returns the maximum number of records.
+     * @return the capacity
+     */
+    public long capacity() { return capacity; }
+
+    // -------------------------------------------------------------------------
+    // Getters and Setters — read and write the record segment directly
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns the species of a record.
+     * @param index the record index
+     * @return the species
+     */
+    public Species getSpecies(long index) {
+        return Species.fromTag(records.get(ValueLayout.JAVA_BYTE, offset(index) + SPECIES));
+    }
+
+    /**
+     * Returns the name of a record.
+     * @param index the record index
+     * @return the name
+     */
+    public String getName(long index) { return getString(offset(index) + NAME); }
+
+    /**
+     * Sets the name of a record.
+     * @param index the record index
+     * @param name  the new name
+     */
+    public void setName(long index, String name) { setString(offset(index) + NAME, name); }
+
+    /**
+     * Returns the age of a record.
+     * @param index the record index
+     * @return the age in years
+     */
+    public int getAge(long index) { return records.get(ValueLayout.JAVA_INT, offset(index) + AGE); }
+
+    /**
+     * Sets the age of a record.
+     * @param index the record index
+     * @param age   the new age in years
+     */
+    public void setAge(long index, int age) { records.set(ValueLayout.JAVA_INT, offset(index) + AGE, age); }
+
+    /**
+     * Returns the weight of a record.
+     * @param index the record index
+     * @return the weight in kilograms
+     */
+    public float getWeight(long index) { return records.get(ValueLayout.JAVA_FLOAT, offset(index) + WEIGHT); }
+
+    /**
+     * Sets the weight of a record.
+     * @param index  the record index
+     * @param weight the new weight in kilograms
+     */
+    public void setWeight(long index, float weight) { records.set(ValueLayout.JAVA_FLOAT, offset(index) + WEIGHT, weight); }
+
+    /**
+     * Returns the colour of a record.
+     * @param index the record index
+     * @return the colour
+     */
+    public String getColour(long index) { return getString(offset(index) + COLOUR); }
+
+    /**
+     * Sets the colour of a record.
+     * @param index  the record index
+     * @param colour the new colour
+     */
+    public void setColour(long index, String colour) { setString(offset(index) + COLOUR, colour); }
+
+    /**
+     * Returns whether a record is friendly.
+     * @param index the record index
+     * @return {@code true} if friendly
+     */
+    public boolean isFriendly(long index) { return hasFlag(index, FRIENDLY); }
+
+    /**
+     * Sets the friendliness of a record.
+     * @param index    the record index
+     * @param friendly {@code true} if friendly
+     */
+    public void setFriendly(long index, boolean friendly) { setFlag(index, FRIENDLY, friendly); }
+
+    /**
+     * Returns the home of a record.
+     * @param index the record index
+     * @return the home description
+     */
+    public String getHome(long index) { return getString(offset(index) + HOME); }
+
+    /**
+     * Sets the home of a record.
+     * @param index the record index
+     * @param home  the new home description
+     */
+    public void setHome(long index, String home) { setString(offset(index) + HOME, home); }
+
+    /**
+     * Returns the number of wings of a bird record.
+     * @param index the record index; must hold a {@link Species#BIRD}
+     * @return the wing count
+     */
+    public int getNumberOfWings(long index) { return getLimbs(index, Species.BIRD); }
+
+    /**
+     * Sets the number of wings of a bird record.
+     * @param index         the record index; must hold a {@link Species#BIRD}
+     * @param numberOfWings the new wing count
+     */
+    public void setNumberOfWings(long index, int numberOfWings) { setLimbs(index, Species.BIRD, numberOfWings); }
+
+    /**
+     * Returns whether a bird record can fly.
+     * @param index the record index; must hold a {@link Species#BIRD}
+     * @return {@code true} if the bird can fly
+     */
+    public boolean canFly(long index) { checkSpecies(index, Species.BIRD); return hasFlag(index, CAN_FLY); }
+
+    /**
+     * Sets whether a bird record can fly.
+     * @param index  the record index; must hold a {@link Species#BIRD}
+     * @param canFly {@code true} if the bird can fly
+     */
+    public void setCanFly(long index, boolean canFly) { checkSpecies(index, Species.BIRD); setFlag(index, CAN_FLY, canFly); }
+
+    /**
+     * Returns the number of fins of a fish record.
+     * @param index the record index; must hold a {@link Species#FISH}
+     * @return the fin count
+     */
+    public int getNumberOfFins(long index) { return getLimbs(index, Species.FISH); }
+
+    /**
+     * Sets the number of fins of a fish record.
+     * @param index        the record index; must hold a {@link Species#FISH}
+     * @param numberOfFins the new fin count
+     */
+    public void setNumberOfFins(long index, int numberOfFins) { setLimbs(index, Species.FISH, numberOfFins); }
+
+    // -------------------------------------------------------------------------
+    // Cursor
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns a new cursor positioned before the first record.
+     * @return a cursor over this population
+     */
+    public Cursor cursor() {
+        return new Cursor(this);
+    }
+
+    /**
+     * An {@link AnimalCursor} over an {@code OffHeapPopulation}. The numeric
+     * and boolean accessors read the record in place. {@link #getName()},
+     * {@link #getColour()} and {@link #getHome()} decode a new {@code String}
+     * as the population's own getters do; {@link #name()}, {@link #colour()}
+     * and {@link #home()} decode into one buffer per attribute, reused for
+     * every record, and so allocate nothing once the buffers have grown to
+     * fit the longest string.
+     */
+    public static final class Cursor implements AnimalCursor {
+
+        private final OffHeapPopulation population;
+
+        private final Utf8Chars name   = new Utf8Chars();
+        private final Utf8Chars colour = new Utf8Chars();
+        private final Utf8Chars home   = new Utf8Chars();
+
+        /** The current record; {@code -1} before the first record. */
+        private long index = -1;
+
+        private Cursor(OffHeapPopulation population) {
+            this.population = population;
+        }
+
+        @Override
+        public boolean next() {
+            if (index + 1 < population.size) {
+                index++;
+                return true;
+            }
+            index = population.size;
+            return false;
+        }
+
+        @Override
+        public void moveTo(long row) {
+            population.offset(row);
+            index = row;
+        }
+
+        @Override
+        public void reset() { index = -1; }
+
+        @Override
+        public long row() { return index; }
+
+        @Override
+        public Species getSpecies() { return population.getSpecies(index); }
+
+        @Override
+        public String getName() { return population.getName(index); }
+
+        @Override
+        public int getAge() { return population.getAge(index); }
+
+        @Override
+        public float getWeight() { return population.getWeight(index); }
+
+        @Override
+        public String getColour() { return population.getColour(index); }
+
+        @Override
+        public boolean isFriendly() { return population.isFriendly(index); }
+
+        @Override
+        public String getHome() { return population.getHome(index); }
+
+        @Override
+        public int getNumberOfWings() { return population.getNumberOfWings(index); }
+
+        @Override
+        public boolean canFly() { return population.canFly(index); }
+
+        @Override
+        public int getNumberOfFins() { return population.getNumberOfFins(index); }
+
+        @Override
+        public CharSequence name() { return population.getChars(population.offset(index) + NAME, name); }
+
+        @Override
+        public CharSequence colour() { return population.getChars(population.offset(index) + COLOUR, colour); }
+
+        @Override
+        public CharSequence home() { return population.getChars(population.offset(index) + HOME, home); }
+
+        @Override
+        public Animal toAnimal() { return population.get(index); }
+    }
+
+    // -------------------------------------------------------------------------
+    // Helpers
+    // -------------------------------------------------------------------------
+
+    /** Returns the byte offset of a record, rejecting indexes outside {@code [0, size)}. */
+    private long offset(long index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return index * RECORD.byteSize();
+    }
+
+    private boolean hasFlag(long index, byte flag) {
+        return (records.get(ValueLayout.JAVA_BYTE, offset(index) + FLAGS) & flag) != 0;
+    }
+
+    private void setFlag(long index, byte flag, boolean value) {
+        long at = offset(index) + FLAGS;
+        byte flags = records.get(ValueLayout.JAVA_BYTE, at);
+        records.set(ValueLayout.JAVA_BYTE, at, (byte) (value ? flags | flag : flags & ~flag));
+    }
+
+    private int getLimbs(long index, Species expected) {
+        checkSpecies(index, expected);
+        return records.get(ValueLayout.JAVA_INT, offset(index) + LIMBS);
+    }
+
+    private void setLimbs(long index, Species expected, int limbs) {
+        checkSpecies(index, expected);
+        records.set(ValueLayout.JAVA_INT, offset(index) + LIMBS, limbs);
+    }
+
+    /** Rejects records that do not hold the expected species. */
+    private void checkSpecies(long index, Species expected) {
+        Species actual = getSpecies(index);
+        if (actual != expected) {
+            throw new IllegalStateException("Record " + index + " is a " + actual + ", not a " + expected);
+        }
+    }
+
+    /** Reads the string referenced from the given record offset. */
+    private String getString(long at) {
+        long ref = records.get(ValueLayout.JAVA_LONG, at);
+        if (ref == -1) {
+            return null;
+        }
+        int length = (int) (ref & LENGTH_MASK);
+        byte[] bytes = new byte[length];
+        MemorySegment.copy(strings, ValueLayout.JAVA_BYTE, ref >>> LENGTH_BITS, bytes, 0, length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** Decodes the string referenced from the given record offset into {@code into}. */
+    private Utf8Chars getChars(long at, Utf8Chars into) {
+        long ref = records.get(ValueLayout.JAVA_LONG, at);
+        if (ref == -1) {
+            return null;
+        }
+        return into.decode(strings, ref >>> LENGTH_BITS, (int) (ref & LENGTH_MASK));
+    }
+
+    /** Stores a string and records its reference at the given record offset. */
+    private void setString(long at, String value) {
+        byte[] bytes = utf8(value);
+        reserve(length(bytes));
+        records.set(ValueLayout.JAVA_LONG, at, putString(bytes));
+    }
+
+    /**
+     * Encodes a string for the string heap, or returns {@code null} for
+     * {@code null}.
+     */
+    private static byte[] utf8(String value) {
+        if (value == null) {
+            return null;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > LENGTH_MASK) {
+            throw new IllegalArgumentException("String too long for off-heap storage: " + bytes.length + " bytes");
+        }
+        return bytes;
+    }
+
+    private static long length(byte[] bytes) {
+        return bytes == null ? 0 : bytes.length;
+    }
+
+    /** Fails before anything is written unless {@code bytes} more fit in the string heap. */
+    private void reserve(long bytes) {
+        if (stringTop + bytes > strings.byteSize()) {
+            throw new IllegalStateException("String heap exhausted (" + strings.byteSize() + " bytes)");
+        }
+    }
+
+    /**
+     * Appends encoded bytes, already {@linkplain #reserve reserved}, to the
+     * string heap and returns their packed reference, or {@code -1} for
+     * {@code null}.
+     */
+    private long putString(byte[] bytes) {
+        if (bytes == null) {
+            return -1;
+        }
+        long offset = stringTop;
+        MemorySegment.copy(bytes, 0, strings, ValueLayout.JAVA_BYTE, offset, bytes.length);
+        stringTop += bytes.length;
+        return (offset << LENGTH_BITS) | bytes.length;
+    }
+}
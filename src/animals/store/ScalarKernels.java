@@ -0,0 +1,110 @@
+package animals.store;
+
+/**
+ * Plain loops, used when the Vector API is not available. Float sums are
+ * accumulated in a {@code double}, in index order.
+ */
+final class ScalarKernels implements Kernels {
+
+    @Override
+    public double sum(float[] values, int from, int to) {
+        double sum = 0;
+        for (int i = from; i < to; i++) {
+            sum += values[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public long sum(int[] values, int from, int to) {
+        long sum = 0;
+        for (int i = from; i < to; i++) {
+            sum += values[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public float min(float[] values, int from, int to) {
+        float min = Float.POSITIVE_INFINITY;
+        for (int i = from; i < to; i++) {
+            min = Math.min(min, values[i]);
+        }
+        return min;
+    }
+
+    @Override
+    public float max(float[] values, int from, int to) {
+        float max = Float.NEGATIVE_INFINITY;
+        for (int i = from; i < to; i++) {
+            max = Math.max(max, values[i]);
+        }
+        return max;
+    }
+
+    @Override
+    public int min(int[] values, int from, int to) {
+        int min = Integer.MAX_VALUE;
+        for (int i = from; i < to; i++) {
+            min = Math.min(min, values[i]);
+        }
+        return min;
+    }
+
+    @Override
+    public int max(int[] values, int from, int to) {
+        int max = Integer.MIN_VALUE;
+        for (int i = from; i < to; i++) {
+            max = Math.max(max, values[i]);
+        }
+        return max;
+    }
+
+    @Override
+    public int countBetween(float[] values, int from, int to, float min, float max) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            float v = values[i];
+            if (v >= min && v <= max) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public int countBetween(int[] values, int from, int to, int min, int max) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            int v = values[i];
+            if (v >= min && v <= max) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public int selectBetween(float[] values, int from, int to, float min, float max, int[] rows) {
+        int n = 0;
+        for (int i = from; i < to; i++) {
+            float v = values[i];
+            if (v >= min && v <= max) {
+                rows[n++] = i;
+            }
+        }
+        return n;
+    }
+
+    @Override
+    public int selectBetween(int[] values, int from, int to, int min, int max, int[] rows) {
+        int n = 0;
+        for (int i = from; i < to; i++) {
+            int v = values[i];
+            if (v >= min && v <= max) {
+                rows[n++] = i;
+            }
+        }
+        return n;
+    }
+}
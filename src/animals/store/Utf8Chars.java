@@ -0,0 +1,107 @@
+package animals.store;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * A reusable {@link CharSequence} holding UTF-8 text decoded from a
+ * {@link MemorySegment}, so that off-heap strings can be read without
+ * creating a {@code String} each time.
+ *
+ * <p>ASCII text is widened byte by byte straight from the segment; anything
+ * else is copied out and run through a reused {@link CharsetDecoder}. The
+ * buffers grow to fit the longest text seen and are then reused, so decoding
+ * allocates nothing once they are large enough. Only {@link #toString()} and
+ * {@link #subSequence(int, int)} allocate.</p>
+ */
+final class Utf8Chars implements CharSequence {
+
+    private char[] chars = new char[32];
+    private int    length;
+
+    // Created on the first non-ASCII text, so ASCII-only scans never need them
+    private CharsetDecoder decoder;
+    private byte[]         bytes;
+    private ByteBuffer     in;
+    private CharBuffer     out;
+
+    /**
+     * Replaces the contents with the UTF-8 text at
+     * {@code segment[offset, offset + byteLength)}.
+     */
+    Utf8Chars decode(MemorySegment segment, long offset, int byteLength) {
+        if (chars.length < byteLength) {
+            // UTF-8 never decodes to more chars than it has bytes
+            chars = new char[Math.max(byteLength, chars.length * 2)];
+            out   = null;
+        }
+        for (int i = 0; i < byteLength; i++) {
+            byte b = segment.get(ValueLayout.JAVA_BYTE, offset + i);
+            if (b < 0) {
+                return decodeSlow(segment, offset, byteLength);
+            }
+            chars[i] = (char) b;
+        }
+        length = byteLength;
+        return this;
+    }
+
+    /** Decodes text with multi-byte sequences through the charset decoder. */
+    private Utf8Chars decodeSlow(MemorySegment segment, long offset, int byteLength) {
+        if (decoder == null) {
+            decoder = StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        }
+        if (bytes == null || bytes.length < byteLength) {
+            bytes = new byte[Math.max(byteLength, chars.length)];
+            in    = ByteBuffer.wrap(bytes);
+        }
+        if (out == null) {
+            out = CharBuffer.wrap(chars);
+        }
+        MemorySegment.copy(segment, ValueLayout.JAVA_BYTE, offset, bytes, 0, byteLength);
+        in.clear().limit(byteLength);
+        out.clear();
+        decoder.reset();
+        decoder.decode(in, out, true);
+        decoder.flush(out);
+        length = out.position();
+        return this;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        Objects.checkIndex(index, length);
+        return chars[index];
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return length == 0;
+    }
+
+    /** Returns a copy of part of the text as a new {@code String}. */
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        Objects.checkFromToIndex(start, end, length);
+        return new String(chars, start, end - start);
+    }
+
+    /** Returns a copy of the text as a new {@code String}. */
+    @Override
+    public String toString() {
+        return new String(chars, 0, length);
+    }
+}
@@ -0,0 +1,240 @@
+package animals.store;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Kernels written with the incubating Vector API ({@code jdk.incubator.vector}),
+ * which the JIT compiles to the widest SIMD instructions the CPU has — for
+ * example eight lanes per instruction with AVX2. Each loop handles whole
+ * vectors and finishes the last few elements with scalar code.
+ *
+ * <p>Loaded only when the module is present (see {@link ColumnKernels}).</p>
+ */
+final class VectorKernels implements Kernels {
+
+    private static final VectorSpecies<Float>   FLOATS = FloatVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> INTS   = IntVector.SPECIES_PREFERRED;
+
+    /**
+     * Vectors summed in float lanes before the partial sum is moved into a
+     * {@code double}, so rounding error stays that of a short sum.
+     */
+    private static final int FLOAT_BLOCK = 256;
+
+    /**
+     * Vectors summed per block in {@link #sum(int[], int, int)}: small enough
+     * that neither half-word lane sum can overflow even with 16 lanes.
+     */
+    private static final int INT_BLOCK = 2048;
+
+    /** Returns a description of the vector shape in use, e.g. "256-bit, 8 float lanes". */
+    static String shape() {
+        return FLOATS.vectorBitSize() + "-bit, " + FLOATS.length() + " float lanes";
+    }
+
+    // -------------------------------------------------------------------------
+    // Sums
+    // -------------------------------------------------------------------------
+
+    @Override
+    public double sum(float[] values, int from, int to) {
+        int lanes = FLOATS.length();
+        int upper = from + FLOATS.loopBound(to - from);
+        double sum = 0;
+        int i = from;
+        while (i < upper) {
+            int blockEnd = Math.min(upper, i + FLOAT_BLOCK * lanes);
+            FloatVector acc = FloatVector.zero(FLOATS);
+            for (; i < blockEnd; i += lanes) {
+                acc = acc.add(FloatVector.fromArray(FLOATS, values, i));
+            }
+            sum += acc.reduceLanes(VectorOperators.ADD);
+        }
+        for (; i < to; i++) {
+            sum += values[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Sums exactly in int lanes by splitting each value into its low and high
+     * 16 bits, which cannot overflow within a block; the halves are combined
+     * in a {@code long} after each block.
+     */
+    @Override
+    public long sum(int[] values, int from, int to) {
+        int lanes = INTS.length();
+        int upper = from + INTS.loopBound(to - from);
+        long sum = 0;
+        int i = from;
+        while (i < upper) {
+            int blockEnd = Math.min(upper, i + INT_BLOCK * lanes);
+            IntVector low  = IntVector.zero(INTS);
+            IntVector high = IntVector.zero(INTS);
+            for (; i < blockEnd; i += lanes) {
+                IntVector v = IntVector.fromArray(INTS, values, i);
+                low  = low.add(v.and(0xFFFF));
+                high = high.add(v.lanewise(VectorOperators.ASHR, 16));
+            }
+            sum += ((long) high.reduceLanes(VectorOperators.ADD) << 16) + low.reduceLanes(VectorOperators.ADD);
+        }
+        for (; i < to; i++) {
+            sum += values[i];
+        }
+        return sum;
+    }
+
+    // -------------------------------------------------------------------------
+    // Minimum and maximum
+    // -------------------------------------------------------------------------
+
+    @Override
+    public float min(float[] values, int from, int to) {
+        int upper = from + FLOATS.loopBound(to - from);
+        FloatVector acc = FloatVector.broadcast(FLOATS, Float.POSITIVE_INFINITY);
+        int i = from;
+        for (; i < upper; i += FLOATS.length()) {
+            acc = acc.min(FloatVector.fromArray(FLOATS, values, i));
+        }
+        float min = acc.reduceLanes(VectorOperators.MIN);
+        for (; i < to; i++) {
+            min = Math.min(min, values[i]);
+        }
+        return min;
+    }
+
+    @Override
+    public float max(float[] values, int from, int to) {
+        int upper = from + FLOATS.loopBound(to - from);
+        FloatVector acc = FloatVector.broadcast(FLOATS, Float.NEGATIVE_INFINITY);
+        int i = from;
+        for (; i < upper; i += FLOATS.length()) {
+            acc = acc.max(FloatVector.fromArray(FLOATS, values, i));
+        }
+        float max = acc.reduceLanes(VectorOperators.MAX);
+        for (; i < to; i++) {
+            max = Math.max(max, values[i]);
+        }
+        return max;
+    }
+
+    @Override
+    public int min(int[] values, int from, int to) {
+        int upper = from + INTS.loopBound(to - from);
+        IntVector acc = IntVector.broadcast(INTS, Integer.MAX_VALUE);
+        int i = from;
+        for (; i < upper; i += INTS.length()) {
+            acc = acc.min(IntVector.fromArray(INTS, values, i));
+        }
+        int min = acc.reduceLanes(VectorOperators.MIN);
+        for (; i < to; i++) {
+            min = Math.min(min, values[i]);
+        }
+        return min;
+    }
+
+    @Override
+    public int max(int[] values, int from, int to) {
+        int upper = from + INTS.loopBound(to - from);
+        IntVector acc = IntVector.broadcast(INTS, Integer.MIN_VALUE);
+        int i = from;
+        for (; i < upper; i += INTS.length()) {
+            acc = acc.max(IntVector.fromArray(INTS, values, i));
+        }
+        int max = acc.reduceLanes(VectorOperators.MAX);
+        for (; i < to; i++) {
+            max = Math.max(max, values[i]);
+        }
+        return max;
+    }
+
+    // -------------------------------------------------------------------------
+    // Range predicates
+    // -------------------------------------------------------------------------
+
+    @Override
+    public int countBetween(float[] values, int from, int to, float min, float max) {
+        int upper = from + FLOATS.loopBound(to - from);
+        int count = 0;
+        int i = from;
+        for (; i < upper; i += FLOATS.length()) {
+            FloatVector v = FloatVector.fromArray(FLOATS, values, i);
+            count += v.compare(VectorOperators.GE, min).and(v.compare(VectorOperators.LE, max)).trueCount();
+        }
+        for (; i < to; i++) {
+            float v = values[i];
+            if (v >= min && v <= max) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public int countBetween(int[] values, int from, int to, int min, int max) {
+        int upper = from + INTS.loopBound(to - from);
+        int count = 0;
+        int i = from;
+        for (; i < upper; i += INTS.length()) {
+            IntVector v = IntVector.fromArray(INTS, values, i);
+            count += v.compare(VectorOperators.GE, min).and(v.compare(VectorOperators.LE, max)).trueCount();
+        }
+        for (; i < to; i++) {
+            int v = values[i];
+            if (v >= min && v <= max) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public int selectBetween(float[] values, int from, int to, float min, float max, int[] rows) {
+        int upper = from + FLOATS.loopBound(to - from);
+        int n = 0;
+        int i = from;
+        for (; i < upper; i += FLOATS.length()) {
+            FloatVector v = FloatVector.fromArray(FLOATS, values, i);
+            n = append(v.compare(VectorOperators.GE, min).and(v.compare(VectorOperators.LE, max)), i, rows, n);
+        }
+        for (; i < to; i++) {
+            float v = values[i];
+            if (v >= min && v <= max) {
+                rows[n++] = i;
+            }
+        }
+        return n;
+    }
+
+    @Override
+    public int selectBetween(int[] values, int from, int to, int min, int max, int[] rows) {
+        int upper = from + INTS.loopBound(to - from);
+        int n = 0;
+        int i = from;
+        for (; i < upper; i += INTS.length()) {
+            IntVector v = IntVector.fromArray(INTS, values, i);
+            n = append(v.compare(VectorOperators.GE, min).and(v.compare(VectorOperators.LE, max)), i, rows, n);
+        }
+        for (; i < to; i++) {
+            int v = values[i];
+            if (v >= min && v <= max) {
+                rows[n++] = i;
+            }
+        }
+        return n;
+    }
+
+    /** Appends {@code base} plus the index of each set lane of {@code mask} to {@code rows}. */
+    private static int append(VectorMask<?> mask, int base, int[] rows, int n) {
+        long bits = mask.toLong();
+        while (bits != 0) {
+            rows[n++] = base + Long.numberOfTrailingZeros(bits);
+            bits &= bits - 1;
+        }
+        return n;
+    }
+}
@@ -0,0 +1,37 @@
+package animals;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AnimalTest {
+
+    @Test
+    void atomicAddsThatChangeNothingTellNoObserver() {
+        Dog dog = new Dog("Rex", 3, 20F, "brown", true, "kennel");
+        List<String> changes = new ArrayList<>();
+        dog.addObserver(new AnimalObserver() {
+            @Override
+            public void ageChanged(Animal animal, int oldAge, int newAge) {
+                changes.add("age " + oldAge + " -> " + newAge);
+            }
+
+            @Override
+            public void weightChanged(Animal animal, float oldWeight, float newWeight) {
+                changes.add("weight " + oldWeight + " -> " + newWeight);
+            }
+        });
+
+        assertEquals(3, dog.getAndAddAge(0));
+        assertEquals(20F, dog.addAndGetWeight(0F));
+        assertEquals(20F, dog.addAndGetWeight(1e-9F));
+        assertEquals(List.of(), changes);
+
+        assertEquals(3, dog.getAndAddAge(1));
+        assertEquals(20.5F, dog.addAndGetWeight(0.5F));
+        assertEquals(List.of("age 3 -> 4", "weight 20.0 -> 20.5"), changes);
+    }
+}
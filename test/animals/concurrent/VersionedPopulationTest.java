@@ -0,0 +1,57 @@
+package animals.concurrent;
+
+import animals.Dog;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VersionedPopulationTest {
+
+    @Test
+    void threadsWithLargeIdsCanTakeSnapshots() throws InterruptedException {
+        VersionedPopulation population = VersionedPopulation.builder().maxReaders(16).build();
+        int row = population.add(new Dog("Rex", 3, 20F, "brown", true, "kennel"));
+
+        // Burn thread ids until they are well past where the slot hash used to go negative
+        while (Thread.ofVirtual().unstarted(() -> { }).threadId() < 100_000) {
+            // Nothing to do: creating the thread takes the id
+        }
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        for (int i = 0; i < 64; i++) {
+            Thread thread = Thread.ofVirtual().start(() -> {
+                try (VersionedPopulation.Snapshot snapshot = population.snapshot()) {
+                    assertEquals(3, snapshot.get(row).age());
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            thread.join();
+            assertTrue(thread.threadId() >= 100_000);
+        }
+        assertNull(failure.get());
+    }
+
+    @Test
+    void latestNeverReadsALiveRowAsRemoved() throws InterruptedException {
+        VersionedPopulation population = VersionedPopulation.builder().build();
+        int row = population.add(new Dog("Rex", 0, 20F, "brown", true, "kennel"));
+
+        Thread writer = Thread.ofPlatform().start(() -> {
+            for (int i = 0; i < 200_000; i++) {
+                population.update(row, s -> s.withAge(s.age() + 1));
+            }
+        });
+        int last = 0;
+        while (writer.isAlive()) {
+            AnimalState state = population.latest(row);
+            assertTrue(state != null && state.age() >= last, "read " + state + " after age " + last);
+            last = state.age();
+        }
+        writer.join();
+        assertEquals(200_000, population.latest(row).age());
+    }
+}
@@ -0,0 +1,143 @@
+package animals.index;
+
+import animals.Animal;
+import animals.AnimalObserver;
+import animals.Cat;
+import animals.Dog;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AnimalRegistryTest {
+
+    @Test
+    void lateAgeCallbackLeavesTheRowUnderTheCurrentAge() throws InterruptedException {
+        Dog dog = new Dog("Rex", 0, 20F, "brown", true, "kennel");
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // Attached before the registry, so it holds up the registry's callback for 0 -> 1
+        dog.addObserver(new AnimalObserver() {
+            @Override
+            public void ageChanged(Animal animal, int oldAge, int newAge) {
+                if (newAge == 1) {
+                    entered.countDown();
+                    await(release);
+                }
+            }
+        });
+        AnimalRegistry registry = new AnimalRegistry();
+        registry.add(dog);
+
+        Thread first = Thread.ofPlatform().start(() -> dog.compareAndSetAge(0, 1));
+        assertTrue(entered.await(10, TimeUnit.SECONDS));
+        assertTrue(dog.compareAndSetAge(1, 2));
+        release.countDown();
+        first.join();
+
+        assertEquals(2, dog.getAge());
+        assertEquals(0, registry.query().ageBetween(0, 1).count());
+        assertEquals(1, registry.query().ageBetween(2, 2).count());
+        assertEquals(1, registry.query().ageBetween(0, 100).count());
+    }
+
+    @Test
+    void concurrentAtomicUpdatesKeepEveryIndexConsistent() throws InterruptedException {
+        List<Animal> animals = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            animals.add(i % 2 == 0 ? new Dog("Dog " + i, 0, 10F, "brown", true, "kennel")
+                                   : new Cat("Cat " + i, 0, 10F, "grey", false, "house"));
+        }
+        AnimalRegistry registry = new AnimalRegistry();
+        registry.addAll(animals);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int seed = t;
+            threads.add(Thread.ofPlatform().start(() -> {
+                Random random = new Random(seed);
+                for (int i = 0; i < 2_000; i++) {
+                    Animal animal = animals.get(random.nextInt(animals.size()));
+                    switch (random.nextInt(4)) {
+                        case 0  -> animal.getAndAddAge(1);
+                        case 1  -> animal.compareAndSetAge(animal.getAge(), random.nextInt(30));
+                        case 2  -> animal.addAndGetWeight(random.nextInt(2001) / 100F - 10F);
+                        default -> animal.compareAndSetColour(animal.getColour(), random.nextBoolean() ? "black" : "white");
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        for (Animal animal : animals) {
+            assertEquals(List.of(animal), registry.query().named(animal.getName())
+                    .ageBetween(animal.getAge(), animal.getAge())
+                    .weightBetween(animal.getWeight(), animal.getWeight())
+                    .colour(animal.getColour())
+                    .list());
+        }
+        assertEquals(animals.size(), registry.query().ageBetween(Integer.MIN_VALUE, Integer.MAX_VALUE).count());
+        assertEquals(animals.size(), registry.query().weightBetween(Float.NEGATIVE_INFINITY, Float.POSITIVE_INFINITY).count());
+        assertEquals(animals.size(), registry.query().colour("black").count() + registry.query().colour("white").count()
+                + registry.query().colour("brown").count() + registry.query().colour("grey").count());
+    }
+
+    @Test
+    void weightRangesMatchAScan() {
+        Random random = new Random(7);
+        List<Animal> animals = new ArrayList<>();
+        AnimalRegistry registry = new AnimalRegistry();
+        for (int i = 0; i < 5_000; i++) {
+            float weight = random.nextInt(8) == 0 ? random.nextInt(40) : random.nextFloat() * 200F - 20F;
+            Animal dog = new Dog("Dog " + i, 1, weight, "brown", true, "kennel");
+            animals.add(dog);
+            registry.add(dog);
+        }
+        animals.get(0).setWeight(-0.0F);
+        animals.get(1).setWeight(0.0F);
+        animals.get(2).setWeight(Float.NaN);
+
+        float[][] ranges = {
+            {0F, 0F}, {-0.0F, 0F}, {10F, 10F}, {9.99F, 10.01F}, {-20F, 0F}, {3.5F, 150.25F},
+            {Float.NEGATIVE_INFINITY, Float.POSITIVE_INFINITY}, {5F, 4F}, {Float.NaN, 1F},
+        };
+        for (float[] range : ranges) {
+            float min = range[0];
+            float max = range[1];
+            long expected = min <= max ? animals.stream()
+                    .filter(a -> Float.compare(a.getWeight(), min) >= 0 && Float.compare(a.getWeight(), max) <= 0)
+                    .count() : 0;
+            assertEquals(expected, registry.query().weightBetween(min, max).count(), min + ".." + max);
+        }
+    }
+
+    @Test
+    void removeUnindexesTheValuesTheRowWasFiledUnder() {
+        Dog dog = new Dog("Rex", 3, 20F, "brown", true, "kennel");
+        AnimalRegistry registry = new AnimalRegistry();
+        registry.add(dog);
+        dog.setAge(4);
+        dog.setName("Max");
+        assertTrue(registry.remove(dog));
+
+        assertEquals(0, registry.query().ageBetween(0, 100).count());
+        assertEquals(0, registry.named("Rex").size() + registry.named("Max").size());
+        assertEquals(0, registry.query().colour("brown").count());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package animals.index;
+
+import animals.Animal;
+import animals.Cat;
+import animals.Dog;
+import org.junit.jupiter.api.Test;
+
+import java.util.AbstractCollection;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class NameSearchIndexTest {
+
+    @Test
+    void aRenameWhileAddAllReadsTheNamesIsNotLost() {
+        Dog dog = new Dog("Rex", 3, 20F, "brown", true, "kennel");
+        Cat cat = new Cat("Tom", 2, 4F, "grey", false, "house");
+        List<Animal> animals = List.of(dog, cat);
+        // Renames the dog once every name has been read, before the index observes it
+        AbstractCollection<Animal> population = new AbstractCollection<>() {
+            @Override
+            public Iterator<Animal> iterator() {
+                Iterator<Animal> iterator = animals.iterator();
+                return new Iterator<>() {
+                    @Override
+                    public boolean hasNext() {
+                        if (iterator.hasNext()) {
+                            return true;
+                        }
+                        dog.setName("Max");
+                        return false;
+                    }
+
+                    @Override
+                    public Animal next() {
+                        return iterator.next();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return animals.size();
+            }
+        };
+
+        NameSearchIndex index = NameSearchIndex.of(population);
+        assertEquals(List.of(), index.named("Rex"));
+        assertEquals(List.of(dog), index.named("Max"));
+
+        dog.setName("Bud");
+        assertEquals(List.of(), index.named("Max"));
+        assertEquals(List.of(dog), index.named("Bud"));
+        assertEquals(List.of(cat), index.named("Tom"));
+    }
+
+    @Test
+    void renamesAreTrackedAfterAdd() {
+        Dog dog = new Dog("Rex", 3, 20F, "brown", true, "kennel");
+        NameSearchIndex index = new NameSearchIndex();
+        index.add(dog);
+        dog.setName("Max");
+        dog.compareAndSetName("Max", "Bud");
+
+        assertEquals(List.of(), index.named("Rex"));
+        assertEquals(List.of(), index.named("Max"));
+        assertEquals(List.of(dog), index.named("Bud"));
+        assertEquals(1, index.size());
+    }
+}
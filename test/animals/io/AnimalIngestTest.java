@@ -0,0 +1,123 @@
+package animals.io;
+
+import animals.Animal;
+import animals.Bird;
+import animals.Cat;
+import animals.Dog;
+import animals.Fish;
+import animals.store.AnimalStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AnimalIngestTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void csvSplitAcrossManyChunksLoadsEveryRowAndRejectsTheRest() throws Exception {
+        StringBuilder csv = new StringBuilder("﻿home,species,name,age,weight,colour,friendly,numberOfWings,canFly,numberOfFins\r\n");
+        List<String> expected = new ArrayList<>();
+        int bad = 0;
+        for (int i = 0; i < 2_000; i++) {
+            int   age    = i % 20;
+            float weight = i % 50 + 0.5F;
+            switch (i % 4) {
+                case 0 -> {
+                    csv.append("kennel,dog,\"Rex, No. ").append(i).append("\",").append(age).append(',')
+                       .append(weight).append(",brown,true,,,\r\n");
+                    expected.add(new Dog("Rex, No. " + i, age, weight, "brown", true, "kennel").toString());
+                }
+                case 1 -> {
+                    csv.append("house,CAT,Tom ").append(i).append(',').append(age).append(',')
+                       .append(weight).append(",grey,false,,,\n");
+                    expected.add(new Cat("Tom " + i, age, weight, "grey", false, "house").toString());
+                }
+                case 2 -> {
+                    csv.append("tree,bird,Tweety ").append(i).append(',').append(age).append(',')
+                       .append(weight).append(",yellow,true,2,true,\n");
+                    expected.add(new Bird("Tweety " + i, age, weight, "yellow", true, "tree", 2, true).toString());
+                }
+                default -> {
+                    csv.append("pond,fish,Nemo ").append(i).append(',').append(age).append(',')
+                       .append(weight).append(",orange,true,,,6\n");
+                    expected.add(new Fish("Nemo " + i, age, weight, "orange", true, "pond", 6).toString());
+                }
+            }
+            if (i % 97 == 0) {
+                csv.append("pond,fish,Broken ").append(i).append(",old,1.0,gold,true,,,4\n\n");
+                bad++;
+            }
+        }
+        csv.append("pond,fish,").append("x".repeat(400)).append(",1,1.0,gold,true,,,4\n");
+        bad++;
+        csv.append("kennel,dog,Last,1,2.5,black,true,,,");   // no final line break
+        expected.add(new Dog("Last", 1, 2.5F, "black", true, "kennel").toString());
+
+        Path file    = directory.resolve("animals.csv");
+        Path rejects = directory.resolve("animals.rejects");
+        byte[] bytes = csv.toString().getBytes(StandardCharsets.UTF_8);
+        Files.write(file, bytes);
+
+        List<Animal> loaded = Collections.synchronizedList(new ArrayList<>());
+        IngestReport report = AnimalIngest.builder()
+                .threads(3)
+                .chunkBytes(256)
+                .rejects(rejects)
+                .build()
+                .ingest(file, loaded::addAll);
+
+        assertEquals(expected.size(), report.rows());
+        assertEquals(bad, report.rejected());
+        assertEquals(bytes.length, report.bytes());
+        Collections.sort(expected);
+        assertEquals(expected, loaded.stream().map(Animal::toString).sorted().toList());
+
+        List<String> lines = Files.readAllLines(rejects);
+        assertEquals(bad, lines.size());
+        for (String line : lines) {
+            String[] parts = line.split("\t", 3);
+            int offset = Integer.parseInt(parts[0]);
+            String text = parts[2].endsWith("...") ? parts[2].substring(0, parts[2].length() - 3) : parts[2];
+            assertEquals(text, new String(Arrays.copyOfRange(bytes, offset, offset + text.getBytes(StandardCharsets.UTF_8).length),
+                    StandardCharsets.UTF_8), line);
+            assertTrue(parts[1].equals("bad age 'old'") || parts[1].startsWith("line longer than"), line);
+        }
+    }
+
+    @Test
+    void ndjsonIntoAStoreCountsRejectsWithoutARejectFile() throws Exception {
+        Path file = directory.resolve("animals.ndjson");
+        Files.writeString(file, """
+                {"species":"dog","name":"Rex","age":3,"weight":20.5,"colour":"brown","friendly":true,"home":"kennel"}
+                {"species":"bird","name":"Tweety","age":1,"weight":0.5,"colour":"yellow","friendly":true,"home":"cage","numberOfWings":2,"canFly":false,"extra":"ignored"}
+                {"species":"fish","name":"Nemo","age":2,"weight":0.25,"colour":"orange","friendly":true,"home":"pond"}
+                {"species":"cat","name":"Tom \\"the\\" Cat","age":5,"weight":4.0,"colour":"grey","friendly":false,"home":"house"}
+                """);
+
+        AnimalStore store = new AnimalStore();
+        IngestReport report = AnimalIngest.builder().build().ingestInto(file, store);
+
+        assertEquals(3, report.rows());
+        assertEquals(1, report.rejected());
+        List<String> stored = new ArrayList<>();
+        for (int row = 0; row < store.size(); row++) {
+            stored.add(store.get(row).toString());
+        }
+        assertEquals(List.of(
+                new Dog("Rex", 3, 20.5F, "brown", true, "kennel").toString(),
+                new Bird("Tweety", 1, 0.5F, "yellow", true, "cage", 2, false).toString(),
+                new Cat("Tom \"the\" Cat", 5, 4F, "grey", false, "house").toString()), stored);
+    }
+}
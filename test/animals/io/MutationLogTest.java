@@ -0,0 +1,103 @@
+package animals.io;
+
+import animals.Animal;
+import animals.AnimalObserver;
+import animals.Bird;
+import animals.Dog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MutationLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void lateAgeCallbackDoesNotLogAStaleAge() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try (MutationLog log = MutationLog.builder(directory).open()) {
+            Dog dog = new Dog("Rex", 0, 20F, "brown", true, "kennel");
+            // Attached before the log, so it holds up the log's callback for 0 -> 1
+            dog.addObserver(new AnimalObserver() {
+                @Override
+                public void ageChanged(Animal animal, int oldAge, int newAge) {
+                    if (newAge == 1) {
+                        entered.countDown();
+                        await(release);
+                    }
+                }
+            });
+            log.track(dog);
+
+            Thread first = Thread.ofPlatform().start(() -> dog.compareAndSetAge(0, 1));
+            assertTrue(entered.await(10, TimeUnit.SECONDS));
+            assertTrue(dog.compareAndSetAge(1, 2));
+            release.countDown();
+            first.join();
+            assertEquals(2, dog.getAge());
+        }
+
+        try (MutationLog log = MutationLog.builder(directory).open()) {
+            assertEquals(1, log.recovered().size());
+            assertEquals(2, log.recovered().get(0).getAge());
+        }
+    }
+
+    @Test
+    void concurrentAtomicUpdatesRecoverToTheFinalState() throws Exception {
+        List<Animal> animals = new ArrayList<>();
+        try (MutationLog log = MutationLog.builder(directory).commit(MutationLog.Commit.ASYNC).open()) {
+            for (int i = 0; i < 4; i++) {
+                Animal animal = i % 2 == 0 ? new Dog("Dog " + i, 0, 10F, "brown", true, "kennel")
+                                           : new Bird("Bird " + i, 0, 1F, "blue", true, "tree", 2, true);
+                log.track(animal);
+                animals.add(animal);
+            }
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                threads.add(Thread.ofPlatform().start(() -> {
+                    for (int i = 0; i < 1_000; i++) {
+                        Animal animal = animals.get(i % animals.size());
+                        animal.getAndAddAge(1);
+                        animal.addAndGetWeight(0.5F);
+                        if (animal instanceof Bird bird) {
+                            int wings = bird.getNumberOfWings();
+                            bird.compareAndSetNumberOfWings(wings, wings + 1);
+                        }
+                    }
+                }));
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            log.sync();
+        }
+
+        try (MutationLog log = MutationLog.builder(directory).open()) {
+            List<Animal> recovered = log.recovered();
+            assertEquals(animals.size(), recovered.size());
+            for (Animal animal : animals) {
+                Animal copy = recovered.stream().filter(a -> a.getName().equals(animal.getName())).findFirst().orElseThrow();
+                assertEquals(animal.toString(), copy.toString());
+            }
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
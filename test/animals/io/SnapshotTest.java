@@ -0,0 +1,54 @@
+package animals.io;
+
+import animals.Bird;
+import animals.Dog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void anAnimalThatCannotBeEncodedLeavesNoRecord() throws IOException {
+        Path path = directory.resolve("animals.snap");
+        Dog  dog  = new Dog("Rex", 3, 20F, "brown", true, "kennel");
+        Bird bird = new Bird("Tweety", 1, 0.5F, "yellow", true, null, 2, true);
+        try (SnapshotWriter writer = SnapshotWriter.create(path)) {
+            writer.append(dog);
+            assertThrows(NullPointerException.class, () -> writer.append(null));
+            writer.append(bird);
+        }
+
+        try (SnapshotReader reader = SnapshotReader.open(path)) {
+            assertEquals(2, reader.size());
+            assertEquals(dog.toString(), reader.get(0).toString());
+            assertEquals(bird.toString(), reader.get(1).toString());
+        }
+    }
+
+    @Test
+    void aNegativeStringLengthIsReportedAsCorrupt() throws IOException {
+        Path path = directory.resolve("animals.snap");
+        SnapshotWriter.write(path, List.of(new Dog("Rex", 3, 20F, "brown", true, "kennel")));
+        // The name's length follows the 14 fixed bytes of the first record
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(0, -7), SnapshotFormat.HEADER_SIZE + 14);
+        }
+
+        try (SnapshotReader reader = SnapshotReader.open(path)) {
+            assertThrows(IllegalStateException.class, () -> reader.get(0));
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package animals.query;
+
+import animals.Animal;
+import animals.Dog;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ParallelQueryTest {
+
+    @Test
+    void topKMatchesASortForSmallAndHugeK() {
+        Random random = new Random(5);
+        List<Animal> animals = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            // Few distinct weights, so ties are decided by list order
+            animals.add(new Dog("Dog " + i, 1, random.nextInt(500) / 4F, "brown", true, "kennel"));
+        }
+        List<Animal> sorted = animals.stream()
+                .sorted(Comparator.comparingDouble(Animal::getWeight).reversed())
+                .toList();
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int k : new int[] {0, 1, 10, 1_000, 50_000, 1_000_000}) {
+                List<Animal> top = ParallelQuery.over(animals).pool(pool).topK(k, Animal::getWeight);
+                assertEquals(sorted.subList(0, Math.min(k, sorted.size())), top, "k=" + k);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
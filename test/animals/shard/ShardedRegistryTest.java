@@ -0,0 +1,228 @@
+package animals.shard;
+
+import animals.Animal;
+import animals.Bird;
+import animals.Cat;
+import animals.Dog;
+import animals.Fish;
+import animals.Species;
+import animals.index.AnimalRegistry;
+import animals.query.ParallelQuery;
+import animals.query.SpeciesStats;
+import animals.query.Stats;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs {@link ShardedRegistry} against real worker JVMs on this machine and
+ * checks every answer against one in-process {@link AnimalRegistry}.
+ */
+class ShardedRegistryTest {
+
+    private static final String[] COLOURS = {"brown", "black", "white", "ginger", "grey"};
+    private static final String[] HOMES   = {"kennel", "house", "pond", "tree", "cage"};
+
+    private static List<Animal> population(int size, long seed) {
+        Random random = new Random(seed);
+        List<Animal> animals = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String  name     = "Pet " + random.nextInt(size * 3 / 4);
+            int     age      = random.nextInt(20);
+            float   weight   = random.nextInt(1000) / 10F;
+            String  colour   = COLOURS[random.nextInt(COLOURS.length)];
+            String  home     = HOMES[random.nextInt(HOMES.length)];
+            boolean friendly = random.nextBoolean();
+            animals.add(switch (i % 4) {
+                case 0  -> new Dog(name, age, weight, colour, friendly, home);
+                case 1  -> new Cat(name, age, weight, colour, friendly, home);
+                case 2  -> new Bird(name, age, weight, colour, friendly, home, 2, random.nextBoolean());
+                default -> new Fish(name, age, weight, colour, friendly, home, 4);
+            });
+        }
+        return animals;
+    }
+
+    /** Animals compared by their descriptions, which cover every field, in a fixed order. */
+    private static List<String> described(List<Animal> animals) {
+        return animals.stream().map(Animal::toString).sorted().toList();
+    }
+
+    /** Asserts that both registries give the same answers to a spread of queries. */
+    private static void assertSameAnswers(AnimalRegistry expected, ShardedRegistry actual, List<Animal> animals) {
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected.size(), actual.shardSizes().values().stream().mapToInt(Integer::intValue).sum());
+
+        List<Function<AnimalRegistry.Query, AnimalRegistry.Query>> local = List.of(
+                q -> q.species(Species.DOG).colour("brown").friendly(true),
+                q -> q.home("pond").ageBetween(3, 9),
+                q -> q.friendly(false).weightBetween(10F, 55.5F),
+                q -> q.species(Species.BIRD));
+        List<Function<ShardedRegistry.Query, ShardedRegistry.Query>> sharded = List.of(
+                q -> q.species(Species.DOG).colour("brown").friendly(true),
+                q -> q.home("pond").ageBetween(3, 9),
+                q -> q.friendly(false).weightBetween(10F, 55.5F),
+                q -> q.species(Species.BIRD));
+        for (int i = 0; i < local.size(); i++) {
+            List<Animal> matches = local.get(i).apply(expected.query()).list();
+            assertEquals(matches.size(), sharded.get(i).apply(actual.query()).count());
+            assertEquals(described(matches), described(sharded.get(i).apply(actual.query()).list()));
+            for (ShardedRegistry.Measure measure : ShardedRegistry.Measure.values()) {
+                assertSameStats(ParallelQuery.over(matches).groupBySpecies(measure.function),
+                        sharded.get(i).apply(actual.query()).stats(measure));
+            }
+        }
+        for (int i = 0; i < animals.size(); i += 997) {
+            String name = animals.get(i).getName();
+            assertEquals(described(expected.named(name)), described(actual.named(name)));
+        }
+    }
+
+    private static void assertSameStats(SpeciesStats expected, SpeciesStats actual) {
+        for (Species species : Species.values()) {
+            Stats e = expected.get(species);
+            Stats a = actual.get(species);
+            assertEquals(e.count(), a.count(), species.name());
+            assertEquals(e.sum(), a.sum(), 1e-6 * Math.max(1, Math.abs(e.sum())), species.name());
+            assertEquals(e.min(), a.min(), species.name());
+            assertEquals(e.max(), a.max(), species.name());
+        }
+    }
+
+    @Test
+    void matchesOneRegistryWhileShardsAreAddedAndRemoved() throws IOException {
+        List<Animal> animals = population(20_000, 1);
+        AnimalRegistry expected = new AnimalRegistry();
+        expected.addAll(animals);
+
+        try (ShardedRegistry registry = ShardedRegistry.builder().shards(2).jvmOptions("-Xmx256m").build()) {
+            registry.addAll(animals);
+            assertSameAnswers(expected, registry, animals);
+
+            int moved = registry.addShard();
+            assertTrue(moved > 0 && moved < animals.size() / 2, "moved " + moved);
+            assertEquals(3, registry.shardSizes().size());
+            assertSameAnswers(expected, registry, animals);
+
+            registry.removeShard(0);
+            assertEquals(2, registry.shardSizes().size());
+            assertSameAnswers(expected, registry, animals);
+
+            String name = animals.get(0).getName();
+            List<Animal> named = expected.named(name);
+            named.forEach(expected::remove);
+            assertEquals(named.size(), registry.remove(name));
+            assertSameAnswers(expected, registry, animals);
+        }
+    }
+
+    @Test
+    void attachesToWorkersStartedByHand() throws Exception {
+        List<Animal> animals = population(5_000, 2);
+        AnimalRegistry expected = new AnimalRegistry();
+        expected.addAll(animals);
+
+        List<Process> workers = new ArrayList<>();
+        try {
+            InetSocketAddress[] addresses = new InetSocketAddress[2];
+            for (int i = 0; i < addresses.length; i++) {
+                Process worker = startWorker();
+                workers.add(worker);
+                addresses[i] = new InetSocketAddress(InetAddress.getLoopbackAddress(), port(worker));
+            }
+            try (ShardedRegistry registry = ShardedRegistry.builder().workers(addresses).build()) {
+                registry.addAll(animals);
+                assertSameAnswers(expected, registry, animals);
+            }
+            // A second coordinator over the same workers sees the same animals
+            try (ShardedRegistry registry = ShardedRegistry.builder().workers(addresses).build()) {
+                assertSameAnswers(expected, registry, animals);
+            }
+        } finally {
+            workers.forEach(Process::destroyForcibly);
+        }
+    }
+
+    @Test
+    void aFailedMoveLeavesTheAnimalsWhereTheyWere() throws Exception {
+        List<Animal> animals = population(5_000, 3);
+        AnimalRegistry expected = new AnimalRegistry();
+        expected.addAll(animals);
+
+        List<Process> workers = new ArrayList<>();
+        try {
+            InetSocketAddress[] addresses = new InetSocketAddress[2];
+            for (int i = 0; i < addresses.length; i++) {
+                Process worker = startWorker();
+                workers.add(worker);
+                addresses[i] = new InetSocketAddress(InetAddress.getLoopbackAddress(), port(worker));
+            }
+            try (ShardedRegistry registry = ShardedRegistry.builder().workers(addresses).build()) {
+                registry.addAll(animals);
+                int onFirst = registry.shardSizes().get(0);
+                ConsistentHashRing ring = registry.ring();
+
+                // Shard 0's animals can only move to shard 1, which is gone
+                workers.get(1).destroyForcibly().waitFor();
+                assertThrows(RuntimeException.class, () -> registry.removeShard(0));
+
+                assertSame(ring, registry.ring());
+                int found = 0;
+                for (String name : animals.stream().map(Animal::getName).distinct().toList()) {
+                    if (ring.shardFor(name) == 0) {
+                        List<Animal> named = registry.named(name);
+                        assertEquals(described(expected.named(name)), described(named));
+                        found += named.size();
+                    }
+                }
+                assertEquals(onFirst, found);
+            }
+        } finally {
+            workers.forEach(Process::destroyForcibly);
+        }
+    }
+
+    @Test
+    void rejectsTooManyVirtualNodesBeforeStartingWorkers() {
+        assertThrows(IllegalArgumentException.class,
+                () -> ShardedRegistry.builder().virtualNodes(ConsistentHashRing.MAX_VIRTUAL_NODES + 1));
+    }
+
+    /** Starts {@code ShardWorker} in its own JVM, as an operator would by hand. */
+    private static Process startWorker() throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        for (String argument : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            if (argument.equals("--enable-preview") || argument.startsWith("--add-modules")) {
+                command.add(argument);
+            }
+        }
+        command.addAll(List.of("-Xmx256m", "-cp", System.getProperty("java.class.path"),
+                ShardWorker.class.getName(), "0"));
+        return new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+    }
+
+    /** Reads the port from the worker's {@code LISTENING} line. */
+    private static int port(Process worker) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(worker.getInputStream(), StandardCharsets.UTF_8));
+        String line = reader.readLine();
+        assertTrue(line != null && line.startsWith("LISTENING "), "worker printed " + line);
+        return Integer.parseInt(line.substring("LISTENING ".length()).trim());
+    }
+}
@@ -0,0 +1,24 @@
+package animals.sketch;
+
+import animals.Dog;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AnimalSketchesTest {
+
+    @Test
+    void aMergeWithDifferentSettingsChangesNothing() {
+        AnimalSketches target = AnimalSketches.builder().build();
+        AnimalSketches other  = AnimalSketches.builder().quantileK(400).build();
+        target.add(new Dog("Rex", 3, 20F, "brown", true, "kennel"));
+        other.add(new Dog("Max", 5, 30F, "black", true, "house"));
+
+        assertThrows(IllegalArgumentException.class, () -> target.merge(other));
+        assertEquals(1, target.count());
+        assertEquals(1, target.colours().estimate());
+        assertEquals(1, target.homes().estimate());
+        assertEquals(1, target.weights().count());
+    }
+}
@@ -0,0 +1,92 @@
+package animals.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CountMinSketchTest {
+
+    private static final int DISTINCT = 50_000;
+
+    /** Counts with a long tail: name {@code i} appears about {@code 20,000 / (i + 1)} times. */
+    private static int[] zipfCounts() {
+        int[] counts = new int[DISTINCT];
+        for (int i = 0; i < DISTINCT; i++) {
+            counts[i] = Math.max(1, 20_000 / (i + 1));
+        }
+        return counts;
+    }
+
+    /** Every occurrence of every name, shuffled. */
+    private static List<String> stream(int[] counts) {
+        List<String> stream = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            for (int c = 0; c < counts[i]; c++) {
+                stream.add("name-" + i);
+            }
+        }
+        java.util.Collections.shuffle(stream, new Random(5));
+        return stream;
+    }
+
+    private static void assertWithinBound(CountMinSketch sketch, int[] counts) {
+        long slack = (long) Math.ceil(sketch.epsilon() * sketch.total());
+        int over = 0;
+        for (int i = 0; i < counts.length; i++) {
+            long estimate = sketch.estimate("name-" + i);
+            assertTrue(estimate >= counts[i], "undercounted name-" + i);
+            if (estimate > counts[i] + slack) {
+                over++;
+            }
+        }
+        // Each estimate exceeds the bound with probability at most delta
+        assertTrue(over <= sketch.delta() * counts.length, over + " estimates over the bound");
+    }
+
+    @Test
+    void estimatesNeverUndercountAndRarelyExceedTheBound() {
+        int[] counts = zipfCounts();
+        CountMinSketch sketch = new CountMinSketch();
+        for (String name : stream(counts)) {
+            sketch.add(name);
+        }
+        assertEquals(4_096, sketch.width());
+        assertEquals(5, sketch.depth());
+        assertWithinBound(sketch, counts);
+    }
+
+    @Test
+    void sketchesMergedAcrossThreadsEqualOneSketchOfEverything() throws InterruptedException {
+        int[] counts = zipfCounts();
+        List<String> stream = stream(counts);
+        int threads = 4;
+        List<CountMinSketch> shards = new ArrayList<>();
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            CountMinSketch shard = new CountMinSketch();
+            shards.add(shard);
+            List<String> part = stream.subList(t * stream.size() / threads, (t + 1) * stream.size() / threads);
+            workers.add(Thread.ofPlatform().start(() -> part.forEach(shard::add)));
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        CountMinSketch whole = new CountMinSketch();
+        stream.forEach(whole::add);
+        CountMinSketch merged = new CountMinSketch();
+        for (CountMinSketch shard : shards) {
+            merged.merge(shard);
+        }
+
+        assertEquals(whole.total(), merged.total());
+        for (int i = 0; i < DISTINCT; i += 97) {
+            assertEquals(whole.estimate("name-" + i), merged.estimate("name-" + i));
+        }
+        assertWithinBound(merged, counts);
+    }
+}
@@ -0,0 +1,91 @@
+package animals.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HeavyHittersTest {
+
+    private static final int K = 20;
+
+    /** About 1.2M names: a Zipf-like head of 1,000 names and a tail of 200,000 rare ones. */
+    private static List<String> stream() {
+        List<String> stream = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            for (int c = 50_000 / (i + 1); c > 0; c--) {
+                stream.add("Pet " + i);
+            }
+        }
+        for (int i = 0; i < 200_000; i++) {
+            stream.add("Rare " + i);
+            stream.add("Rare " + i);
+        }
+        Collections.shuffle(stream, new Random(9));
+        return stream;
+    }
+
+    private static void assertReportsTheHeavyNames(HeavyHitters hitters, List<String> stream) {
+        Map<String, Long> exact = new HashMap<>();
+        for (String name : stream) {
+            exact.merge(name, 1L, Long::sum);
+        }
+        List<Long> sorted = new ArrayList<>(exact.values());
+        sorted.sort(Collections.reverseOrder());
+        long kth   = sorted.get(K - 1);
+        long slack = (long) Math.ceil(hitters.counts().epsilon() * hitters.total());
+
+        List<HeavyHitters.Entry> top = hitters.top();
+        assertEquals(K, top.size());
+        List<String> reported = top.stream().map(HeavyHitters.Entry::name).toList();
+        for (Map.Entry<String, Long> name : exact.entrySet()) {
+            // The documented guarantee: a count more than slack above the k-th largest is reported
+            if (name.getValue() > kth + slack) {
+                assertTrue(reported.contains(name.getKey()), name.getKey() + " missing");
+            }
+        }
+        for (HeavyHitters.Entry entry : top) {
+            long count = exact.get(entry.name());
+            assertTrue(entry.estimate() >= count && entry.estimate() <= count + slack, entry.toString());
+        }
+    }
+
+    @Test
+    void reportsEveryNameClearlyAboveTheKthCount() {
+        List<String> stream = stream();
+        HeavyHitters hitters = new HeavyHitters(K);
+        stream.forEach(hitters::add);
+        assertEquals(stream.size(), hitters.total());
+        assertReportsTheHeavyNames(hitters, stream);
+    }
+
+    @Test
+    void trackersMergedAcrossShardsReportTheSameNames() throws InterruptedException {
+        List<String> stream = stream();
+        int shards = 4;
+        List<HeavyHitters> trackers = new ArrayList<>();
+        List<Thread> workers = new ArrayList<>();
+        for (int s = 0; s < shards; s++) {
+            HeavyHitters tracker = new HeavyHitters(K);
+            trackers.add(tracker);
+            List<String> part = stream.subList(s * stream.size() / shards, (s + 1) * stream.size() / shards);
+            workers.add(Thread.ofPlatform().start(() -> part.forEach(tracker::add)));
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        HeavyHitters merged = new HeavyHitters(K);
+        for (HeavyHitters tracker : trackers) {
+            merged.merge(tracker);
+        }
+        assertEquals(stream.size(), merged.total());
+        assertReportsTheHeavyNames(merged, stream);
+    }
+}
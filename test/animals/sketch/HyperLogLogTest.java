@@ -0,0 +1,97 @@
+package animals.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HyperLogLogTest {
+
+    @Test
+    void estimatesStayWithinTheStandardErrorAtEveryScale() {
+        for (int precision : new int[] {12, 14, 16}) {
+            for (int distinct : new int[] {1_000, 10_000, 100_000, 1_000_000}) {
+                HyperLogLog sketch = new HyperLogLog(precision);
+                for (int i = 0; i < distinct; i++) {
+                    sketch.add("animal-" + i);
+                }
+                double error = Math.abs(sketch.estimate() - distinct) / (double) distinct;
+                // 3 standard errors: a single estimate falls outside with probability 0.3%
+                assertTrue(error <= 3 * sketch.standardError(),
+                        "precision " + precision + ", " + distinct + " distinct: error " + error);
+            }
+        }
+    }
+
+    @Test
+    void aboutNineteenInTwentyEstimatesFallWithinTwoStandardErrors() {
+        int trials = 100;
+        int within = 0;
+        double squares = 0;
+        for (int trial = 0; trial < trials; trial++) {
+            HyperLogLog sketch = new HyperLogLog(12);
+            for (int i = 0; i < 20_000; i++) {
+                sketch.add(trial + ":" + i);
+            }
+            double error = (sketch.estimate() - 20_000) / 20_000.0;
+            squares += error * error;
+            if (Math.abs(error) <= 2 * sketch.standardError()) {
+                within++;
+            }
+        }
+        assertTrue(within >= 88, within + " of " + trials + " within 2 standard errors");
+        assertTrue(Math.sqrt(squares / trials) <= 1.25 * new HyperLogLog(12).standardError());
+    }
+
+    @Test
+    void smallCountsAreNearlyExactAndDuplicatesAreFree() {
+        HyperLogLog sketch = new HyperLogLog();
+        assertEquals(0, sketch.estimate());
+        for (int repeat = 0; repeat < 5; repeat++) {
+            for (int i = 0; i < 100; i++) {
+                sketch.add("colour-" + i);
+            }
+        }
+        assertTrue(Math.abs(sketch.estimate() - 100) <= 1, "estimate " + sketch.estimate());
+    }
+
+    @Test
+    void sketchesMergedAcrossThreadsEqualOneSketchOfEverything() throws InterruptedException {
+        int threads = 4;
+        List<HyperLogLog> shards = new ArrayList<>();
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            HyperLogLog shard = new HyperLogLog();
+            shards.add(shard);
+            int offset = t;
+            // Overlapping ranges, so the union has fewer distinct values than the shards in total
+            workers.add(Thread.ofPlatform().start(() -> {
+                for (int i = offset * 100_000; i < offset * 100_000 + 150_000; i++) {
+                    shard.add("home-" + i);
+                }
+            }));
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        HyperLogLog whole = new HyperLogLog();
+        for (int i = 0; i < 450_000; i++) {
+            whole.add("home-" + i);
+        }
+        HyperLogLog merged = new HyperLogLog();
+        for (HyperLogLog shard : shards) {
+            merged.merge(shard);
+        }
+
+        assertEquals(whole.estimate(), merged.estimate());
+        assertTrue(Math.abs(merged.estimate() - 450_000) / 450_000.0 <= 3 * merged.standardError());
+
+        ByteBuffer buffer = ByteBuffer.allocate(merged.encodedSize());
+        merged.encode(buffer);
+        assertEquals(merged.estimate(), HyperLogLog.decode(buffer.flip()).estimate());
+    }
+}
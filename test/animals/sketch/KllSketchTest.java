@@ -0,0 +1,114 @@
+package animals.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KllSketchTest {
+
+    /** The documented rank error for the default k, with 99% confidence. */
+    private static final double EPSILON = 0.0165;
+
+    private static final int N = 1_000_000;
+
+    /** The values 0 to n - 1 in random order, so the true rank of {@code v} is {@code v + 1}. */
+    private static float[] shuffled(int n, long seed) {
+        float[] values = new float[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = i;
+        }
+        Random random = new Random(seed);
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            float swap = values[i];
+            values[i] = values[j];
+            values[j] = swap;
+        }
+        return values;
+    }
+
+    private static void assertWithinRankError(KllSketch sketch, int n) {
+        for (int percent = 1; percent < 100; percent++) {
+            double q = percent / 100.0;
+            double trueRank = (sketch.quantile(q) + 1) / n;
+            assertTrue(Math.abs(trueRank - q) <= EPSILON, "quantile " + q + " has rank " + trueRank);
+            float value = (float) Math.floor(q * n);
+            assertTrue(Math.abs(sketch.rank(value) - (value + 1) / n) <= EPSILON, "rank of " + value);
+        }
+    }
+
+    @Test
+    void quantilesAndRanksStayWithinTheRankError() {
+        KllSketch sketch = new KllSketch();
+        for (float value : shuffled(N, 1)) {
+            sketch.add(value);
+        }
+        assertEquals(N, sketch.count());
+        assertEquals(0F, sketch.quantile(0));
+        assertEquals(N - 1F, sketch.quantile(1));
+        assertEquals(0F, sketch.min());
+        assertEquals(N - 1F, sketch.max());
+        assertTrue(sketch.retained() < 4 * sketch.k(), "retained " + sketch.retained());
+        assertWithinRankError(sketch, N);
+    }
+
+    @Test
+    void smallStreamsAreExact() {
+        KllSketch sketch = new KllSketch();
+        for (float value : shuffled(100, 2)) {
+            sketch.add(value);
+        }
+        assertEquals(49F, sketch.quantile(0.5));
+        assertEquals(0.5, sketch.rank(49F));
+        assertEquals(89F, sketch.quantile(0.9));
+    }
+
+    @Test
+    void sketchesMergedAcrossThreadsKeepTheRankError() throws InterruptedException {
+        float[] values = shuffled(N, 3);
+        int threads = 4;
+        List<KllSketch> shards = new ArrayList<>();
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            KllSketch shard = new KllSketch();
+            shards.add(shard);
+            int from = t * N / threads;
+            int to   = (t + 1) * N / threads;
+            workers.add(Thread.ofPlatform().start(() -> {
+                for (int i = from; i < to; i++) {
+                    shard.add(values[i]);
+                }
+            }));
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        KllSketch merged = new KllSketch();
+        for (KllSketch shard : shards) {
+            merged.merge(shard);
+        }
+
+        assertEquals(N, merged.count());
+        assertEquals(0F, merged.min());
+        assertEquals(N - 1F, merged.max());
+        assertWithinRankError(merged, N);
+    }
+
+    @Test
+    void mergingASketchIntoItselfCountsEveryValueTwice() {
+        KllSketch sketch = new KllSketch();
+        for (float value : shuffled(100_000, 4)) {
+            sketch.add(value);
+        }
+        float median = sketch.quantile(0.5);
+        sketch.merge(sketch);
+
+        assertEquals(200_000, sketch.count());
+        assertEquals(median, sketch.quantile(0.5), EPSILON * 100_000);
+    }
+}
@@ -0,0 +1,115 @@
+package animals.store;
+
+import animals.Animal;
+import animals.Bird;
+import animals.Cat;
+import animals.Dog;
+import animals.Fish;
+import animals.Species;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * A full cursor scan allocates nothing once warmed up, measured with the
+ * JVM's per-thread allocation counter.
+ */
+class AnimalCursorTest {
+
+    private static final int SIZE = 50_000;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static List<Animal> population() {
+        List<Animal> animals = new ArrayList<>(SIZE);
+        for (int i = 0; i < SIZE; i++) {
+            String name = "Pet " + i;
+            animals.add(switch (i % 4) {
+                case 0  -> new Dog(name, i % 20, i % 90, "brown", true, "kennel");
+                case 1  -> new Cat(name, i % 20, i % 9, "ginger", false, "house");
+                case 2  -> new Bird(name, i % 20, 0.5F, "blue", true, "tree", 2, i % 3 != 0);
+                default -> new Fish(name, i % 20, 0.1F, "gold", true, "pond", 4);
+            });
+        }
+        return animals;
+    }
+
+    /** Reads every attribute of every row, including the characters of the string views. */
+    private static long scan(AnimalCursor cursor) {
+        long sum = 0;
+        cursor.reset();
+        while (cursor.next()) {
+            sum += cursor.getSpecies().ordinal() + cursor.getAge() + (long) cursor.getWeight();
+            sum += cursor.isFriendly() ? 1 : 0;
+            sum += chars(cursor.name()) + chars(cursor.colour()) + chars(cursor.home());
+            if (cursor.getSpecies() == Species.BIRD) {
+                sum += cursor.getNumberOfWings() + (cursor.canFly() ? 1 : 0);
+            } else if (cursor.getSpecies() == Species.FISH) {
+                sum += cursor.getNumberOfFins();
+            }
+        }
+        return sum;
+    }
+
+    private static long chars(CharSequence text) {
+        long sum = 0;
+        for (int i = 0; i < text.length(); i++) {
+            sum += text.charAt(i);
+        }
+        return sum;
+    }
+
+    /** Warms the scan up, then returns the bytes the current thread allocates during one more. */
+    private static long allocatedByScan(AnimalCursor cursor, long expected) {
+        for (int i = 0; i < 50; i++) {
+            assertEquals(expected, scan(cursor));
+        }
+        long before = THREADS.getCurrentThreadAllocatedBytes();
+        long sum    = scan(cursor);
+        long after  = THREADS.getCurrentThreadAllocatedBytes();
+        assertEquals(expected, sum);
+        // The counter read itself may allocate; measure that with no scan in between
+        long overhead = THREADS.getCurrentThreadAllocatedBytes();
+        overhead = THREADS.getCurrentThreadAllocatedBytes() - overhead;
+        return after - before - overhead;
+    }
+
+    private static long expectedSum(List<Animal> animals) {
+        long sum = 0;
+        for (Animal animal : animals) {
+            sum += Species.of(animal).ordinal() + animal.getAge() + (long) animal.getWeight();
+            sum += animal.isFriendly() ? 1 : 0;
+            sum += chars(animal.getName()) + chars(animal.getColour()) + chars(animal.getHome());
+            if (animal instanceof Bird bird) {
+                sum += bird.getNumberOfWings() + (bird.canFly() ? 1 : 0);
+            } else if (animal instanceof Fish fish) {
+                sum += fish.getNumberOfFins();
+            }
+        }
+        return sum;
+    }
+
+    @Test
+    void storeCursorScanAllocatesNothing() {
+        List<Animal> animals = population();
+        AnimalStore store = new AnimalStore(SIZE);
+        animals.forEach(store::add);
+
+        assertEquals(0, allocatedByScan(store.cursor(), expectedSum(animals)));
+    }
+
+    @Test
+    void offHeapCursorScanAllocatesNothing() {
+        List<Animal> animals = population();
+        try (OffHeapPopulation population = OffHeapPopulation.allocate(SIZE, 64L * SIZE)) {
+            animals.forEach(population::add);
+
+            assertEquals(0, allocatedByScan(population.cursor(), expectedSum(animals)));
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package animals.store;
+
+import animals.Dog;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AnimalStoreTest {
+
+    @Test
+    void aFailedAddLeavesNoRow() {
+        AnimalStore store = new AnimalStore(1);
+        store.add(new Dog("Rex", 3, 20F, "brown", true, "kennel"));
+
+        assertThrows(NullPointerException.class, () -> store.add(null));
+        assertEquals(1, store.size());
+        assertEquals(20.0, store.totalWeight());
+
+        Dog max = new Dog("Max", 5, 30F, "black", true, "house");
+        assertEquals(1, store.add(max));
+        assertEquals(max.toString(), store.get(1).toString());
+    }
+}
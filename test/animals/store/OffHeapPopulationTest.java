@@ -0,0 +1,49 @@
+package animals.store;
+
+import animals.Animal;
+import animals.Bird;
+import animals.Dog;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class OffHeapPopulationTest {
+
+    @Test
+    void addThatExhaustsTheStringHeapLeavesNoRecordBehind() {
+        // "Rex" + "brown" + "kennel" is 14 bytes; the third animal does not fit
+        try (OffHeapPopulation population = OffHeapPopulation.allocate(10, 40)) {
+            Animal rex = new Dog("Rex", 3, 20F, "brown", true, "kennel");
+            population.add(rex);
+            population.add(rex);
+
+            assertThrows(IllegalStateException.class, () -> population.add(rex));
+            assertEquals(2, population.size());
+            OffHeapPopulation.Cursor cursor = population.cursor();
+            for (int row = 0; row < 2; row++) {
+                cursor.next();
+                assertEquals(rex.toString(), cursor.toAnimal().toString());
+            }
+            assertFalse(cursor.next());
+
+            // The failed add reserved nothing: 12 bytes are still free
+            Animal tweety = new Bird("Tw", 1, 0.1F, "blue", true, "tree", 2, true);
+            assertEquals(2, population.add(tweety));
+            assertEquals(tweety.toString(), population.get(2).toString());
+        }
+    }
+
+    @Test
+    void setterThatExhaustsTheStringHeapKeepsTheOldValue() {
+        try (OffHeapPopulation population = OffHeapPopulation.allocate(1, 20)) {
+            population.add(new Dog("Rex", 3, 20F, "brown", true, "kennel"));
+
+            assertThrows(IllegalStateException.class, () -> population.setName(0, "Maximilian"));
+            assertEquals("Rex", population.getName(0));
+            population.setName(0, "Max");
+            assertEquals("Max", population.getName(0));
+        }
+    }
+}